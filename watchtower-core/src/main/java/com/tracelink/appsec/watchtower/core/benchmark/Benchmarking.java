@@ -3,6 +3,7 @@ package com.tracelink.appsec.watchtower.core.benchmark;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * manages all benchmarks for a given execution.
@@ -15,6 +16,8 @@ public class Benchmarking<T> {
 	private Map<TimerType, Benchmark> benchmarks = new ConcurrentHashMap<>();
 	private Map<T, Benchmark> ruleBenchmarks = new ConcurrentHashMap<>();
 	private boolean shouldMark = false;
+	private final LongAdder cacheHits = new LongAdder();
+	private final LongAdder cacheMisses = new LongAdder();
 
 	/**
 	 * create a new benchmark for a known {@code TimerType}
@@ -27,12 +30,7 @@ public class Benchmarking<T> {
 			return new NopBenchmarker();
 		}
 
-		Benchmark bench = benchmarks.get(type);
-		if (bench == null) {
-			bench = new Benchmark();
-			benchmarks.put(type, bench);
-		}
-		return new Benchmarker(bench);
+		return new Benchmarker(benchmarks.computeIfAbsent(type, t -> new Benchmark()));
 	}
 
 	protected Map<TimerType, Benchmark> getBenchmarks() {
@@ -62,6 +60,27 @@ public class Benchmarking<T> {
 		return ruleBenchmarks;
 	}
 
+	/**
+	 * Count a lookup in a result cache, reported as the hit rate of the cache
+	 * 
+	 * @param hit true if the result was found in the cache
+	 */
+	public void recordCacheLookup(boolean hit) {
+		if (hit) {
+			cacheHits.increment();
+		} else {
+			cacheMisses.increment();
+		}
+	}
+
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	public long getCacheMisses() {
+		return cacheMisses.sum();
+	}
+
 	/**
 	 * Enable or disable benchmarking
 	 * 
@@ -90,6 +109,14 @@ public class Benchmarking<T> {
 		sb.append("Timers").append(linesep);
 		outputTimers(sb, linesep);
 		sb.append(linesep);
+		long hits = getCacheHits();
+		long lookups = hits + getCacheMisses();
+		if (lookups > 0) {
+			sb.append("Result Cache").append(linesep);
+			sb.append(String.format("Hits: %d   Misses: %d   Hit Rate: %.1f%%", hits,
+					lookups - hits, hits * 100.0 / lookups)).append(linesep);
+			sb.append(linesep);
+		}
 		sb.append("Rule Timers").append(linesep);
 		outputRuleTimers(linesep, sb);
 		return sb.toString();
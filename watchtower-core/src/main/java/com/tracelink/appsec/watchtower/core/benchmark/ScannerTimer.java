@@ -0,0 +1,49 @@
+package com.tracelink.appsec.watchtower.core.benchmark;
+
+import java.util.Objects;
+
+/**
+ * Timer for the time spent in a single scanner during a scan. Timers for the same scanner are
+ * equal, so each scanner has one entry in the benchmark report alongside the
+ * {@link WatchtowerTimers}.
+ *
+ * @author csmith
+ */
+public final class ScannerTimer implements TimerType {
+	private final String name;
+
+	/**
+	 * Create a timer for the given scanner
+	 *
+	 * @param scannerName the name of the scanner to time
+	 */
+	public ScannerTimer(String scannerName) {
+		this.name = "Scanner: " + scannerName;
+	}
+
+	@Override
+	public String getExternalName() {
+		return name;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		return name.equals(((ScannerTimer) o).name);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(name);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
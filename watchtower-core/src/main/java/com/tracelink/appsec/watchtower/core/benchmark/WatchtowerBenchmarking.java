@@ -1,6 +1,8 @@
 package com.tracelink.appsec.watchtower.core.benchmark;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map.Entry;
 
@@ -56,11 +58,18 @@ public class WatchtowerBenchmarking extends Benchmarking<Object> {
 			timeSize = Math.max(timeSize, String.valueOf(entry.getValue().getTotalTime()).length());
 			callSize = Math.max(callSize, String.valueOf(entry.getValue().getCallCount()).length());
 		}
-		List<TimerType> timerOrder = Arrays.asList(WatchtowerTimers.values());
+		// Watchtower timers in scan order, followed by other timers such as each scanner by name
+		List<TimerType> timerOrder = new ArrayList<>(Arrays.asList(WatchtowerTimers.values()));
+		getBenchmarks().keySet().stream().filter(t -> !(t instanceof WatchtowerTimers))
+				.sorted(Comparator.comparing(TimerType::getExternalName))
+				.forEach(timerOrder::add);
 		String format = "%-" + nameSize + "s   %-" + timeSize + "s   %-" + callSize + "s";
 		sb.append(String.format(format, "Name", "Time Spent(ms)", "Num Calls")).append(linesep);
 		for (TimerType t : timerOrder) {
 			Benchmark bench = getBenchmarks().get(t);
+			if (bench == null) {
+				continue;
+			}
 			sb.append(String.format(format, t.getExternalName(), bench.getTotalTime(),
 					bench.getCallCount()))
 					.append(linesep);
@@ -20,7 +20,11 @@ public enum WatchtowerTimers implements TimerType {
 	/**
 	 * Send the results back to the SCM
 	 */
-	SEND_REPORT("Results: Send Results");
+	SEND_REPORT("Results: Send Results"),
+	/**
+	 * Save the results of the scan
+	 */
+	SAVE_RESULTS("Results: Save Results");
 
 	private final String name;
 
@@ -1,9 +1,7 @@
 package com.tracelink.appsec.watchtower.core.metrics;
 
-import java.time.ZoneOffset;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.Condition;
@@ -13,7 +11,6 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -26,7 +23,8 @@ import com.tracelink.appsec.watchtower.core.metrics.chart.ScansByPeriodChartGene
 import com.tracelink.appsec.watchtower.core.metrics.chart.ViolationsByPeriodAndTypeChartGenerator;
 import com.tracelink.appsec.watchtower.core.metrics.chart.ViolationsByPeriodChartGenerator;
 import com.tracelink.appsec.watchtower.core.metrics.chart.ViolationsByTypeChartGenerator;
-import com.tracelink.appsec.watchtower.core.scan.AbstractScanEntity;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupEntity;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupService;
 import com.tracelink.appsec.watchtower.core.scan.AbstractScanResultService;
 import com.tracelink.appsec.watchtower.core.scan.ScanType;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanType;
@@ -39,7 +37,9 @@ import net.minidev.json.JSONObject;
 
 /**
  * This service handles asynchronously generating any needed metrics for our dashboards that might
- * take longer than a page refresh and serve them up as needed from a cache.
+ * take longer than a page refresh and serve them up as needed from a cache. Charts are generated
+ * from the daily rollups of the {@link MetricsRollupService}, so the cost of an update does not
+ * grow with the number of scans.
  *
  * @author csmith
  */
@@ -60,6 +60,7 @@ public class MetricsCacheService {
 			"Metrics are being generated and will be available soon";
 
 	private final Map<ScanType, AbstractScanResultService<?, ?>> serviceMap;
+	private final MetricsRollupService rollupService;
 
 	// Initialized empty so that if the first update takes longer than a user can
 	// log in, they don't see anything, but nothing breaks
@@ -73,11 +74,13 @@ public class MetricsCacheService {
 
 	public MetricsCacheService(@Autowired PRScanResultService prScanResultService,
 			@Autowired UploadScanResultService uploadScanResultService,
-			@Autowired ImageScanResultService imageScanResultService) {
+			@Autowired ImageScanResultService imageScanResultService,
+			@Autowired MetricsRollupService rollupService) {
 		this.serviceMap = new HashMap<>();
 		this.serviceMap.put(CodeScanType.PULL_REQUEST, prScanResultService);
 		this.serviceMap.put(CodeScanType.UPLOAD, uploadScanResultService);
 		this.serviceMap.put(ImageScanType.CONTAINER, imageScanResultService);
+		this.rollupService = rollupService;
 	}
 
 	/**
@@ -116,31 +119,25 @@ public class MetricsCacheService {
 
 
 	/**
-	 * Periodically, asynchronously update all metrics in the system.
+	 * Periodically, asynchronously update all charts in the system.
 	 */
 	@Scheduled(initialDelay = 1000 * 5, fixedDelay = 1000L * 60)
 	public void updateAllMetrics() {
-		pauseLock.lock();
-		try {
-			while (isPaused) {
-				unPaused.await();
-			}
-		} catch (InterruptedException ie) {
+		if (!awaitUnpaused()) {
 			return;
-		} finally {
-			pauseLock.unlock();
 		}
 		try {
 			LOG.info("Beginning periodic update of metrics");
 			Map<CacheKey, JSONObject> chartsMap = new HashMap<>();
-			Map<CacheKey, Number> statsMap = new HashMap<>();
 			for (ScanType type : this.serviceMap.keySet()) {
 				LOG.debug("Starting scanType: " + type.getDisplayName());
+				// Only rolls up scans the first time, later scans are rolled up as they are saved
+				rollupService.rollUpExistingScans(type, this.serviceMap.get(type));
 
 				// Charts cache updates
 				for (BucketerTimePeriod period : BucketerTimePeriod.values()) {
 					LOG.debug("Starting time period: " + period);
-					Map<String, AbstractChartGenerator<AbstractScanEntity<?, ?>, ?>> chartGenerators =
+					Map<String, AbstractChartGenerator<MetricsRollupEntity, ?>> chartGenerators =
 							new HashMap<>();
 					chartGenerators.put(KEY_VIO_BY_PERIOD, new ViolationsByPeriodChartGenerator());
 					chartGenerators.put(KEY_VIO_BY_TYPE, new ViolationsByTypeChartGenerator());
@@ -157,20 +154,8 @@ public class MetricsCacheService {
 						chartsMap.put(key, v);
 					});
 				}
-
-				// Stats cache updates
-				LOG.debug("Starting getAverageTime");
-				CacheKey avgTimeKey = new CacheKey(type, AVG_TIME);
-				statsMap.put(avgTimeKey, this.serviceMap.get(type).getAverageTime());
-				LOG.debug("Starting countScans");
-				CacheKey scansKey = new CacheKey(type, SCAN_COUNT);
-				statsMap.put(scansKey, this.serviceMap.get(type).countScans());
-				LOG.debug("Starting countViolations");
-				CacheKey violationsKey = new CacheKey(type, VIO_COUNT);
-				statsMap.put(violationsKey, this.serviceMap.get(type).countViolations());
 			}
 			this.chartsCache = chartsMap;
-			this.statsCache = statsMap;
 			LOG.info("Periodic update of metrics complete");
 			this.metricsReady = true;
 		} catch (Exception e) {
@@ -178,6 +163,52 @@ public class MetricsCacheService {
 		}
 	}
 
+	/**
+	 * Periodically, asynchronously update the scan and violation counts and average scan times.
+	 * These are aggregated by the database, so they are cheap enough to refresh more often than the
+	 * charts, at the rate given by {@code watchtower.metrics.statsRefresh}.
+	 */
+	@Scheduled(initialDelay = 1000 * 5,
+			fixedDelayString = "${watchtower.metrics.statsRefresh:60000}")
+	public void updateStats() {
+		if (!awaitUnpaused()) {
+			return;
+		}
+		try {
+			LOG.debug("Beginning periodic update of stats");
+			Map<CacheKey, Number> statsMap = new HashMap<>();
+			for (ScanType type : this.serviceMap.keySet()) {
+				AbstractScanResultService<?, ?> service = this.serviceMap.get(type);
+				statsMap.put(new CacheKey(type, AVG_TIME), service.getAverageTime());
+				statsMap.put(new CacheKey(type, SCAN_COUNT), service.countScans());
+				statsMap.put(new CacheKey(type, VIO_COUNT), service.countViolations());
+			}
+			this.statsCache = statsMap;
+			LOG.debug("Periodic update of stats complete");
+		} catch (Exception e) {
+			LOG.error("Periodic update of stats failed with an exception", e);
+		}
+	}
+
+	/**
+	 * Wait until metrics gathering is not paused
+	 *
+	 * @return false if interrupted while waiting
+	 */
+	private boolean awaitUnpaused() {
+		pauseLock.lock();
+		try {
+			while (isPaused) {
+				unPaused.await();
+			}
+			return true;
+		} catch (InterruptedException ie) {
+			return false;
+		} finally {
+			pauseLock.unlock();
+		}
+	}
+
 	/**
 	 * Gets metrics about the number of violations of each type found within a certain length of
 	 * time.
@@ -231,8 +262,8 @@ public class MetricsCacheService {
 	}
 
 	/**
-	 * Generates chart data for metrics about scans and violations from the database over a given
-	 * period of time using the given chart generators.
+	 * Generates chart data for metrics about scans and violations from the daily rollups over a
+	 * given period of time using the given chart generators.
 	 *
 	 * @param type            the ScanType to retrieve
 	 * @param period          a {@link BucketerTimePeriod} representing the period of time over
@@ -242,32 +273,19 @@ public class MetricsCacheService {
 	 *         KEY_VIO_BY_TYPE) and the JSON object contains labels and datasets for a metrics chart
 	 */
 	private Map<String, JSONObject> generateCharts(ScanType type, BucketerTimePeriod period,
-			Map<String, AbstractChartGenerator<AbstractScanEntity<?, ?>, ?>> chartGenerators) {
+			Map<String, AbstractChartGenerator<MetricsRollupEntity, ?>> chartGenerators) {
 		// Create bucketer
-		AbstractBucketer<AbstractScanEntity<?, ?>> bucketer = new SimpleBucketer<>(
+		AbstractBucketer<MetricsRollupEntity> bucketer = new SimpleBucketer<>(
 				period, () -> serviceMap.get(type).getOldestScanDate().atStartOfDay(),
-				AbstractScanEntity::getEndDate);
+				rollup -> rollup.getRollupDate().atStartOfDay());
 		// Get start and end dates of buckets
 		BucketIntervals bucketIntervals = bucketer.getBucketIntervals();
-		long startMillis = bucketIntervals.getStart().toInstant(ZoneOffset.UTC)
-				.toEpochMilli();
-		long endMillis = bucketIntervals.getEnd().toInstant(ZoneOffset.UTC)
-				.toEpochMilli();
-		// Get scans iterator and iterate through all pages of scans
-		Iterator<Page<AbstractScanEntity<?, ?>>> pageIterator = serviceMap.get(type)
-				.scanIteratorBetweenDates(startMillis, endMillis);
-		pageIterator.forEachRemaining(
-				page -> {
-					if (page.getNumber() % 5 == 0) {
-						LOG.debug("Generating metrics for page: " + page.getNumber());
-					}
-					// Bucket scans
-					List<List<AbstractScanEntity<?, ?>>> bucketedScans = bucketer
-							.putItemsInBuckets(page.getContent());
-					// Reduce this page of results for each chart generator
-					chartGenerators.values()
-							.forEach(chartGenerator -> chartGenerator.reduce(bucketedScans));
-				});
+		// Get the rollups for each day of the buckets
+		List<MetricsRollupEntity> rollups = rollupService.getRollups(type,
+				bucketIntervals.getStart().toLocalDate(), bucketIntervals.getEnd().toLocalDate());
+		// Bucket rollups
+		List<List<MetricsRollupEntity>> bucketedRollups = bucketer.putItemsInBuckets(rollups);
+		chartGenerators.values().forEach(chartGenerator -> chartGenerator.reduce(bucketedRollups));
 
 		List<String> labels = bucketIntervals.getLabels();
 		return chartGenerators.entrySet().stream().collect(
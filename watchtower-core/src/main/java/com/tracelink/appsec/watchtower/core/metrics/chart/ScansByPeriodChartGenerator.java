@@ -2,26 +2,26 @@ package com.tracelink.appsec.watchtower.core.metrics.chart;
 
 import java.util.List;
 
-import com.tracelink.appsec.watchtower.core.scan.AbstractScanEntity;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupEntity;
 
 import net.minidev.json.JSONObject;
 
 /**
  * Implementation of an {@link AbstractChartGenerator} to create a graph of number of scans over
- * time. Counts scans for each bucket of given scans and reduces them to a single {@link Long}. The
- * resultant chart contains one set of data with all the scan counts.
+ * time. Adds up the scan counts for each bucket of given rollups and reduces them to a single
+ * {@link Long}. The resultant chart contains one set of data with all the scan counts.
  *
  * @author mcool
  */
 public class ScansByPeriodChartGenerator extends
-		AbstractChartGenerator<AbstractScanEntity<?, ?>, Long> {
+		AbstractChartGenerator<MetricsRollupEntity, Long> {
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	protected Long accumulate(Long partialResult, List<AbstractScanEntity<?, ?>> items) {
-		return partialResult + items.size();
+	protected Long accumulate(Long partialResult, List<MetricsRollupEntity> items) {
+		return partialResult + items.stream().mapToLong(MetricsRollupEntity::getScanCount).sum();
 	}
 
 	/**
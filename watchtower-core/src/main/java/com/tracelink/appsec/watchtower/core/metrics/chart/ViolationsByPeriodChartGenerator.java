@@ -2,29 +2,29 @@ package com.tracelink.appsec.watchtower.core.metrics.chart;
 
 import java.util.List;
 
-import com.tracelink.appsec.watchtower.core.rule.RulePriority;
-import com.tracelink.appsec.watchtower.core.scan.AbstractScanEntity;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupEntity;
 
 import net.minidev.json.JSONObject;
 
 /**
  * Implementation of an {@link AbstractChartGenerator} to create a graph of number of violations
- * found over time. Counts violations for each bucket of given scans and reduces them to a single
- * {@link Long}. The resultant chart contains one set of data with all the violation counts.
+ * found over time. Adds up the counts of violations that are not informational for each bucket of
+ * given rollups and reduces them to a single {@link Long}. The resultant chart contains one set of
+ * data with all the violation counts.
  *
  * @author mcool
  */
 public class ViolationsByPeriodChartGenerator extends
-		AbstractChartGenerator<AbstractScanEntity<?, ?>, Long> {
+		AbstractChartGenerator<MetricsRollupEntity, Long> {
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	protected Long accumulate(Long partialResult, List<AbstractScanEntity<?, ?>> items) {
+	protected Long accumulate(Long partialResult, List<MetricsRollupEntity> items) {
 		return partialResult + items.stream()
-				.filter(s -> s.getViolations().stream().noneMatch(v -> v.getSeverity().equals(RulePriority.INFORMATIONAL)))
-				.mapToLong(AbstractScanEntity::getNumViolations)
+				.filter(MetricsRollupEntity::isReportedViolation)
+				.mapToLong(MetricsRollupEntity::getViolationCount)
 				.sum();
 	}
 
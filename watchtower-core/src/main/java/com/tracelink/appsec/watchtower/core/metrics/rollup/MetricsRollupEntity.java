@@ -0,0 +1,115 @@
+package com.tracelink.appsec.watchtower.core.metrics.rollup;
+
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
+import com.tracelink.appsec.watchtower.core.rule.RulePriority.RulePriorityConverter;
+import com.tracelink.appsec.watchtower.core.scan.ScanType;
+import com.tracelink.appsec.watchtower.core.scan.ScanType.ScanTypeConverter;
+
+/**
+ * Entity description for a metrics rollup. Holds the number of scans of a scan type that ended on
+ * a day, or the number of violations with a name and severity found by those scans. A rollup of
+ * scans has no violation name or severity.
+ *
+ * @author csmith
+ */
+@Entity
+@Table(name = "metrics_rollups")
+public class MetricsRollupEntity {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "rollup_id")
+	private long id;
+
+	@Column(name = "rollup_date")
+	private LocalDate rollupDate;
+
+	@Column(name = "scan_type")
+	@Convert(converter = ScanTypeConverter.class)
+	private ScanType scanType;
+
+	@Column(name = "violation_name")
+	private String violationName;
+
+	@Column(name = "severity")
+	@Convert(converter = RulePriorityConverter.class)
+	private RulePriority severity;
+
+	@Column(name = "scan_count")
+	private long scanCount;
+
+	@Column(name = "violation_count")
+	private long violationCount;
+
+	public long getId() {
+		return id;
+	}
+
+	public LocalDate getRollupDate() {
+		return rollupDate;
+	}
+
+	public void setRollupDate(LocalDate rollupDate) {
+		this.rollupDate = rollupDate;
+	}
+
+	public ScanType getScanType() {
+		return scanType;
+	}
+
+	public void setScanType(ScanType scanType) {
+		this.scanType = scanType;
+	}
+
+	public String getViolationName() {
+		return violationName;
+	}
+
+	public void setViolationName(String violationName) {
+		this.violationName = violationName;
+	}
+
+	public RulePriority getSeverity() {
+		return severity;
+	}
+
+	public void setSeverity(RulePriority severity) {
+		this.severity = severity;
+	}
+
+	public long getScanCount() {
+		return scanCount;
+	}
+
+	public void setScanCount(long scanCount) {
+		this.scanCount = scanCount;
+	}
+
+	public long getViolationCount() {
+		return violationCount;
+	}
+
+	public void setViolationCount(long violationCount) {
+		this.violationCount = violationCount;
+	}
+
+	/**
+	 * Checks if this rollup counts violations that are shown in metrics, i.e. violations that are
+	 * not informational
+	 *
+	 * @return true if this rollup counts violations that are not informational
+	 */
+	public boolean isReportedViolation() {
+		return violationName != null && severity != null
+				&& !severity.equals(RulePriority.INFORMATIONAL);
+	}
+}
@@ -0,0 +1,26 @@
+package com.tracelink.appsec.watchtower.core.metrics.rollup;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.tracelink.appsec.watchtower.core.scan.ScanType;
+
+/**
+ * Repository JPA for the metrics rollup entities
+ *
+ * @author csmith
+ */
+@Repository
+public interface MetricsRollupRepository extends JpaRepository<MetricsRollupEntity, Long> {
+
+	List<MetricsRollupEntity> findByScanType(ScanType scanType);
+
+	List<MetricsRollupEntity> findByScanTypeAndRollupDate(ScanType scanType,
+			LocalDate rollupDate);
+
+	List<MetricsRollupEntity> findByScanTypeAndRollupDateGreaterThanEqualAndRollupDateLessThan(
+			ScanType scanType, LocalDate start, LocalDate end);
+}
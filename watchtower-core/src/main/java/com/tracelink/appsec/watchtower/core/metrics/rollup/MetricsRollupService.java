@@ -0,0 +1,153 @@
+package com.tracelink.appsec.watchtower.core.metrics.rollup;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
+import com.tracelink.appsec.watchtower.core.scan.AbstractScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.AbstractScanResultService;
+import com.tracelink.appsec.watchtower.core.scan.AbstractScanViolationEntity;
+import com.tracelink.appsec.watchtower.core.scan.ScanStatus;
+import com.tracelink.appsec.watchtower.core.scan.ScanType;
+
+/**
+ * Keeps daily rollups of the number of scans of each scan type and the violations they found, so
+ * that metrics can be generated without reading every scan. Rollups are updated as scans are
+ * saved. The scans that existed before rollups were kept are rolled up once for each scan type.
+ *
+ * @author csmith
+ */
+@Service
+public class MetricsRollupService {
+	private static final Logger LOG = LoggerFactory.getLogger(MetricsRollupService.class);
+
+	private final MetricsRollupRepository rollupRepo;
+	private final MetricsRollupStateRepository stateRepo;
+
+	public MetricsRollupService(@Autowired MetricsRollupRepository rollupRepo,
+			@Autowired MetricsRollupStateRepository stateRepo) {
+		this.rollupRepo = rollupRepo;
+		this.stateRepo = stateRepo;
+	}
+
+	/**
+	 * Add a saved scan and its violations to the rollups for the day the scan ended. The scan is
+	 * skipped if the existing scans of its type have not been rolled up yet, as that rollup will
+	 * include it, or if that rollup already included it.
+	 *
+	 * @param type       the type of the scan
+	 * @param scan       the saved scan
+	 * @param violations the violations found by the scan
+	 */
+	public synchronized void recordScan(ScanType type, AbstractScanEntity<?, ?> scan,
+			List<? extends AbstractScanViolationEntity<?>> violations) {
+		if (scan == null) {
+			return;
+		}
+		Optional<MetricsRollupStateEntity> state = stateRepo.findById(type.getTypeName());
+		if (!state.isPresent() || scan.getId() <= state.get().getLastScanId()) {
+			return;
+		}
+		LocalDate day = scan.getEndDate().toLocalDate();
+		Map<List<Object>, MetricsRollupEntity> rollups = new HashMap<>();
+		rollupRepo.findByScanTypeAndRollupDate(type, day).forEach(rollup -> rollups.put(
+				createKey(day, rollup.getViolationName(), rollup.getSeverity()), rollup));
+		rollupRepo.saveAll(addScan(rollups, type, day, violations));
+	}
+
+	/**
+	 * Roll up the scans of a type that were saved before rollups were kept. This is only done
+	 * once for each scan type, any rollups left by an earlier, unfinished attempt are replaced.
+	 *
+	 * @param type          the type of scans to roll up
+	 * @param resultService the result service for the type of scans
+	 */
+	public synchronized void rollUpExistingScans(ScanType type,
+			AbstractScanResultService<?, ?> resultService) {
+		if (stateRepo.existsById(type.getTypeName())) {
+			return;
+		}
+		LOG.info("Rolling up existing scans for metrics of type: " + type.getDisplayName());
+		rollupRepo.deleteAll(rollupRepo.findByScanType(type));
+		long lastScanId = resultService.getLastScanId();
+		Map<List<Object>, MetricsRollupEntity> rollups = new HashMap<>();
+		resultService.scanIteratorBetweenDates(0L, Long.MAX_VALUE).forEachRemaining(
+				page -> page.forEach(scan -> {
+					if (scan.getId() <= lastScanId && ScanStatus.DONE.equals(scan.getStatus())) {
+						addScan(rollups, type, scan.getEndDate().toLocalDate(),
+								scan.getViolations());
+					}
+				}));
+		rollupRepo.saveAll(rollups.values());
+
+		MetricsRollupStateEntity state = new MetricsRollupStateEntity();
+		state.setScanType(type.getTypeName());
+		state.setLastScanId(lastScanId);
+		stateRepo.saveAndFlush(state);
+	}
+
+	/**
+	 * Get the rollups of a scan type between two days
+	 *
+	 * @param type  the type of scans
+	 * @param start the first day of rollups (inclusive)
+	 * @param end   the last day of rollups (exclusive)
+	 * @return list of rollups of the scan type between the given days
+	 */
+	public List<MetricsRollupEntity> getRollups(ScanType type, LocalDate start, LocalDate end) {
+		return rollupRepo.findByScanTypeAndRollupDateGreaterThanEqualAndRollupDateLessThan(type,
+				start, end);
+	}
+
+	/**
+	 * Count a scan and its violations in the given rollups, creating any missing rollups
+	 *
+	 * @return the rollups that were changed
+	 */
+	private static Collection<MetricsRollupEntity> addScan(
+			Map<List<Object>, MetricsRollupEntity> rollups, ScanType type, LocalDate day,
+			List<? extends AbstractScanViolationEntity<?>> violations) {
+		Set<MetricsRollupEntity> changed = new LinkedHashSet<>();
+		MetricsRollupEntity scans = getRollup(rollups, type, day, null, null);
+		scans.setScanCount(scans.getScanCount() + 1);
+		changed.add(scans);
+		if (violations != null) {
+			for (AbstractScanViolationEntity<?> violation : violations) {
+				MetricsRollupEntity rollup = getRollup(rollups, type, day,
+						violation.getViolationName(), violation.getSeverity());
+				rollup.setViolationCount(rollup.getViolationCount() + 1);
+				changed.add(rollup);
+			}
+		}
+		return changed;
+	}
+
+	private static MetricsRollupEntity getRollup(Map<List<Object>, MetricsRollupEntity> rollups,
+			ScanType type, LocalDate day, String violationName, RulePriority severity) {
+		return rollups.computeIfAbsent(createKey(day, violationName, severity), key -> {
+			MetricsRollupEntity rollup = new MetricsRollupEntity();
+			rollup.setRollupDate(day);
+			rollup.setScanType(type);
+			rollup.setViolationName(violationName);
+			rollup.setSeverity(severity);
+			return rollup;
+		});
+	}
+
+	private static List<Object> createKey(LocalDate day, String violationName,
+			RulePriority severity) {
+		return Arrays.asList(day, violationName, severity);
+	}
+}
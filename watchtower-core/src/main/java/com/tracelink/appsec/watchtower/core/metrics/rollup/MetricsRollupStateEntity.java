@@ -0,0 +1,40 @@
+package com.tracelink.appsec.watchtower.core.metrics.rollup;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Entity description for the rollup state of a scan type. Holds the id of the last scan that was
+ * rolled up from the scans that existed before rollups were kept. Later scans are rolled up as
+ * they are saved.
+ *
+ * @author csmith
+ */
+@Entity
+@Table(name = "metrics_rollup_state")
+public class MetricsRollupStateEntity {
+	@Id
+	@Column(name = "scan_type")
+	private String scanType;
+
+	@Column(name = "last_scan_id")
+	private long lastScanId;
+
+	public String getScanType() {
+		return scanType;
+	}
+
+	public void setScanType(String scanType) {
+		this.scanType = scanType;
+	}
+
+	public long getLastScanId() {
+		return lastScanId;
+	}
+
+	public void setLastScanId(long lastScanId) {
+		this.lastScanId = lastScanId;
+	}
+}
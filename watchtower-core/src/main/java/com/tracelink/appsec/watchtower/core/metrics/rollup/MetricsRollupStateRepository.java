@@ -0,0 +1,14 @@
+package com.tracelink.appsec.watchtower.core.metrics.rollup;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository JPA for the metrics rollup state entities
+ *
+ * @author csmith
+ */
+@Repository
+public interface MetricsRollupStateRepository
+		extends JpaRepository<MetricsRollupStateEntity, String> {
+}
@@ -1,5 +1,7 @@
 package com.tracelink.appsec.watchtower.core.rest.scan.pr;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
@@ -11,10 +13,16 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tracelink.appsec.watchtower.core.auth.model.CorePrivilege;
+import com.tracelink.appsec.watchtower.core.scan.ScanResultCursor;
+import com.tracelink.appsec.watchtower.core.scan.ScanResultPage;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRResultFilter;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRScanResult;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.service.PRScanResultService;
@@ -34,30 +42,76 @@ public class PRScanResultRestController {
 
 	private PRScanResultService resultService;
 
-	public PRScanResultRestController(@Autowired PRScanResultService resultService) {
+	private ObjectMapper objectMapper;
+
+	public PRScanResultRestController(@Autowired PRScanResultService resultService,
+			@Autowired ObjectMapper objectMapper) {
 		this.resultService = resultService;
+		this.objectMapper = objectMapper;
 	}
 
 	@GetMapping(value = {"", "/{filter}", "/{filter}/{page}"},
 			produces = MediaType.APPLICATION_JSON_VALUE)
 	ResponseEntity<JSONObject> getResults(@PathVariable Optional<String> filter,
-			@PathVariable Optional<Integer> page, UriComponentsBuilder uriBuilder) {
+			@PathVariable Optional<Integer> page, @RequestParam Optional<String> after,
+			UriComponentsBuilder uriBuilder) {
 		PRResultFilter resultFilter =
 				PRResultFilter.toFilter(filter.orElse(PRResultFilter.ALL.getName()));
-		int pageNum = page.orElse(0);
-		List<PRScanResult> results =
-				resultService.getScanResultsWithFilters(resultFilter, 10, pageNum);
-		String next =
-				uriBuilder
-						.replacePath(Paths.get("rest/scan/result", resultFilter.getName(),
-								String.valueOf(pageNum + 1)).toString())
-						.build().encode().toUriString();
 		JSONObject obj = new JSONObject();
-		if (!results.isEmpty()) {
+		if (page.isPresent()) {
+			// page numbers are still accepted, but count through every earlier page
+			int pageNum = page.get();
+			List<PRScanResult> results =
+					resultService.getScanResultsWithFilters(resultFilter, 10, pageNum);
+			String next =
+					uriBuilder
+							.replacePath(Paths.get("rest/scan/result", resultFilter.getName(),
+									String.valueOf(pageNum + 1)).toString())
+							.build().encode().toUriString();
+			if (!results.isEmpty()) {
+				obj.put("next", next);
+			}
+			obj.put("results", results);
+			return ResponseEntity.ok(obj);
+		}
+
+		ScanResultCursor cursor;
+		try {
+			cursor = after.map(ScanResultCursor::parse).orElse(ScanResultCursor.FIRST);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		}
+		ScanResultPage<PRScanResult> results =
+				resultService.getScanResultsAfter(resultFilter, 10, cursor);
+		if (results.getNext() != null) {
+			String next = uriBuilder
+					.replacePath(Paths.get("rest/scan/result", resultFilter.getName()).toString())
+					.replaceQueryParam("after", results.getNext().toString())
+					.build().encode().toUriString();
 			obj.put("next", next);
 		}
-		obj.put("results", results);
+		obj.put("results", results.getResults());
 		return ResponseEntity.ok(obj);
 	}
 
+	@GetMapping(value = "/report/{id}/violations", produces = MediaType.APPLICATION_JSON_VALUE)
+	ResponseEntity<StreamingResponseBody> getViolations(@PathVariable long id) {
+		if (!resultService.hasScan(id)) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(out -> {
+			try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+				generator.writeStartArray();
+				resultService.streamViolations(id, violation -> {
+					try {
+						generator.writeObject(violation);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				generator.writeEndArray();
+			}
+		});
+	}
+
 }
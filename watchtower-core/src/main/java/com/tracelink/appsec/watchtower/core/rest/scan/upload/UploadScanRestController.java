@@ -1,5 +1,7 @@
 package com.tracelink.appsec.watchtower.core.rest.scan.upload;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tracelink.appsec.watchtower.core.auth.model.CorePrivilege;
 import com.tracelink.appsec.watchtower.core.exception.ScanRejectedException;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.UploadScan;
@@ -7,12 +9,14 @@ import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanRe
 import com.tracelink.appsec.watchtower.core.scan.code.upload.service.UploadScanResultService;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.service.UploadScanningService;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.security.Principal;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,6 +27,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controller for all REST API calls. Handles a health check and sending a scan via REST.
@@ -40,10 +45,14 @@ public class UploadScanRestController {
 
 	private UploadScanResultService uploadScanResultService;
 
+	private ObjectMapper objectMapper;
+
 	public UploadScanRestController(@Autowired UploadScanningService scanService,
-			@Autowired UploadScanResultService uploadScanResultService) {
+			@Autowired UploadScanResultService uploadScanResultService,
+			@Autowired ObjectMapper objectMapper) {
 		this.scanService = scanService;
 		this.uploadScanResultService = uploadScanResultService;
+		this.objectMapper = objectMapper;
 	}
 
 	@PostMapping()
@@ -81,4 +90,25 @@ public class UploadScanRestController {
 	ResponseEntity<UploadScanResult> getResultForTicket(@PathVariable String ticket) {
 		return ResponseEntity.ok(uploadScanResultService.generateResultForTicket(ticket));
 	}
+
+	@GetMapping(value = "/{ticket}/violations", produces = MediaType.APPLICATION_JSON_VALUE)
+	ResponseEntity<StreamingResponseBody> getViolationsForTicket(@PathVariable String ticket) {
+		Long scanId = uploadScanResultService.findScanIdByTicket(ticket);
+		if (scanId == null) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(out -> {
+			try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+				generator.writeStartArray();
+				uploadScanResultService.streamViolations(scanId, violation -> {
+					try {
+						generator.writeObject(violation);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				generator.writeEndArray();
+			}
+		});
+	}
 }
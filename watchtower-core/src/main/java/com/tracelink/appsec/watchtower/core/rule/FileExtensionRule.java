@@ -0,0 +1,26 @@
+package com.tracelink.appsec.watchtower.core.rule;
+
+/**
+ * Implemented by rules that only apply to files with a certain extension. Whether a rule applies
+ * to a file must depend only on its file extension, so that rules with the same extension can be
+ * grouped together for a scan.
+ *
+ * @author mcool
+ */
+public interface FileExtensionRule {
+
+	/**
+	 * Gets the file extension this rule applies to. An empty extension applies to all files.
+	 *
+	 * @return the file extension of this rule
+	 */
+	String getFileExtension();
+
+	/**
+	 * Determines whether this rule applies to the given file.
+	 *
+	 * @param fileName the name of the file (with extension)
+	 * @return true if the rule should be run against the file
+	 */
+	boolean isValidExtension(String fileName);
+}
@@ -9,6 +9,7 @@ import javax.persistence.Column;
 import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
+import javax.persistence.EntityListeners;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
@@ -25,6 +26,7 @@ import javax.persistence.Table;
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 
+import com.tracelink.appsec.watchtower.core.ruleset.RulesetChangeListener;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetEntity;
 
 /**
@@ -36,6 +38,7 @@ import com.tracelink.appsec.watchtower.core.ruleset.RulesetEntity;
 @Entity
 @Table(name = "rules")
 @Inheritance(strategy = InheritanceType.JOINED)
+@EntityListeners(RulesetChangeListener.class)
 public abstract class RuleEntity {
 
 	@Id
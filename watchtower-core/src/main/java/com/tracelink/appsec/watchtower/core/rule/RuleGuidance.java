@@ -0,0 +1,31 @@
+package com.tracelink.appsec.watchtower.core.rule;
+
+/**
+ * The guidance of a rule shown alongside its violations in scan results. Loaded without the rest
+ * of the rule entity, so that results do not fetch the rulesets of each rule.
+ *
+ * @author csmith
+ */
+public class RuleGuidance {
+	private final String name;
+	private final String message;
+	private final String externalUrl;
+
+	public RuleGuidance(String name, String message, String externalUrl) {
+		this.name = name;
+		this.message = message;
+		this.externalUrl = externalUrl;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public String getExternalUrl() {
+		return externalUrl;
+	}
+}
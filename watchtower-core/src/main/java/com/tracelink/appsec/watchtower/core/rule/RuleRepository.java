@@ -1,6 +1,11 @@
 package com.tracelink.appsec.watchtower.core.rule;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -11,4 +16,8 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface RuleRepository extends JpaRepository<RuleEntity, Long> {
     RuleEntity findByName(String name);
+
+    @Query("SELECT new com.tracelink.appsec.watchtower.core.rule.RuleGuidance(r.name, r.message, r.externalUrl)"
+            + " FROM RuleEntity r WHERE r.name IN :names")
+    List<RuleGuidance> findGuidanceByNameIn(@Param("names") Collection<String> names);
 }
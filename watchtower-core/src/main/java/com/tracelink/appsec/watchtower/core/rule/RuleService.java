@@ -1,10 +1,13 @@
 package com.tracelink.appsec.watchtower.core.rule;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.validation.ConstraintViolation;
@@ -19,6 +22,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.tracelink.appsec.watchtower.core.exception.rule.RuleNotFoundException;
+import com.tracelink.appsec.watchtower.core.ruleset.CompiledRulesetCache;
 import com.tracelink.appsec.watchtower.core.ruleset.ImportOption;
 
 /**
@@ -31,14 +35,18 @@ public class RuleService {
 	private static final Logger LOG = LoggerFactory.getLogger(RuleService.class);
 
 	private RuleRepository ruleRepository;
+	private CompiledRulesetCache rulesetCache;
 
 	/**
 	 * Creates an instance of this service with a {@link RuleRepository}.
 	 *
 	 * @param ruleRepository repository to interact with the database
+	 * @param rulesetCache   cache of scan plans to invalidate when rules change
 	 */
-	public RuleService(@Autowired RuleRepository ruleRepository) {
+	public RuleService(@Autowired RuleRepository ruleRepository,
+			@Autowired CompiledRulesetCache rulesetCache) {
 		this.ruleRepository = ruleRepository;
+		this.rulesetCache = rulesetCache;
 	}
 
 	/**
@@ -77,6 +85,22 @@ public class RuleService {
 		return ruleRepository.findByName(name);
 	}
 
+	/**
+	 * Gets the guidance of the rules with the given names in a single query. Names without a rule
+	 * are left out of the result.
+	 *
+	 * @param names names of the rules to retrieve guidance for
+	 * @return map from rule name to the guidance of that rule
+	 */
+	public Map<String, RuleGuidance> getRuleGuidance(Collection<String> names) {
+		if (names.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		return ruleRepository.findGuidanceByNameIn(new HashSet<>(names)).stream()
+				.collect(Collectors.toMap(RuleGuidance::getName, Function.identity(),
+						(first, second) -> first));
+	}
+
 	public List<RuleDto> getRulesForModule(String module) {
 		List<RuleEntity> rules = ruleRepository.findAll();
 
@@ -94,6 +118,7 @@ public class RuleService {
 	public void deleteRule(long id) throws RuleNotFoundException {
 		RuleEntity rule = getRule(id);
 		ruleRepository.delete(rule);
+		rulesetCache.invalidate();
 	}
 
 	/**
@@ -191,6 +216,7 @@ public class RuleService {
 		}
 		List<RuleEntity> saveRules = ruleRepository.saveAll(rules);
 		ruleRepository.flush();
+		rulesetCache.invalidate();
 		return saveRules;
 	}
 
@@ -0,0 +1,82 @@
+package com.tracelink.appsec.watchtower.core.ruleset;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
+
+/**
+ * Cache of the scan plans of rulesets, shared by all code scans. Converting a ruleset entity to a
+ * DTO walks the whole entity graph and creates new rule DTOs, which throws away the patterns and
+ * queries that rules compile lazily. Scans of the same ruleset instead share one plan, and with it
+ * the compiled rules and the rule fingerprints of the plan.
+ * <p>
+ * Plans are kept by ruleset id along with the version of the rules they were built from. The
+ * version changes whenever a change to a rule or ruleset is committed, after which every plan is
+ * rebuilt on its next use. The plan of a deleted ruleset is removed.
+ *
+ * @author mcool
+ */
+@Service
+public class CompiledRulesetCache {
+	private final AtomicLong version = new AtomicLong();
+	private final Map<Long, VersionedPlan> plans = new ConcurrentHashMap<>();
+
+	/**
+	 * Mark all cached plans as out of date. Called for every change to rules or rulesets,
+	 * including changes made through module services, see {@link RulesetChangeListener}.
+	 */
+	public void invalidate() {
+		version.incrementAndGet();
+	}
+
+	/**
+	 * Remove the plan of a deleted ruleset and mark all other cached plans as out of date, as
+	 * they may have inherited rules from the ruleset
+	 *
+	 * @param rulesetId the id of the deleted ruleset
+	 */
+	public void remove(long rulesetId) {
+		invalidate();
+		plans.remove(rulesetId);
+	}
+
+	/**
+	 * Get the plan for the given ruleset, building it if there is no plan for the current version
+	 * of the rules
+	 *
+	 * @param ruleset the ruleset to scan with
+	 * @return the plan for the ruleset
+	 */
+	public ScanPlan getScanPlan(RulesetEntity ruleset) {
+		// read the version first, so a change while building leaves the new plan out of date
+		long current = version.get();
+		VersionedPlan cached = plans.get(ruleset.getId());
+		if (cached != null && cached.version == current) {
+			return cached.plan;
+		}
+		ScanPlan plan = new ScanPlan(ruleset.toDto());
+		plans.put(ruleset.getId(), new VersionedPlan(current, plan));
+		return plan;
+	}
+
+	/**
+	 * @return the number of cached plans, including those that are out of date
+	 */
+	public int size() {
+		return plans.size();
+	}
+
+	private static class VersionedPlan {
+		private final long version;
+		private final ScanPlan plan;
+
+		VersionedPlan(long version, ScanPlan plan) {
+			this.version = version;
+			this.plan = plan;
+		}
+	}
+}
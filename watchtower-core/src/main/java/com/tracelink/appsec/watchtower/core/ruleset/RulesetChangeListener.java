@@ -0,0 +1,60 @@
+package com.tracelink.appsec.watchtower.core.ruleset;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Entity listener that invalidates the {@link CompiledRulesetCache} when a rule or ruleset is
+ * saved or deleted. Modules save their rules through their own repositories, so this catches edits
+ * that do not go through the {@link RulesetService}. Hibernate creates the listener through Spring,
+ * which injects the cache.
+ * <p>
+ * The entity callbacks run when the change is flushed, before it is committed. The cache is only
+ * invalidated once the transaction commits, otherwise a plan built from the old rules in the
+ * meantime would be cached as up to date. Changes made outside of a transaction invalidate the
+ * cache immediately.
+ *
+ * @author mcool
+ */
+public class RulesetChangeListener {
+
+	private final CompiledRulesetCache rulesetCache;
+
+	public RulesetChangeListener(@Autowired CompiledRulesetCache rulesetCache) {
+		this.rulesetCache = rulesetCache;
+	}
+
+	@PostPersist
+	@PostUpdate
+	public void onChange(Object entity) {
+		afterCommit(rulesetCache::invalidate);
+	}
+
+	@PostRemove
+	public void onRemove(Object entity) {
+		if (entity instanceof RulesetEntity) {
+			long rulesetId = ((RulesetEntity) entity).getId();
+			afterCommit(() -> rulesetCache.remove(rulesetId));
+		} else {
+			afterCommit(rulesetCache::invalidate);
+		}
+	}
+
+	private static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+}
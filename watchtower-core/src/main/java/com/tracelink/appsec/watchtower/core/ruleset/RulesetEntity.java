@@ -7,6 +7,7 @@ import java.util.stream.Collectors;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
+import javax.persistence.EntityListeners;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
@@ -29,6 +30,7 @@ import com.tracelink.appsec.watchtower.core.rule.RulePriority;
  */
 @Entity
 @Table(name = "rulesets")
+@EntityListeners(RulesetChangeListener.class)
 public class RulesetEntity {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,162 @@
+package com.tracelink.appsec.watchtower.core.ruleset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+
+import com.tracelink.appsec.watchtower.core.exception.rule.RulesetException;
+
+/**
+ * Cache of the files that scanners write their rules to before a scan, such as the JS ruleset of
+ * ESLint. Files are kept by the fingerprint of the rules they contain, so scans with the same rules
+ * share one file instead of writing their own, and a change to the rules is written to a new file.
+ * The least recently used files are removed once there are more than the maximum number of files.
+ * <p>
+ * Each scan holds its file until it closes the {@link RulesetFile} it was given, and a file is
+ * only deleted once it has been removed from the cache and every scan using it has closed it.
+ * Rules without a fingerprint are written to a file of their own that is not cached.
+ *
+ * @author mcool
+ */
+public class RulesetFileCache {
+
+	/**
+	 * Writes rules to a file
+	 */
+	@FunctionalInterface
+	public interface RulesetWriter {
+		void write(Path file) throws IOException, RulesetException;
+	}
+
+	/**
+	 * A file of rules in use by a single scan. Closing it tells the cache that the scan no longer
+	 * needs the file.
+	 */
+	public final class RulesetFile implements Closeable {
+		private final CachedFile file;
+		private boolean closed = false;
+
+		private RulesetFile(CachedFile file) {
+			this.file = file;
+		}
+
+		public Path getPath() {
+			return file.path;
+		}
+
+		@Override
+		public void close() {
+			synchronized (RulesetFileCache.this) {
+				if (!closed) {
+					closed = true;
+					file.users--;
+					deleteIfUnused(file);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A file written by this cache, along with the number of scans using it
+	 */
+	private static final class CachedFile {
+		private final Path path;
+		private boolean cached;
+		private int users = 0;
+
+		private CachedFile(Path path, boolean cached) {
+			this.path = path;
+			this.cached = cached;
+		}
+	}
+
+	private final String prefix;
+	private final String suffix;
+	private final Map<String, CachedFile> files;
+
+	/**
+	 * Create a cache of files with names like temporary files
+	 *
+	 * @param prefix   the prefix of file names
+	 * @param suffix   the suffix of file names
+	 * @param maxFiles the maximum number of files kept
+	 */
+	public RulesetFileCache(String prefix, String suffix, int maxFiles) {
+		this.prefix = prefix;
+		this.suffix = suffix;
+		this.files = new LinkedHashMap<String, CachedFile>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedFile> eldest) {
+				if (size() > maxFiles) {
+					uncache(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Get the file containing the rules with the given fingerprint, writing it if it does not
+	 * exist. The file must be closed once the scan no longer needs it.
+	 *
+	 * @param fingerprint the fingerprint of the rules, or null to write a new file that is not
+	 *                    cached
+	 * @param writer      the writer of the rules, used if there is no file for the fingerprint
+	 * @return the file for the scan to use. The file is deleted by this cache
+	 * @throws IOException      if the file cannot be written
+	 * @throws RulesetException if the rules cannot be written
+	 */
+	public synchronized RulesetFile getFile(String fingerprint, RulesetWriter writer)
+			throws IOException, RulesetException {
+		CachedFile file = fingerprint == null ? null : files.get(fingerprint);
+		if (file == null || !Files.exists(file.path)) {
+			file = new CachedFile(write(writer), fingerprint != null);
+			if (fingerprint != null) {
+				CachedFile replaced = files.put(fingerprint, file);
+				if (replaced != null) {
+					uncache(replaced);
+				}
+			}
+		}
+		file.users++;
+		return new RulesetFile(file);
+	}
+
+	private Path write(RulesetWriter writer) throws IOException, RulesetException {
+		Path path = Files.createTempFile(prefix, suffix).toFile().getCanonicalFile()
+				.getAbsoluteFile().toPath();
+		try {
+			writer.write(path);
+		} catch (IOException | RulesetException | RuntimeException e) {
+			FileUtils.deleteQuietly(path.toFile());
+			throw e;
+		}
+		return path;
+	}
+
+	private void uncache(CachedFile file) {
+		file.cached = false;
+		deleteIfUnused(file);
+	}
+
+	private static void deleteIfUnused(CachedFile file) {
+		if (!file.cached && file.users == 0) {
+			FileUtils.deleteQuietly(file.path.toFile());
+		}
+	}
+
+	/**
+	 * @return the number of files in this cache
+	 */
+	public synchronized int size() {
+		return files.size();
+	}
+}
@@ -51,6 +51,7 @@ public class RulesetService {
 	private RulesetRepository rulesetRepository;
 	private RuleService ruleService;
 	private RepositoryRepository repositoryRepository;
+	private CompiledRulesetCache rulesetCache;
 	private JsonMapper mapper;
 
 	/**
@@ -60,13 +61,16 @@ public class RulesetService {
 	 * @param rulesetRepository    repository to interact with the database
 	 * @param ruleService          service to retrieve rules
 	 * @param repositoryRepository repo repository to remove references to rulesets on delete
+	 * @param rulesetCache         cache of scan plans to invalidate when rulesets change
 	 */
 	public RulesetService(@Autowired RulesetRepository rulesetRepository,
 			@Autowired RuleService ruleService,
-			@Autowired RepositoryRepository repositoryRepository) {
+			@Autowired RepositoryRepository repositoryRepository,
+			@Autowired CompiledRulesetCache rulesetCache) {
 		this.rulesetRepository = rulesetRepository;
 		this.ruleService = ruleService;
 		this.repositoryRepository = repositoryRepository;
+		this.rulesetCache = rulesetCache;
 		PolymorphicTypeValidator validator = createTypeValidator();
 		mapper = JsonMapper.builder().polymorphicTypeValidator(validator)
 				.activateDefaultTyping(validator).build();
@@ -161,6 +165,7 @@ public class RulesetService {
 				});
 		repositoryRepository.flush();
 		rulesetRepository.delete(ruleset);
+		rulesetCache.remove(ruleset.getId());
 	}
 
 	/**
@@ -259,6 +264,8 @@ public class RulesetService {
 		ruleset.setRulesets(inheritedRulesets);
 
 		rulesetRepository.saveAndFlush(ruleset);
+		// changes to the inherited rulesets alone are not seen by the entity listener
+		rulesetCache.invalidate();
 	}
 
 	/**
@@ -281,6 +288,8 @@ public class RulesetService {
 		}
 		ruleset.setRules(rules);
 		rulesetRepository.saveAndFlush(ruleset);
+		// changes to the rules alone are not seen by the entity listener
+		rulesetCache.invalidate();
 	}
 
 	/**
@@ -339,6 +348,7 @@ public class RulesetService {
 		rulesets.forEach(ruleset -> ruleset.getRules().remove(rule));
 		rulesetRepository.saveAll(rulesets);
 		rulesetRepository.flush();
+		rulesetCache.invalidate();
 	}
 
 	/**
@@ -608,7 +618,9 @@ public class RulesetService {
 						providedOption);
 		// Set rules for the ruleset
 		foundWatchtowerRuleset.setRules(new HashSet<>(rules));
-		return rulesetRepository.saveAndFlush(foundWatchtowerRuleset);
+		RulesetEntity updated = rulesetRepository.saveAndFlush(foundWatchtowerRuleset);
+		rulesetCache.invalidate();
+		return updated;
 	}
 
 	private RulesetEntity importNewRuleset(RulesetDto rulesetDto, String authorName,
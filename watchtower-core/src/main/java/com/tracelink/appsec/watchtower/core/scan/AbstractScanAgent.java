@@ -1,6 +1,7 @@
 package com.tracelink.appsec.watchtower.core.scan;
 
 import com.tracelink.appsec.watchtower.core.benchmark.Benchmarker;
+import com.tracelink.appsec.watchtower.core.benchmark.ScannerTimer;
 import com.tracelink.appsec.watchtower.core.benchmark.WatchtowerBenchmarking;
 import com.tracelink.appsec.watchtower.core.benchmark.WatchtowerTimers;
 import com.tracelink.appsec.watchtower.core.exception.ScanInitializationException;
@@ -9,6 +10,21 @@ import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +35,16 @@ import org.slf4j.LoggerFactory;
  * Ensures that all objects are initialized and executes scanners against a working directory.
  * Collects reports and sends to the report method for implementations to manage. Finally, reports
  * on benchmarks, if configured and then starts a cleanup procedure for implementations
+ * <p>
+ * Scanners run one after another on the agent's thread by default. With parallel scanners
+ * enabled, all scanners are started together on a shared pool and their reports are joined. If a
+ * scanner timeout is set, scanners run on the pool and any scanner still running after the timeout
+ * is cancelled.
+ * <p>
+ * Cancelling a scanner only interrupts its thread. Before the scan moves on to being cleaned up,
+ * it waits up to {@value #SCANNER_STOP_SECONDS} seconds for cancelled scanners to return. A
+ * scanner that ignores interruption, or waits on an external process that does not stop with
+ * it, keeps running on the pool after that, and may see its working directory deleted.
  *
  * @param <T> The type of {@link AbstractScanAgent} (for builder subclassing)
  * @param <S> The type of {@link IScanner} used to scan in this agent
@@ -31,10 +57,30 @@ public abstract class AbstractScanAgent<T extends AbstractScanAgent<T, S, C, R>,
 
 	private Logger LOG = LoggerFactory.getLogger(getClass());
 
+	/**
+	 * Seconds to wait for cancelled scanners to return before the scan continues
+	 */
+	static final long SCANNER_STOP_SECONDS = 30L;
+
+	private static final ExecutorService SCANNER_EXECUTOR =
+			Executors.newCachedThreadPool(new ThreadFactory() {
+				private final AtomicInteger counter = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "ScannerThread " + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
 	private String scanName;
 	private Collection<S> scanners;
 	private RulesetDto ruleset;
 	private WatchtowerBenchmarking benchmarking;
+	private boolean parallelScanners = false;
+	private long scannerTimeoutSeconds = 0L;
+	private volatile boolean cancelled = false;
 
 	public AbstractScanAgent(String scanName) {
 		this.scanName = scanName;
@@ -74,6 +120,30 @@ public abstract class AbstractScanAgent<T extends AbstractScanAgent<T, S, C, R>,
 		return (T) this;
 	}
 
+	/**
+	 * Set whether this Agent should run all of its scanners at the same time
+	 *
+	 * @param parallelScanners true to run scanners in parallel, false to run them one at a time
+	 * @return this agent
+	 */
+	public T withParallelScanners(boolean parallelScanners) {
+		this.parallelScanners = parallelScanners;
+		return (T) this;
+	}
+
+	/**
+	 * Set the time a single scanner may run before it is cancelled
+	 * <p>
+	 * 0 means scanners may run for as long as they need
+	 *
+	 * @param scannerTimeoutSeconds the number of seconds a scanner may run
+	 * @return this agent
+	 */
+	public T withScannerTimeout(long scannerTimeoutSeconds) {
+		this.scannerTimeoutSeconds = scannerTimeoutSeconds;
+		return (T) this;
+	}
+
 	public String getScanName() {
 		return this.scanName;
 	}
@@ -90,27 +160,13 @@ public abstract class AbstractScanAgent<T extends AbstractScanAgent<T, S, C, R>,
 	public void run() {
 		try {
 			LOG.info("Starting Scan for scan: " + scanName);
-
-			try (Benchmarker b =
-					benchmarking.newBenchmarker(WatchtowerTimers.SCAN_TEST_SETUP)) {
-				initialize();
-			}
-			List<R> reports;
-			try (Benchmarker b =
-					benchmarking.newBenchmarker(WatchtowerTimers.SCAN_ALL_SCANNERS)) {
-				reports = scan();
-			}
-			try (Benchmarker b =
-					benchmarking.newBenchmarker(WatchtowerTimers.SEND_REPORT)) {
-				report(reports);
-			}
-			LOG.info("Report complete for scan: " + getScanName());
-
-			// Log benchmark information
-			if (benchmarking.isEnabled()) {
-				benchmarking.report("\n");
-			}
-
+			initializeStage();
+			List<R> reports = scanStage();
+			reportStage(reports);
+			persistStage();
+			finishScan();
+		} catch (CancellationException e) {
+			LOG.info("Cancelled scan: " + getScanName());
 		} catch (Exception e) {
 			handleScanException(e);
 		} finally {
@@ -118,6 +174,108 @@ public abstract class AbstractScanAgent<T extends AbstractScanAgent<T, S, C, R>,
 		}
 	}
 
+	/**
+	 * Runs this scan as a pipeline of {@linkplain ScanStage}s, each on the executor given for it,
+	 * instead of on a single thread. The next stage is queued on its executor when the previous
+	 * stage finishes, so a stage never holds a thread while waiting for another stage.
+	 * <p>
+	 * Exceptions are handled, cancellation is checked and the agent is cleaned up the same way as
+	 * in {@link #run()}.
+	 *
+	 * @param executors the executor to use for each stage
+	 * @return a future that completes when the scan has been cleaned up
+	 */
+	public CompletableFuture<Void> runAsync(Function<ScanStage, ? extends Executor> executors) {
+		return CompletableFuture.runAsync(() -> {
+			LOG.info("Starting Scan for scan: " + scanName);
+			try {
+				initializeStage();
+			} catch (ScanInitializationException e) {
+				throw new CompletionException(e);
+			}
+		}, executors.apply(ScanStage.FETCH))
+				.thenApplyAsync(v -> scanStage(), executors.apply(ScanStage.SCAN))
+				.thenAcceptAsync(this::reportStage, executors.apply(ScanStage.REPORT))
+				.thenRunAsync(() -> {
+					persistStage();
+					finishScan();
+				}, executors.apply(ScanStage.PERSIST))
+				.handle((v, t) -> {
+					try {
+						Throwable cause = t instanceof CompletionException ? t.getCause() : t;
+						if (cause instanceof CancellationException) {
+							LOG.info("Cancelled scan: " + getScanName());
+						} else if (cause instanceof Exception) {
+							handleScanException((Exception) cause);
+						} else if (cause != null) {
+							throw new CompletionException(cause);
+						}
+					} finally {
+						clean();
+					}
+					return null;
+				});
+	}
+
+	/**
+	 * Stop this scan before its next stage starts. A stage that is already running is left to
+	 * finish, and once the report stage has started the scan runs to completion. The agent is
+	 * still cleaned up.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+
+	private void checkCancelled() {
+		if (cancelled) {
+			throw new CancellationException("Scan cancelled: " + getScanName());
+		}
+	}
+
+	private void initializeStage() throws ScanInitializationException {
+		checkCancelled();
+		try (Benchmarker b =
+				benchmarking.newBenchmarker(WatchtowerTimers.SCAN_TEST_SETUP)) {
+			initialize();
+		}
+	}
+
+	private List<R> scanStage() {
+		checkCancelled();
+		try (Benchmarker b =
+				benchmarking.newBenchmarker(WatchtowerTimers.SCAN_ALL_SCANNERS)) {
+			return scan();
+		}
+	}
+
+	private void reportStage(List<R> reports) {
+		checkCancelled();
+		try (Benchmarker b =
+				benchmarking.newBenchmarker(WatchtowerTimers.SEND_REPORT)) {
+			report(reports);
+		}
+	}
+
+	private void persistStage() {
+		try (Benchmarker b =
+				benchmarking.newBenchmarker(WatchtowerTimers.SAVE_RESULTS)) {
+			persist();
+		}
+	}
+
+	private void finishScan() {
+		LOG.info("Report complete for scan: " + getScanName());
+
+		// Log benchmark information
+		if (benchmarking.isEnabled()) {
+			benchmarking.report("\n");
+		}
+	}
+
 	/**
 	 * (Optional) Step to handle any exceptions encountered while processing. Defaults to doing
 	 * nothing.
@@ -152,26 +310,176 @@ public abstract class AbstractScanAgent<T extends AbstractScanAgent<T, S, C, R>,
 	 * @return list of reports from the scanner(s)
 	 */
 	protected List<R> scan() {
-		List<R> reports = new ArrayList<>();
-
 		// Create scan config
 		C config = createScanConfig();
 
+		List<S> scannersToRun = new ArrayList<>();
 		for (S scanner : scanners) {
 			if (shouldRunScanner(scanner, config)) {
-				// Scan and format report
-				R report = scanner.scan(config);
-				if (config.isBenchmarkEnabled()) {
-					report.logRuleBenchmarking();
-				}
-				reports.add(report);
+				scannersToRun.add(scanner);
 			} else {
 				LOG.debug("Skipping scanner " + scanner.getClass().getSimpleName());
 			}
 		}
+
+		List<R> reports = new ArrayList<>();
+		if (!parallelScanners && scannerTimeoutSeconds <= 0) {
+			for (S scanner : scannersToRun) {
+				reports.add(runScanner(scanner, config));
+			}
+			return reports;
+		}
+
+		List<Future<R>> futures = new ArrayList<>();
+		List<ScannerTask> tasks = new ArrayList<>();
+		try {
+			if (parallelScanners) {
+				for (S scanner : scannersToRun) {
+					ScannerTask task = new ScannerTask(scanner, config);
+					tasks.add(task);
+					futures.add(SCANNER_EXECUTOR.submit(task));
+				}
+				long deadline = getScannerDeadline();
+				for (int i = 0; i < scannersToRun.size(); i++) {
+					addScannerReport(reports, scannersToRun.get(i), futures.get(i), deadline);
+				}
+			} else {
+				for (S scanner : scannersToRun) {
+					ScannerTask task = new ScannerTask(scanner, config);
+					tasks.add(task);
+					Future<R> future = SCANNER_EXECUTOR.submit(task);
+					futures.add(future);
+					addScannerReport(reports, scanner, future, getScannerDeadline());
+				}
+			}
+		} finally {
+			// stop any scanners still running if this scan ends early
+			futures.forEach(future -> future.cancel(true));
+			awaitScanners(tasks);
+		}
 		return reports;
 	}
 
+	/**
+	 * Wait for cancelled scanners to return, so that they do not read the working directory
+	 * while it is cleaned up. Gives up after {@value #SCANNER_STOP_SECONDS} seconds in total.
+	 */
+	private void awaitScanners(List<ScannerTask> tasks) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SCANNER_STOP_SECONDS);
+		for (ScannerTask task : tasks) {
+			String scannerName = task.scanner.getClass().getSimpleName();
+			try {
+				if (!task.awaitReturn(Math.max(0L, deadline - System.nanoTime()))) {
+					LOG.warn("Scanner " + scannerName + " did not stop within "
+							+ SCANNER_STOP_SECONDS + " seconds of being cancelled. Scan Name: "
+							+ getScanName());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Runs a scanner on the scanner pool and signals when it has returned
+	 */
+	private final class ScannerTask implements Callable<R> {
+		private final S scanner;
+		private final C config;
+		private final CountDownLatch returned = new CountDownLatch(1);
+		private volatile boolean started = false;
+
+		private ScannerTask(S scanner, C config) {
+			this.scanner = scanner;
+			this.config = config;
+		}
+
+		@Override
+		public R call() {
+			started = true;
+			try {
+				return runScanner(scanner, config);
+			} finally {
+				returned.countDown();
+			}
+		}
+
+		/**
+		 * Wait for the scanner to return. A task cancelled before it started never runs.
+		 *
+		 * @param nanos the most time to wait
+		 * @return true if the scanner has returned or never started
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		private boolean awaitReturn(long nanos) throws InterruptedException {
+			return !started || returned.await(nanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private R runScanner(S scanner, C config) {
+		try (Benchmarker b = benchmarking
+				.newBenchmarker(new ScannerTimer(scanner.getClass().getSimpleName()))) {
+			// Scan and format report
+			R report = scanner.scan(config);
+			if (config.isBenchmarkEnabled()) {
+				report.logRuleBenchmarking();
+			}
+			return report;
+		}
+	}
+
+	private long getScannerDeadline() {
+		return System.nanoTime() + TimeUnit.SECONDS.toNanos(scannerTimeoutSeconds);
+	}
+
+	private void addScannerReport(List<R> reports, S scanner, Future<R> future, long deadline) {
+		String scannerName = scanner.getClass().getSimpleName();
+		try {
+			if (scannerTimeoutSeconds <= 0) {
+				reports.add(future.get());
+			} else {
+				reports.add(future.get(Math.max(0L, deadline - System.nanoTime()),
+						TimeUnit.NANOSECONDS));
+			}
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			String message = "Scanner " + scannerName + " did not finish within "
+					+ scannerTimeoutSeconds + " seconds and was cancelled";
+			LOG.error(message + ". Scan Name: " + getScanName());
+			R report = createScannerTimeoutReport(scanner, message);
+			if (report != null) {
+				reports.add(report);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+					"Interrupted while waiting for scanner " + scannerName, e);
+		} catch (ExecutionException e) {
+			// fail the scan the same way as when the scanner runs on this thread
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("Scanner " + scannerName + " failed", cause);
+		}
+	}
+
+	/**
+	 * (Optional) Creates the report for a scanner that was cancelled because it reached the
+	 * scanner timeout. Defaults to no report, so the scanner's findings are left out of the scan.
+	 *
+	 * @param scanner the scanner that was cancelled
+	 * @param message a description of the timeout
+	 * @return a report to include in the scan, or null to include nothing
+	 */
+	protected R createScannerTimeoutReport(S scanner, String message) {
+		return null;
+	}
+
 	/**
 	 * Determines whether the given scanner should be run based on the provided scan config
 	 *
@@ -198,6 +506,15 @@ public abstract class AbstractScanAgent<T extends AbstractScanAgent<T, S, C, R>,
 	 */
 	protected abstract void report(List<R> reports);
 
+	/**
+	 * (Optional) Save the results of this scan after they have been reported. Kept separate from
+	 * {@link #report(List)} so that saving can run on its own {@linkplain ScanStage#PERSIST}
+	 * executor. Defaults to doing nothing.
+	 */
+	protected void persist() {
+		// nothing to save by default
+	}
+
 	/**
 	 * Do any cleanup necessary to close this scan agent. This always runs.
 	 */
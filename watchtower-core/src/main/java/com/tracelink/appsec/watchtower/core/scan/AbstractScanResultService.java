@@ -4,8 +4,6 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.LongSummaryStatistics;
-import java.util.stream.Collectors;
 
 import com.tracelink.appsec.watchtower.core.rule.RulePriority;
 import org.springframework.data.domain.Page;
@@ -64,7 +62,7 @@ public abstract class AbstractScanResultService<S extends AbstractScanEntity<?,
 	 * @return number of violations found
 	 */
 	public long countViolations() {
-		return vioRepo.findAll().stream().filter(v -> !v.getSeverity().equals(RulePriority.INFORMATIONAL)).count();
+		return vioRepo.countBySeverityNot(RulePriority.INFORMATIONAL);
 	}
 
 	/**
@@ -111,6 +109,16 @@ public abstract class AbstractScanResultService<S extends AbstractScanEntity<?,
 		return oldestScanDate;
 	}
 
+	/**
+	 * Gets the id of the most recently created scan
+	 *
+	 * @return the id of the latest scan, or 0 if there are no scans
+	 */
+	public long getLastScanId() {
+		S latest = scanRepo.findFirstByOrderByIdDesc();
+		return latest != null ? latest.getId() : 0L;
+	}
+
 	/**
 	 * Get the average time (in milliseconds) all scans took to run, from starting (not just
 	 * queuing) to ending (report made).
@@ -118,19 +126,8 @@ public abstract class AbstractScanResultService<S extends AbstractScanEntity<?,
 	 * @return the average time in milliseconds to scan for this container type
 	 */
 	public double getAverageTime() {
-		int page = 0;
-		Page<S> scanPage;
-		LongSummaryStatistics stats = new LongSummaryStatistics();
-		do {
-			scanPage = scanRepo.findAll(PageRequest.of(page, 1000));
-			stats.combine(scanPage.stream()
-					.filter(s -> s.getStartDateMillis() > 0 && s.getEndDateMillis() > 0)
-					.collect(Collectors.summarizingLong(
-							se -> se.getEndDateMillis() - se.getStartDateMillis())));
-			page++;
-		} while (!scanPage.isLast());
-
-		return stats.getAverage();
+		Double average = scanRepo.averageDuration();
+		return average == null ? 0.0 : average;
 	}
 
 }
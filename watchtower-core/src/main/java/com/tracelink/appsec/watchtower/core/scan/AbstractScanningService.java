@@ -1,15 +1,31 @@
 package com.tracelink.appsec.watchtower.core.scan;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 
 import com.tracelink.appsec.watchtower.core.scan.code.threadpool.PauseableThreadPoolTaskExecutor;
+import com.tracelink.appsec.watchtower.core.scan.code.threadpool.ScanWorkerPool;
 
 /**
  * Handles creating executor services and scheduling scans in a
  * {@linkplain PauseableThreadPoolTaskExecutor}.
+ * <p>
+ * Services may also create an executor for each {@linkplain ScanStage} after the
+ * {@linkplain ScanStage#FETCH} stage, which always uses the main executor. Pausing and the queue
+ * counts of the service apply to the main executor, so they control how many scans are started.
+ * Scans run with {@linkplain #runStaged(AbstractScanAgent)} are limited to a number of scans in
+ * flight, counted from when their fetch stage is queued until they are cleaned up, so fetched scans
+ * cannot pile up in the queues of the later stages. Scans over the limit wait outside of the
+ * executors, and the fetch stage of the next waiting scan is queued as each scan is cleaned up.
  * 
  * @author csmith
  *
@@ -18,21 +34,179 @@ public abstract class AbstractScanningService {
 	private static Logger LOG = LoggerFactory.getLogger(AbstractScanningService.class);
 
 	private PauseableThreadPoolTaskExecutor executor;
+	private final Map<ScanStage, PauseableThreadPoolTaskExecutor> stageExecutors =
+			new EnumMap<>(ScanStage.class);
+	private final int maxScansInFlight;
+	private final Deque<WaitingScan> waitingScans = new ArrayDeque<>();
+	private int scansInFlight = 0;
 	private boolean isQuiesced = false;
 
 	private final boolean runAfterStartup;
 
-	protected AbstractScanningService(int executorThreads, boolean shouldRecoverFromDowntime) {
+	private AbstractScanningService(int executorThreads, boolean shouldRecoverFromDowntime,
+			int maxScansInFlight) {
 		this.executor = new PauseableThreadPoolTaskExecutor(executorThreads);
 		this.executor.setBeanName(this.getClass().getSimpleName());
 		this.executor.initialize();
+		this.maxScansInFlight = Math.max(1, maxScansInFlight);
 		this.runAfterStartup = shouldRecoverFromDowntime;
 	}
 
+	protected AbstractScanningService(int executorThreads, boolean shouldRecoverFromDowntime) {
+		this(executorThreads, shouldRecoverFromDowntime, executorThreads);
+	}
+
+	/**
+	 * Create a service with an executor for each of the given stages after the fetch stage
+	 * 
+	 * @param executorThreads           number of threads of the main executor, which fetches
+	 *                                  scans
+	 * @param shouldRecoverFromDowntime whether to recover scans missed during downtime
+	 * @param stageThreads              number of threads of the executor of each stage
+	 * @param maxScansInFlight          most scans run with {@linkplain #runStaged(AbstractScanAgent)}
+	 *                                  that may be fetched or fetching at the same time. 0 or less
+	 *                                  allows as many scans as there are threads in all stages
+	 */
+	protected AbstractScanningService(int executorThreads, boolean shouldRecoverFromDowntime,
+			Map<ScanStage, Integer> stageThreads, int maxScansInFlight) {
+		this(executorThreads, shouldRecoverFromDowntime, maxScansInFlight > 0 ? maxScansInFlight
+				: executorThreads + stageThreads.entrySet().stream()
+						.filter(e -> e.getKey() != ScanStage.FETCH)
+						.mapToInt(Map.Entry::getValue).sum());
+		stageExecutors.put(ScanStage.FETCH, executor);
+		stageThreads.forEach((stage, threads) -> {
+			if (stage != ScanStage.FETCH) {
+				PauseableThreadPoolTaskExecutor stageExecutor =
+						new PauseableThreadPoolTaskExecutor(threads);
+				stageExecutor.setBeanName(
+						this.getClass().getSimpleName() + "-" + stage.getDisplayName());
+				stageExecutor.initialize();
+				stageExecutors.put(stage, stageExecutor);
+			}
+		});
+	}
+
 	public PauseableThreadPoolTaskExecutor getExecutor() {
 		return executor;
 	}
 
+	/**
+	 * Gets the executor for the given stage of a scan, or the main executor if the service has no
+	 * executor for that stage
+	 * 
+	 * @param stage the stage of a scan
+	 * @return the executor to run the stage on
+	 */
+	public PauseableThreadPoolTaskExecutor getStageExecutor(ScanStage stage) {
+		return stageExecutors.getOrDefault(stage, executor);
+	}
+
+	/**
+	 * Runs the given scan on the executor of each {@linkplain ScanStage}. The fetch stage is only
+	 * queued once there are fewer scans in flight than the limit of this service, otherwise the
+	 * scan waits until a scan in flight has been cleaned up.
+	 * 
+	 * @param scanAgent the scan to run
+	 * @return a future that completes when the scan has been cleaned up. It completes
+	 *         exceptionally if the fetch stage of a waiting scan is rejected by the executor
+	 * @throws RejectedExecutionException if the scan can start at once and its fetch stage is
+	 *                                    rejected by the executor
+	 */
+	protected CompletableFuture<Void> runStaged(AbstractScanAgent<?, ?, ?, ?> scanAgent)
+			throws RejectedExecutionException {
+		WaitingScan scan = new WaitingScan(scanAgent);
+		synchronized (waitingScans) {
+			if (scansInFlight >= maxScansInFlight) {
+				waitingScans.add(scan);
+				return scan.done;
+			}
+			scansInFlight++;
+		}
+		try {
+			scan.start();
+		} catch (RejectedExecutionException e) {
+			finishScanInFlight();
+			throw e;
+		}
+		return scan.done;
+	}
+
+	/**
+	 * Starts the next waiting scan in place of a scan that has been cleaned up, or frees its place
+	 * if no scans are waiting
+	 */
+	private void finishScanInFlight() {
+		while (true) {
+			WaitingScan next;
+			synchronized (waitingScans) {
+				next = waitingScans.poll();
+				if (next == null) {
+					scansInFlight--;
+					return;
+				}
+			}
+			try {
+				next.start();
+				return;
+			} catch (RejectedExecutionException e) {
+				LOG.error("Could not start waiting scan " + next.scanAgent.getScanName(), e);
+				next.done.completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of scans run in stages that are waiting for a scan in flight to be cleaned
+	 * up before their source is fetched
+	 * 
+	 * @return number of waiting scans
+	 */
+	public int getWaitingScanCount() {
+		synchronized (waitingScans) {
+			return waitingScans.size();
+		}
+	}
+
+	/**
+	 * Gets the number of scans run in stages that are fetching or have been fetched, and have not
+	 * been cleaned up yet
+	 * 
+	 * @return number of scans in flight
+	 */
+	public int getScansInFlight() {
+		synchronized (waitingScans) {
+			return scansInFlight;
+		}
+	}
+
+	public int getMaxScansInFlight() {
+		return maxScansInFlight;
+	}
+
+	/**
+	 * A scan to run in stages, and the future completed when it has been cleaned up
+	 */
+	private final class WaitingScan {
+		private final AbstractScanAgent<?, ?, ?, ?> scanAgent;
+		private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+		private WaitingScan(AbstractScanAgent<?, ?, ?, ?> scanAgent) {
+			this.scanAgent = scanAgent;
+		}
+
+		private void start() throws RejectedExecutionException {
+			scanAgent.runAsync(AbstractScanningService.this::getStageExecutor)
+					.whenComplete((v, t) -> {
+						finishScanInFlight();
+						if (t == null) {
+							done.complete(null);
+						} else {
+							done.completeExceptionally(t);
+						}
+					});
+		}
+	}
+
 	/**
 	 * Halts processing new scans using {@linkplain PauseableThreadPoolTaskExecutor#pause()}
 	 */
@@ -75,6 +249,13 @@ public abstract class AbstractScanningService {
 	 */
 	public void shutdown() {
 		this.getExecutor().shutdown();
+		// each stage waits for its tasks, which may queue tasks on the next stage
+		for (ScanStage stage : ScanStage.values()) {
+			PauseableThreadPoolTaskExecutor stageExecutor = stageExecutors.get(stage);
+			if (stageExecutor != null && stageExecutor != executor) {
+				stageExecutor.shutdown();
+			}
+		}
 	}
 
 	public long getTaskNumInQueue() {
@@ -85,6 +266,48 @@ public abstract class AbstractScanningService {
 		return this.getExecutor().getTaskNumActive();
 	}
 
+	/**
+	 * Gets the number of scans waiting in each stage that has its own executor
+	 * 
+	 * @return number of queued scans by stage
+	 */
+	public Map<ScanStage, Long> getStageTaskNumInQueue() {
+		Map<ScanStage, Long> queued = new EnumMap<>(ScanStage.class);
+		stageExecutors.forEach((stage, e) -> queued.put(stage, e.getTaskNumInQueue()));
+		return queued;
+	}
+
+	/**
+	 * Gets the number of scans running in each stage that has its own executor
+	 * 
+	 * @return number of active scans by stage
+	 */
+	public Map<ScanStage, Long> getStageTaskNumActive() {
+		Map<ScanStage, Long> active = new EnumMap<>(ScanStage.class);
+		stageExecutors.forEach((stage, e) -> active.put(stage, e.getTaskNumActive()));
+		return active;
+	}
+
+	/**
+	 * Gets the number of file-level tasks waiting in the {@linkplain ScanWorkerPool} shared by all
+	 * scans
+	 * 
+	 * @return number of queued file tasks
+	 */
+	public long getFileTaskNumInQueue() {
+		return ScanWorkerPool.getShared().getTaskNumInQueue();
+	}
+
+	/**
+	 * Gets the number of file-level tasks running in the {@linkplain ScanWorkerPool} shared by all
+	 * scans
+	 * 
+	 * @return number of active file tasks
+	 */
+	public long getFileTaskNumActive() {
+		return ScanWorkerPool.getShared().getTaskNumActive();
+	}
+
 	/**
 	 * After Watchtower is fully live, attempt any processing needed to "catch up" on scans between
 	 * when the server went down and now.
@@ -5,6 +5,7 @@ import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.NoRepositoryBean;
 
 /**
@@ -21,9 +22,20 @@ public interface IScanRepository<S extends AbstractScanEntity<?, ?>>
 
 	S findFirstByOrderByEndDateAsc();
 
+	S findFirstByOrderByIdDesc();
+
 	List<S> findByStatus(ScanStatus status);
 
 	Page<S> findByStatusIn(List<ScanStatus> status, Pageable pageable);
 
 	Page<S> findAllByEndDateBetween(long start, long end, Pageable pageable);
+
+	/**
+	 * Average the duration of all scans that have both started and ended
+	 *
+	 * @return the average duration in milliseconds, or null if no scan has ended
+	 */
+	@Query("SELECT AVG(s.endDate - s.startDate) FROM #{#entityName} s"
+			+ " WHERE s.startDate > 0 AND s.endDate > 0")
+	Double averageDuration();
 }
@@ -3,6 +3,8 @@ package com.tracelink.appsec.watchtower.core.scan;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.NoRepositoryBean;
 
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
+
 /**
  * High-level Repostiory for all Violations
  *
@@ -12,4 +14,6 @@ import org.springframework.data.repository.NoRepositoryBean;
 @NoRepositoryBean
 public interface IViolationRepository<V extends AbstractScanViolationEntity<?>>
 		extends JpaRepository<V, Long> {
+
+	long countBySeverityNot(RulePriority severity);
 }
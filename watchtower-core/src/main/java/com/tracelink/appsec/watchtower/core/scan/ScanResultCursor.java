@@ -0,0 +1,58 @@
+package com.tracelink.appsec.watchtower.core.scan;
+
+/**
+ * Position in a listing of scan results, ordered by end date and id of the scans with the newest
+ * first. The next page of a listing holds the scans after the cursor, so listing a page does not
+ * count through the pages before it.
+ *
+ * @author csmith
+ */
+public class ScanResultCursor {
+	/**
+	 * The cursor before the newest scan, for the first page of a listing
+	 */
+	public static final ScanResultCursor FIRST =
+			new ScanResultCursor(Long.MAX_VALUE, Long.MAX_VALUE);
+
+	private static final String SEPARATOR = "-";
+
+	private final long endDate;
+	private final long id;
+
+	public ScanResultCursor(long endDate, long id) {
+		this.endDate = endDate;
+		this.id = id;
+	}
+
+	public long getEndDate() {
+		return endDate;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Parse a cursor written by {@link #toString()}
+	 *
+	 * @param cursor the cursor to parse
+	 * @return the parsed cursor
+	 * @throws IllegalArgumentException if the cursor is not valid
+	 */
+	public static ScanResultCursor parse(String cursor) throws IllegalArgumentException {
+		String[] parts = cursor.split(SEPARATOR);
+		if (parts.length != 2) {
+			throw new IllegalArgumentException("Invalid cursor " + cursor);
+		}
+		try {
+			return new ScanResultCursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid cursor " + cursor, e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return endDate + SEPARATOR + id;
+	}
+}
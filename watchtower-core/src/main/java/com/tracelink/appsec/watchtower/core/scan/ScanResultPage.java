@@ -0,0 +1,30 @@
+package com.tracelink.appsec.watchtower.core.scan;
+
+import java.util.List;
+
+/**
+ * A page of scan results, with the cursor to fetch the page after it
+ *
+ * @param <R> the type of scan result
+ * @author csmith
+ */
+public class ScanResultPage<R> {
+	private final List<R> results;
+	private final ScanResultCursor next;
+
+	public ScanResultPage(List<R> results, ScanResultCursor next) {
+		this.results = results;
+		this.next = next;
+	}
+
+	public List<R> getResults() {
+		return results;
+	}
+
+	/**
+	 * @return the cursor of the next page, or null if this is the last page
+	 */
+	public ScanResultCursor getNext() {
+		return next;
+	}
+}
@@ -0,0 +1,38 @@
+package com.tracelink.appsec.watchtower.core.scan;
+
+/**
+ * The stages of a scan when it is run as a pipeline using
+ * {@linkplain AbstractScanAgent#runAsync(java.util.function.Function)}. Each stage can run on its
+ * own executor, so that stages waiting on the network or the database do not hold the threads
+ * used for scanning.
+ *
+ * @author csmith
+ */
+public enum ScanStage {
+	/**
+	 * Check the scan configuration and gather the files to scan
+	 */
+	FETCH("Fetch"),
+	/**
+	 * Run the scanners against the gathered files
+	 */
+	SCAN("Scan"),
+	/**
+	 * Process the scanner reports and send results to external systems
+	 */
+	REPORT("Report"),
+	/**
+	 * Save the results of the scan
+	 */
+	PERSIST("Persist");
+
+	private final String displayName;
+
+	ScanStage(String displayName) {
+		this.displayName = displayName;
+	}
+
+	public String getDisplayName() {
+		return displayName;
+	}
+}
@@ -0,0 +1,58 @@
+package com.tracelink.appsec.watchtower.core.scan;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes the violations of a scan with batched JDBC inserts in a single transaction. Violations
+ * have identity keys, which keep Hibernate from batching their inserts, so saving them through
+ * their repositories costs a round trip to the database for each violation.
+ * <p>
+ * Violations written this way are not managed by JPA, and are not given their ids.
+ *
+ * @author csmith
+ */
+@Service
+public class ViolationBatchWriter {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
+
+	public ViolationBatchWriter(@Autowired JdbcTemplate jdbcTemplate,
+			@Autowired PlatformTransactionManager transactionManager,
+			@Value("${watchtower.violations.batchSize:1000}") int batchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * Insert all violations, sending them to the database in batches of the configured size. If
+	 * any batch fails, none of the violations are saved.
+	 *
+	 * @param <V>        the type of violation
+	 * @param insertSql  the insert statement for a single violation
+	 * @param violations the violations to insert
+	 * @param setter     sets the parameters of the insert statement for a violation
+	 */
+	public <V extends AbstractScanViolationEntity<?>> void write(String insertSql,
+			List<V> violations, ParameterizedPreparedStatementSetter<V> setter) {
+		if (violations.isEmpty()) {
+			return;
+		}
+		transactionTemplate.executeWithoutResult(
+				status -> jdbcTemplate.batchUpdate(insertSql, violations, batchSize, setter));
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+}
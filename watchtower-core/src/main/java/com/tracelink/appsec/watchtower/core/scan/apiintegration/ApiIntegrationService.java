@@ -10,6 +10,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.tracelink.appsec.watchtower.core.scan.IWatchtowerApi;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.api.bb.BBCloudClient;
 
 /**
  * Handles all logic related to the API Integration Entities
@@ -81,6 +82,7 @@ public class ApiIntegrationService {
 		}
 		apiRepo.delete(integrationEntity);
 		apiRepo.flush();
+		BBCloudClient.evict(apiLabel);
 	}
 
 	/**
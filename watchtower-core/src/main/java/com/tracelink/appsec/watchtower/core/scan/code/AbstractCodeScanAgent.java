@@ -12,6 +12,8 @@ import com.tracelink.appsec.watchtower.core.exception.ScanInitializationExceptio
 import com.tracelink.appsec.watchtower.core.module.scanner.ICodeScanner;
 import com.tracelink.appsec.watchtower.core.scan.AbstractScanAgent;
 import com.tracelink.appsec.watchtower.core.scan.AbstractScanningService;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.ScanResultCache;
+import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 
 /**
@@ -32,6 +34,9 @@ public abstract class AbstractCodeScanAgent<T extends AbstractCodeScanAgent<T>>
 
 	private int threads;
 	private Path workingDirectory;
+	private FileManifest fileManifest;
+	private ScanResultCache resultCache;
+	private ScanPlan scanPlan;
 
 	public AbstractCodeScanAgent(String scanName) {
 		super(scanName);
@@ -53,6 +58,33 @@ public abstract class AbstractCodeScanAgent<T extends AbstractCodeScanAgent<T>>
 		return (T) this;
 	}
 
+	/**
+	 * Set the cache of file reports that scanners of this Agent may use
+	 * 
+	 * @param resultCache the cache to use, or null to scan every file
+	 * @return this agent
+	 */
+	public T withResultCache(ScanResultCache resultCache) {
+		this.resultCache = resultCache;
+		return (T) this;
+	}
+
+	/**
+	 * Set the plan for this Agent's configuration, which is shared with other scans of the same
+	 * ruleset. Also sets the ruleset of the plan as the ruleset of this Agent.
+	 * 
+	 * @param scanPlan the plan to use
+	 * @return this agent
+	 */
+	public T withScanPlan(ScanPlan scanPlan) {
+		this.scanPlan = scanPlan;
+		return withRuleset(scanPlan.getRuleset());
+	}
+
+	protected int getThreads() {
+		return threads;
+	}
+
 	/**
 	 * Does initialization routines and checks to ensure parameters are correct
 	 * 
@@ -79,12 +111,39 @@ public abstract class AbstractCodeScanAgent<T extends AbstractCodeScanAgent<T>>
 		// Create scan config
 		CodeScanConfig config = new CodeScanConfig();
 		config.setRuleset(getRuleset());
+		config.setScanPlan(scanPlan != null && scanPlan.getRuleset() == getRuleset() ? scanPlan
+				: new ScanPlan(getRuleset()));
 		config.setWorkingDirectory(getWorkingDirectory());
+		config.setFileManifest(fileManifest != null ? fileManifest
+				: FileManifest.build(getWorkingDirectory()));
 		config.setThreads(threads);
+		config.setResultCache(resultCache);
 		config.setBenchmarkEnabled(isBenchmarkingEnabled());
 		return config;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean shouldRunScanner(ICodeScanner scanner, CodeScanConfig config) {
+		return scanner.getSupportedRuleClass() != null
+				&& !config.getScanPlan().getRules(scanner.getSupportedRuleClass()).isEmpty();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Code scans report the timeout as an error, so that the scan does not look clean for the
+	 * rules of the cancelled scanner.
+	 */
+	@Override
+	protected CodeScanReport createScannerTimeoutReport(ICodeScanner scanner, String message) {
+		CodeScanReport report = new CodeScanReport();
+		report.addError(new CodeScanError(message));
+		return report;
+	}
+
 	/**
 	 * Create a working directory
 	 * 
@@ -104,6 +163,17 @@ public abstract class AbstractCodeScanAgent<T extends AbstractCodeScanAgent<T>>
 		return workingDirectory;
 	}
 
+	/**
+	 * Set the files collected into the working directory. Agents that walk or write the working
+	 * directory while collecting files should set this, so that it does not need to be walked
+	 * again before scanning.
+	 * 
+	 * @param fileManifest the files to scan
+	 */
+	protected void setFileManifest(FileManifest fileManifest) {
+		this.fileManifest = fileManifest;
+	}
+
 	/**
 	 * Get the directory that this scan agent should scan against
 	 * 
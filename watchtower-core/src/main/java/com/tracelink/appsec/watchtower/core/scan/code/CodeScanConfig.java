@@ -3,6 +3,7 @@ package com.tracelink.appsec.watchtower.core.scan.code;
 import java.nio.file.Path;
 
 import com.tracelink.appsec.watchtower.core.scan.AbstractScanConfig;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.ScanResultCache;
 
 /**
  * Scan configuration object for Code Scanning
@@ -22,6 +23,18 @@ public class CodeScanConfig extends AbstractScanConfig {
 	 * whether debug is enabled for this scan
 	 */
 	private boolean debugEnabled = false;
+	/**
+	 * the rules of the ruleset, prepared for this scan
+	 */
+	private ScanPlan scanPlan;
+	/**
+	 * the files collected for this scan
+	 */
+	private FileManifest fileManifest;
+	/**
+	 * the cache of file reports shared by scans, or null to scan every file
+	 */
+	private ScanResultCache resultCache;
 
 	public Path getWorkingDirectory() {
 		return workingDirectory;
@@ -53,4 +66,45 @@ public class CodeScanConfig extends AbstractScanConfig {
 		this.debugEnabled = debugEnabled;
 	}
 
+	/**
+	 * Gets the scan plan for this scan. If no plan has been set, one is created from the ruleset.
+	 *
+	 * @return the scan plan, or null if there is no ruleset
+	 */
+	public ScanPlan getScanPlan() {
+		if (scanPlan == null && getRuleset() != null) {
+			scanPlan = new ScanPlan(getRuleset());
+		}
+		return scanPlan;
+	}
+
+	public void setScanPlan(ScanPlan scanPlan) {
+		this.scanPlan = scanPlan;
+	}
+
+	/**
+	 * Gets the files to scan. If no manifest has been set, one is created by walking the working
+	 * directory.
+	 *
+	 * @return the file manifest, or null if there is no working directory
+	 */
+	public synchronized FileManifest getFileManifest() {
+		if (fileManifest == null && workingDirectory != null) {
+			fileManifest = FileManifest.build(workingDirectory);
+		}
+		return fileManifest;
+	}
+
+	public synchronized void setFileManifest(FileManifest fileManifest) {
+		this.fileManifest = fileManifest;
+	}
+
+	public ScanResultCache getResultCache() {
+		return resultCache;
+	}
+
+	public void setResultCache(ScanResultCache resultCache) {
+		this.resultCache = resultCache;
+	}
+
 }
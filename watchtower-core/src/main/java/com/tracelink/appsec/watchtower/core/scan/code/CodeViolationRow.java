@@ -0,0 +1,46 @@
+package com.tracelink.appsec.watchtower.core.scan.code;
+
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
+
+/**
+ * The columns of a code scan violation shown in scan results. Loaded without the violation entity,
+ * whose scan would otherwise be loaded along with every other violation of the scan.
+ *
+ * @author csmith
+ */
+public class CodeViolationRow {
+	private final long id;
+	private final String violationName;
+	private final int lineNum;
+	private final String fileName;
+	private final RulePriority severity;
+
+	public CodeViolationRow(long id, String violationName, int lineNum, String fileName,
+			RulePriority severity) {
+		this.id = id;
+		this.violationName = violationName;
+		this.lineNum = lineNum;
+		this.fileName = fileName;
+		this.severity = severity;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getViolationName() {
+		return violationName;
+	}
+
+	public int getLineNum() {
+		return lineNum;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public RulePriority getSeverity() {
+		return severity;
+	}
+}
@@ -0,0 +1,199 @@
+package com.tracelink.appsec.watchtower.core.scan.code;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The files to scan in a working directory, collected once per scan by the scan agent so that
+ * scanners do not each walk the directory again. Entries keep the order they were collected in.
+ * <p>
+ * This object is immutable and safe to share between the scanners and threads of a scan.
+ *
+ * @author csmith
+ */
+public class FileManifest {
+	/**
+	 * Number of bytes at the start of a file used to classify it as binary
+	 */
+	public static final int BINARY_SNIFF_LENGTH = 1000;
+
+	private final Path root;
+	private final List<ManifestEntry> entries;
+	private final List<String> errors;
+
+	/**
+	 * Create a manifest of the given entries
+	 *
+	 * @param root    the directory containing all entries
+	 * @param entries the files to scan
+	 * @param errors  messages for files that could not be collected
+	 */
+	public FileManifest(Path root, List<ManifestEntry> entries, List<String> errors) {
+		this.root = root;
+		this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+		this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+	}
+
+	/**
+	 * Walk the given directory and create a manifest of all regular files in it
+	 *
+	 * @param root the directory to walk
+	 * @return a manifest of the directory
+	 */
+	public static FileManifest build(Path root) {
+		Builder builder = new Builder(root);
+		try {
+			Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					if (attrs.isRegularFile()) {
+						builder.add(file, attrs.size());
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException exc) {
+					builder.addError(exc.getMessage());
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			builder.addError(e.getMessage());
+		}
+		return builder.build();
+	}
+
+	public Path getRoot() {
+		return root;
+	}
+
+	public List<ManifestEntry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * @return messages for files or directories that could not be collected
+	 */
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * @return the paths of all entries
+	 */
+	public List<Path> getPaths() {
+		return entries.stream().map(ManifestEntry::getPath).collect(Collectors.toList());
+	}
+
+	/**
+	 * Create a manifest of the entries that match the given filter, e.g. to skip files that no
+	 * rule of a scanner applies to
+	 *
+	 * @param filter the entries to keep
+	 * @return a new manifest with the same root and errors
+	 */
+	public FileManifest filter(Predicate<ManifestEntry> filter) {
+		return new FileManifest(root,
+				entries.stream().filter(filter).collect(Collectors.toList()), errors);
+	}
+
+	/**
+	 * Classify a file as binary based on the printable characters in its first
+	 * {@link #BINARY_SNIFF_LENGTH} bytes. Files that cannot be read are treated as binary.
+	 *
+	 * @param file the file to classify
+	 * @return true if the file is likely binary
+	 */
+	public static boolean isBinary(Path file) {
+		try (InputStream in = Files.newInputStream(file)) {
+			byte[] bytes = new byte[BINARY_SNIFF_LENGTH];
+			return isBinary(bytes, in.read(bytes));
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Classify content as binary based on the printable characters in the given bytes. Content
+	 * is binary if fewer than 95% of the bytes are printable ASCII or whitespace.
+	 *
+	 * @param bytes the first bytes of the content
+	 * @param count the number of bytes read, or -1 if the content is empty
+	 * @return true if the content is likely binary
+	 */
+	public static boolean isBinary(byte[] bytes, int count) {
+		if (count <= 0) {
+			return false;
+		}
+		int countPrintable = 0;
+		for (int i = 0; i < count; i++) {
+			byte b = bytes[i];
+			if ((b > 31 && b < 127) || b == '\t' || b == '\n' || b == '\r' || b == '\f') {
+				countPrintable++;
+			}
+		}
+		return (countPrintable * 100) / count < 95;
+	}
+
+	/**
+	 * Collects the entries of a manifest while files are written or walked. Safe to use from
+	 * several threads.
+	 */
+	public static class Builder {
+		private final Path root;
+		private final List<ManifestEntry> entries = new ArrayList<>();
+		private final List<String> errors = new ArrayList<>();
+
+		public Builder(Path root) {
+			this.root = root;
+		}
+
+		/**
+		 * Add a file whose binary classification is determined when needed
+		 *
+		 * @param file the path to the file
+		 * @param size the size of the file in bytes
+		 * @return this builder
+		 */
+		public Builder add(Path file, long size) {
+			return add(new ManifestEntry(file, size));
+		}
+
+		/**
+		 * Add an entry to the manifest
+		 *
+		 * @param entry the entry to add
+		 * @return this builder
+		 */
+		public synchronized Builder add(ManifestEntry entry) {
+			entries.add(entry);
+			return this;
+		}
+
+		/**
+		 * Record a file or directory that could not be collected
+		 *
+		 * @param error a message describing the problem
+		 * @return this builder
+		 */
+		public synchronized Builder addError(String error) {
+			errors.add(error);
+			return this;
+		}
+
+		public synchronized FileManifest build() {
+			return new FileManifest(root, entries, errors);
+		}
+	}
+}
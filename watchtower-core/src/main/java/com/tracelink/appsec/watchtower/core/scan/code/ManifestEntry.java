@@ -0,0 +1,78 @@
+package com.tracelink.appsec.watchtower.core.scan.code;
+
+import java.nio.file.Path;
+
+import org.apache.commons.io.FilenameUtils;
+
+/**
+ * A single file in a {@link FileManifest}, with the information scanners need to decide whether
+ * to scan it without touching the file system.
+ *
+ * @author csmith
+ */
+public class ManifestEntry {
+	private final Path path;
+	private final long size;
+	private final String extension;
+	private volatile Boolean binary;
+
+	/**
+	 * Create an entry whose binary classification is determined the first time it is needed
+	 *
+	 * @param path the path to the file
+	 * @param size the size of the file in bytes
+	 */
+	public ManifestEntry(Path path, long size) {
+		this(path, size, null);
+	}
+
+	/**
+	 * Create an entry with a known binary classification
+	 *
+	 * @param path   the path to the file
+	 * @param size   the size of the file in bytes
+	 * @param binary true if the file is likely binary, false if it is text, or null if unknown
+	 */
+	public ManifestEntry(Path path, long size, Boolean binary) {
+		this.path = path;
+		this.size = size;
+		this.extension = FilenameUtils.getExtension(path.getFileName().toString());
+		this.binary = binary;
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the extension of the file name without the dot, or an empty string if it has none
+	 */
+	public String getExtension() {
+		return extension;
+	}
+
+	/**
+	 * Whether this file is likely binary, as classified by {@link FileManifest#isBinary(Path)}.
+	 * If the entry was created without a classification, the file is read the first time this is
+	 * called.
+	 *
+	 * @return true if the file is likely binary
+	 */
+	public boolean isBinary() {
+		Boolean isBinary = binary;
+		if (isBinary == null) {
+			isBinary = FileManifest.isBinary(path);
+			binary = isBinary;
+		}
+		return isBinary;
+	}
+
+	@Override
+	public String toString() {
+		return path.toString();
+	}
+}
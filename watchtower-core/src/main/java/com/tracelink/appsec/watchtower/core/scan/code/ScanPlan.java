@@ -0,0 +1,212 @@
+package com.tracelink.appsec.watchtower.core.scan.code;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.binary.Hex;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tracelink.appsec.watchtower.core.rule.FileExtensionRule;
+import com.tracelink.appsec.watchtower.core.rule.RuleDto;
+import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
+
+/**
+ * The rules of a ruleset, prepared once per scan so that scanners and their callables do not need
+ * to walk the ruleset for every file or line. All rules are flattened from the ruleset and its
+ * inherited rulesets, and can be looked up by rule type and by the file they apply to. All lists
+ * returned by this class are immutable, and the same list instance is returned for all files that
+ * have the same applicable rules.
+ * <p>
+ * This object is safe to share between the threads of a scan.
+ *
+ * @author csmith, mcool
+ */
+public class ScanPlan {
+	private static final ObjectMapper FINGERPRINT_MAPPER = new ObjectMapper()
+			.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+			.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+			.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+
+	private final RulesetDto ruleset;
+	private final List<RuleDto> allRules;
+	private final Map<Class<?>, List<?>> rulesByType = new ConcurrentHashMap<>();
+	private final Map<Class<?>, Map<String, ?>> rulesByName = new ConcurrentHashMap<>();
+	private final Map<Class<?>, ExtensionBuckets<?>> bucketsByType = new ConcurrentHashMap<>();
+	private final Map<Class<?>, Optional<String>> fingerprints = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a plan for the given ruleset.
+	 *
+	 * @param ruleset the ruleset to scan with
+	 */
+	public ScanPlan(RulesetDto ruleset) {
+		this.ruleset = ruleset;
+		this.allRules = Collections.unmodifiableList(new ArrayList<>(ruleset.getAllRules()));
+	}
+
+	/**
+	 * Gets the ruleset this plan was created from.
+	 *
+	 * @return the ruleset
+	 */
+	public RulesetDto getRuleset() {
+		return ruleset;
+	}
+
+	/**
+	 * Gets all rules of the ruleset, including inherited rules.
+	 *
+	 * @return all rules in the ruleset
+	 */
+	public List<RuleDto> getAllRules() {
+		return allRules;
+	}
+
+	/**
+	 * Gets all rules of the given type, including inherited rules.
+	 *
+	 * @param <R>       the type of rule
+	 * @param ruleClass the class or interface of rule to get, usually the rule class supported by
+	 *                  a scanner
+	 * @return all rules that are an instance of the given class
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> List<R> getRules(Class<R> ruleClass) {
+		return (List<R>) rulesByType.computeIfAbsent(ruleClass, k -> {
+			List<R> rules = new ArrayList<>();
+			for (RuleDto rule : allRules) {
+				if (ruleClass.isInstance(rule)) {
+					rules.add(ruleClass.cast(rule));
+				}
+			}
+			return Collections.unmodifiableList(rules);
+		});
+	}
+
+	/**
+	 * Gets all rules of the given type that apply to the given file. For rules that are a
+	 * {@link FileExtensionRule}, only those with a valid extension for the file are included. Rules
+	 * are returned in the same order as {@link #getRules(Class)}.
+	 *
+	 * @param <R>       the type of rule
+	 * @param ruleClass the class of rule to get
+	 * @param fileName  the name of the file (with extension)
+	 * @return the rules to run against the file
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> List<R> getRules(Class<R> ruleClass, String fileName) {
+		ExtensionBuckets<R> buckets = (ExtensionBuckets<R>) bucketsByType
+				.computeIfAbsent(ruleClass, k -> new ExtensionBuckets<>(getRules(ruleClass)));
+		return buckets.getRules(fileName);
+	}
+
+	/**
+	 * Gets all rules of the given type keyed by rule name. If two rules share a name, the first
+	 * in {@link #getRules(Class)} is used.
+	 *
+	 * @param <R>       the type of rule
+	 * @param ruleClass the class of rule to get
+	 * @return map from rule name to rule
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> Map<String, R> getRulesByName(Class<R> ruleClass) {
+		return (Map<String, R>) rulesByName.computeIfAbsent(ruleClass, k -> {
+			Map<String, R> rules = new LinkedHashMap<>();
+			getRules(ruleClass)
+					.forEach(rule -> rules.putIfAbsent(((RuleDto) rule).getName(), rule));
+			return Collections.unmodifiableMap(rules);
+		});
+	}
+
+	/**
+	 * Gets a fingerprint of all rules of the given type. The fingerprint is the same for any two
+	 * plans whose rules of the type have the same content, in any order, so it can be used to
+	 * recognize results of an earlier scan with the same rules.
+	 *
+	 * @param ruleClass the class of rule to fingerprint
+	 * @return a hex SHA-256 hash of the rules, or null if the rules cannot be serialized
+	 */
+	public String getFingerprint(Class<?> ruleClass) {
+		return fingerprints.computeIfAbsent(ruleClass, k -> {
+			try {
+				List<String> serialized = new ArrayList<>();
+				for (Object rule : getRules(ruleClass)) {
+					serialized.add(rule.getClass().getName() + ":"
+							+ FINGERPRINT_MAPPER.writeValueAsString(rule));
+				}
+				Collections.sort(serialized);
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				for (String rule : serialized) {
+					digest.update(rule.getBytes(StandardCharsets.UTF_8));
+					digest.update((byte) 0);
+				}
+				return Optional.of(Hex.encodeHexString(digest.digest()));
+			} catch (JsonProcessingException | NoSuchAlgorithmException e) {
+				return Optional.empty();
+			}
+		}).orElse(null);
+	}
+
+	/**
+	 * Rules of a single type grouped by file extension. The rules for a file are the rules of
+	 * every extension group that is valid for the file, cached by the combination of groups.
+	 */
+	private static class ExtensionBuckets<R> {
+		private final List<R> rules;
+		private final List<FileExtensionRule> groupRepresentatives = new ArrayList<>();
+		private final int[] ruleGroups;
+		private final Map<BitSet, List<R>> rulesByGroups = new ConcurrentHashMap<>();
+
+		ExtensionBuckets(List<R> rules) {
+			this.rules = rules;
+			this.ruleGroups = new int[rules.size()];
+			Map<String, Integer> groups = new LinkedHashMap<>();
+			for (int i = 0; i < rules.size(); i++) {
+				R rule = rules.get(i);
+				if (rule instanceof FileExtensionRule) {
+					FileExtensionRule extRule = (FileExtensionRule) rule;
+					ruleGroups[i] = groups.computeIfAbsent(extRule.getFileExtension(), ext -> {
+						groupRepresentatives.add(extRule);
+						return groupRepresentatives.size() - 1;
+					});
+				} else {
+					// applies to every file
+					ruleGroups[i] = -1;
+				}
+			}
+		}
+
+		List<R> getRules(String fileName) {
+			if (groupRepresentatives.isEmpty()) {
+				return rules;
+			}
+			BitSet validGroups = new BitSet(groupRepresentatives.size());
+			for (int g = 0; g < groupRepresentatives.size(); g++) {
+				if (groupRepresentatives.get(g).isValidExtension(fileName)) {
+					validGroups.set(g);
+				}
+			}
+			return rulesByGroups.computeIfAbsent(validGroups, k -> {
+				List<R> fileRules = new ArrayList<>();
+				for (int i = 0; i < rules.size(); i++) {
+					if (ruleGroups[i] < 0 || validGroups.get(ruleGroups[i])) {
+						fileRules.add(rules.get(i));
+					}
+				}
+				return Collections.unmodifiableList(fileRules);
+			});
+		}
+	}
+}
@@ -1,16 +1,13 @@
 package com.tracelink.appsec.watchtower.core.scan.code.processor;
 
-import java.io.IOException;
-import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 
-import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
+import com.tracelink.appsec.watchtower.core.scan.code.FileManifest;
+import com.tracelink.appsec.watchtower.core.scan.code.ManifestEntry;
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 
 /**
@@ -28,50 +25,62 @@ public abstract class AbstractProcessor {
 	}
 
 	/**
-	 * Execute the scan given the ruleset and top level directory path
+	 * Execute the scan given the scan plan and top level directory path
 	 * 
-	 * @param ruleset      The set of rules for this scan
+	 * @param plan         The prepared rules for this scan
 	 * @param startingPath the top level directory containing the scanning contents
 	 */
-	public void runScan(final RulesetDto ruleset, Path startingPath) {
-		try {
-			Files.walkFileTree(startingPath, new FileVisitor<Path>() {
-
-				@Override
-				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
-						throws IOException {
-					return FileVisitResult.CONTINUE;
-				}
-
-				@Override
-				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
-						throws IOException {
-					if (attrs.isRegularFile()) {
-						try {
-							processFile(processor.createCallable(file, ruleset));
-						} catch (ProcessorSetupException e) {
-							throw new IOException(e);
-						}
-					}
-					return FileVisitResult.CONTINUE;
-				}
+	public void runScan(final ScanPlan plan, Path startingPath) {
+		runScan(plan, FileManifest.build(startingPath));
+	}
 
-				@Override
-				public FileVisitResult visitFileFailed(Path file, IOException exc)
-						throws IOException {
-					addSystemException(exc);
-					return FileVisitResult.CONTINUE;
-				}
+	/**
+	 * Execute the scan given the scan plan and the files collected for this scan. Each file is
+	 * scanned by a single callable from the creator of this processor.
+	 * 
+	 * @param plan     The prepared rules for this scan
+	 * @param manifest the files to scan
+	 */
+	public void runScan(final ScanPlan plan, FileManifest manifest) {
+		manifest.getErrors().forEach(error -> systemExceptions.add("Exception: " + error));
+		for (ManifestEntry entry : manifest.getEntries()) {
+			try {
+				processFile(processor.createCallable(entry.getPath(), plan));
+			} catch (ProcessorSetupException e) {
+				// the creator cannot make callables for this scan, so stop processing files
+				addSystemException(e);
+				break;
+			}
+		}
+		collectReports();
+	}
 
-				@Override
-				public FileVisitResult postVisitDirectory(Path dir, IOException exc)
-						throws IOException {
-					return FileVisitResult.CONTINUE;
-				}
-			});
-		} catch (IOException e) {
-			addSystemException(e);
+	/**
+	 * Execute the scan given the scan plan and batches of files. Each batch is scanned by a single
+	 * callable from the given creator.
+	 * 
+	 * @param plan         The prepared rules for this scan
+	 * @param batches      the batches of files to scan
+	 * @param batchCreator creates a callable to scan each batch
+	 */
+	public void runBatchScan(final ScanPlan plan, List<List<Path>> batches,
+			BatchCallableCreator batchCreator) {
+		for (List<Path> batch : batches) {
+			try {
+				processFile(batchCreator.createCallable(batch, plan));
+			} catch (ProcessorSetupException e) {
+				addSystemException(e);
+			}
 		}
+		collectReports();
+	}
+
+	/**
+	 * Called after all files have been handed to {@link #processFile(Callable)}. Implementations
+	 * that process files asynchronously should wait for and add all outstanding reports here.
+	 */
+	protected void collectReports() {
+		// Overrideable
 	}
 
 	/**
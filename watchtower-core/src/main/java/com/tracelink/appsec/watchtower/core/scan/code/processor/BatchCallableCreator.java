@@ -0,0 +1,30 @@
+package com.tracelink.appsec.watchtower.core.scan.code.processor;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
+import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
+
+/**
+ * Interface to create a callable for a batch of files in a scan. Used by scanners whose per-call
+ * setup cost is high enough that several files should share it.
+ * 
+ * @author csmith
+ *
+ */
+@FunctionalInterface
+public interface BatchCallableCreator {
+	/**
+	 * Given a batch of file paths and scan plan, generate a Callable for the processor to handle
+	 * scanning all files in the batch
+	 * 
+	 * @param files the files to scan together
+	 * @param plan  the prepared rules to use to scan
+	 * @return a callable to be used to scan a batch of files with a set of rules
+	 * @throws ProcessorSetupException if the callable can't be created
+	 */
+	Callable<CodeScanReport> createCallable(List<Path> files, ScanPlan plan)
+			throws ProcessorSetupException;
+}
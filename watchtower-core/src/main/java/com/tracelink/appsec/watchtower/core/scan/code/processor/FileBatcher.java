@@ -0,0 +1,97 @@
+package com.tracelink.appsec.watchtower.core.scan.code.processor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.tracelink.appsec.watchtower.core.scan.code.FileManifest;
+import com.tracelink.appsec.watchtower.core.scan.code.ManifestEntry;
+
+/**
+ * Groups the files in a directory into batches. Files are ordered by directory, so the files of a
+ * directory are mostly batched together, and a batch is closed once it reaches either the maximum
+ * number of files or the byte budget. A batch may still hold the last files of one directory and
+ * the first files of the next.
+ *
+ * @author csmith
+ */
+public class FileBatcher {
+	private final int maxFiles;
+	private final long maxBytes;
+
+	/**
+	 * Create a batcher with the given limits
+	 * 
+	 * @param maxFiles the maximum number of files in a batch, at least 1
+	 * @param maxBytes the byte budget of a batch. A single file larger than the budget is put in a
+	 *                 batch by itself
+	 */
+	public FileBatcher(int maxFiles, long maxBytes) {
+		if (maxFiles < 1) {
+			throw new IllegalArgumentException("Batches must allow at least one file");
+		}
+		this.maxFiles = maxFiles;
+		this.maxBytes = maxBytes;
+	}
+
+	public int getMaxFiles() {
+		return maxFiles;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Walk the given directory and group all regular files into batches
+	 * 
+	 * @param startingPath the top level directory containing the scanning contents
+	 * @return the list of batches, each containing at least one file
+	 * @throws IOException if the directory cannot be walked
+	 */
+	public List<List<Path>> createBatches(Path startingPath) throws IOException {
+		FileManifest manifest = FileManifest.build(startingPath);
+		if (!manifest.getErrors().isEmpty()) {
+			throw new IOException(manifest.getErrors().get(0));
+		}
+		return createBatches(manifest);
+	}
+
+	/**
+	 * Group all files of the given manifest into batches
+	 * 
+	 * @param manifest the files collected for this scan
+	 * @return the list of batches, each containing at least one file
+	 */
+	public List<List<Path>> createBatches(FileManifest manifest) {
+		Map<Path, List<ManifestEntry>> filesByDirectory = new TreeMap<>();
+		for (ManifestEntry entry : manifest.getEntries()) {
+			filesByDirectory.computeIfAbsent(entry.getPath().getParent(), k -> new ArrayList<>())
+					.add(entry);
+		}
+
+		List<List<Path>> batches = new ArrayList<>();
+		List<Path> batch = new ArrayList<>();
+		long batchBytes = 0L;
+		for (List<ManifestEntry> directoryFiles : filesByDirectory.values()) {
+			for (ManifestEntry file : directoryFiles) {
+				long size = file.getSize();
+				if (!batch.isEmpty()
+						&& (batch.size() >= maxFiles || batchBytes + size > maxBytes)) {
+					batches.add(batch);
+					batch = new ArrayList<>();
+					batchBytes = 0L;
+				}
+				batch.add(file.getPath());
+				batchBytes += size;
+			}
+		}
+		if (!batch.isEmpty()) {
+			batches.add(batch);
+		}
+		return batches;
+	}
+}
@@ -1,66 +1,77 @@
 package com.tracelink.appsec.watchtower.core.scan.code.processor;
 
-import java.nio.file.Path;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.atomic.AtomicInteger;
 
-import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
+import com.tracelink.appsec.watchtower.core.scan.code.threadpool.ScanWorkerPool;
+import com.tracelink.appsec.watchtower.core.scan.code.threadpool.ScanWorkerPool.ScanLane;
 
 /**
  * Manages a multi-threaded execution of a processor scan. the processor will find files and for
  * each file add a task to do the actual scan, then collect the file report results eventually to
  * add to the final report
+ * <p>
+ * Tasks run in the application-wide {@link ScanWorkerPool}, through a lane that is opened for the
+ * first file and closed once all reports are collected. The lane runs at most the requested number
+ * of tasks at a time.
  *
  * @author csmith
  */
 public class MultiThreadedProcessor extends AbstractProcessor {
-	private final ExecutorService executor;
-	private final CompletionService<CodeScanReport> completionService;
+	private final ScanWorkerPool workerPool;
+	private final int threads;
+	private ScanLane lane;
+	private CompletionService<CodeScanReport> completionService;
 
 	private long submittedTasks = 0L;
 
 	public MultiThreadedProcessor(CallableCreator processor, int threads) {
-		super(processor);
-		executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
-			private final AtomicInteger counter = new AtomicInteger();
+		this(processor, threads, ScanWorkerPool.getShared());
+	}
 
-			@Override
-			public Thread newThread(Runnable r) {
-				return new Thread(r, "ProcessorThread " + counter.incrementAndGet());
-			}
-		});
-		completionService = new ExecutorCompletionService<CodeScanReport>(executor);
+	public MultiThreadedProcessor(CallableCreator processor, int threads,
+			ScanWorkerPool workerPool) {
+		super(processor);
+		this.workerPool = workerPool;
+		this.threads = threads;
 	}
 
 	@Override
 	protected void processFile(Callable<CodeScanReport> callable) {
+		if (lane == null) {
+			lane = workerPool.openLane(threads);
+			completionService = new ExecutorCompletionService<CodeScanReport>(lane);
+		}
 		completionService.submit(callable);
 		submittedTasks++;
 	}
 
 	@Override
-	public void runScan(final RulesetDto ruleset, Path startingPath) {
-		super.runScan(ruleset, startingPath);
-
-		for (long i = 0; i < submittedTasks; i++) {
-			try {
-				final CodeScanReport report = completionService.take().get();
-				this.addReport(report);
-			} catch (final InterruptedException ie) {
-				Thread.currentThread().interrupt();
-			} catch (final ExecutionException ee) {
-				final Throwable t = ee.getCause();
-				this.addSystemException(t);
+	protected void collectReports() {
+		if (lane == null) {
+			return;
+		}
+		try {
+			for (long i = 0; i < submittedTasks; i++) {
+				try {
+					final CodeScanReport report = completionService.take().get();
+					this.addReport(report);
+				} catch (final InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return;
+				} catch (final ExecutionException ee) {
+					final Throwable t = ee.getCause();
+					this.addSystemException(t);
+				}
 			}
+		} finally {
+			lane.close();
+			lane = null;
+			submittedTasks = 0L;
 		}
-		executor.shutdownNow();
 	}
 
 }
@@ -0,0 +1,309 @@
+package com.tracelink.appsec.watchtower.core.scan.code.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.tracelink.appsec.watchtower.core.benchmark.Benchmarking;
+import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
+import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanViolation;
+
+/**
+ * Cache of the reports of single files, shared by all code scans. A report is found by the hash of
+ * the file's contents, the scanner that created it, the fingerprint of the scanner's rules and the
+ * name of the file, so an unchanged file is not scanned again by the same rules, even in another
+ * scan or at another path.
+ * <p>
+ * The most recently used reports are kept in memory, up to the configured size. If a cache
+ * directory is configured, reports are also written to disk, where up to
+ * {@value #DISK_SIZE_FACTOR} times as many reports are kept, and survive restarts. Reports are
+ * written to the {@value #DISK_DIRECTORY} directory inside the configured directory, so that
+ * the cache never evicts or cleans up files it did not write. Only reports
+ * without errors are cached. A size of 0 or less disables the cache.
+ *
+ * @author csmith
+ */
+@Service
+public class ScanResultCache {
+	private static final Logger LOG = LoggerFactory.getLogger(ScanResultCache.class);
+	/**
+	 * Number of reports kept on disk for each report kept in memory
+	 */
+	public static final int DISK_SIZE_FACTOR = 10;
+	/**
+	 * Name of the directory owned by the cache inside the configured cache directory
+	 */
+	public static final String DISK_DIRECTORY = "scan-results";
+	private static final String DISK_SUFFIX = ".json";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final CollectionType violationsType =
+			mapper.getTypeFactory().constructCollectionType(List.class, CodeScanViolation.class);
+	private final int maxEntries;
+	private final Path cacheDirectory;
+	private final Map<String, List<CodeScanViolation>> memory;
+	private final Map<String, Boolean> disk;
+
+	public ScanResultCache(@Value("${watchtower.scanners.cache.size:0}") int maxEntries,
+			@Value("${watchtower.scanners.cache.dir:}") String cacheDirectory) {
+		this.maxEntries = maxEntries;
+		this.memory = new LinkedHashMap<String, List<CodeScanViolation>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<String, List<CodeScanViolation>> eldest) {
+				return size() > ScanResultCache.this.maxEntries;
+			}
+		};
+		this.disk = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				if (size() > ScanResultCache.this.maxEntries * DISK_SIZE_FACTOR) {
+					FileUtils.deleteQuietly(diskFile(eldest.getKey()).toFile());
+					return true;
+				}
+				return false;
+			}
+		};
+		this.cacheDirectory = isEnabled() && StringUtils.isNotBlank(cacheDirectory)
+				? Paths.get(cacheDirectory).toAbsolutePath().resolve(DISK_DIRECTORY)
+				: null;
+		loadDisk();
+	}
+
+	/**
+	 * @return true if reports are cached
+	 */
+	public boolean isEnabled() {
+		return maxEntries > 0;
+	}
+
+	/**
+	 * Wrap the creator of a scanner so that each file's callable first looks for a cached report.
+	 * On a miss, the scanner's callable runs and its report is cached. If the cache is disabled or
+	 * the rules cannot be fingerprinted, the creator is returned as is.
+	 * <p>
+	 * The creator's callables must return a report for the single file they were created for.
+	 * Violations in a cached report are given the path of the file being scanned.
+	 *
+	 * @param scannerName  the name of the scanner, to keep reports of scanners apart
+	 * @param ruleClass    the class of rule the scanner supports
+	 * @param creator      the creator of the scanner
+	 * @param benchmarking the benchmarking of the scan, which counts hits and misses, or null
+	 * @return a creator that uses this cache
+	 */
+	public CallableCreator cachingCreator(String scannerName, Class<?> ruleClass,
+			CallableCreator creator, Benchmarking<?> benchmarking) {
+		if (!isEnabled()) {
+			return creator;
+		}
+		return (file, plan) -> {
+			String fingerprint = plan.getFingerprint(ruleClass);
+			Callable<CodeScanReport> callable = creator.createCallable(file, plan);
+			if (fingerprint == null) {
+				return callable;
+			}
+			return () -> {
+				String key = createKey(file, scannerName, fingerprint);
+				CodeScanReport cached = get(key, file);
+				if (benchmarking != null) {
+					benchmarking.recordCacheLookup(cached != null);
+				}
+				if (cached != null) {
+					return cached;
+				}
+				CodeScanReport report = callable.call();
+				if (report != null && report.getErrors().isEmpty()) {
+					put(key, report);
+				}
+				return report;
+			};
+		};
+	}
+
+	/**
+	 * Create the key of a file's report from the hash of the file and the scanner's rules
+	 */
+	private String createKey(Path file, String scannerName, String fingerprint)
+			throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			try (InputStream in = Files.newInputStream(file)) {
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					digest.update(buffer, 0, read);
+				}
+			}
+			for (String part : new String[] {scannerName, fingerprint,
+					String.valueOf(file.getFileName())}) {
+				digest.update((byte) 0);
+				digest.update(part.getBytes(StandardCharsets.UTF_8));
+			}
+			return Hex.encodeHexString(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException("Could not hash file " + file.getFileName(), e);
+		}
+	}
+
+	/**
+	 * Get a copy of a cached report, with all violations in the given file
+	 *
+	 * @param key  the key of the report
+	 * @param file the file being scanned
+	 * @return the report, or null if it is not cached
+	 */
+	CodeScanReport get(String key, Path file) {
+		List<CodeScanViolation> violations;
+		boolean onDisk;
+		synchronized (this) {
+			violations = memory.get(key);
+			onDisk = violations == null && disk.containsKey(key);
+		}
+		if (onDisk) {
+			violations = readDisk(key);
+			if (violations != null) {
+				synchronized (this) {
+					memory.put(key, violations);
+				}
+			}
+		}
+		if (violations == null) {
+			return null;
+		}
+		CodeScanReport report = new CodeScanReport();
+		for (CodeScanViolation violation : violations) {
+			CodeScanViolation copy = copy(violation);
+			copy.setFileName(file.toString());
+			report.addViolation(copy);
+		}
+		return report;
+	}
+
+	/**
+	 * Cache the violations of a report
+	 *
+	 * @param key    the key of the report
+	 * @param report the report of a single file
+	 */
+	void put(String key, CodeScanReport report) {
+		List<CodeScanViolation> violations = new ArrayList<>();
+		report.getViolations().forEach(v -> violations.add(copy(v)));
+		synchronized (this) {
+			memory.put(key, Collections.unmodifiableList(violations));
+		}
+		if (cacheDirectory != null && writeDisk(key, violations)) {
+			synchronized (this) {
+				disk.put(key, Boolean.TRUE);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of reports in memory
+	 */
+	public synchronized int size() {
+		return memory.size();
+	}
+
+	private static CodeScanViolation copy(CodeScanViolation violation) {
+		CodeScanViolation copy = new CodeScanViolation();
+		copy.setViolationName(violation.getViolationName());
+		copy.setLineNum(violation.getLineNum());
+		copy.setSeverity(violation.getSeverity());
+		copy.setFileName(violation.getFileName());
+		copy.setMessage(violation.getMessage());
+		return copy;
+	}
+
+	private Path diskFile(String key) {
+		return cacheDirectory.resolve(key + DISK_SUFFIX);
+	}
+
+	private List<CodeScanViolation> readDisk(String key) {
+		try {
+			return Collections.unmodifiableList(
+					mapper.readValue(diskFile(key).toFile(), violationsType));
+		} catch (IOException e) {
+			LOG.warn("Could not read cached report " + key, e);
+			synchronized (this) {
+				disk.remove(key);
+			}
+			FileUtils.deleteQuietly(diskFile(key).toFile());
+			return null;
+		}
+	}
+
+	private boolean writeDisk(String key, List<CodeScanViolation> violations) {
+		try {
+			Path temp = Files.createTempFile(cacheDirectory, key, TEMP_SUFFIX);
+			mapper.writeValue(temp.toFile(), violations);
+			Files.move(temp, diskFile(key), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException e) {
+			LOG.warn("Could not write cached report " + key, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Find the reports already on disk, oldest first so that they are evicted first
+	 */
+	private void loadDisk() {
+		if (cacheDirectory == null) {
+			return;
+		}
+		List<Path> files = new ArrayList<>();
+		try {
+			Files.createDirectories(cacheDirectory);
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory)) {
+				for (Path file : stream) {
+					String name = file.getFileName().toString();
+					if (name.endsWith(DISK_SUFFIX)) {
+						files.add(file);
+					} else if (name.endsWith(TEMP_SUFFIX)) {
+						// left over from an interrupted write
+						FileUtils.deleteQuietly(file.toFile());
+					}
+				}
+			}
+		} catch (IOException e) {
+			LOG.error("Could not open result cache directory " + cacheDirectory, e);
+			return;
+		}
+		files.sort(Comparator.comparingLong(file -> file.toFile().lastModified()));
+		for (Path file : files) {
+			String name = file.getFileName().toString();
+			disk.put(name.substring(0, name.length() - DISK_SUFFIX.length()), Boolean.TRUE);
+		}
+	}
+}
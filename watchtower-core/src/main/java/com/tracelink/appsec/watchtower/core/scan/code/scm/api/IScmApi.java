@@ -7,6 +7,7 @@ import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.data.DiffFile;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 /**
  * An interface for interacting with SCMs in order to work with pull requests, repositories, etc.
@@ -33,6 +34,28 @@ public interface IScmApi extends IWatchtowerApi {
 	void downloadSourceForPullRequest(PullRequest pullRequest,
 			Path targetDirectory) throws IOException;
 
+	/**
+	 * Get the files added or modified by a pull request. Deleted files are not included
+	 *
+	 * @param pullRequest the pull request to get the changed files of
+	 * @return the paths of the changed files, relative to the root of the repository
+	 * @throws IOException if the changed files could not be retrieved
+	 */
+	List<String> getChangedFilesForPullRequest(PullRequest pullRequest) throws IOException;
+
+	/**
+	 * Download a single file of the source of the current code base under examination
+	 *
+	 * @param pullRequest     the pull request to download the file of
+	 * @param filePath        the path of the file, relative to the root of the repository
+	 * @param targetDirectory the location of the root of the repository to download the file into
+	 * @return true if the file was downloaded, false if it does not exist at the pull request
+	 *         commit
+	 * @throws IOException if any streaming/file exceptions occur
+	 */
+	boolean downloadFileForPullRequest(PullRequest pullRequest, String filePath,
+			Path targetDirectory) throws IOException;
+
 	/**
 	 * For a given file, calculate the Diff showing the differences between former and new code
 	 *
@@ -42,6 +65,16 @@ public interface IScmApi extends IWatchtowerApi {
 	 */
 	DiffFile getGitDiffFile(PullRequest pullRequest, String filePath);
 
+	/**
+	 * Calculate the Diff of every file changed in a pull request with a single request to the SCM
+	 *
+	 * @param pullRequest the pull request to use for diffing
+	 * @return map from the path of each changed file to a DiffFile showing what changes happened
+	 *         on what lines in the file. Deleted files are not included
+	 * @throws IOException if the diff could not be retrieved
+	 */
+	Map<String, DiffFile> getGitDiffFiles(PullRequest pullRequest) throws IOException;
+
 	/**
 	 * This method is used to complete or update all data in a pull request in the event that only
 	 * partial data was transmitted or captured
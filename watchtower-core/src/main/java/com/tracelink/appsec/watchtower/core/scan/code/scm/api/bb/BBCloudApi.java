@@ -4,6 +4,7 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.net.URLEncoder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -28,12 +29,7 @@ import com.tracelink.appsec.watchtower.core.scan.code.scm.api.IScmApi;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.PullRequest;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.data.DiffFile;
 
-import kong.unirest.GetRequest;
-import kong.unirest.Headers;
-import kong.unirest.HttpRequestWithBody;
 import kong.unirest.HttpResponse;
-import kong.unirest.JsonNode;
-import kong.unirest.Unirest;
 import kong.unirest.UnirestException;
 import kong.unirest.json.JSONArray;
 import kong.unirest.json.JSONObject;
@@ -49,9 +45,11 @@ public class BBCloudApi implements IScmApi {
 	private static final Logger LOG = LoggerFactory.getLogger(BBCloudApi.class);
 
 	private final BBCloudIntegrationEntity apiEntity;
+	private final BBCloudClient client;
 
 	public BBCloudApi(BBCloudIntegrationEntity apiEntity) {
 		this.apiEntity = apiEntity;
+		this.client = BBCloudClient.forEntity(apiEntity);
 	}
 
 	/**
@@ -60,7 +58,7 @@ public class BBCloudApi implements IScmApi {
 	@Override
 	public void testClientConnection() throws ApiIntegrationException {
 		HttpResponse<String> resp =
-				makeGetRequest(apiEntity.makeApiWorkspaceUrl(), null).asString();
+				client.getString(apiEntity.makeApiWorkspaceUrl(), null);
 		if (resp.getStatus() != HttpStatus.OK.value()) {
 			throw new ApiIntegrationException(
 					"Client received " + resp.getStatus() + " while accessing workspace");
@@ -97,12 +95,7 @@ public class BBCloudApi implements IScmApi {
 		String prBase = apiEntity.makeApiPRUrl(pullRequest.getRepoName(), pullRequest.getPrId());
 		String url = buildRequestUrl(prBase);
 		try {
-			HttpResponse<String> response = makeGetRequest(url, null).asString();
-			int retries = 5;
-			while (response.getStatus() == 429) {
-				handleRateLimiter(response.getHeaders(), retries--);
-				response = makeGetRequest(url, null).asString();
-			}
+			HttpResponse<String> response = client.getString(url, null);
 			if (response.getStatus() == 200) {
 				connected = true;
 			} else {
@@ -129,25 +122,24 @@ public class BBCloudApi implements IScmApi {
 				pullRequest.getCommitHash().substring(0, 7));
 		try (FileOutputStream fw = new FileOutputStream(tempFile.toFile())) {
 			AtomicReference<IOException> e = new AtomicReference<>(null);
-			int retries = 5;
-			do {
-				makeGetRequest(url, null)
-						.thenConsume(r -> {
-							try {
-								if (r.getStatus() != 200) {
-									throw new IOException("Response code is " + r.getStatus());
-								}
-								IOUtils.copyLarge(r.getContent(), fw);
-							} catch (IOException ex) {
-								e.set(ex);
-							}
-						});
-				if (e.get() != null) {
-					LOG.error("Bad response during download: " + e.get().getMessage());
-					throw e.get();
+			client.getStream(url, null, r -> {
+				try {
+					if (r.getStatus() != 200) {
+						throw new IOException("Response code is " + r.getStatus());
+					}
+					// discard anything written by an earlier attempt that failed
+					fw.getChannel().truncate(0);
+					IOUtils.copyLarge(r.getContent(), fw);
+				} catch (IOException ex) {
+					e.set(ex);
 				}
-				retries--;
-			} while (retries > 0 && e.get() == null);
+			});
+			if (e.get() != null) {
+				LOG.error("Bad response during download: " + e.get().getMessage());
+				throw e.get();
+			}
+		} catch (UnirestException e) {
+			throw new IOException("Exception during download: " + e.getMessage(), e);
 		}
 		Path tempDir = Files.createTempDirectory(null);
 		unzip(tempFile.toFile(), tempDir);
@@ -163,6 +155,76 @@ public class BBCloudApi implements IScmApi {
 		zip.extractAll(targetDir.toAbsolutePath().toString());
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<String> getChangedFilesForPullRequest(PullRequest pullRequest)
+			throws IOException {
+		List<String> changedFiles = new ArrayList<>();
+		String prBase = apiEntity.makeApiPRUrl(pullRequest.getRepoName(), pullRequest.getPrId());
+		String url = buildRequestUrl(prBase, "diffstat");
+		try {
+			while (url != null) {
+				HttpResponse<String> response = client.getString(url, null);
+				if (response.getStatus() != 200) {
+					throw new IOException("Bad response: " + response.getStatus()
+							+ " while getting changed files for PR " + pullRequest.getPRString());
+				}
+				JSONObject body = new JSONObject(response.getBody());
+				JSONArray values = body.getJSONArray("values");
+				for (int i = 0; i < values.length(); i++) {
+					// removed files have no new version
+					JSONObject newFile = values.getJSONObject(i).optJSONObject("new");
+					if (newFile != null) {
+						changedFiles.add(newFile.getString("path"));
+					}
+				}
+				url = body.optString("next", null);
+			}
+		} catch (UnirestException e) {
+			throw new IOException(
+					"Exception while getting changed files for PR " + pullRequest.getPRString(),
+					e);
+		}
+		return changedFiles;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean downloadFileForPullRequest(PullRequest pullRequest, String filePath,
+			Path targetDirectory) throws IOException {
+		Path target = targetDirectory.resolve(filePath).normalize();
+		if (!target.startsWith(targetDirectory.normalize())) {
+			throw new IOException("File " + filePath + " for PR " + pullRequest.getPRString()
+					+ " is attempting to access an illegal location and has been blocked");
+		}
+		StringBuilder url = new StringBuilder(apiEntity.makeApiRepoUrl(pullRequest.getRepoName()))
+				.append("/src/").append(pullRequest.getCommitHash());
+		for (String segment : filePath.split("/")) {
+			url.append("/").append(URLEncoder.encode(segment, "UTF-8").replace("+", "%20"));
+		}
+		try {
+			HttpResponse<byte[]> response = client.getBytes(url.toString(), null);
+			if (response.getStatus() == 404) {
+				return false;
+			}
+			if (response.getStatus() != 200) {
+				throw new IOException("Bad response: " + response.getStatus()
+						+ " while downloading file " + filePath + " for PR "
+						+ pullRequest.getPRString());
+			}
+			Files.createDirectories(target.getParent());
+			Files.write(target, response.getBody());
+			return true;
+		} catch (UnirestException e) {
+			throw new IOException("Exception while downloading file " + filePath + " for PR "
+					+ pullRequest.getPRString(), e);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -175,12 +237,7 @@ public class BBCloudApi implements IScmApi {
 		params.put("path", filePath);
 		params.put("context", "100000");
 		try {
-			HttpResponse<byte[]> response = makeGetRequest(url, params).asBytes();
-			int retries = 5;
-			while (response.getStatus() == 429) {
-				handleRateLimiter(response.getHeaders(), retries--);
-				response = makeGetRequest(url, params).asBytes();
-			}
+			HttpResponse<byte[]> response = client.getBytes(url, params);
 
 			if (response.getStatus() == 200) {
 				gitFile = new DiffFile(filePath, pullRequest.getPRString());
@@ -207,6 +264,39 @@ public class BBCloudApi implements IScmApi {
 		return gitFile;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, DiffFile> getGitDiffFiles(PullRequest pullRequest) throws IOException {
+		String prBase = apiEntity.makeApiPRUrl(pullRequest.getRepoName(), pullRequest.getPrId());
+		String url = buildRequestUrl(prBase, "diff");
+		Map<String, Object> params = Collections.singletonMap("context", "100000");
+		AtomicReference<Map<String, DiffFile>> diffFiles = new AtomicReference<>(null);
+		AtomicReference<IOException> e = new AtomicReference<>(null);
+		try {
+			// parse the diff while it streams in rather than holding it in memory
+			client.getStream(url, params, r -> {
+				try {
+					if (r.getStatus() != 200) {
+						throw new IOException("Bad response: " + r.getStatus()
+								+ " while getting git diff for PR " + pullRequest.getPRString());
+					}
+					diffFiles.set(DiffFile.parseDiffs(r.getContent(), pullRequest.getPRString()));
+				} catch (IOException ex) {
+					e.set(ex);
+				}
+			});
+		} catch (UnirestException ex) {
+			throw new IOException(
+					"Exception while getting git diff for PR " + pullRequest.getPRString(), ex);
+		}
+		if (e.get() != null) {
+			throw e.get();
+		}
+		return diffFiles.get();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -224,12 +314,7 @@ public class BBCloudApi implements IScmApi {
 		bbpr.setRepoName(pullRequest.getRepoName());
 		bbpr.setPrId(pullRequest.getPrId());
 		try {
-			HttpResponse<String> response = makeGetRequest(prUrl, null).asString();
-			int retries = 5;
-			while (response.getStatus() == 429) {
-				handleRateLimiter(response.getHeaders(), retries--);
-				response = makeGetRequest(prUrl, null).asString();
-			}
+			HttpResponse<String> response = client.getString(prUrl, null);
 			if (response.getStatus() == 200) {
 				String prData = response.getBody();
 				bbpr.parsePullRequestJson(prData);
@@ -273,15 +358,7 @@ public class BBCloudApi implements IScmApi {
 		JSONObject body = new JSONObject().put("content", raw);
 
 		try {
-			HttpRequestWithBody bb = makePostRequest(url, null);
-			HttpResponse<String> response =
-					bb.header("content-type", "application/json").body(body).asString();
-			int retries = 5;
-			while (response.getStatus() == 429) {
-				handleRateLimiter(response.getHeaders(), retries--);
-				bb = makePostRequest(url, null);
-				response = bb.header("content-type", "application/json").body(body).asString();
-			}
+			HttpResponse<String> response = client.post(url, null, body);
 
 			if (response.getStatus() != 201) {
 				LOG.error("Bad response: " + response.getStatus() + " while sending report for PR "
@@ -313,13 +390,7 @@ public class BBCloudApi implements IScmApi {
 		String url = buildRequestUrl(prBase, "decline");
 
 		try {
-			HttpResponse<String> response = makePostRequest(url, null).asString();
-
-			int retries = 5;
-			while (response.getStatus() == 429) {
-				handleRateLimiter(response.getHeaders(), retries--);
-				response = makePostRequest(url, null).asString();
-			}
+			HttpResponse<String> response = client.post(url, null, null);
 
 			if (response.getStatus() != 200) {
 				LOG.error("Bad response: " + response.getStatus() + " while declining PR "
@@ -341,23 +412,16 @@ public class BBCloudApi implements IScmApi {
 
 		try {
 			while (url != null) {
-				HttpResponse<JsonNode> response =
-						makeGetRequest(url, Collections.singletonMap("state", "OPEN")).asJson();
-
-				int retries = 5;
-				while (response.getStatus() == 429) {
-					handleRateLimiter(response.getHeaders(), retries--);
-					response =
-							makeGetRequest(url, Collections.singletonMap("state", "OPEN")).asJson();
-				}
+				HttpResponse<String> response =
+						client.getString(url, Collections.singletonMap("state", "OPEN"));
 
 				if (response.getStatus() != 200) {
 					LOG.error("Bad response: " + response.getStatus()
 							+ " while getting PRs for repository " + repoName);
-					LOG.debug(response.getBody().toString());
+					LOG.debug(response.getBody());
 					break;
 				}
-				JSONObject body = response.getBody().getObject();
+				JSONObject body = new JSONObject(response.getBody());
 				JSONArray values = body.getJSONArray("values");
 				for (int i = 0; i < values.length(); i++) {
 					JSONObject value = values.getJSONObject(i);
@@ -381,13 +445,7 @@ public class BBCloudApi implements IScmApi {
 		boolean active = true;
 		String url = buildRequestUrl(apiEntity.makeApiWorkspaceUrl(), repoName);
 		try {
-			HttpResponse<JsonNode> response = makeGetRequest(url, null).asJson();
-
-			int retries = 5;
-			while (response.getStatus() == 429) {
-				handleRateLimiter(response.getHeaders(), retries--);
-				response = makeGetRequest(url, null).asJson();
-			}
+			HttpResponse<String> response = client.getString(url, null);
 
 			active = response.getStatus() == 200;
 		} catch (UnirestException e) {
@@ -411,60 +469,4 @@ public class BBCloudApi implements IScmApi {
 		return sb.toString();
 	}
 
-	/**
-	 * Shortcut to make a GET request to the provided url with the provided params
-	 *
-	 * @param url    the url of the target resource
-	 * @param params any parameters to add to the request, may be null
-	 * @return the response from the target url
-	 */
-	private GetRequest makeGetRequest(String url, Map<String, Object> params) {
-		return Unirest.get(url).basicAuth(apiEntity.getUser(), apiEntity.getAuth())
-				.header("accept", "application/json").queryString(params);
-	}
-
-	/**
-	 * Shortcut to make a POST request to the provided url with the provided params
-	 *
-	 * @param url    the url of the target resource
-	 * @param params any parameters to add to the request, may be null
-	 * @return the response from the target url
-	 */
-	private HttpRequestWithBody makePostRequest(String url, Map<String, Object> params) {
-		return Unirest.post(url).basicAuth(apiEntity.getUser(), apiEntity.getAuth())
-				.header("accept", "application/json").queryString(params);
-	}
-
-	/**
-	 * Bitbucket has a rate limiter that will reject certain requests over a limit. This handles
-	 * waiting the timeout period given in a retry header.
-	 *
-	 * @param headers the response headers
-	 * @param retries the number of retries left to make
-	 * @throws UnirestException if the retries have expired
-	 */
-	private void handleRateLimiter(Headers headers, int retries) throws UnirestException {
-		if (retries == 0) {
-			throw new UnirestException("RateLimiter limits reached. Abandoning Request");
-		}
-
-		int retryPeriod;
-		try {
-			retryPeriod = Integer.parseInt(headers.getFirst("Retry-After"));
-			if (retryPeriod > 10000) {
-				retryPeriod = 1000;
-			}
-		} catch (NumberFormatException e) {
-			retryPeriod = 1000;
-		}
-
-		LOG.error("Bitbucket Rate Limiting hit. Backing off for " + retryPeriod + " ms");
-
-		try {
-			Thread.sleep(retryPeriod);
-		} catch (InterruptedException e) {
-			LOG.error("Exception while sleeping during Bitbucket API retry", e);
-		}
-	}
-
 }
@@ -0,0 +1,502 @@
+package com.tracelink.appsec.watchtower.core.scan.code.scm.api.bb;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import kong.unirest.GetRequest;
+import kong.unirest.Headers;
+import kong.unirest.HttpRequestWithBody;
+import kong.unirest.HttpResponse;
+import kong.unirest.RawResponse;
+import kong.unirest.Unirest;
+import kong.unirest.UnirestException;
+import kong.unirest.UnirestInstance;
+
+/**
+ * HTTP client shared by every {@linkplain BBCloudApi} of a single Bitbucket Cloud integration.
+ * All scans using the integration share its connection pool and its rate limiter, so concurrent
+ * scans slow down together when Bitbucket starts rate limiting the workspace instead of each
+ * retrying on its own.
+ * <p>
+ * Requests are rate limited by a token bucket. A 429 response pauses the bucket for the period
+ * in its Retry-After header and halves its rate, which then recovers with each successful
+ * request. Identical GET requests that are in flight at the same time are sent once and share the
+ * response. GET requests that fail or get a server error response are retried with jittered
+ * exponential backoff. POST requests are only retried when they were rate limited, since the
+ * server did not process them.
+ * <p>
+ * Each client counts the latency of its requests, the time they waited for the rate limiter, the
+ * responses that were rate limited and the requests that shared a response, which are shown on
+ * the pull request scan status page.
+ * <p>
+ * A client replaced because the credentials of its integration changed, or removed because the
+ * integration was deleted, is shut down once the requests it has in flight have finished.
+ *
+ * @author csmith
+ */
+public class BBCloudClient {
+	private static final Logger LOG = LoggerFactory.getLogger(BBCloudClient.class);
+
+	private static final Map<String, BBCloudClient> CLIENTS = new ConcurrentHashMap<>();
+
+	static final int MAX_RETRIES = 5;
+	private static final int MAX_CONNECTIONS = 20;
+	private static final double BUCKET_CAPACITY = 10.0;
+	private static final double MAX_RATE = 10.0;
+	private static final double MIN_RATE = 1.0;
+	private static final long BASE_BACKOFF_MILLIS = 50L;
+	private static final long MAX_BACKOFF_MILLIS = 1000L;
+
+	private final String user;
+	private final String auth;
+	private final UnirestInstance unirest;
+	private final TokenBucket bucket = new TokenBucket(BUCKET_CAPACITY, MAX_RATE, MIN_RATE);
+	private final Map<String, CompletableFuture<HttpResponse<?>>> inFlight =
+			new ConcurrentHashMap<>();
+
+	private int activeRequests = 0;
+	private boolean retired = false;
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder latencyNanos = new LongAdder();
+	private final LongAdder rateLimited = new LongAdder();
+	private final LongAdder queueWaitNanos = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	BBCloudClient(String user, String auth) {
+		this.user = user;
+		this.auth = auth;
+		this.unirest = Unirest.spawnInstance();
+		// retries are handled here so that they are paced by the rate limiter
+		this.unirest.config().concurrency(MAX_CONNECTIONS, MAX_CONNECTIONS)
+				.automaticRetries(false);
+	}
+
+	/**
+	 * Get the client of the given integration, creating it if needed. A new client is created if
+	 * the credentials of the integration have changed.
+	 *
+	 * @param apiEntity the integration to get the client of
+	 * @return the client shared by all users of the integration
+	 */
+	public static BBCloudClient forEntity(BBCloudIntegrationEntity apiEntity) {
+		String key = String.valueOf(apiEntity.getApiLabel());
+		return CLIENTS.compute(key, (k, client) -> {
+			if (client != null && Objects.equals(client.user, apiEntity.getUser())
+					&& Objects.equals(client.auth, apiEntity.getAuth())) {
+				return client;
+			}
+			if (client != null) {
+				client.retire();
+			}
+			return new BBCloudClient(apiEntity.getUser(), apiEntity.getAuth());
+		});
+	}
+
+	/**
+	 * Remove the client of the given integration, if there is one. The client is shut down once
+	 * the requests it has in flight have finished.
+	 *
+	 * @param apiLabel the label of the integration to remove the client of
+	 */
+	public static void evict(String apiLabel) {
+		BBCloudClient client = CLIENTS.remove(String.valueOf(apiLabel));
+		if (client != null) {
+			client.retire();
+		}
+	}
+
+	/**
+	 * Get the clients of all integrations that have made requests since their credentials last
+	 * changed
+	 *
+	 * @return the clients keyed and ordered by the label of their integration
+	 */
+	public static Map<String, BBCloudClient> getClients() {
+		return Collections.unmodifiableMap(new TreeMap<>(CLIENTS));
+	}
+
+	/**
+	 * Make a GET request, sharing the response with identical requests in flight
+	 *
+	 * @param url    the url of the target resource
+	 * @param params any parameters to add to the request, may be null
+	 * @return the response from the target url
+	 * @throws UnirestException if the request fails after all retries
+	 */
+	public HttpResponse<String> getString(String url, Map<String, Object> params) {
+		return coalesce("string " + url + " " + sortedParams(params),
+				() -> execute(() -> makeGetRequest(url, params).asString(), true));
+	}
+
+	/**
+	 * Make a GET request for binary content, sharing the response with identical requests in
+	 * flight
+	 *
+	 * @param url    the url of the target resource
+	 * @param params any parameters to add to the request, may be null
+	 * @return the response from the target url
+	 * @throws UnirestException if the request fails after all retries
+	 */
+	public HttpResponse<byte[]> getBytes(String url, Map<String, Object> params) {
+		return coalesce("bytes " + url + " " + sortedParams(params),
+				() -> execute(() -> makeGetRequest(url, params).asBytes(), true));
+	}
+
+	/**
+	 * Make a GET request and stream the response to the consumer. Rate limited responses and
+	 * server errors that are retried are not given to the consumer.
+	 *
+	 * @param url      the url of the target resource
+	 * @param params   any parameters to add to the request, may be null
+	 * @param consumer handles the response while it streams in
+	 * @throws UnirestException if the request fails after all retries
+	 */
+	public void getStream(String url, Map<String, Object> params, Consumer<RawResponse> consumer) {
+		send(attempt -> {
+			AtomicReference<Attempt> result = new AtomicReference<>();
+			makeGetRequest(url, params).thenConsume(r -> {
+				result.set(new Attempt(r.getStatus(), r.getHeaders()));
+				if (r.getStatus() != 429 && !isRetriedServerError(r.getStatus(), true, attempt)) {
+					consumer.accept(r);
+				}
+			});
+			return result.get();
+		}, true);
+	}
+
+	/**
+	 * Make a POST request with an optional JSON body
+	 *
+	 * @param url    the url of the target resource
+	 * @param params any parameters to add to the request, may be null
+	 * @param body   the JSON body of the request, may be null
+	 * @return the response from the target url
+	 * @throws UnirestException if the request fails after all retries
+	 */
+	public HttpResponse<String> post(String url, Map<String, Object> params, Object body) {
+		return execute(() -> {
+			HttpRequestWithBody request = unirest.post(url).basicAuth(user, auth)
+					.header("accept", "application/json").queryString(params);
+			if (body == null) {
+				return request.asString();
+			}
+			return request.header("content-type", "application/json").body(body).asString();
+		}, false);
+	}
+
+	/**
+	 * @return the average time in milliseconds Bitbucket took to respond to a request
+	 */
+	public double getAverageLatencyMillis() {
+		long count = requests.sum();
+		return count == 0 ? 0.0 : latencyNanos.sum() / 1_000_000.0 / count;
+	}
+
+	/**
+	 * @return the average time in milliseconds requests waited for the rate limiter
+	 */
+	public double getAverageQueueWaitMillis() {
+		long count = requests.sum();
+		return count == 0 ? 0.0 : queueWaitNanos.sum() / 1_000_000.0 / count;
+	}
+
+	/**
+	 * @return the number of responses that were rate limited by Bitbucket
+	 */
+	public long getRateLimitedCount() {
+		return rateLimited.sum();
+	}
+
+	/**
+	 * @return the number of requests that shared the response of an identical request in flight
+	 */
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+	private GetRequest makeGetRequest(String url, Map<String, Object> params) {
+		return unirest.get(url).basicAuth(user, auth)
+				.header("accept", "application/json").queryString(params);
+	}
+
+	private static String sortedParams(Map<String, Object> params) {
+		return params == null ? "" : new TreeMap<>(params).toString();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> HttpResponse<T> coalesce(String key, Supplier<HttpResponse<T>> request) {
+		CompletableFuture<HttpResponse<?>> mine = new CompletableFuture<>();
+		CompletableFuture<HttpResponse<?>> existing = inFlight.putIfAbsent(key, mine);
+		if (existing != null) {
+			coalesced.increment();
+			try {
+				return (HttpResponse<T>) existing.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw e;
+			}
+		}
+		try {
+			HttpResponse<T> response = request.get();
+			mine.complete(response);
+			return response;
+		} catch (RuntimeException e) {
+			mine.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, mine);
+		}
+	}
+
+	private <T> HttpResponse<T> execute(Supplier<HttpResponse<T>> request, boolean idempotent) {
+		AtomicReference<HttpResponse<T>> response = new AtomicReference<>();
+		send(attempt -> {
+			response.set(request.get());
+			return new Attempt(response.get().getStatus(), response.get().getHeaders());
+		}, idempotent);
+		return response.get();
+	}
+
+	/**
+	 * Send a request through the rate limiter, retrying it if it is rate limited or, for
+	 * idempotent requests, if it fails or gets a server error response. The last server error
+	 * response is kept once the retries are used up.
+	 *
+	 * @param request    sends an attempt of the request, given the number of the attempt, and
+	 *                   returns the status and headers of its response
+	 * @param idempotent whether the request may be retried after a failure
+	 */
+	private void send(IntFunction<Attempt> request, boolean idempotent) {
+		checkOut();
+		try {
+			for (int attempt = 0;; attempt++) {
+				long queued = System.nanoTime();
+				bucket.acquire();
+				queueWaitNanos.add(System.nanoTime() - queued);
+				requests.increment();
+				Attempt result;
+				try {
+					result = timed(request, attempt);
+				} catch (UnirestException e) {
+					if (!idempotent || attempt >= MAX_RETRIES) {
+						throw e;
+					}
+					sleep(backoff(attempt));
+					continue;
+				}
+				if (isRetriedServerError(result.status, idempotent, attempt)) {
+					long backoff = backoff(attempt);
+					LOG.warn("Bitbucket responded with " + result.status + ". Retrying in "
+							+ backoff + " ms");
+					sleep(backoff);
+					continue;
+				}
+				if (result.status != 429) {
+					bucket.succeeded();
+					return;
+				}
+				rateLimited.increment();
+				if (attempt >= MAX_RETRIES) {
+					throw new UnirestException("RateLimiter limits reached. Abandoning Request");
+				}
+				long retryPeriod = retryPeriod(result.headers, attempt);
+				LOG.error("Bitbucket Rate Limiting hit. Backing off for " + retryPeriod + " ms");
+				bucket.pause(retryPeriod);
+			}
+		} finally {
+			checkIn();
+		}
+	}
+
+	/**
+	 * Send a single attempt of a request, counting the time until its response
+	 */
+	private Attempt timed(IntFunction<Attempt> request, int attempt) {
+		long sent = System.nanoTime();
+		try {
+			return request.apply(attempt);
+		} finally {
+			latencyNanos.add(System.nanoTime() - sent);
+		}
+	}
+
+	/**
+	 * Whether a response with the given status is retried because it is a server error
+	 */
+	private static boolean isRetriedServerError(int status, boolean idempotent, int attempt) {
+		return idempotent && status >= 500 && attempt < MAX_RETRIES;
+	}
+
+	private synchronized void checkOut() {
+		activeRequests++;
+	}
+
+	private void checkIn() {
+		boolean shutDown;
+		synchronized (this) {
+			activeRequests--;
+			shutDown = retired && activeRequests == 0;
+		}
+		if (shutDown) {
+			unirest.shutDown(false);
+		}
+	}
+
+	/**
+	 * Shut this client down once it has no requests in flight. A user still holding the client
+	 * may send requests after that, in which case Unirest opens a new connection pool that is
+	 * shut down again when those requests finish.
+	 */
+	private void retire() {
+		boolean shutDown;
+		synchronized (this) {
+			retired = true;
+			shutDown = activeRequests == 0;
+		}
+		if (shutDown) {
+			unirest.shutDown(false);
+		}
+	}
+
+	/**
+	 * Get the time to wait given in the Retry-After header, or the backoff for this attempt if
+	 * there is none
+	 */
+	private static long retryPeriod(Headers headers, int attempt) {
+		try {
+			long retryPeriod = Long.parseLong(headers.getFirst("Retry-After"));
+			return retryPeriod > 10000 ? 1000 : retryPeriod;
+		} catch (NumberFormatException e) {
+			return backoff(attempt);
+		}
+	}
+
+	private static long backoff(int attempt) {
+		long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << attempt);
+		// between half and all of the backoff, so that waiting requests do not retry together
+		return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UnirestException("Interrupted while waiting to retry request");
+		}
+	}
+
+	/**
+	 * Status and headers of the response to a single attempt of a request
+	 */
+	private static final class Attempt {
+		private final int status;
+		private final Headers headers;
+
+		Attempt(int status, Headers headers) {
+			this.status = status;
+			this.headers = headers;
+		}
+	}
+
+	/**
+	 * Token bucket holding up to a capacity of tokens that refill at a rate per second. The rate
+	 * halves each time the bucket is paused and recovers with each success.
+	 */
+	static final class TokenBucket {
+		private final double capacity;
+		private final double maxRate;
+		private final double minRate;
+		private double rate;
+		private double tokens;
+		private long lastRefill = System.nanoTime();
+		private long pausedUntil = lastRefill;
+
+		TokenBucket(double capacity, double maxRate, double minRate) {
+			this.capacity = capacity;
+			this.maxRate = maxRate;
+			this.minRate = minRate;
+			this.rate = maxRate;
+			this.tokens = capacity;
+		}
+
+		/**
+		 * Wait until a token is available and take it
+		 *
+		 * @throws UnirestException if interrupted while waiting
+		 */
+		void acquire() {
+			long wait;
+			while ((wait = reserve()) > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(wait);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new UnirestException("Interrupted while waiting for rate limiter");
+				}
+			}
+		}
+
+		/**
+		 * Take a token if one is available
+		 *
+		 * @return 0 if a token was taken, or the nanoseconds until one may be available
+		 */
+		synchronized long reserve() {
+			long now = System.nanoTime();
+			if (now - pausedUntil < 0) {
+				return pausedUntil - now;
+			}
+			tokens = Math.min(capacity, tokens + (now - lastRefill) * rate / 1e9);
+			lastRefill = now;
+			if (tokens >= 1.0) {
+				tokens -= 1.0;
+				return 0L;
+			}
+			return Math.max(1L, (long) ((1.0 - tokens) / rate * 1e9));
+		}
+
+		/**
+		 * Stop handing out tokens for the given time and halve the rate. A single token is
+		 * available when the pause ends, so that one request can probe whether the limit has
+		 * lifted.
+		 *
+		 * @param millis the time to pause for
+		 */
+		synchronized void pause(long millis) {
+			long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+			if (until - pausedUntil > 0) {
+				pausedUntil = until;
+				lastRefill = until;
+			}
+			tokens = 1.0;
+			rate = Math.max(minRate, rate / 2);
+		}
+
+		synchronized void succeeded() {
+			rate = Math.min(maxRate, rate + maxRate / 10);
+		}
+
+		synchronized double getRate() {
+			return rate;
+		}
+	}
+}
@@ -14,6 +14,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -26,6 +27,7 @@ import com.tracelink.appsec.watchtower.core.exception.ScanInitializationExceptio
 import com.tracelink.appsec.watchtower.core.exception.ScanRejectedException;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import com.tracelink.appsec.watchtower.core.scan.code.AbstractCodeScanAgent;
+import com.tracelink.appsec.watchtower.core.scan.code.FileManifest;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.api.IScmApi;
@@ -49,12 +51,21 @@ public class PRScanAgent extends
 
 	private IScmApi api;
 	private PRScanResultService prScanResultService;
+	private int incrementalMaxFiles;
+
+	private PullRequest reportedPullRequest;
+	private List<PullRequestViolationEntity> reportedViolations;
+	private List<CodeScanError> reportedErrors;
 
 	public PRScanAgent(PullRequest pullRequest) {
 		super(pullRequest.getPRString());
 		this.pullRequest = pullRequest;
 	}
 
+	public PullRequest getPullRequest() {
+		return pullRequest;
+	}
+
 	/**
 	 * Set the {@linkplain IScmApi} for this Agent's configuration to interact with Pull Request
 	 * SCMs
@@ -68,6 +79,22 @@ public class PRScanAgent extends
 	}
 
 
+	/**
+	 * Scan only the files changed by the pull request, along with the configuration files
+	 * scanners need, instead of the complete source. Pull requests that change more files than
+	 * the given maximum, or whose changed files cannot be listed, are scanned using the complete
+	 * source.
+	 * <p>
+	 * 0 or less means the complete source is always scanned
+	 * 
+	 * @param incrementalMaxFiles the most changed files to download individually
+	 * @return this agent
+	 */
+	public PRScanAgent withIncrementalScan(int incrementalMaxFiles) {
+		this.incrementalMaxFiles = incrementalMaxFiles;
+		return this;
+	}
+
 	/**
 	 * Set the {@linkplain PRScanResultService} for this Agent's configuration
 	 * 
@@ -109,8 +136,8 @@ public class PRScanAgent extends
 	 * {@inheritDoc}
 	 * <p>
 	 * The implementation of report for SCM is to create database artifacts of this scan, identify
-	 * if any violations are new or are blocking, and send a report to the attached SCM before
-	 * saving all results
+	 * if any violations are new or are blocking, and send a report to the attached SCM. The
+	 * results are saved afterwards by {@link #persist()}
 	 */
 	@Override
 	protected void report(List<CodeScanReport> reports) {
@@ -138,13 +165,27 @@ public class PRScanAgent extends
 
 		try {
 			// re-get the pr so that it has fresh data
-			PullRequest updated = api.updatePRData(pullRequest);
-			prScanResultService.savePullRequestScan(updated, this.startTime, violations, errors);
+			this.reportedPullRequest = api.updatePRData(pullRequest);
+			this.reportedViolations = violations;
+			this.reportedErrors = errors;
 		} catch (ScanRejectedException e) {
 			LOG.error("Could not save Pull Request Scan due to exception", e);
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Saves the pull request with the violations and errors of the last report
+	 */
+	@Override
+	protected void persist() {
+		if (reportedViolations != null) {
+			prScanResultService.savePullRequestScan(reportedPullRequest, this.startTime,
+					reportedViolations, reportedErrors);
+		}
+	}
+
 	@Override
 	protected void clean() {
 		FileUtils.deleteQuietly(getWorkingDirectory().toFile());
@@ -154,13 +195,97 @@ public class PRScanAgent extends
 			Stream.of("test", "node_modules").collect(Collectors.toSet());
 	private static Set<String> UNINTERESTING_FILE_TYPES =
 			Stream.of("jar", "png", "jpg").collect(Collectors.toSet());
+	private static Set<String> CONFIG_FILE_NAMES =
+			Stream.of("pom.xml", "package.json").collect(Collectors.toSet());
 
 	/**
-	 * Gather all needed files and copy them into the target directory
+	 * Gather all needed files and copy them into the target directory, removing uninteresting
+	 * files and collecting the rest into the file manifest for this scan. If only the changed
+	 * files are collected and that fails partway, the target directory is cleared before the
+	 * complete source is downloaded into it.
 	 * 
 	 * @throws ScanInitializationException if there are no files to scan
 	 */
 	private void collectFiles() throws ScanInitializationException {
+		if (incrementalMaxFiles > 0) {
+			try {
+				List<String> changedFiles = api.getChangedFilesForPullRequest(pullRequest);
+				if (changedFiles.size() <= incrementalMaxFiles) {
+					collectChangedFiles(changedFiles);
+					return;
+				}
+				LOG.debug("PR " + pullRequest.getPRString() + " changes " + changedFiles.size()
+						+ " files, downloading complete source");
+			} catch (IOException e) {
+				LOG.warn("Could not collect changed files for PR " + pullRequest.getPRString()
+						+ ", downloading complete source", e);
+				try {
+					if (Files.isDirectory(getWorkingDirectory())) {
+						FileUtils.cleanDirectory(getWorkingDirectory().toFile());
+					}
+				} catch (IOException ex) {
+					throw new ScanInitializationException(
+							"Could not clear the working directory of changed files", ex);
+				}
+			}
+		}
+		collectAllFiles();
+	}
+
+	/**
+	 * Download only the given changed files into the target directory and collect them into the
+	 * file manifest for this scan. The configuration files in the directories containing the
+	 * changed files, up to the root of the repository, are downloaded as well but are not added
+	 * to the manifest.
+	 * 
+	 * @param changedFiles the files changed by the pull request
+	 * @throws IOException if a file cannot be downloaded
+	 */
+	private void collectChangedFiles(List<String> changedFiles) throws IOException {
+		FileManifest.Builder manifest = new FileManifest.Builder(getWorkingDirectory());
+		Set<String> configFiles = new TreeSet<>();
+		for (String changedFile : changedFiles) {
+			if (isUninteresting(changedFile)) {
+				continue;
+			}
+			if (api.downloadFileForPullRequest(pullRequest, changedFile, getWorkingDirectory())) {
+				Path file = getWorkingDirectory().resolve(changedFile).normalize();
+				manifest.add(file, Files.size(file));
+			}
+			String dir = changedFile;
+			while (dir.contains("/")) {
+				dir = dir.substring(0, dir.lastIndexOf('/'));
+				for (String configFile : CONFIG_FILE_NAMES) {
+					configFiles.add(dir + "/" + configFile);
+				}
+			}
+			configFiles.addAll(CONFIG_FILE_NAMES);
+		}
+		configFiles.removeAll(changedFiles);
+		for (String configFile : configFiles) {
+			api.downloadFileForPullRequest(pullRequest, configFile, getWorkingDirectory());
+		}
+		setFileManifest(manifest.build());
+	}
+
+	private boolean isUninteresting(String filePath) {
+		String[] segments = filePath.split("/");
+		for (int i = 0; i < segments.length - 1; i++) {
+			if (UNINTERESTING_FOLDERS.contains(segments[i])) {
+				return true;
+			}
+		}
+		return UNINTERESTING_FILE_TYPES.contains(FilenameUtils.getExtension(filePath));
+	}
+
+	/**
+	 * Download the complete source into the target directory, removing uninteresting files and
+	 * collecting the rest into the file manifest for this scan
+	 * 
+	 * @throws ScanInitializationException if the source cannot be downloaded
+	 */
+	private void collectAllFiles() throws ScanInitializationException {
+		FileManifest.Builder manifest = new FileManifest.Builder(getWorkingDirectory());
 		try {
 			api.downloadSourceForPullRequest(pullRequest, getWorkingDirectory());
 			Files.walkFileTree(getWorkingDirectory(), new FileVisitor<Path>() {
@@ -182,12 +307,16 @@ public class PRScanAgent extends
 						FileUtils.deleteQuietly(file.toFile());
 						return FileVisitResult.SKIP_SUBTREE;
 					}
+					if (attrs.isRegularFile()) {
+						manifest.add(file, attrs.size());
+					}
 					return FileVisitResult.CONTINUE;
 				}
 
 				@Override
 				public FileVisitResult visitFileFailed(Path file, IOException exc)
 						throws IOException {
+					manifest.addError(exc.getMessage());
 					return FileVisitResult.CONTINUE;
 				}
 
@@ -200,6 +329,7 @@ public class PRScanAgent extends
 		} catch (IOException e) {
 			throw new ScanInitializationException("Could not download source", e);
 		}
+		setFileManifest(manifest.build());
 	}
 
 	/**
@@ -214,14 +344,24 @@ public class PRScanAgent extends
 		Set<String> violationFiles = new HashSet<>();
 		violations.forEach(v -> violationFiles.add(v.getFileName()));
 
-		// Get diff file for each file with violations
+		// Get the diff of the whole pull request at once, or of each file with violations if
+		// the whole diff cannot be retrieved
+		Map<String, DiffFile> prDiffFiles;
+		try {
+			prDiffFiles = api.getGitDiffFiles(pullRequest);
+		} catch (IOException e) {
+			LOG.warn("Could not get diff for PR " + pullRequest.getPRString()
+					+ ", getting diffs per file", e);
+			prDiffFiles = null;
+		}
 		Map<String, DiffFile> diffFiles = new HashMap<>();
-		violationFiles.forEach(f -> {
-			DiffFile diff = api.getGitDiffFile(pullRequest, f);
-			if (diff.hasDiffs()) {
+		for (String f : violationFiles) {
+			DiffFile diff =
+					prDiffFiles != null ? prDiffFiles.get(f) : api.getGitDiffFile(pullRequest, f);
+			if (diff != null && diff.hasDiffs()) {
 				diffFiles.put(f, diff);
 			}
-		});
+		}
 
 		// Use the diff files to determine if each violation is new or preexisting
 		// Use diff files to determine if MCR finding is likely relevant to the PR
@@ -4,6 +4,7 @@ import com.tracelink.appsec.watchtower.core.auth.model.CorePrivilege;
 import com.tracelink.appsec.watchtower.core.mvc.WatchtowerModelAndView;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiIntegrationEntity;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiIntegrationService;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.api.bb.BBCloudClient;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.ManualPullRequest;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.PullRequest;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.service.PRScanResultService;
@@ -49,6 +50,14 @@ public class PRScanController {
 
 		mav.addObject("numScansQueued", scanService.getTaskNumInQueue());
 		mav.addObject("numScansInProgress", scanService.getTaskNumActive());
+		mav.addObject("numScansWaiting", scanService.getWaitingScanCount());
+		mav.addObject("numScansInFlight", scanService.getScansInFlight());
+		mav.addObject("maxScansInFlight", scanService.getMaxScansInFlight());
+		mav.addObject("numFileTasksQueued", scanService.getFileTaskNumInQueue());
+		mav.addObject("numFileTasksInProgress", scanService.getFileTaskNumActive());
+		mav.addObject("stageTasksQueued", scanService.getStageTaskNumInQueue());
+		mav.addObject("stageTasksInProgress", scanService.getStageTaskNumActive());
+		mav.addObject("bitbucketClients", BBCloudClient.getClients());
 		mav.addObject("scanStatePaused", scanService.isPaused());
 		mav.addObject("scanStateQuiesced", scanService.isQuiesced());
 		mav.addObject("scms", types);
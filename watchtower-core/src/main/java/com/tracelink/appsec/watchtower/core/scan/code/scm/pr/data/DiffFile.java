@@ -4,23 +4,31 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
- * A Diff File parses a git diff and labels each line as being Modified or Existing. This is
- * typically an expensive operation and should be used sparingly
+ * A Diff File parses a git diff and labels each line as being Modified or Existing. Lines are kept
+ * in bit sets indexed by line number, so checking a line does not depend on the size of the file.
+ * Fetching the diff is typically an expensive operation and should be done sparingly
  *
  * @author csmith
  */
 public class DiffFile {
-	private List<DiffLine> diffs;
+	private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -\\d+(?:,\\d+)? \\+(\\d+)");
+
+	private final BitSet changedLines = new BitSet();
+	private final BitSet existingLines = new BitSet();
 	private String path;
 	private String diffid;
+	private int lineNum = 1;
 
 	public DiffFile(String path, String diffid) {
 		this.path = path;
-		this.diffs = new ArrayList<DiffLine>();
 		this.diffid = diffid;
 	}
 
@@ -33,40 +41,94 @@ public class DiffFile {
 	public void parseDiff(InputStream diffStream) throws IOException {
 		try (BufferedReader br = new BufferedReader(new InputStreamReader(diffStream))) {
 			String line = null;
-			int lineNum = 1;
 			// first search for @@ to skip ahead
 			while ((line = br.readLine()) != null) {
 				if (line.startsWith("@@")) {
+					startHunk(line);
 					break;
 				}
 			}
 			while ((line = br.readLine()) != null) {
-				char first = line.charAt(0);
-				switch (first) {
-					case '+':
-						// this is a modified or added line
-						addLine(new DiffLine(lineNum, DiffType.MODIFIED));
-						lineNum++;
-						break;
-					case '-':
-						// skip, don't increment the line count
-						break;
-					default:
-						// this is an existing line, unmodified/not-added
-						addLine(new DiffLine(lineNum, DiffType.EXISTING));
-						lineNum++;
-						break;
+				parseLine(line);
+			}
+		}
+	}
+
+	/**
+	 * Given an inputstream of a git diff covering many files, such as the diff of a whole pull
+	 * request, split it into a Diff File for each file. Deleted files are not included.
+	 *
+	 * @param diffStream an Input stream of a multi-file git diff
+	 * @param diffid     the id of the diff, used for every file
+	 * @return map from the path of each file in the new version to its differences
+	 * @throws IOException if an exception occurs while reading the stream
+	 */
+	public static Map<String, DiffFile> parseDiffs(InputStream diffStream, String diffid)
+			throws IOException {
+		Map<String, DiffFile> diffFiles = new HashMap<>();
+		try (BufferedReader br = new BufferedReader(
+				new InputStreamReader(diffStream, StandardCharsets.UTF_8))) {
+			DiffFile current = null;
+			boolean inHunk = false;
+			String line = null;
+			while ((line = br.readLine()) != null) {
+				if (line.startsWith("diff --git ")) {
+					current = null;
+					inHunk = false;
+				} else if (inHunk) {
+					current.parseLine(line);
+				} else if (line.startsWith("+++ ")) {
+					// a deleted file has no new version, shown as /dev/null
+					String newPath = line.substring(4);
+					int tab = newPath.indexOf('\t');
+					if (tab >= 0) {
+						newPath = newPath.substring(0, tab);
+					}
+					if (newPath.startsWith("b/")) {
+						current = new DiffFile(newPath.substring(2), diffid);
+						diffFiles.put(current.getPath(), current);
+					}
+				} else if (line.startsWith("@@") && current != null) {
+					current.startHunk(line);
+					inHunk = true;
 				}
 			}
 		}
+		return diffFiles;
 	}
 
-	public boolean hasDiffs() {
-		return !this.diffs.isEmpty();
+	private void startHunk(String header) {
+		Matcher m = HUNK_HEADER.matcher(header);
+		if (m.find()) {
+			lineNum = Integer.parseInt(m.group(1));
+		}
 	}
 
-	private void addLine(DiffLine diffLine) {
-		this.diffs.add(diffLine);
+	private void parseLine(String line) {
+		char first = line.isEmpty() ? ' ' : line.charAt(0);
+		switch (first) {
+			case '+':
+				// this is a modified or added line
+				changedLines.set(lineNum);
+				lineNum++;
+				break;
+			case '-':
+			case '\\':
+				// skip removed lines and "no newline" markers, don't increment the line count
+				break;
+			case '@':
+				startHunk(line);
+				break;
+			default:
+				// this is an existing line, unmodified/not-added
+				existingLines.set(lineNum);
+				lineNum++;
+				break;
+		}
+	}
+
+	public boolean hasDiffs() {
+		return !changedLines.isEmpty() || !existingLines.isEmpty();
 	}
 
 	public String getDiffId() {
@@ -84,8 +146,7 @@ public class DiffFile {
 	 * @return true if the line was not modified or deleted
 	 */
 	public boolean isLineExisting(int lineNum) {
-		return diffs.stream().anyMatch(
-				d -> (d.getLineNum() == lineNum && d.getType().equals(DiffType.EXISTING)));
+		return lineNum >= 0 && existingLines.get(lineNum);
 	}
 
 	/**
@@ -95,8 +156,7 @@ public class DiffFile {
 	 * @return true if the line was modified
 	 */
 	public boolean isLineChanged(int lineNum) {
-		return diffs.stream().anyMatch(
-				d -> (d.getLineNum() == lineNum && d.getType().equals(DiffType.MODIFIED)));
+		return lineNum >= 0 && changedLines.get(lineNum);
 	}
 
 }
@@ -5,10 +5,12 @@ import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestC
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.tracelink.appsec.watchtower.core.scan.IScanRepository;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRScanResultHeader;
 
 import java.util.List;
 
@@ -29,4 +31,30 @@ public interface PRScanRepository extends IScanRepository<PullRequestScanEntity>
             countQuery = "SELECT COUNT(p3) FROM PullRequestScanEntity p3 WHERE EXISTS(SELECT p FROM PullRequestScanEntity AS p WHERE p.mcrStatus <> ?1 AND p.mcrStatus IS NOT NULL AND EXISTS(SELECT 1 FROM PullRequestScanEntity AS p2 WHERE p2.container = p.container GROUP BY p2.container HAVING p.submitDate = MAX(p2.submitDate)))")
     Page<PullRequestScanEntity> findLatestMcrsPerPR(PullRequestMCRStatus mcrStatus, Pageable pageable);
 
+    /*
+     * Headers of scans for result listings, newest first. Each listing pages by the end date and
+     * id of the last scan of the previous page, see ScanResultCursor
+     */
+    String SELECT_HEADER = "SELECT new com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRScanResultHeader("
+            + "s.id, s.endDate, c.apiLabel, c.repoName, c.prId, c.author,"
+            + " (SELECT COUNT(v) FROM PullRequestViolationEntity v WHERE v.scan = s AND v.violationName NOT LIKE 'MCR Match:%'))"
+            + " FROM PullRequestScanEntity s JOIN s.container c";
+    String AFTER_CURSOR = "(s.endDate < :endDate OR (s.endDate = :endDate AND s.id < :id))";
+    String ORDER_BY_NEWEST = " ORDER BY s.endDate DESC, s.id DESC";
+
+    @Query(SELECT_HEADER + " WHERE " + AFTER_CURSOR + ORDER_BY_NEWEST)
+    List<PRScanResultHeader> findHeaders(@Param("endDate") long endDate, @Param("id") long id,
+            Pageable pageable);
+
+    @Query(SELECT_HEADER + " WHERE c.resolved = false AND NOT EXISTS(SELECT 1 FROM PullRequestScanEntity s2"
+            + " WHERE s2.container = c AND (s2.endDate > s.endDate OR (s2.endDate = s.endDate AND s2.id > s.id)))"
+            + " AND " + AFTER_CURSOR + ORDER_BY_NEWEST)
+    List<PRScanResultHeader> findLatestUnresolvedHeaders(@Param("endDate") long endDate,
+            @Param("id") long id, Pageable pageable);
+
+    @Query(SELECT_HEADER + " WHERE EXISTS(SELECT 1 FROM PullRequestViolationEntity v2"
+            + " WHERE v2.scan = s AND v2.violationName NOT LIKE 'MCR Match:%')"
+            + " AND " + AFTER_CURSOR + ORDER_BY_NEWEST)
+    List<PRScanResultHeader> findHeadersWithViolations(@Param("endDate") long endDate,
+            @Param("id") long id, Pageable pageable);
 }
@@ -1,12 +1,14 @@
 package com.tracelink.appsec.watchtower.core.scan.code.scm.pr.repository;
 
-import org.springframework.data.domain.Page;
+import java.util.List;
+
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.tracelink.appsec.watchtower.core.scan.IViolationRepository;
-import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.CodeViolationRow;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestViolationEntity;
 
 /**
@@ -18,6 +20,18 @@ import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestV
 @Repository("prViolationRepository")
 public interface PRViolationRepository extends IViolationRepository<PullRequestViolationEntity> {
 
-	@Query("SELECT v.scan FROM PullRequestViolationEntity v WHERE v.violationName NOT LIKE 'MCR Match:%' GROUP BY v.scan")
-	Page<PullRequestScanEntity> findAllNonMCRGroupByScan(Pageable page);
+	/**
+	 * Get the violations of a scan, without MCR findings, in the order they were saved
+	 *
+	 * @param scanId  the id of the scan
+	 * @param afterId the id of the last violation already read, or 0 to start from the first
+	 * @param page    the number of violations to read
+	 * @return the violations of the scan after the given violation
+	 */
+	@Query("SELECT new com.tracelink.appsec.watchtower.core.scan.code.CodeViolationRow("
+			+ "v.id, v.violationName, v.lineNum, v.fileName, v.severity)"
+			+ " FROM PullRequestViolationEntity v WHERE v.scan.id = :scanId AND v.id > :afterId"
+			+ " AND v.violationName NOT LIKE 'MCR Match:%' ORDER BY v.id")
+	List<CodeViolationRow> findRowsByScan(@Param("scanId") long scanId,
+			@Param("afterId") long afterId, Pageable page);
 }
@@ -30,6 +30,8 @@ public class PRScanResult {
 
 	private List<PRScanResultViolation> violations;
 
+	private long violationsFound;
+
 	private PullRequestMCRStatus mcrStatus;
 
 	private List<PRScanResultViolation> mcrFindings;
@@ -110,6 +112,20 @@ public class PRScanResult {
 		this.violations = violations;
 	}
 
+	/**
+	 * Get the number of violations of the scan. Results listed without their violations hold only
+	 * the count
+	 *
+	 * @return the number of violations, not counting MCR findings
+	 */
+	public long getViolationsFound() {
+		return violations == null ? violationsFound : violations.size();
+	}
+
+	public void setViolationsFound(long violationsFound) {
+		this.violationsFound = violationsFound;
+	}
+
 	public List<PRScanResultViolation> getMcrFindings() { return mcrFindings; }
 
 	public void setMcrFindings(List<PRScanResultViolation> mcrFindings) {this.mcrFindings = mcrFindings; }
@@ -0,0 +1,56 @@
+package com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result;
+
+/**
+ * The columns of a PR scan shown when listing scan results, along with the number of violations
+ * of the scan, not counting MCR findings
+ *
+ * @author csmith
+ */
+public class PRScanResultHeader {
+	private final long id;
+	private final long endDate;
+	private final String apiLabel;
+	private final String repoName;
+	private final String prId;
+	private final String author;
+	private final long violationsFound;
+
+	public PRScanResultHeader(long id, long endDate, String apiLabel, String repoName,
+			String prId, String author, long violationsFound) {
+		this.id = id;
+		this.endDate = endDate;
+		this.apiLabel = apiLabel;
+		this.repoName = repoName;
+		this.prId = prId;
+		this.author = author;
+		this.violationsFound = violationsFound;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public long getEndDate() {
+		return endDate;
+	}
+
+	public String getApiLabel() {
+		return apiLabel;
+	}
+
+	public String getRepoName() {
+		return repoName;
+	}
+
+	public String getPrId() {
+		return prId;
+	}
+
+	public String getAuthor() {
+		return author;
+	}
+
+	public long getViolationsFound() {
+		return violationsFound;
+	}
+}
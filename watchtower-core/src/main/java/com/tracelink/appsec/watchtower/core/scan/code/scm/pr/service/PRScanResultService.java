@@ -1,10 +1,17 @@
 package com.tracelink.appsec.watchtower.core.scan.code.scm.pr.service;
 
-import com.tracelink.appsec.watchtower.core.rule.RuleEntity;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupService;
+import com.tracelink.appsec.watchtower.core.rule.RuleGuidance;
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
 import com.tracelink.appsec.watchtower.core.rule.RuleService;
 import com.tracelink.appsec.watchtower.core.scan.AbstractScanResultService;
+import com.tracelink.appsec.watchtower.core.scan.ScanResultCursor;
+import com.tracelink.appsec.watchtower.core.scan.ScanResultPage;
 import com.tracelink.appsec.watchtower.core.scan.ScanStatus;
+import com.tracelink.appsec.watchtower.core.scan.ViolationBatchWriter;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiIntegrationService;
+import com.tracelink.appsec.watchtower.core.scan.code.CodeScanType;
+import com.tracelink.appsec.watchtower.core.scan.code.CodeViolationRow;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.api.AbstractScmIntegrationEntity;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.PullRequest;
@@ -19,15 +26,22 @@ import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.repository.PRScanRe
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.repository.PRViolationRepository;
 import com.tracelink.appsec.watchtower.core.scan.repository.RepositoryRepository;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Handles logic around storing a retrieving scan results
@@ -39,6 +53,10 @@ public class PRScanResultService
 		extends AbstractScanResultService<PullRequestScanEntity, PullRequestViolationEntity> {
 
 	private static final Logger LOG = LoggerFactory.getLogger(PRScanResultService.class);
+	private static final String INSERT_VIOLATION = "INSERT INTO pull_request_violations"
+			+ " (scan_entity_id, violation_name, line_number, file_path, severity)"
+			+ " VALUES (?, ?, ?, ?, ?)";
+	static final int VIOLATION_CHUNK_SIZE = 1000;
 
 	private final PRContainerRepository prRepo;
 	private final RepositoryRepository repoRepo;
@@ -46,12 +64,18 @@ public class PRScanResultService
 	private final PRViolationRepository vioRepo;
 	private final RuleService ruleService;
 	private final ApiIntegrationService apiIntegrationService;
+	private final MetricsRollupService rollupService;
+	private final ViolationBatchWriter batchWriter;
+	private final TransactionTemplate transactionTemplate;
 
 	public PRScanResultService(
 			@Autowired PRContainerRepository prRepo, @Autowired RepositoryRepository repoRepo,
 			@Autowired PRScanRepository scanRepo, @Autowired PRViolationRepository vioRepo,
 			@Autowired RuleService ruleService,
-			@Autowired ApiIntegrationService apiIntegrationService) {
+			@Autowired ApiIntegrationService apiIntegrationService,
+			@Autowired MetricsRollupService rollupService,
+			@Autowired ViolationBatchWriter batchWriter,
+			@Autowired PlatformTransactionManager transactionManager) {
 		super(scanRepo, vioRepo);
 		this.prRepo = prRepo;
 		this.repoRepo = repoRepo;
@@ -59,6 +83,9 @@ public class PRScanResultService
 		this.vioRepo = vioRepo;
 		this.ruleService = ruleService;
 		this.apiIntegrationService = apiIntegrationService;
+		this.rollupService = rollupService;
+		this.batchWriter = batchWriter;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
 	}
 
 	/**
@@ -104,15 +131,22 @@ public class PRScanResultService
 		}
 		scanEntity.setMcrStatus(resolveMCRStatus(violations));
 
-		PullRequestScanEntity savedScanEntity = scanRepo.saveAndFlush(scanEntity);
-
 		consolidateMCRFindings(violations);
 
-		violations.forEach(v -> {
-			v.setScan(savedScanEntity);
-			vioRepo.save(v);
+		// The scan is only saved along with all of its violations
+		PullRequestScanEntity savedScanEntity = transactionTemplate.execute(status -> {
+			PullRequestScanEntity savedScan = scanRepo.saveAndFlush(scanEntity);
+			violations.forEach(v -> v.setScan(savedScan));
+			batchWriter.write(INSERT_VIOLATION, violations, (ps, v) -> {
+				ps.setLong(1, savedScan.getId());
+				ps.setString(2, v.getViolationName());
+				ps.setInt(3, v.getLineNum());
+				ps.setString(4, v.getFileName());
+				ps.setString(5, v.getSeverity().getName());
+			});
+			return savedScan;
 		});
-		vioRepo.flush();
+		rollupService.recordScan(CodeScanType.PULL_REQUEST, savedScanEntity, violations);
 	}
 
 	/**
@@ -203,31 +237,45 @@ public class PRScanResultService
 		result.setApiLabel(container.getApiLabel());
 		result.setRepoName(repo);
 		result.setPrId(id);
+		// Load the guidance of all rules in one query, rather than once per violation
+		Map<String, RuleGuidance> guidance = ruleService.getRuleGuidance(
+				scanEntity.getViolations().stream().map(PullRequestViolationEntity::getViolationName)
+						.collect(Collectors.toSet()));
+		List<PRScanResultViolation> violations = scanEntity.getViolations().stream()
+				.map(v -> generateResultForViolation(v, guidance)).collect(Collectors.toList());
+
 		//Set violations, filter out MCR Findings
 		result.setViolations(
-				scanEntity.getViolations().stream().map(this::generateResultForViolation).filter(v -> !v.getViolationName().startsWith("MCR Match:"))
+				violations.stream().filter(v -> !v.getViolationName().startsWith("MCR Match:"))
 						.collect(Collectors.toList()));
 
 		//Set mcrStatus and mcrFindings, filter out other violations
 		result.setMcrStatus(scanEntity.getMcrStatus());
 		result.setMcrFindings(
-				scanEntity.getViolations().stream().map(this::generateResultForViolation).filter(v -> v.getViolationName().startsWith("MCR Match:"))
+				violations.stream().filter(v -> v.getViolationName().startsWith("MCR Match:"))
 						.distinct()
 						.collect(Collectors.toList()));
 
 		return result;
 	}
 
-	private PRScanResultViolation generateResultForViolation(PullRequestViolationEntity violation) {
+	private PRScanResultViolation generateResultForViolation(PullRequestViolationEntity violation,
+			Map<String, RuleGuidance> guidance) {
+		return generateResultForViolation(violation.getViolationName(), violation.getLineNum(),
+				violation.getFileName(), violation.getSeverity(), guidance);
+	}
+
+	private PRScanResultViolation generateResultForViolation(String violationName, int lineNum,
+			String fileName, RulePriority severity, Map<String, RuleGuidance> guidance) {
 		PRScanResultViolation result = new PRScanResultViolation();
-		result.setFileName(violation.getFileName());
-		result.setLineNumber(violation.getLineNum());
-		result.setSeverity(violation.getSeverity().getName());
-		result.setSeverityValue(violation.getSeverity().getPriority());
-		result.setViolationName(violation.getViolationName());
+		result.setFileName(fileName);
+		result.setLineNumber(lineNum);
+		result.setSeverity(severity.getName());
+		result.setSeverityValue(severity.getPriority());
+		result.setViolationName(violationName);
 
 		String message = "Rule guidance not found";
-		RuleEntity rule = ruleService.getRule(violation.getViolationName());
+		RuleGuidance rule = guidance.get(violationName);
 		if (rule != null) {
 			message = rule.getMessage();
 		}
@@ -238,7 +286,8 @@ public class PRScanResultService
 
 	/**
 	 * Get a list of {@linkplain PRScanResult} based on the given filter and return the given page
-	 * number's worth of data
+	 * number's worth of data. Results hold the number of violations of each scan, but not the
+	 * violations themselves
 	 *
 	 * @param filter   the filter to divy-up the results
 	 * @param pageSize the number of results to return
@@ -248,41 +297,116 @@ public class PRScanResultService
 	 */
 	public List<PRScanResult> getScanResultsWithFilters(PRResultFilter filter, int pageSize,
 			int pageNum) {
-		List<PRScanResult> results;
+		return generateResultsForHeaders(
+				findHeaders(filter, ScanResultCursor.FIRST, PageRequest.of(pageNum, pageSize)));
+	}
+
+	/**
+	 * Get the page of {@linkplain PRScanResult} after the given cursor, based on the given filter.
+	 * Results hold the number of violations of each scan, but not the violations themselves
+	 *
+	 * @param filter   the filter to divy-up the results
+	 * @param pageSize the number of results to return
+	 * @param after    the cursor to return results after, see {@link ScanResultCursor#FIRST}
+	 * @return a page of at most {@code pageSize} results using the {@code filter}
+	 */
+	public ScanResultPage<PRScanResult> getScanResultsAfter(PRResultFilter filter, int pageSize,
+			ScanResultCursor after) {
+		List<PRScanResultHeader> headers =
+				findHeaders(filter, after, PageRequest.of(0, pageSize));
+		ScanResultCursor next = null;
+		if (!headers.isEmpty() && headers.size() == pageSize) {
+			PRScanResultHeader last = headers.get(headers.size() - 1);
+			next = new ScanResultCursor(last.getEndDate(), last.getId());
+		}
+		return new ScanResultPage<>(generateResultsForHeaders(headers), next);
+	}
+
+	private List<PRScanResultHeader> findHeaders(PRResultFilter filter, ScanResultCursor after,
+			Pageable page) {
 		switch (filter) {
 			case ALL:
-				results =
-						scanRepo.findAll(
-								PageRequest.of(pageNum, pageSize,
-										Sort.by(Direction.DESC, "endDate")))
-								.stream().map(this::generateScanResultForScan)
-								.collect(Collectors.toList());
-				break;
+				return scanRepo.findHeaders(after.getEndDate(), after.getId(), page);
 			case UNRESOLVED:
-				results = prRepo
-						.findByResolvedFalse(
-								PageRequest.of(pageNum, pageSize,
-										Sort.by(Direction.DESC, "lastReviewedDate")))
-						.stream()
-						.map(container -> container.getScans().get(0))
-						.map(this::generateScanResultForScan)
-						.collect(Collectors.toList());
-				break;
+				return scanRepo.findLatestUnresolvedHeaders(after.getEndDate(), after.getId(),
+						page);
 			case VIOLATIONS:
-				results = vioRepo
-						.findAllNonMCRGroupByScan(
-								PageRequest.of(pageNum, pageSize, Sort.by(Direction.DESC, "scan")))
-						.stream()
-						.map(this::generateScanResultForScan)
-						.collect(Collectors.toList());
-				break;
+				return scanRepo.findHeadersWithViolations(after.getEndDate(), after.getId(),
+						page);
 			default:
 				LOG.error("Filter is not configured to get PRs");
 				throw new IllegalArgumentException("Filter is not configured to get PRs");
 		}
+	}
+
+	private List<PRScanResult> generateResultsForHeaders(List<PRScanResultHeader> headers) {
+		// look up each integration once per page, for the links to the pull requests
+		Map<String, AbstractScmIntegrationEntity> integrations = new HashMap<>();
+		List<PRScanResult> results = new ArrayList<>();
+		for (PRScanResultHeader header : headers) {
+			String repo = header.getRepoName();
+			String id = header.getPrId();
+			AbstractScmIntegrationEntity entity = integrations.computeIfAbsent(
+					header.getApiLabel(),
+					label -> (AbstractScmIntegrationEntity) apiIntegrationService
+							.findByLabel(label));
+
+			PRScanResult result = new PRScanResult();
+			result.setId(header.getId());
+			result.setDisplayName(repo + "-" + id);
+			result.setAuthor(header.getAuthor());
+			result.setDate(LocalDateTime.ofInstant(Instant.ofEpochMilli(header.getEndDate()),
+					ZoneId.systemDefault()));
+			result.setPrLink(entity == null ? "" : entity.makePRLink(repo, id));
+			result.setApiLabel(header.getApiLabel());
+			result.setRepoName(repo);
+			result.setPrId(id);
+			result.setViolationsFound(header.getViolationsFound());
+			results.add(result);
+		}
 		return results;
 	}
 
+	/**
+	 * Whether a PR scan with the given id exists
+	 *
+	 * @param scanId the id of the scan
+	 * @return true if the scan exists
+	 */
+	public boolean hasScan(long scanId) {
+		return scanRepo.existsById(scanId);
+	}
+
+	/**
+	 * Pass each violation of the given scan, without MCR findings, to the consumer. Violations are
+	 * read in chunks, so that a scan with many violations is never held in memory at once
+	 *
+	 * @param scanId   the id of the scan
+	 * @param consumer the consumer of the violations
+	 */
+	public void streamViolations(long scanId, Consumer<PRScanResultViolation> consumer) {
+		Map<String, RuleGuidance> guidance = new HashMap<>();
+		Set<String> lookedUp = new HashSet<>();
+		long afterId = 0;
+		List<CodeViolationRow> rows;
+		do {
+			rows = vioRepo.findRowsByScan(scanId, afterId,
+					PageRequest.of(0, VIOLATION_CHUNK_SIZE));
+			Set<String> names = new HashSet<>();
+			for (CodeViolationRow row : rows) {
+				if (lookedUp.add(row.getViolationName())) {
+					names.add(row.getViolationName());
+				}
+			}
+			guidance.putAll(ruleService.getRuleGuidance(names));
+			for (CodeViolationRow row : rows) {
+				consumer.accept(generateResultForViolation(row.getViolationName(),
+						row.getLineNum(), row.getFileName(), row.getSeverity(), guidance));
+				afterId = row.getId();
+			}
+		} while (rows.size() == VIOLATION_CHUNK_SIZE);
+	}
+
 	/**
 	 * Get a list of {@linkplain PRScanResult} with MCRs based on the given filter and return the given page
 	 * number's worth of data
@@ -3,12 +3,15 @@ package com.tracelink.appsec.watchtower.core.scan.code.scm.pr.service;
 import ch.qos.logback.classic.Level;
 import com.tracelink.appsec.watchtower.core.exception.ScanRejectedException;
 import com.tracelink.appsec.watchtower.core.logging.LogsService;
+import com.tracelink.appsec.watchtower.core.ruleset.CompiledRulesetCache;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetEntity;
 import com.tracelink.appsec.watchtower.core.scan.AbstractScanningService;
 import com.tracelink.appsec.watchtower.core.scan.ScanRegistrationService;
+import com.tracelink.appsec.watchtower.core.scan.ScanStage;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiIntegrationEntity;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiIntegrationService;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanType;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.ScanResultCache;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.api.IScmApi;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.PRScanAgent;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.PullRequest;
@@ -16,9 +19,11 @@ import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestC
 import com.tracelink.appsec.watchtower.core.scan.repository.RepositoryEntity;
 import com.tracelink.appsec.watchtower.core.scan.repository.RepositoryService;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Objects;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -29,6 +34,11 @@ import org.springframework.stereotype.Service;
 
 /**
  * Manages creating scans for Pull Requests
+ * <p>
+ * Only one scan of a pull request is queued or running at a time. A request to scan the same
+ * commit again is skipped, and a request to scan a newer update of the pull request cancels the
+ * scan of the older one. A request for an update that is not newer, such as a webhook delivered
+ * out of order, is skipped.
  *
  * @author csmith
  */
@@ -42,6 +52,12 @@ public class PRScanningService extends AbstractScanningService {
 	private final PRScanResultService prScanResultService;
 	private final ScanRegistrationService scanRegistrationService;
 	private final ApiIntegrationService apiService;
+	private final ScanResultCache resultCache;
+	private final CompiledRulesetCache rulesetCache;
+	private final boolean parallelScanners;
+	private final long scannerTimeoutSeconds;
+	private final int incrementalMaxFiles;
+	private final Map<String, PRScanAgent> activeScans = new HashMap<>();
 
 	public PRScanningService(
 			@Autowired LogsService logService,
@@ -49,18 +65,45 @@ public class PRScanningService extends AbstractScanningService {
 			@Autowired PRScanResultService prScanResultService,
 			@Autowired ScanRegistrationService scanRegistrationService,
 			@Autowired ApiIntegrationService apiService,
+			@Autowired ScanResultCache resultCache,
+			@Autowired CompiledRulesetCache rulesetCache,
 			@Value("${watchtower.threads.prscan:4}") int threads,
-			@Value("${watchtower.runAfterStartup:true}") boolean recoverFromDowntime) {
-		super(threads, recoverFromDowntime);
+			@Value("${watchtower.runAfterStartup:true}") boolean recoverFromDowntime,
+			@Value("${watchtower.scanners.parallel:false}") boolean parallelScanners,
+			@Value("${watchtower.scanners.timeout:0}") long scannerTimeoutSeconds,
+			@Value("${watchtower.prscan.incrementalMaxFiles:0}") int incrementalMaxFiles,
+			@Value("${watchtower.prscan.scanThreads:4}") int scanThreads,
+			@Value("${watchtower.prscan.reportThreads:4}") int reportThreads,
+			@Value("${watchtower.prscan.persistThreads:2}") int persistThreads,
+			@Value("${watchtower.prscan.maxScans:0}") int maxScans) {
+		super(threads, recoverFromDowntime,
+				stageThreads(scanThreads, reportThreads, persistThreads), maxScans);
 		this.logService = logService;
 		this.repoService = repoService;
 		this.prScanResultService = prScanResultService;
 		this.scanRegistrationService = scanRegistrationService;
 		this.apiService = apiService;
+		this.resultCache = resultCache;
+		this.rulesetCache = rulesetCache;
+		this.parallelScanners = parallelScanners;
+		this.scannerTimeoutSeconds = scannerTimeoutSeconds;
+		this.incrementalMaxFiles = incrementalMaxFiles;
+	}
+
+	private static Map<ScanStage, Integer> stageThreads(int scanThreads, int reportThreads,
+			int persistThreads) {
+		Map<ScanStage, Integer> stageThreads = new EnumMap<>(ScanStage.class);
+		stageThreads.put(ScanStage.SCAN, scanThreads);
+		stageThreads.put(ScanStage.REPORT, reportThreads);
+		stageThreads.put(ScanStage.PERSIST, persistThreads);
+		return stageThreads;
 	}
 
 	/**
-	 * Queue a new Scan onto the next available async thread.
+	 * Queue a new Scan onto the next available async thread. If the most scans are already in
+	 * flight, the scan waits for one of them to be cleaned up before its fetch is queued. Once
+	 * fetched, the remaining stages of the scan are queued on the executors for each
+	 * {@linkplain ScanStage}.
 	 *
 	 * @param pr an object describing the pull request to review
 	 * @throws RejectedExecutionException if the async manager cannot handle another task
@@ -100,10 +143,50 @@ public class PRScanningService extends AbstractScanningService {
 				.withApi(api)
 				.withScanResultService(prScanResultService)
 				.withScanners(scanRegistrationService.getCodeScanners())
-				.withRuleset(ruleset.toDto())
-				.withBenchmarkEnabled(!logService.getLogsLevel().isGreaterOrEqual(Level.INFO));
+				.withScanPlan(rulesetCache.getScanPlan(ruleset))
+				.withBenchmarkEnabled(!logService.getLogsLevel().isGreaterOrEqual(Level.INFO))
+				.withParallelScanners(parallelScanners)
+				.withScannerTimeout(scannerTimeoutSeconds)
+				.withIncrementalScan(incrementalMaxFiles)
+				.withResultCache(resultCache);
 
-		CompletableFuture.runAsync(scanAgent, getExecutor());
+		String scanKey = pr.getApiLabel() + "/" + pr.getRepoName() + "/" + pr.getPrId();
+		synchronized (activeScans) {
+			PRScanAgent active = activeScans.get(scanKey);
+			if (active != null) {
+				String activeCommit = active.getPullRequest().getCommitHash();
+				if (!active.isCancelled() && Objects.equals(activeCommit, pr.getCommitHash())) {
+					LOG.info("PR: " + prName + " skipped as a scan of commit " + activeCommit
+							+ " is already queued or running.");
+					return;
+				}
+				if (!active.isCancelled()
+						&& pr.getUpdateTime() <= active.getPullRequest().getUpdateTime()) {
+					LOG.info("PR: " + prName + " skipped as commit " + pr.getCommitHash()
+							+ " is not newer than commit " + activeCommit
+							+ " of the scan already queued or running.");
+					return;
+				}
+				LOG.info("PR: " + prName + " scan of commit " + activeCommit
+						+ " cancelled for newer commit " + pr.getCommitHash());
+				active.cancel();
+			}
+			activeScans.put(scanKey, scanAgent);
+		}
+
+		try {
+			runStaged(scanAgent)
+					.whenComplete((v, t) -> removeActiveScan(scanKey, scanAgent));
+		} catch (RejectedExecutionException e) {
+			removeActiveScan(scanKey, scanAgent);
+			throw e;
+		}
+	}
+
+	private void removeActiveScan(String scanKey, PRScanAgent scanAgent) {
+		synchronized (activeScans) {
+			activeScans.remove(scanKey, scanAgent);
+		}
 	}
 
 	/**
@@ -0,0 +1,197 @@
+package com.tracelink.appsec.watchtower.core.scan.code.threadpool;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Application-wide pool of worker threads that runs the file-level tasks of every code scan. All
+ * multi-threaded processors submit into this pool instead of creating their own threads, so the
+ * number of scanning threads stays bounded no matter how many scans run at once.
+ * <p>
+ * Each scan submits its tasks through a {@link ScanLane}. Lanes queue their own tasks and are
+ * served round-robin whenever a worker is free, so a scan with many files cannot starve other
+ * scans that start after it. A lane can also limit how many of its tasks run at the same time.
+ *
+ * @author csmith
+ */
+public class ScanWorkerPool {
+	private static final ScanWorkerPool SHARED =
+			new ScanWorkerPool(Runtime.getRuntime().availableProcessors());
+
+	private final ForkJoinPool pool;
+	private final int parallelism;
+	private final List<ScanLane> lanes = new ArrayList<>();
+	private int nextLane = 0;
+	private int activeTasks = 0;
+	private long queuedTasks = 0L;
+
+	/**
+	 * Creates a pool with the given number of worker threads.
+	 *
+	 * @param parallelism the number of worker threads
+	 */
+	public ScanWorkerPool(int parallelism) {
+		this.parallelism = parallelism;
+		AtomicInteger counter = new AtomicInteger();
+		this.pool = new ForkJoinPool(parallelism, p -> {
+			ForkJoinWorkerThread thread =
+					ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			thread.setName("ProcessorThread " + counter.incrementAndGet());
+			return thread;
+		}, null, true);
+	}
+
+	/**
+	 * Gets the pool shared by all scans, sized to the number of available processors.
+	 *
+	 * @return the shared pool
+	 */
+	public static ScanWorkerPool getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Opens a lane for a single scan to submit its tasks through. The lane must be closed when
+	 * the scan is done.
+	 *
+	 * @param maxConcurrency the most tasks of this scan that may run at the same time
+	 * @return a new lane in this pool
+	 */
+	public ScanLane openLane(int maxConcurrency) {
+		ScanLane lane = new ScanLane(Math.max(1, maxConcurrency));
+		synchronized (this) {
+			lanes.add(lane);
+		}
+		return lane;
+	}
+
+	/**
+	 * @return the number of parallel worker threads of this pool
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * @return the number of tasks waiting for a worker, across all scans
+	 */
+	public synchronized long getTaskNumInQueue() {
+		return queuedTasks;
+	}
+
+	/**
+	 * @return the number of tasks currently running, across all scans
+	 */
+	public synchronized long getTaskNumActive() {
+		return activeTasks;
+	}
+
+	/**
+	 * @return the number of scans with an open lane
+	 */
+	public synchronized int getScanNum() {
+		return lanes.size();
+	}
+
+	/**
+	 * Hands queued tasks to the worker threads while there are free workers, taking one task at a
+	 * time from each lane in turn.
+	 */
+	private synchronized void dispatch() {
+		while (activeTasks < parallelism && !lanes.isEmpty()) {
+			ScanLane lane = null;
+			for (int i = 0; i < lanes.size(); i++) {
+				ScanLane candidate = lanes.get((nextLane + i) % lanes.size());
+				if (candidate.isReady()) {
+					lane = candidate;
+					nextLane = (nextLane + i + 1) % lanes.size();
+					break;
+				}
+			}
+			if (lane == null) {
+				return;
+			}
+			Runnable task = lane.tasks.poll();
+			lane.activeTasks++;
+			activeTasks++;
+			queuedTasks--;
+			final ScanLane taskLane = lane;
+			pool.execute(() -> {
+				try {
+					task.run();
+				} finally {
+					finished(taskLane);
+				}
+			});
+		}
+	}
+
+	private void finished(ScanLane lane) {
+		synchronized (this) {
+			lane.activeTasks--;
+			activeTasks--;
+		}
+		dispatch();
+	}
+
+	/**
+	 * The tasks of a single scan in a {@link ScanWorkerPool}. Tasks given to {@link #execute}
+	 * are queued until the pool has a free worker and it is this lane's turn.
+	 */
+	public final class ScanLane implements Executor {
+		private final int maxConcurrency;
+		private final Queue<Runnable> tasks = new ArrayDeque<>();
+		private int activeTasks = 0;
+		private boolean closed = false;
+
+		private ScanLane(int maxConcurrency) {
+			this.maxConcurrency = maxConcurrency;
+		}
+
+		private boolean isReady() {
+			return !tasks.isEmpty() && activeTasks < maxConcurrency;
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			synchronized (ScanWorkerPool.this) {
+				if (closed) {
+					throw new RejectedExecutionException("Scan lane is closed");
+				}
+				tasks.add(task);
+				queuedTasks++;
+			}
+			dispatch();
+		}
+
+		/**
+		 * Removes this lane from the pool. Tasks that have not started are dropped, and tasks
+		 * already running are left to finish.
+		 */
+		public void close() {
+			synchronized (ScanWorkerPool.this) {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				queuedTasks -= tasks.size();
+				tasks.clear();
+				int index = lanes.indexOf(this);
+				lanes.remove(index);
+				if (index < nextLane) {
+					nextLane--;
+				}
+				if (nextLane >= lanes.size()) {
+					nextLane = 0;
+				}
+			}
+		}
+	}
+}
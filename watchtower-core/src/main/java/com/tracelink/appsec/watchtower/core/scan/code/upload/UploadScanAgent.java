@@ -1,24 +1,34 @@
 package com.tracelink.appsec.watchtower.core.scan.code.upload;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.tracelink.appsec.watchtower.core.exception.ScanInitializationException;
 import com.tracelink.appsec.watchtower.core.scan.code.AbstractCodeScanAgent;
+import com.tracelink.appsec.watchtower.core.scan.code.FileManifest;
+import com.tracelink.appsec.watchtower.core.scan.code.ManifestEntry;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
+import com.tracelink.appsec.watchtower.core.scan.code.threadpool.ScanWorkerPool;
+import com.tracelink.appsec.watchtower.core.scan.code.threadpool.ScanWorkerPool.ScanLane;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanContainerEntity;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadViolationEntity;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.service.UploadScanResultService;
@@ -60,8 +70,8 @@ public class UploadScanAgent extends AbstractCodeScanAgent<UploadScanAgent> {
 					"Result Service must be configured.");
 		}
 		this.uploadScanResultService.markScanInProgress(uploadTicket);
-		try {
-			secureUnzipBlock(new ZipFile(this.zipFile.toFile()), getWorkingDirectory().toFile());
+		try (ZipFile zip = new ZipFile(this.zipFile.toFile())) {
+			secureUnzipBlock(zip, getWorkingDirectory().toFile());
 		} catch (IOException e) {
 			throw new ScanInitializationException("Failed to unzip", e);
 		}
@@ -94,9 +104,12 @@ public class UploadScanAgent extends AbstractCodeScanAgent<UploadScanAgent> {
 
 	/**
 	 * Unzip a zip file while checking for any Path Traversal vulnerabilities. Writes files to the
-	 * file system at the outputDirectory location. If a Path Traversal is found, unzipping will
-	 * stop and previous files will be attempted to be deleted. There is no guarantee that the
-	 * output will be cleaned completely.
+	 * file system at the outputDirectory location and collects them into the file manifest for
+	 * this scan. All entries are checked before anything is written, so if a Path Traversal is
+	 * found nothing is extracted. Entries are classified from the first bytes of their stream and
+	 * likely binary entries are never written. The remaining entries are extracted in parallel
+	 * using the threads of this agent. If extraction fails, previous files will be attempted to be
+	 * deleted. There is no guarantee that the output will be cleaned completely.
 	 * 
 	 * @param zipFile         the zip file to unzip
 	 * @param outputDirectory the directory into which zip entries will be written
@@ -108,64 +121,111 @@ public class UploadScanAgent extends AbstractCodeScanAgent<UploadScanAgent> {
 	 */
 	private void secureUnzipBlock(ZipFile zipFile, File outputDirectory)
 			throws IOException {
+		FileManifest.Builder manifest = new FileManifest.Builder(outputDirectory.toPath());
+		List<ZipEntry> fileEntries = new ArrayList<>();
 		Enumeration<? extends ZipEntry> entries = zipFile.entries();
+		while (entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			String entryName = entry.getName();
+			File destination = new File(outputDirectory, entryName);
+
+			// if a problem occurs, short-circuit
+			if (!isSubPath(outputDirectory.toPath(), destination.toPath())) {
+				throw new IOException(String.format(
+						"Zip entry %s in zip file %s is attempting to access an illegal location and has been blocked",
+						entryName, zipFile.getName()));
+			}
+			if (entry.isDirectory()) {
+				destination.mkdirs();
+			} else {
+				fileEntries.add(entry);
+			}
+		}
 
 		try {
-			while (entries.hasMoreElements()) {
-				ZipEntry entry = entries.nextElement();
-				String entryName = entry.getName();
-				File destination = new File(outputDirectory, entryName);
-
-				// if a problem occurs, short-circuit
-				if (!isSubPath(outputDirectory.toPath(), destination.toPath())) {
-					throw new IOException(String.format(
-							"Zip entry %s in zip file %s is attempting to access an illegal location and has been blocked",
-							entryName, zipFile.getName()));
-				}
-
-				if (entry.isDirectory()) {
-					destination.mkdirs();
-				} else {
-					destination.getParentFile().mkdirs();
-					try (InputStream in = zipFile.getInputStream(entry)) {
-						Files.copy(in, destination.toPath());
-					}
-					if (isBinary(destination)) {
-						LOG.debug("Skipping likely binary file " + destination.toString());
-						FileUtils.deleteQuietly(destination);
-					}
+			if (getThreads() > 0 && fileEntries.size() > 1) {
+				unzipParallel(zipFile, fileEntries, outputDirectory, manifest);
+			} else {
+				for (ZipEntry entry : fileEntries) {
+					unzipEntry(zipFile, entry, outputDirectory, manifest);
 				}
 			}
 		} catch (IOException e) {
-			// There was a vuln found, try to roll-back
+			// Extraction failed, try to roll-back
 			FileUtils.deleteQuietly(outputDirectory);
 			throw e;
 		}
+		setFileManifest(manifest.build());
 	}
 
-	private boolean isBinary(File destination) {
-		int countPrintable = 0;
-		int countNotPrintable = 0;
-		int count = 0;
-
-		try (FileInputStream fis = new FileInputStream(destination)) {
-			byte[] bytes = new byte[1000];
-			count = fis.read(bytes);
-			for (int i = 0; i < count; i++) {
-				byte b = bytes[i];
-				if ((b > 31 && b < 127) || b == '\t' || b == '\n' || b == '\r' || b == '\f') {
-					countPrintable++;
-				} else {
-					countNotPrintable++;
+	/**
+	 * Extract the given entries in the shared {@link ScanWorkerPool}, running at most as many
+	 * entries at a time as this agent has threads. Waits for every entry, so no extraction is
+	 * still writing when this returns, and rethrows the first failure.
+	 */
+	private void unzipParallel(ZipFile zipFile, List<ZipEntry> fileEntries, File outputDirectory,
+			FileManifest.Builder manifest) throws IOException {
+		ScanLane lane = ScanWorkerPool.getShared().openLane(getThreads());
+		CompletionService<Void> completionService = new ExecutorCompletionService<>(lane);
+		AtomicBoolean failed = new AtomicBoolean();
+		IOException failure = null;
+		try {
+			for (ZipEntry entry : fileEntries) {
+				completionService.submit(() -> {
+					// once an entry has failed, the extraction is rolled back anyway
+					if (!failed.get()) {
+						unzipEntry(zipFile, entry, outputDirectory, manifest);
+					}
+					return null;
+				});
+			}
+			for (int i = 0; i < fileEntries.size(); i++) {
+				try {
+					completionService.take().get();
+				} catch (ExecutionException e) {
+					failed.set(true);
+					if (failure == null) {
+						failure = e.getCause() instanceof IOException
+								? (IOException) e.getCause()
+								: new IOException(e.getCause());
+					}
 				}
 			}
-		} catch (IOException e) {
-			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failed.set(true);
+			throw new IOException("Interrupted while unzipping", e);
+		} finally {
+			lane.close();
+		}
+		if (failure != null) {
+			throw failure;
 		}
-		if (count == -1) {
-			return false;
+	}
+
+	/**
+	 * Extract a single entry. The first bytes of the entry are read to classify it, and likely
+	 * binary entries are skipped without writing anything.
+	 */
+	private void unzipEntry(ZipFile zipFile, ZipEntry entry, File outputDirectory,
+			FileManifest.Builder manifest) throws IOException {
+		Path destination = new File(outputDirectory, entry.getName()).toPath().normalize();
+		try (InputStream in = zipFile.getInputStream(entry)) {
+			byte[] head = new byte[FileManifest.BINARY_SNIFF_LENGTH];
+			int headLength = IOUtils.read(in, head);
+			if (FileManifest.isBinary(head, headLength)) {
+				LOG.debug("Skipping likely binary file " + destination.toString());
+				return;
+			}
+			Files.createDirectories(destination.getParent());
+			long size;
+			try (OutputStream out =
+					Files.newOutputStream(destination, StandardOpenOption.CREATE_NEW)) {
+				out.write(head, 0, headLength);
+				size = headLength + IOUtils.copyLarge(in, out);
+			}
+			manifest.add(new ManifestEntry(destination, size, false));
 		}
-		return (countPrintable * 100) / (countPrintable + countNotPrintable) < 95;
 	}
 
 	private boolean isSubPath(Path basePath, Path targetPath) {
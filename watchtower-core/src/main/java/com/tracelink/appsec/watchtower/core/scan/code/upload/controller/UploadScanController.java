@@ -53,6 +53,8 @@ public class UploadScanController {
 
 		mav.addObject("numScansQueued", scanService.getTaskNumInQueue());
 		mav.addObject("numScansInProgress", scanService.getTaskNumActive());
+		mav.addObject("numFileTasksQueued", scanService.getFileTaskNumInQueue());
+		mav.addObject("numFileTasksInProgress", scanService.getFileTaskNumActive());
 		mav.addObject("scanStatePaused", scanService.isPaused());
 		mav.addObject("scanStateQuiesced", scanService.isQuiesced());
 		mav.addObject("lastScans", scanResultService.getLastScans(100));
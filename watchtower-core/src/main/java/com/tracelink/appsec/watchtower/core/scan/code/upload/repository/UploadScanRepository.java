@@ -1,9 +1,16 @@
 package com.tracelink.appsec.watchtower.core.scan.code.upload.repository;
 
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.tracelink.appsec.watchtower.core.scan.IScanRepository;
+import com.tracelink.appsec.watchtower.core.scan.ScanStatus;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanResultHeader;
 
 /**
  * Scan Repository for Pull Requests
@@ -14,4 +21,31 @@ import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanEn
 @Repository("uploadScanRepository")
 public interface UploadScanRepository extends IScanRepository<UploadScanEntity> {
 
+	/*
+	 * Headers of scans for result listings, newest first. Each listing pages by the end date and
+	 * id of the last scan of the previous page, see ScanResultCursor
+	 */
+	String SELECT_HEADER = "SELECT new com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanResultHeader("
+			+ "s.id, s.submitDate, s.endDate, s.status, s.errorMessage, c.name, c.submitter, c.ticket, c.ruleSetName,"
+			+ " (SELECT COUNT(v) FROM UploadViolationEntity v WHERE v.scan = s))"
+			+ " FROM UploadScanEntity s JOIN s.container c";
+	String AFTER_CURSOR = "(s.endDate < :endDate OR (s.endDate = :endDate AND s.id < :id))";
+	String ORDER_BY_NEWEST = " ORDER BY s.endDate DESC, s.id DESC";
+
+	@Query(SELECT_HEADER + " WHERE " + AFTER_CURSOR + ORDER_BY_NEWEST)
+	List<UploadScanResultHeader> findHeaders(@Param("endDate") long endDate,
+			@Param("id") long id, Pageable pageable);
+
+	@Query(SELECT_HEADER + " WHERE EXISTS(SELECT 1 FROM UploadViolationEntity v2 WHERE v2.scan = s)"
+			+ " AND " + AFTER_CURSOR + ORDER_BY_NEWEST)
+	List<UploadScanResultHeader> findHeadersWithViolations(@Param("endDate") long endDate,
+			@Param("id") long id, Pageable pageable);
+
+	@Query(SELECT_HEADER + " WHERE s.status IN :statuses AND " + AFTER_CURSOR + ORDER_BY_NEWEST)
+	List<UploadScanResultHeader> findHeadersByStatusIn(
+			@Param("statuses") List<ScanStatus> statuses, @Param("endDate") long endDate,
+			@Param("id") long id, Pageable pageable);
+
+	@Query("SELECT s.id FROM UploadScanEntity s WHERE s.container.ticket = :ticket")
+	Long findIdByTicket(@Param("ticket") String ticket);
 }
@@ -1,12 +1,14 @@
 package com.tracelink.appsec.watchtower.core.scan.code.upload.repository;
 
-import org.springframework.data.domain.Page;
+import java.util.List;
+
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.tracelink.appsec.watchtower.core.scan.IViolationRepository;
-import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.CodeViolationRow;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadViolationEntity;
 
 /**
@@ -17,6 +19,18 @@ import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadViolat
  */
 @Repository("uploadViolationRepository")
 public interface UploadViolationRepository extends IViolationRepository<UploadViolationEntity> {
-	@Query("SELECT v.scan FROM UploadViolationEntity v GROUP BY v.scan")
-	Page<UploadScanEntity> findAllGroupByScan(Pageable page);
+	/**
+	 * Get the violations of a scan in the order they were saved
+	 *
+	 * @param scanId  the id of the scan
+	 * @param afterId the id of the last violation already read, or 0 to start from the first
+	 * @param page    the number of violations to read
+	 * @return the violations of the scan after the given violation
+	 */
+	@Query("SELECT new com.tracelink.appsec.watchtower.core.scan.code.CodeViolationRow("
+			+ "v.id, v.violationName, v.lineNum, v.fileName, v.severity)"
+			+ " FROM UploadViolationEntity v WHERE v.scan.id = :scanId AND v.id > :afterId"
+			+ " ORDER BY v.id")
+	List<CodeViolationRow> findRowsByScan(@Param("scanId") long scanId,
+			@Param("afterId") long afterId, Pageable page);
 }
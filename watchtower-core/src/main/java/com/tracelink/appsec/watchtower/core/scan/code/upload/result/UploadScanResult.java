@@ -30,6 +30,8 @@ public class UploadScanResult {
 
 	private List<UploadScanResultViolation> violations;
 
+	private long violationsFound;
+
 	public String getName() {
 		return name;
 	}
@@ -102,8 +104,18 @@ public class UploadScanResult {
 		return endDate == null ? 0L : endDate.toInstant(ZoneOffset.UTC).toEpochMilli();
 	}
 
-	public int getViolationsFound() {
-		return violations == null ? 0 : violations.size();
+	/**
+	 * Get the number of violations of the scan. Results listed without their violations hold only
+	 * the count
+	 *
+	 * @return the number of violations
+	 */
+	public long getViolationsFound() {
+		return violations == null ? violationsFound : violations.size();
+	}
+
+	public void setViolationsFound(long violationsFound) {
+		this.violationsFound = violationsFound;
 	}
 
 	public List<UploadScanResultViolation> getViolations() {
@@ -0,0 +1,77 @@
+package com.tracelink.appsec.watchtower.core.scan.code.upload.result;
+
+import com.tracelink.appsec.watchtower.core.scan.ScanStatus;
+
+/**
+ * The columns of an Upload scan shown when listing scan results, along with the number of
+ * violations of the scan
+ *
+ * @author csmith
+ */
+public class UploadScanResultHeader {
+	private final long id;
+	private final long submitDate;
+	private final long endDate;
+	private final ScanStatus status;
+	private final String error;
+	private final String name;
+	private final String submitter;
+	private final String ticket;
+	private final String ruleset;
+	private final long violationsFound;
+
+	public UploadScanResultHeader(long id, long submitDate, long endDate, ScanStatus status,
+			String error, String name, String submitter, String ticket, String ruleset,
+			long violationsFound) {
+		this.id = id;
+		this.submitDate = submitDate;
+		this.endDate = endDate;
+		this.status = status;
+		this.error = error;
+		this.name = name;
+		this.submitter = submitter;
+		this.ticket = ticket;
+		this.ruleset = ruleset;
+		this.violationsFound = violationsFound;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public long getSubmitDate() {
+		return submitDate;
+	}
+
+	public long getEndDate() {
+		return endDate;
+	}
+
+	public ScanStatus getStatus() {
+		return status;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getSubmitter() {
+		return submitter;
+	}
+
+	public String getTicket() {
+		return ticket;
+	}
+
+	public String getRuleset() {
+		return ruleset;
+	}
+
+	public long getViolationsFound() {
+		return violationsFound;
+	}
+}
@@ -1,25 +1,39 @@
 package com.tracelink.appsec.watchtower.core.scan.code.upload.service;
 
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.tracelink.appsec.watchtower.core.rule.RuleEntity;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupService;
+import com.tracelink.appsec.watchtower.core.rule.RuleGuidance;
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
 import com.tracelink.appsec.watchtower.core.rule.RuleService;
 import com.tracelink.appsec.watchtower.core.scan.AbstractScanResultService;
 import com.tracelink.appsec.watchtower.core.scan.AbstractScanViolationEntity;
+import com.tracelink.appsec.watchtower.core.scan.ScanResultCursor;
+import com.tracelink.appsec.watchtower.core.scan.ScanResultPage;
 import com.tracelink.appsec.watchtower.core.scan.ScanStatus;
+import com.tracelink.appsec.watchtower.core.scan.ViolationBatchWriter;
+import com.tracelink.appsec.watchtower.core.scan.code.CodeScanType;
+import com.tracelink.appsec.watchtower.core.scan.code.CodeViolationRow;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.UploadScan;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanContainerEntity;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanEntity;
@@ -29,6 +43,7 @@ import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadSc
 import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadViolationRepository;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadResultFilter;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanResult;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanResultHeader;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanResultViolation;
 
 /**
@@ -40,6 +55,12 @@ import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanRe
 public class UploadScanResultService
 		extends AbstractScanResultService<UploadScanEntity, UploadViolationEntity> {
 	private static Logger LOG = LoggerFactory.getLogger(UploadScanResultService.class);
+	private static final String INSERT_VIOLATION = "INSERT INTO upload_violations"
+			+ " (scan_entity_id, violation_name, line_number, file_path, severity)"
+			+ " VALUES (?, ?, ?, ?, ?)";
+	static final int VIOLATION_CHUNK_SIZE = 1000;
+	private static final List<ScanStatus> INCOMPLETE_STATUSES =
+			Arrays.asList(ScanStatus.FAILED, ScanStatus.IN_PROGRESS, ScanStatus.NOT_STARTED);
 
 	private UploadContainerRepository uploadRepo;
 
@@ -49,14 +70,25 @@ public class UploadScanResultService
 
 	private RuleService ruleService;
 
+	private MetricsRollupService rollupService;
+
+	private ViolationBatchWriter batchWriter;
+
+	private TransactionTemplate transactionTemplate;
+
 	public UploadScanResultService(@Autowired UploadContainerRepository uploadRepo,
 			@Autowired UploadScanRepository scanRepo, @Autowired UploadViolationRepository vioRepo,
-			@Autowired RuleService ruleService) {
+			@Autowired RuleService ruleService, @Autowired MetricsRollupService rollupService,
+			@Autowired ViolationBatchWriter batchWriter,
+			@Autowired PlatformTransactionManager transactionManager) {
 		super(scanRepo, vioRepo);
 		this.uploadRepo = uploadRepo;
 		this.scanRepo = scanRepo;
 		this.vioRepo = vioRepo;
 		this.ruleService = ruleService;
+		this.rollupService = rollupService;
+		this.batchWriter = batchWriter;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
 	}
 
 	/**
@@ -153,14 +185,21 @@ public class UploadScanResultService
 		UploadScanEntity scan = use.getLatestUploadScan();
 		scan.setEndDate(now);
 		scan.setStatus(ScanStatus.DONE);
-		UploadScanEntity savedScanEntity = scanRepo.saveAndFlush(scan);
 
-		violations.forEach(v -> {
-			v.setScan(savedScanEntity);
-			vioRepo.save(v);
+		// The scan is only marked done along with all of its violations
+		UploadScanEntity savedScanEntity = transactionTemplate.execute(status -> {
+			UploadScanEntity savedScan = scanRepo.saveAndFlush(scan);
+			violations.forEach(v -> v.setScan(savedScan));
+			batchWriter.write(INSERT_VIOLATION, violations, (ps, v) -> {
+				ps.setLong(1, savedScan.getId());
+				ps.setString(2, v.getViolationName());
+				ps.setInt(3, v.getLineNum());
+				ps.setString(4, v.getFileName());
+				ps.setString(5, v.getSeverity().getName());
+			});
+			return savedScan;
 		});
-
-		vioRepo.flush();
+		rollupService.recordScan(CodeScanType.UPLOAD, savedScanEntity, violations);
 	}
 
 	/**
@@ -241,25 +280,37 @@ public class UploadScanResultService
 		result.setErrorMessage(scanEntity.getError());
 		if (scanEntity.getStatus() == ScanStatus.DONE) {
 			result.setEndDate(scanEntity.getEndDate());
+			// Load the guidance of all rules in one query, rather than once per violation
+			Map<String, RuleGuidance> guidance = ruleService.getRuleGuidance(
+					scanEntity.getViolations().stream().map(UploadViolationEntity::getViolationName)
+							.collect(Collectors.toSet()));
 			result.setViolations(scanEntity.getViolations().stream()
-					.map(this::generateResultForViolation)
+					.map(v -> generateResultForViolation(v, guidance))
 					.collect(Collectors.toList()));
 		}
 
 		return result;
 	}
 
-	private UploadScanResultViolation generateResultForViolation(UploadViolationEntity violation) {
+	private UploadScanResultViolation generateResultForViolation(UploadViolationEntity violation,
+			Map<String, RuleGuidance> guidance) {
+		return generateResultForViolation(violation.getViolationName(), violation.getLineNum(),
+				violation.getFileName(), violation.getSeverity(), guidance);
+	}
+
+	private UploadScanResultViolation generateResultForViolation(String violationName,
+			int lineNum, String fileName, RulePriority severity,
+			Map<String, RuleGuidance> guidance) {
 		UploadScanResultViolation urv = new UploadScanResultViolation();
-		urv.setViolationName(violation.getViolationName());
-		urv.setLineNumber(violation.getLineNum());
-		urv.setSeverity(violation.getSeverity().getName());
-		urv.setSeverityValue(violation.getSeverity().getPriority());
-		urv.setFileName(violation.getFileName());
+		urv.setViolationName(violationName);
+		urv.setLineNumber(lineNum);
+		urv.setSeverity(severity.getName());
+		urv.setSeverityValue(severity.getPriority());
+		urv.setFileName(fileName);
 
 		String message = "Rule guidance not found";
 		String extUrl = "";
-		RuleEntity rule = ruleService.getRule(violation.getViolationName());
+		RuleGuidance rule = guidance.get(violationName);
 		if (rule != null) {
 			message = rule.getMessage();
 			extUrl = rule.getExternalUrl();
@@ -283,40 +334,121 @@ public class UploadScanResultService
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Get a list of {@linkplain UploadScanResult} based on the given filter and return the given
+	 * page number's worth of data. Results hold the number of violations of each scan, but not the
+	 * violations themselves
+	 *
+	 * @param filter   the filter to divy-up the results
+	 * @param pageSize the number of results to return
+	 * @param pageNum  the pagenumber of results to return
+	 * @return a list of size {@code pageSize} containing results using the {@code filter} on page
+	 *         {@code pageNum}
+	 */
 	public List<UploadScanResult> getScanResultsWithFilters(UploadResultFilter filter,
 			int pageSize, int pageNum) {
-		List<UploadScanResult> results;
+		return findHeaders(filter, ScanResultCursor.FIRST, PageRequest.of(pageNum, pageSize))
+				.stream().map(this::generateResultForHeader).collect(Collectors.toList());
+	}
+
+	/**
+	 * Get the page of {@linkplain UploadScanResult} after the given cursor, based on the given
+	 * filter. Results hold the number of violations of each scan, but not the violations
+	 * themselves
+	 *
+	 * @param filter   the filter to divy-up the results
+	 * @param pageSize the number of results to return
+	 * @param after    the cursor to return results after, see {@link ScanResultCursor#FIRST}
+	 * @return a page of at most {@code pageSize} results using the {@code filter}
+	 */
+	public ScanResultPage<UploadScanResult> getScanResultsAfter(UploadResultFilter filter,
+			int pageSize, ScanResultCursor after) {
+		List<UploadScanResultHeader> headers =
+				findHeaders(filter, after, PageRequest.of(0, pageSize));
+		ScanResultCursor next = null;
+		if (!headers.isEmpty() && headers.size() == pageSize) {
+			UploadScanResultHeader last = headers.get(headers.size() - 1);
+			next = new ScanResultCursor(last.getEndDate(), last.getId());
+		}
+		return new ScanResultPage<>(headers.stream().map(this::generateResultForHeader)
+				.collect(Collectors.toList()), next);
+	}
+
+	private List<UploadScanResultHeader> findHeaders(UploadResultFilter filter,
+			ScanResultCursor after, Pageable page) {
 		switch (filter) {
 			case ALL:
-				results =
-						scanRepo.findAll(
-								PageRequest.of(pageNum, pageSize,
-										Sort.by(Direction.DESC, "endDate")))
-								.stream().map(this::generateResultForScan)
-								.collect(Collectors.toList());
-				break;
+				return scanRepo.findHeaders(after.getEndDate(), after.getId(), page);
 			case VIOLATIONS:
-				results = vioRepo
-						.findAllGroupByScan(
-								PageRequest.of(pageNum, pageSize, Sort.by(Direction.DESC, "scan")))
-						.stream()
-						.map(this::generateResultForScan)
-						.collect(Collectors.toList());
-				break;
+				return scanRepo.findHeadersWithViolations(after.getEndDate(), after.getId(),
+						page);
 			case INCOMPLETE:
-				results = scanRepo
-						.findByStatusIn(
-								Arrays.asList(ScanStatus.FAILED, ScanStatus.IN_PROGRESS,
-										ScanStatus.NOT_STARTED),
-								PageRequest.of(pageNum, pageSize,
-										Sort.by(Direction.DESC, "endDate")))
-						.stream().map(this::generateResultForScan).collect(Collectors.toList());
-				break;
+				return scanRepo.findHeadersByStatusIn(INCOMPLETE_STATUSES, after.getEndDate(),
+						after.getId(), page);
 			default:
 				LOG.error("Filter is not configured to get Uploads");
 				throw new IllegalArgumentException("Filter is not configured to get Uploads");
 		}
-		return results;
+	}
+
+	private UploadScanResult generateResultForHeader(UploadScanResultHeader header) {
+		UploadScanResult result = new UploadScanResult();
+		result.setName(header.getName());
+		result.setRuleset(header.getRuleset());
+		result.setSubmittedBy(header.getSubmitter());
+		result.setTicket(header.getTicket());
+		result.setSubmitDate(toLocalDateTime(header.getSubmitDate()));
+		result.setStatus(header.getStatus().getDisplayName());
+		result.setErrorMessage(header.getError());
+		if (header.getStatus() == ScanStatus.DONE) {
+			result.setEndDate(toLocalDateTime(header.getEndDate()));
+			result.setViolationsFound(header.getViolationsFound());
+		}
+		return result;
+	}
+
+	private static LocalDateTime toLocalDateTime(long millis) {
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+	}
+
+	/**
+	 * Get the id of the scan of the upload with the given ticket
+	 *
+	 * @param ticket the ticket of the upload
+	 * @return the id of the scan, or null if there is no scan for the ticket
+	 */
+	public Long findScanIdByTicket(String ticket) {
+		return scanRepo.findIdByTicket(ticket);
+	}
+
+	/**
+	 * Pass each violation of the given scan to the consumer. Violations are read in chunks, so
+	 * that a scan with many violations is never held in memory at once
+	 *
+	 * @param scanId   the id of the scan
+	 * @param consumer the consumer of the violations
+	 */
+	public void streamViolations(long scanId, Consumer<UploadScanResultViolation> consumer) {
+		Map<String, RuleGuidance> guidance = new HashMap<>();
+		Set<String> lookedUp = new HashSet<>();
+		long afterId = 0;
+		List<CodeViolationRow> rows;
+		do {
+			rows = vioRepo.findRowsByScan(scanId, afterId,
+					PageRequest.of(0, VIOLATION_CHUNK_SIZE));
+			Set<String> names = new HashSet<>();
+			for (CodeViolationRow row : rows) {
+				if (lookedUp.add(row.getViolationName())) {
+					names.add(row.getViolationName());
+				}
+			}
+			guidance.putAll(ruleService.getRuleGuidance(names));
+			for (CodeViolationRow row : rows) {
+				consumer.accept(generateResultForViolation(row.getViolationName(),
+						row.getLineNum(), row.getFileName(), row.getSeverity(), guidance));
+				afterId = row.getId();
+			}
+		} while (rows.size() == VIOLATION_CHUNK_SIZE);
 	}
 }
 
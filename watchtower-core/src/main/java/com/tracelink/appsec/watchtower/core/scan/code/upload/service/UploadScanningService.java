@@ -4,11 +4,13 @@ import ch.qos.logback.classic.Level;
 import com.tracelink.appsec.watchtower.core.exception.ScanRejectedException;
 import com.tracelink.appsec.watchtower.core.exception.rule.RulesetNotFoundException;
 import com.tracelink.appsec.watchtower.core.logging.LogsService;
+import com.tracelink.appsec.watchtower.core.ruleset.CompiledRulesetCache;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetEntity;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetService;
 import com.tracelink.appsec.watchtower.core.scan.AbstractScanningService;
 import com.tracelink.appsec.watchtower.core.scan.ScanRegistrationService;
 import com.tracelink.appsec.watchtower.core.scan.ScanStatus;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.ScanResultCache;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.UploadScan;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.UploadScanAgent;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanContainerEntity;
@@ -44,19 +46,31 @@ public class UploadScanningService extends AbstractScanningService {
 	private final RulesetService rulesetService;
 	private final ScanRegistrationService scanRegistrationService;
 	private final UploadScanResultService uploadScanResultService;
+	private final ScanResultCache resultCache;
+	private final CompiledRulesetCache rulesetCache;
 	private final Path workDir;
+	private final boolean parallelScanners;
+	private final long scannerTimeoutSeconds;
 
 	public UploadScanningService(@Autowired LogsService logService,
 			@Autowired RulesetService rulesetService,
 			@Autowired ScanRegistrationService scanRegistrationService,
 			@Autowired UploadScanResultService uploadScanResultService,
+			@Autowired ScanResultCache resultCache,
+			@Autowired CompiledRulesetCache rulesetCache,
 			@Value("${watchtower.threads.uploadscan:2}") int threads,
-			@Value("${watchtower.runAfterStartup:true}") boolean recoverFromDowntime) {
+			@Value("${watchtower.runAfterStartup:true}") boolean recoverFromDowntime,
+			@Value("${watchtower.scanners.parallel:false}") boolean parallelScanners,
+			@Value("${watchtower.scanners.timeout:0}") long scannerTimeoutSeconds) {
 		super(threads, recoverFromDowntime);
 		this.logService = logService;
 		this.rulesetService = rulesetService;
 		this.scanRegistrationService = scanRegistrationService;
 		this.uploadScanResultService = uploadScanResultService;
+		this.resultCache = resultCache;
+		this.rulesetCache = rulesetCache;
+		this.parallelScanners = parallelScanners;
+		this.scannerTimeoutSeconds = scannerTimeoutSeconds;
 
 		this.workDir = Paths.get("./upload").toAbsolutePath();
 		if (!Files.exists(this.workDir)) {
@@ -110,9 +124,12 @@ public class UploadScanningService extends AbstractScanningService {
 		// Create scan agent
 		UploadScanAgent scanAgent = new UploadScanAgent(upload)
 				.withScanners(scanRegistrationService.getCodeScanners())
-				.withRuleset(ruleset.toDto())
+				.withScanPlan(rulesetCache.getScanPlan(ruleset))
 				.withScanResultService(uploadScanResultService)
-				.withBenchmarkEnabled(!logService.getLogsLevel().isGreaterOrEqual(Level.INFO));
+				.withBenchmarkEnabled(!logService.getLogsLevel().isGreaterOrEqual(Level.INFO))
+				.withParallelScanners(parallelScanners)
+				.withScannerTimeout(scannerTimeoutSeconds)
+				.withResultCache(resultCache);
 
 		CompletableFuture.runAsync(scanAgent, getExecutor());
 	}
@@ -42,6 +42,14 @@ public class AdvisoryEntity {
 	@Column(name = "uri")
 	private String uri;
 
+	public long getId() {
+		return id;
+	}
+
+	public void setId(long id) {
+		this.id = id;
+	}
+
 	public String getAdvisoryName() {
 		return advisoryName;
 	}
@@ -11,12 +11,17 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupService;
 import com.tracelink.appsec.watchtower.core.scan.AbstractScanResultService;
 import com.tracelink.appsec.watchtower.core.scan.ScanStatus;
+import com.tracelink.appsec.watchtower.core.scan.ViolationBatchWriter;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiIntegrationService;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiType;
 import com.tracelink.appsec.watchtower.core.scan.image.ImageScan;
+import com.tracelink.appsec.watchtower.core.scan.image.ImageScanType;
 import com.tracelink.appsec.watchtower.core.scan.image.api.ecr.EcrIntegrationEntity;
 import com.tracelink.appsec.watchtower.core.scan.image.entity.AdvisoryEntity;
 import com.tracelink.appsec.watchtower.core.scan.image.entity.ImageScanContainerEntity;
@@ -41,23 +46,38 @@ public class ImageScanResultService
 		extends AbstractScanResultService<ImageScanEntity, ImageViolationEntity> {
 
 	private static final Logger LOG = LoggerFactory.getLogger(ImageScanResultService.class);
+	/*
+	 * Advisories are saved before the violations that reference them
+	 */
+	private static final String INSERT_VIOLATION = "INSERT INTO image_violation"
+			+ " (scan_entity_id, violation_name, severity, advisory_id)"
+			+ " VALUES (?, ?, ?, ?)";
 
 	private final ImageContainerRepository containerRepo;
 	private final RepositoryRepository imageRepo;
 	private final ImageScanRepository scanRepo;
 	private final ImageViolationRepository vioRepo;
 	private final ApiIntegrationService apiService;
+	private final MetricsRollupService rollupService;
+	private final ViolationBatchWriter batchWriter;
+	private final TransactionTemplate transactionTemplate;
 
 	public ImageScanResultService(@Autowired ImageContainerRepository containerRepo,
 			@Autowired RepositoryRepository imageRepo, @Autowired ImageScanRepository scanRepo,
 			@Autowired ImageViolationRepository vioRepo,
-			@Autowired ApiIntegrationService apiService) {
+			@Autowired ApiIntegrationService apiService,
+			@Autowired MetricsRollupService rollupService,
+			@Autowired ViolationBatchWriter batchWriter,
+			@Autowired PlatformTransactionManager transactionManager) {
 		super(scanRepo, vioRepo);
 		this.containerRepo = containerRepo;
 		this.imageRepo = imageRepo;
 		this.scanRepo = scanRepo;
 		this.vioRepo = vioRepo;
 		this.apiService = apiService;
+		this.rollupService = rollupService;
+		this.batchWriter = batchWriter;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
 	}
 
 	/**
@@ -114,13 +134,19 @@ public class ImageScanResultService
 					.collect(Collectors.joining(", ")));
 		}
 
-		ImageScanEntity savedScanEntity = scanRepo.saveAndFlush(scanEntity);
-
-		violations.forEach(v -> {
-			v.setScan(savedScanEntity);
-			vioRepo.save(v);
+		// The scan is only saved along with all of its violations
+		ImageScanEntity savedScanEntity = transactionTemplate.execute(status -> {
+			ImageScanEntity savedScan = scanRepo.saveAndFlush(scanEntity);
+			violations.forEach(v -> v.setScan(savedScan));
+			batchWriter.write(INSERT_VIOLATION, violations, (ps, v) -> {
+				ps.setLong(1, savedScan.getId());
+				ps.setString(2, v.getViolationName());
+				ps.setString(3, v.getSeverity().getName());
+				ps.setLong(4, v.getAdvisory().getId());
+			});
+			return savedScan;
 		});
-		vioRepo.flush();
+		rollupService.recordScan(ImageScanType.CONTAINER, savedScanEntity, violations);
 	}
 
 	public List<ImageScanResult> getScanResultsWithFilters(ImageResultFilter resultFilter,
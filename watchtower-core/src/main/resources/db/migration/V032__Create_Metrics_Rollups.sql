@@ -0,0 +1,24 @@
+/*
+ * Daily counts of scans and violations for each scan type, kept up to date as scans are saved
+ */
+CREATE TABLE metrics_rollups (
+	rollup_id BIGINT NOT NULL AUTO_INCREMENT,
+	rollup_date DATE NOT NULL,
+	scan_type varchar(255) NOT NULL,
+	violation_name varchar(255) DEFAULT NULL,
+	severity varchar(255) DEFAULT NULL,
+	scan_count BIGINT NOT NULL DEFAULT 0,
+	violation_count BIGINT NOT NULL DEFAULT 0,
+	PRIMARY KEY (rollup_id)
+);
+
+CREATE INDEX idx_metrics_rollups_type_date ON metrics_rollups (scan_type, rollup_date);
+
+/*
+ * The last scan of each scan type that was rolled up from existing scans
+ */
+CREATE TABLE metrics_rollup_state (
+	scan_type varchar(255) NOT NULL,
+	last_scan_id BIGINT NOT NULL,
+	PRIMARY KEY (scan_type)
+);
@@ -0,0 +1,33 @@
+/*
+ * Scans are found by the range of their end dates for results and metrics, and by their status
+ * when recovering scans after downtime
+ */
+CREATE INDEX idx_pr_scans_end_date ON pull_request_scans (end_date);
+CREATE INDEX idx_pr_scans_status ON pull_request_scans (status);
+CREATE INDEX idx_upload_scans_end_date ON upload_scans (end_date);
+CREATE INDEX idx_upload_scans_status ON upload_scans (status);
+CREATE INDEX idx_image_scan_end_date ON image_scan (end_date);
+CREATE INDEX idx_image_scan_status ON image_scan (status);
+
+/*
+ * The latest scan of each pull request is found by the submit dates of the scans of its container
+ */
+CREATE INDEX idx_pr_scans_container_submit ON pull_request_scans (container_id, submit_date);
+
+/*
+ * Containers, repositories and advisories are looked up by their natural keys
+ */
+CREATE INDEX idx_pr_container_resolved ON pull_request_container (resolved);
+CREATE INDEX idx_pr_container_lookup ON pull_request_container (api_label, repo_name, pr_id);
+CREATE INDEX idx_upload_container_ticket ON upload_container (ticket);
+CREATE INDEX idx_image_container_lookup ON image_container (api_label, repository_name, tag_name);
+CREATE INDEX idx_repositories_lookup ON repositories (api_label, repo_name);
+CREATE INDEX idx_advisories_name ON advisories (advisory_name);
+
+/*
+ * Violations are grouped by scan without MCR matches, and counted by severity
+ */
+CREATE INDEX idx_pr_violations_scan_name ON pull_request_violations (scan_entity_id, violation_name);
+CREATE INDEX idx_pr_violations_severity ON pull_request_violations (severity);
+CREATE INDEX idx_upload_violations_severity ON upload_violations (severity);
+CREATE INDEX idx_image_violation_severity ON image_violation (severity);
@@ -58,4 +58,18 @@ public class BenchmarkingTest {
 		Assertions.assertEquals(2L, bmarking.getRuleBenchmarks().get(ruleName).getCallCount());
 	}
 
+	@Test
+	public void testCacheLookupReport() {
+		Benchmarking<Object> bmarking = new Benchmarking<>();
+		bmarking.enable(true);
+		Assertions.assertFalse(bmarking.report(" ").contains("Result Cache"));
+
+		bmarking.recordCacheLookup(true);
+		bmarking.recordCacheLookup(true);
+		bmarking.recordCacheLookup(true);
+		bmarking.recordCacheLookup(false);
+		Assertions.assertEquals(3L, bmarking.getCacheHits());
+		Assertions.assertEquals(1L, bmarking.getCacheMisses());
+		Assertions.assertTrue(bmarking.report(" ").contains("Hit Rate: 75.0%"));
+	}
 }
@@ -20,6 +20,7 @@ public class WatchtowerBenchmarkingTest {
 		bench.newBenchmarker(WatchtowerTimers.SCAN_TEST_SETUP).close();
 		bench.newBenchmarker(WatchtowerTimers.SCAN_ALL_SCANNERS).close();
 		bench.newBenchmarker(WatchtowerTimers.SEND_REPORT).close();
+		bench.newBenchmarker(WatchtowerTimers.SAVE_RESULTS).close();
 
 		String report = bench.report("\n");
 		for (WatchtowerTimers timer : WatchtowerTimers.values()) {
@@ -27,4 +28,21 @@ public class WatchtowerBenchmarkingTest {
 		}
 	}
 
+	@Test
+	public void testReportScannerTimers() {
+		WatchtowerBenchmarking bench = new WatchtowerBenchmarking("123");
+		bench.enable(true);
+
+		bench.newBenchmarker(WatchtowerTimers.SCAN_ALL_SCANNERS).close();
+		bench.newBenchmarker(new ScannerTimer("RegexScanner")).close();
+		bench.newBenchmarker(new ScannerTimer("RegexScanner")).close();
+
+		String report = bench.report("\n");
+		Assertions.assertTrue(report.contains("Scanner: RegexScanner"));
+		Assertions.assertTrue(report.indexOf(WatchtowerTimers.SCAN_ALL_SCANNERS.getExternalName())
+				< report.indexOf("Scanner: RegexScanner"));
+		Assertions.assertEquals(2L,
+				bench.getBenchmarks().get(new ScannerTimer("RegexScanner")).getCallCount());
+	}
+
 }
@@ -2,8 +2,7 @@ package com.tracelink.appsec.watchtower.core.metrics;
 
 import java.time.LocalDate;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.stream.Collectors;
 
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -13,20 +12,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.BDDMockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-import com.tracelink.appsec.watchtower.core.scan.AbstractScanEntity;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupEntity;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupService;
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
+import com.tracelink.appsec.watchtower.core.scan.ScanType;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanType;
-import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestScanEntity;
-import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestViolationEntity;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.service.PRScanResultService;
-import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanEntity;
-import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadViolationEntity;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.service.UploadScanResultService;
-import com.tracelink.appsec.watchtower.core.scan.image.entity.ImageScanEntity;
-import com.tracelink.appsec.watchtower.core.scan.image.entity.ImageViolationEntity;
+import com.tracelink.appsec.watchtower.core.scan.image.ImageScanType;
 import com.tracelink.appsec.watchtower.core.scan.image.service.ImageScanResultService;
 
 import net.minidev.json.JSONObject;
@@ -40,6 +35,8 @@ public class MetricsCacheServiceTest {
 	UploadScanResultService mockUploadScanResultService;
 	@MockBean
 	ImageScanResultService mockImageScanResultService;
+	@MockBean
+	MetricsRollupService mockRollupService;
 
 	MetricsCacheService metricsCacheService;
 
@@ -53,83 +50,28 @@ public class MetricsCacheServiceTest {
 	public void setup() {
 		metricsCacheService =
 				new MetricsCacheService(mockPrScanResultService, mockUploadScanResultService,
-						mockImageScanResultService);
+						mockImageScanResultService, mockRollupService);
 		configureDefaults();
 	}
 
 	private void configureDefaults() {
-		// Pull Request Setup for scanIteratorBetweenDates
-		PullRequestViolationEntity prXxe = BDDMockito.mock(PullRequestViolationEntity.class);
-		BDDMockito.when(prXxe.getViolationName()).thenReturn(XXE_NAME);
-
-		PullRequestViolationEntity prXxe2 = BDDMockito.mock(PullRequestViolationEntity.class);
-		BDDMockito.when(prXxe2.getViolationName()).thenReturn(XXE_NAME);
-
-		PullRequestViolationEntity prSer = BDDMockito.mock(PullRequestViolationEntity.class);
-		BDDMockito.when(prSer.getViolationName()).thenReturn(SER_NAME);
-
-		PullRequestScanEntity prScan1 = BDDMockito.mock(PullRequestScanEntity.class);
-		BDDMockito.when(prScan1.getViolations()).thenReturn(Arrays.asList(prXxe, prSer));
-		BDDMockito.when(prScan1.getEndDate()).thenReturn(LocalDate.now().atStartOfDay());
-		BDDMockito.when(prScan1.getNumViolations()).thenReturn(2L);
-		PullRequestScanEntity prScan2 = BDDMockito.mock(PullRequestScanEntity.class);
-		BDDMockito.when(prScan2.getViolations()).thenReturn(Collections.singletonList(prXxe2));
-		BDDMockito.when(prScan2.getEndDate())
-				.thenReturn(LocalDate.now().minusDays(1).atStartOfDay());
-		BDDMockito.when(prScan2.getNumViolations()).thenReturn(1L);
-		BDDMockito.when(mockPrScanResultService
-				.scanIteratorBetweenDates(BDDMockito.anyLong(), BDDMockito.anyLong()))
-				.thenReturn(mockIterator(prScan1, prScan2));
-
-		// Upload Setup for scanIteratorBetweenDates
-		UploadViolationEntity uploadXxe = BDDMockito.mock(UploadViolationEntity.class);
-		BDDMockito.when(uploadXxe.getViolationName()).thenReturn(XXE_NAME);
-
-		UploadViolationEntity uploadXxe2 = BDDMockito.mock(UploadViolationEntity.class);
-		BDDMockito.when(uploadXxe2.getViolationName()).thenReturn(XXE_NAME);
-
-		UploadViolationEntity uploadSer = BDDMockito.mock(UploadViolationEntity.class);
-		BDDMockito.when(uploadSer.getViolationName()).thenReturn(SER_NAME);
-
-		UploadScanEntity uploadScan1 = BDDMockito.mock(UploadScanEntity.class);
-		BDDMockito.when(uploadScan1.getViolations())
-				.thenReturn(Arrays.asList(uploadXxe, uploadSer));
-		BDDMockito.when(uploadScan1.getEndDate()).thenReturn(LocalDate.now().atStartOfDay());
-		BDDMockito.when(uploadScan1.getNumViolations()).thenReturn(2L);
-		UploadScanEntity uploadScan2 = BDDMockito.mock(UploadScanEntity.class);
-		BDDMockito.when(uploadScan2.getViolations())
-				.thenReturn(Collections.singletonList(uploadXxe2));
-		BDDMockito.when(uploadScan2.getEndDate())
-				.thenReturn(LocalDate.now().minusMonths(2).atStartOfDay());
-		BDDMockito.when(uploadScan2.getNumViolations()).thenReturn(1L);
-		BDDMockito.when(mockUploadScanResultService
-				.scanIteratorBetweenDates(BDDMockito.anyLong(), BDDMockito.anyLong()))
-				.thenReturn(mockIterator(uploadScan1, uploadScan2));
-
-		// Image Setup for scanIteratorBetweenDates
-		ImageViolationEntity imageVio = BDDMockito.mock(ImageViolationEntity.class);
-		BDDMockito.when(imageVio.getViolationName()).thenReturn(CVE_1);
-
-		ImageViolationEntity imageVio2 = BDDMockito.mock(ImageViolationEntity.class);
-		BDDMockito.when(imageVio2.getViolationName()).thenReturn(CVE_1);
-
-		ImageViolationEntity imageVio3 = BDDMockito.mock(ImageViolationEntity.class);
-		BDDMockito.when(imageVio3.getViolationName()).thenReturn(CVE_2);
-
-		ImageScanEntity imageScan1 = BDDMockito.mock(ImageScanEntity.class);
-		BDDMockito.when(imageScan1.getViolations())
-				.thenReturn(Arrays.asList(imageVio, imageVio3));
-		BDDMockito.when(imageScan1.getEndDate()).thenReturn(LocalDate.now().atStartOfDay());
-		BDDMockito.when(imageScan1.getNumViolations()).thenReturn(2L);
-		ImageScanEntity imageScan2 = BDDMockito.mock(ImageScanEntity.class);
-		BDDMockito.when(imageScan2.getViolations())
-				.thenReturn(Collections.singletonList(imageVio2));
-		BDDMockito.when(imageScan2.getEndDate())
-				.thenReturn(LocalDate.now().minusMonths(2).atStartOfDay());
-		BDDMockito.when(imageScan2.getNumViolations()).thenReturn(1L);
-		BDDMockito.when(mockImageScanResultService
-				.scanIteratorBetweenDates(BDDMockito.anyLong(), BDDMockito.anyLong()))
-				.thenReturn(mockIterator(imageScan1, imageScan2));
+		LocalDate today = LocalDate.now();
+		// Pull Request rollups, one scan today and one yesterday
+		mockRollups(CodeScanType.PULL_REQUEST,
+				scanRollup(today), violationRollup(today, XXE_NAME),
+				violationRollup(today, SER_NAME),
+				scanRollup(today.minusDays(1)), violationRollup(today.minusDays(1), XXE_NAME));
+
+		// Upload rollups, one scan today and one two months ago
+		mockRollups(CodeScanType.UPLOAD,
+				scanRollup(today), violationRollup(today, XXE_NAME),
+				violationRollup(today, SER_NAME),
+				scanRollup(today.minusMonths(2)), violationRollup(today.minusMonths(2), XXE_NAME));
+
+		// Image rollups, one scan today and one two months ago
+		mockRollups(ImageScanType.CONTAINER,
+				scanRollup(today), violationRollup(today, CVE_1), violationRollup(today, CVE_2),
+				scanRollup(today.minusMonths(2)), violationRollup(today.minusMonths(2), CVE_1));
 
 		// Oldest Scans
 		BDDMockito.when(mockPrScanResultService.getOldestScanDate())
@@ -140,31 +82,43 @@ public class MetricsCacheServiceTest {
 				.thenReturn(LocalDate.now().withDayOfMonth(1).minusMonths(1));
 	}
 
-	Iterator<Page<AbstractScanEntity<?, ?>>> mockIterator(AbstractScanEntity<?, ?> scan1,
-			AbstractScanEntity<?, ?> scan2) {
-		return new Iterator<Page<AbstractScanEntity<?, ?>>>() {
-			int count = 0;
-
-			@Override
-			public boolean hasNext() {
-				boolean hasNext = count < 2;
-				if (hasNext) {
-					count++;
-				} else {
-					count = 0;
-				}
-				return hasNext;
-			}
-
-			@Override
-			public Page<AbstractScanEntity<?, ?>> next() {
-				if (count == 1) {
-					return new PageImpl<>(Collections.singletonList(scan1));
-				} else {
-					return new PageImpl<>(Collections.singletonList(scan2));
-				}
-			}
-		};
+	private void mockRollups(ScanType type, MetricsRollupEntity... rollups) {
+		BDDMockito.when(mockRollupService.getRollups(BDDMockito.eq(type), BDDMockito.any(),
+				BDDMockito.any())).thenAnswer(invocation -> {
+					LocalDate start = invocation.getArgument(1);
+					LocalDate end = invocation.getArgument(2);
+					return Arrays.stream(rollups)
+							.filter(r -> !r.getRollupDate().isBefore(start)
+									&& r.getRollupDate().isBefore(end))
+							.collect(Collectors.toList());
+				});
+	}
+
+	private static MetricsRollupEntity scanRollup(LocalDate day) {
+		MetricsRollupEntity rollup = new MetricsRollupEntity();
+		rollup.setRollupDate(day);
+		rollup.setScanCount(1L);
+		return rollup;
+	}
+
+	private static MetricsRollupEntity violationRollup(LocalDate day, String name) {
+		MetricsRollupEntity rollup = new MetricsRollupEntity();
+		rollup.setRollupDate(day);
+		rollup.setViolationName(name);
+		rollup.setSeverity(RulePriority.HIGH);
+		rollup.setViolationCount(1L);
+		return rollup;
+	}
+
+	@Test
+	public void testUpdateRollsUpExistingScans() {
+		this.metricsCacheService.updateAllMetrics();
+		BDDMockito.verify(mockRollupService).rollUpExistingScans(CodeScanType.PULL_REQUEST,
+				mockPrScanResultService);
+		BDDMockito.verify(mockRollupService).rollUpExistingScans(CodeScanType.UPLOAD,
+				mockUploadScanResultService);
+		BDDMockito.verify(mockRollupService).rollUpExistingScans(ImageScanType.CONTAINER,
+				mockImageScanResultService);
 	}
 
 	@Test
@@ -243,9 +197,23 @@ public class MetricsCacheServiceTest {
 	}
 
 	@Test
-	public void testGetScanCount() {
+	public void testUpdateStatsSeparateFromCharts() {
 		BDDMockito.when(mockPrScanResultService.countScans()).thenReturn(2L);
+		this.metricsCacheService.updateStats();
+		Assertions.assertEquals(2,
+				this.metricsCacheService.getScanCount(CodeScanType.PULL_REQUEST));
+		MatcherAssert.assertThat(this.metricsCacheService.isMetricsCacheReady(),
+				Matchers.is(false));
+		BDDMockito.verifyNoInteractions(mockRollupService);
+
 		this.metricsCacheService.updateAllMetrics();
+		BDDMockito.verify(mockPrScanResultService).countScans();
+	}
+
+	@Test
+	public void testGetScanCount() {
+		BDDMockito.when(mockPrScanResultService.countScans()).thenReturn(2L);
+		this.metricsCacheService.updateStats();
 		Assertions.assertEquals(2,
 				this.metricsCacheService.getScanCount(CodeScanType.PULL_REQUEST));
 		Assertions.assertEquals(0, this.metricsCacheService.getScanCount(CodeScanType.UPLOAD));
@@ -254,7 +222,7 @@ public class MetricsCacheServiceTest {
 	@Test
 	public void testGetViolationCount() {
 		BDDMockito.when(mockPrScanResultService.countViolations()).thenReturn(2L);
-		this.metricsCacheService.updateAllMetrics();
+		this.metricsCacheService.updateStats();
 		Assertions.assertEquals(2,
 				this.metricsCacheService.getViolationCount(CodeScanType.PULL_REQUEST));
 		Assertions.assertEquals(0, this.metricsCacheService.getViolationCount(CodeScanType.UPLOAD));
@@ -263,7 +231,7 @@ public class MetricsCacheServiceTest {
 	@Test
 	public void testGetAverageScanTime() {
 		BDDMockito.when(mockPrScanResultService.getAverageTime()).thenReturn(2.0);
-		this.metricsCacheService.updateAllMetrics();
+		this.metricsCacheService.updateStats();
 		Assertions.assertEquals(2.0,
 				this.metricsCacheService.getAverageScanTime(CodeScanType.PULL_REQUEST), 0.0);
 		Assertions.assertEquals(0.0,
@@ -273,7 +241,7 @@ public class MetricsCacheServiceTest {
 	@Test
 	public void testGetAverageScanTimeStringMS() {
 		BDDMockito.when(mockPrScanResultService.getAverageTime()).thenReturn(2.0);
-		this.metricsCacheService.updateAllMetrics();
+		this.metricsCacheService.updateStats();
 		Assertions.assertEquals("2 ms",
 				this.metricsCacheService.getAverageScanTimeString(CodeScanType.PULL_REQUEST));
 	}
@@ -281,7 +249,7 @@ public class MetricsCacheServiceTest {
 	@Test
 	public void testGetAverageScanTimeStringS() {
 		BDDMockito.when(mockPrScanResultService.getAverageTime()).thenReturn(2.0 * 1000);
-		this.metricsCacheService.updateAllMetrics();
+		this.metricsCacheService.updateStats();
 		Assertions.assertEquals("2.00 s",
 				this.metricsCacheService.getAverageScanTimeString(CodeScanType.PULL_REQUEST));
 	}
@@ -289,7 +257,7 @@ public class MetricsCacheServiceTest {
 	@Test
 	public void testGetAverageScanTimeStringMins() {
 		BDDMockito.when(mockPrScanResultService.getAverageTime()).thenReturn(2.0 * 1000 * 60);
-		this.metricsCacheService.updateAllMetrics();
+		this.metricsCacheService.updateStats();
 		Assertions.assertEquals("2.00 mins",
 				this.metricsCacheService.getAverageScanTimeString(CodeScanType.PULL_REQUEST));
 	}
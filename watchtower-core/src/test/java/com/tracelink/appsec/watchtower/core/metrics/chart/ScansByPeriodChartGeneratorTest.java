@@ -1,13 +1,11 @@
 package com.tracelink.appsec.watchtower.core.metrics.chart;
 
 import java.util.Arrays;
-import java.util.Collections;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
-import com.tracelink.appsec.watchtower.core.scan.AbstractScanEntity;
-import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestScanEntity;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupEntity;
 
 import net.minidev.json.JSONObject;
 
@@ -15,10 +13,14 @@ public class ScansByPeriodChartGeneratorTest {
 
 	@Test
 	public void testAccumulate() {
-		AbstractScanEntity<?, ?> scan = new PullRequestScanEntity();
+		MetricsRollupEntity scans = new MetricsRollupEntity();
+		scans.setScanCount(2L);
+		MetricsRollupEntity violations = new MetricsRollupEntity();
+		violations.setViolationName("XXE");
+		violations.setViolationCount(5L);
 		ScansByPeriodChartGenerator chartGenerator = new ScansByPeriodChartGenerator();
-		Assertions.assertEquals(2, chartGenerator.accumulate(1L, Collections.singletonList(scan)),
-				0.001);
+		Assertions.assertEquals(3,
+				chartGenerator.accumulate(1L, Arrays.asList(scans, violations)), 0.001);
 	}
 
 	@Test
@@ -1,16 +1,14 @@
 package com.tracelink.appsec.watchtower.core.metrics.chart;
 
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Map;
 import java.util.TreeMap;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
-import org.mockito.BDDMockito;
 
-import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanEntity;
-import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadViolationEntity;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupEntity;
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
 
 import net.minidev.json.JSONObject;
 
@@ -18,17 +16,25 @@ public class ViolationsByPeriodAndTypeChartGeneratorTest {
 
 	@Test
 	public void testAccumulate() {
-		UploadScanEntity scan = BDDMockito.mock(UploadScanEntity.class);
-		UploadViolationEntity xxe = new UploadViolationEntity();
+		MetricsRollupEntity scans = new MetricsRollupEntity();
+		scans.setScanCount(1L);
+		MetricsRollupEntity xxe = new MetricsRollupEntity();
 		xxe.setViolationName("XXE");
-		UploadViolationEntity ser = new UploadViolationEntity();
+		xxe.setSeverity(RulePriority.HIGH);
+		xxe.setViolationCount(1L);
+		MetricsRollupEntity ser = new MetricsRollupEntity();
 		ser.setViolationName("SER");
-		BDDMockito.when(scan.getViolations()).thenReturn(Arrays.asList(xxe, ser));
+		ser.setSeverity(RulePriority.MEDIUM);
+		ser.setViolationCount(1L);
+		MetricsRollupEntity info = new MetricsRollupEntity();
+		info.setViolationName("INFO");
+		info.setSeverity(RulePriority.INFORMATIONAL);
+		info.setViolationCount(1L);
 		Map<String, Long> map = new TreeMap<>();
 		map.put("XXE", 1L);
 		ViolationsByPeriodAndTypeChartGenerator chartGenerator = new ViolationsByPeriodAndTypeChartGenerator();
 		Map<String, Long> partialResult = chartGenerator
-				.accumulate(map, Collections.singletonList(scan));
+				.accumulate(map, Arrays.asList(scans, xxe, ser, info));
 		Assertions.assertEquals(2, partialResult.size());
 		Assertions.assertEquals(2L, partialResult.get("XXE"), 0.001);
 		Assertions.assertEquals(1L, partialResult.get("SER"), 0.001);
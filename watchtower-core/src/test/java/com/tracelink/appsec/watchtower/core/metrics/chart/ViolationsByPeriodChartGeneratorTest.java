@@ -1,13 +1,12 @@
 package com.tracelink.appsec.watchtower.core.metrics.chart;
 
 import java.util.Arrays;
-import java.util.Collections;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
-import org.mockito.BDDMockito;
 
-import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanEntity;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupEntity;
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
 
 import net.minidev.json.JSONObject;
 
@@ -15,11 +14,19 @@ public class ViolationsByPeriodChartGeneratorTest {
 
 	@Test
 	public void testAccumulate() {
-		UploadScanEntity scan = BDDMockito.mock(UploadScanEntity.class);
-		BDDMockito.when(scan.getNumViolations()).thenReturn(3L);
+		MetricsRollupEntity scans = new MetricsRollupEntity();
+		scans.setScanCount(2L);
+		MetricsRollupEntity xxe = new MetricsRollupEntity();
+		xxe.setViolationName("XXE");
+		xxe.setSeverity(RulePriority.HIGH);
+		xxe.setViolationCount(3L);
+		MetricsRollupEntity info = new MetricsRollupEntity();
+		info.setViolationName("INFO");
+		info.setSeverity(RulePriority.INFORMATIONAL);
+		info.setViolationCount(5L);
 		ViolationsByPeriodChartGenerator chartGenerator = new ViolationsByPeriodChartGenerator();
-		Assertions.assertEquals(4L, chartGenerator.accumulate(1L, Collections.singletonList(scan)),
-				0.001);
+		Assertions.assertEquals(4L,
+				chartGenerator.accumulate(1L, Arrays.asList(scans, xxe, info)), 0.001);
 	}
 
 	@Test
@@ -0,0 +1,186 @@
+package com.tracelink.appsec.watchtower.core.metrics.rollup;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.BDDMockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
+import com.tracelink.appsec.watchtower.core.scan.AbstractScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.ScanStatus;
+import com.tracelink.appsec.watchtower.core.scan.code.CodeScanType;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadViolationEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.service.UploadScanResultService;
+
+@ExtendWith(SpringExtension.class)
+public class MetricsRollupServiceTest {
+
+	@MockBean
+	private MetricsRollupRepository mockRollupRepo;
+
+	@MockBean
+	private MetricsRollupStateRepository mockStateRepo;
+
+	@MockBean
+	private UploadScanResultService mockResultService;
+
+	private MetricsRollupService rollupService;
+
+	@BeforeEach
+	public void setup() {
+		rollupService = new MetricsRollupService(mockRollupRepo, mockStateRepo);
+	}
+
+	@Test
+	public void testRecordScanBeforeExistingScansRolledUp() {
+		BDDMockito.when(mockStateRepo.findById(CodeScanType.UPLOAD.getTypeName()))
+				.thenReturn(Optional.empty());
+		rollupService.recordScan(CodeScanType.UPLOAD, makeScan(1L, LocalDate.now()),
+				Collections.emptyList());
+		BDDMockito.verify(mockRollupRepo, BDDMockito.never()).saveAll(BDDMockito.any());
+	}
+
+	@Test
+	public void testRecordScanAlreadyRolledUp() {
+		BDDMockito.when(mockStateRepo.findById(CodeScanType.UPLOAD.getTypeName()))
+				.thenReturn(Optional.of(makeState(5L)));
+		rollupService.recordScan(CodeScanType.UPLOAD, makeScan(5L, LocalDate.now()),
+				Collections.emptyList());
+		BDDMockito.verify(mockRollupRepo, BDDMockito.never()).saveAll(BDDMockito.any());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRecordScan() {
+		LocalDate today = LocalDate.now();
+		BDDMockito.when(mockStateRepo.findById(CodeScanType.UPLOAD.getTypeName()))
+				.thenReturn(Optional.of(makeState(5L)));
+		MetricsRollupEntity existing = new MetricsRollupEntity();
+		existing.setRollupDate(today);
+		existing.setScanType(CodeScanType.UPLOAD);
+		existing.setViolationName("XXE");
+		existing.setSeverity(RulePriority.HIGH);
+		existing.setViolationCount(3L);
+		BDDMockito.when(mockRollupRepo.findByScanTypeAndRollupDate(CodeScanType.UPLOAD, today))
+				.thenReturn(Collections.singletonList(existing));
+
+		rollupService.recordScan(CodeScanType.UPLOAD, makeScan(6L, today),
+				Arrays.asList(makeViolation("XXE", RulePriority.HIGH),
+						makeViolation("XXE", RulePriority.HIGH),
+						makeViolation("SER", RulePriority.LOW)));
+
+		ArgumentCaptor<Iterable<MetricsRollupEntity>> captor =
+				ArgumentCaptor.forClass(Iterable.class);
+		BDDMockito.verify(mockRollupRepo).saveAll(captor.capture());
+		List<MetricsRollupEntity> saved = new ArrayList<>();
+		captor.getValue().forEach(saved::add);
+		Assertions.assertEquals(3, saved.size());
+		Assertions.assertTrue(saved.contains(existing));
+		Assertions.assertEquals(5L, existing.getViolationCount());
+		MetricsRollupEntity scans = saved.stream().filter(r -> r.getViolationName() == null)
+				.findFirst().get();
+		Assertions.assertEquals(1L, scans.getScanCount());
+		Assertions.assertEquals(today, scans.getRollupDate());
+		MetricsRollupEntity ser = saved.stream().filter(r -> "SER".equals(r.getViolationName()))
+				.findFirst().get();
+		Assertions.assertEquals(1L, ser.getViolationCount());
+		Assertions.assertEquals(RulePriority.LOW, ser.getSeverity());
+		Assertions.assertEquals(CodeScanType.UPLOAD, ser.getScanType());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRollUpExistingScans() {
+		LocalDate today = LocalDate.now();
+		LocalDate lastMonth = today.minusMonths(1);
+		BDDMockito.when(mockStateRepo.existsById(CodeScanType.UPLOAD.getTypeName()))
+				.thenReturn(false);
+		BDDMockito.when(mockResultService.getLastScanId()).thenReturn(3L);
+		UploadScanEntity first = makeScan(1L, lastMonth);
+		BDDMockito.doReturn(Collections.singletonList(makeViolation("XXE", RulePriority.HIGH)))
+				.when(first).getViolations();
+		UploadScanEntity second = makeScan(2L, today);
+		BDDMockito.doReturn(Arrays.asList(makeViolation("XXE", RulePriority.HIGH),
+				makeViolation("XXE", RulePriority.HIGH))).when(second).getViolations();
+		UploadScanEntity failed = makeScan(3L, today);
+		failed.setStatus(ScanStatus.FAILED);
+		UploadScanEntity later = makeScan(4L, today);
+		Iterator<Page<AbstractScanEntity<?, ?>>> pages =
+				Arrays.<Page<AbstractScanEntity<?, ?>>>asList(
+						new PageImpl<>(Arrays.asList(first, second)),
+						new PageImpl<>(Arrays.asList(failed, later))).iterator();
+		BDDMockito.when(mockResultService.scanIteratorBetweenDates(BDDMockito.anyLong(),
+				BDDMockito.anyLong())).thenReturn(pages);
+
+		rollupService.rollUpExistingScans(CodeScanType.UPLOAD, mockResultService);
+
+		ArgumentCaptor<Iterable<MetricsRollupEntity>> captor =
+				ArgumentCaptor.forClass(Iterable.class);
+		BDDMockito.verify(mockRollupRepo).saveAll(captor.capture());
+		List<MetricsRollupEntity> saved = new ArrayList<>();
+		captor.getValue().forEach(saved::add);
+		Assertions.assertEquals(4, saved.size());
+		Assertions.assertEquals(2L, saved.stream().mapToLong(MetricsRollupEntity::getScanCount)
+				.sum());
+		List<Long> todayXxe = saved.stream()
+				.filter(r -> today.equals(r.getRollupDate()) && "XXE".equals(r.getViolationName()))
+				.map(MetricsRollupEntity::getViolationCount).collect(Collectors.toList());
+		Assertions.assertEquals(Collections.singletonList(2L), todayXxe);
+
+		ArgumentCaptor<MetricsRollupStateEntity> stateCaptor =
+				ArgumentCaptor.forClass(MetricsRollupStateEntity.class);
+		BDDMockito.verify(mockStateRepo).saveAndFlush(stateCaptor.capture());
+		Assertions.assertEquals(CodeScanType.UPLOAD.getTypeName(),
+				stateCaptor.getValue().getScanType());
+		Assertions.assertEquals(3L, stateCaptor.getValue().getLastScanId());
+	}
+
+	@Test
+	public void testRollUpExistingScansOnlyOnce() {
+		BDDMockito.when(mockStateRepo.existsById(CodeScanType.UPLOAD.getTypeName()))
+				.thenReturn(true);
+		rollupService.rollUpExistingScans(CodeScanType.UPLOAD, mockResultService);
+		BDDMockito.verify(mockResultService, BDDMockito.never())
+				.scanIteratorBetweenDates(BDDMockito.anyLong(), BDDMockito.anyLong());
+		BDDMockito.verify(mockRollupRepo, BDDMockito.never()).saveAll(BDDMockito.any());
+	}
+
+	private static UploadScanEntity makeScan(long id, LocalDate endDay) {
+		UploadScanEntity scan = BDDMockito.spy(new UploadScanEntity());
+		BDDMockito.doReturn(id).when(scan).getId();
+		scan.setEndDate(endDay.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+		scan.setStatus(ScanStatus.DONE);
+		return scan;
+	}
+
+	private static UploadViolationEntity makeViolation(String name, RulePriority severity) {
+		UploadViolationEntity violation = new UploadViolationEntity();
+		violation.setViolationName(name);
+		violation.setSeverity(severity);
+		return violation;
+	}
+
+	private static MetricsRollupStateEntity makeState(long lastScanId) {
+		MetricsRollupStateEntity state = new MetricsRollupStateEntity();
+		state.setScanType(CodeScanType.UPLOAD.getTypeName());
+		state.setLastScanId(lastScanId);
+		return state;
+	}
+}
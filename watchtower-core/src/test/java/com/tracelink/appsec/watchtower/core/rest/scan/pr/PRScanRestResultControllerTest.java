@@ -2,9 +2,12 @@ package com.tracelink.appsec.watchtower.core.rest.scan.pr;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.function.Consumer;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -13,13 +16,17 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.tracelink.appsec.watchtower.core.WatchtowerTestApplication;
 import com.tracelink.appsec.watchtower.core.auth.model.CorePrivilege;
+import com.tracelink.appsec.watchtower.core.scan.ScanResultCursor;
+import com.tracelink.appsec.watchtower.core.scan.ScanResultPage;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRResultFilter;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRScanResult;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRScanResultViolation;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.service.PRScanResultService;
 
 import net.minidev.json.JSONObject;
@@ -43,17 +50,89 @@ public class PRScanRestResultControllerTest {
 
 		BDDMockito
 				.when(mockScanResultService
-						.getScanResultsWithFilters(PRResultFilter.ALL, 10, 0))
-				.thenReturn(Arrays.asList(result));
+						.getScanResultsAfter(PRResultFilter.ALL, 10, ScanResultCursor.FIRST))
+				.thenReturn(new ScanResultPage<>(Arrays.asList(result),
+						new ScanResultCursor(1000L, 5L)));
 
 		JSONObject jsonContent = new JSONObject();
-		jsonContent.put("next", "http://localhost/rest/scan/result/all/1");
+		jsonContent.put("next", "http://localhost/rest/scan/result/all?after=1000-5");
 		jsonContent.put("results", Arrays.asList(result));
 
 		mockMvc.perform(MockMvcRequestBuilders.get("/rest/scan/result"))
 				.andExpect(MockMvcResultMatchers.content().json(jsonContent.toString()));
 	}
 
+	@Test
+	@WithMockUser(authorities = {CorePrivilege.SCAN_RESULTS_NAME}, username = "user")
+	public void testResultAfter() throws Exception {
+		PRScanResult result = new PRScanResult();
+		result.setPrId("foo");
+
+		BDDMockito
+				.when(mockScanResultService.getScanResultsAfter(
+						BDDMockito.eq(PRResultFilter.VIOLATIONS), BDDMockito.eq(10),
+						BDDMockito.any(ScanResultCursor.class)))
+				.thenReturn(new ScanResultPage<>(Arrays.asList(result), null));
+
+		JSONObject jsonContent = new JSONObject();
+		jsonContent.put("results", Arrays.asList(result));
+
+		mockMvc.perform(MockMvcRequestBuilders
+				.get("/rest/scan/result/" + PRResultFilter.VIOLATIONS.getName())
+				.param("after", "1000-5"))
+				.andExpect(MockMvcResultMatchers.content().json(jsonContent.toString()))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.next").doesNotExist());
+
+		ArgumentCaptor<ScanResultCursor> cursorCaptor =
+				ArgumentCaptor.forClass(ScanResultCursor.class);
+		BDDMockito.verify(mockScanResultService).getScanResultsAfter(
+				BDDMockito.eq(PRResultFilter.VIOLATIONS), BDDMockito.eq(10),
+				cursorCaptor.capture());
+		Assertions.assertEquals(1000L, cursorCaptor.getValue().getEndDate());
+		Assertions.assertEquals(5L, cursorCaptor.getValue().getId());
+	}
+
+	@Test
+	@WithMockUser(authorities = {CorePrivilege.SCAN_RESULTS_NAME}, username = "user")
+	public void testResultAfterInvalid() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get("/rest/scan/result").param("after", "foo"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	@WithMockUser(authorities = {CorePrivilege.SCAN_RESULTS_NAME}, username = "user")
+	public void testViolations() throws Exception {
+		PRScanResultViolation violation = new PRScanResultViolation();
+		violation.setViolationName("violation");
+		violation.setLineNumber(2);
+
+		BDDMockito.when(mockScanResultService.hasScan(1L)).thenReturn(true);
+		BDDMockito.doAnswer(invocation -> {
+			Consumer<PRScanResultViolation> consumer = invocation.getArgument(1);
+			consumer.accept(violation);
+			consumer.accept(violation);
+			return null;
+		}).when(mockScanResultService).streamViolations(BDDMockito.eq(1L), BDDMockito.any());
+
+		MvcResult mvcResult =
+				mockMvc.perform(MockMvcRequestBuilders.get("/rest/scan/result/report/1/violations"))
+						.andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+		mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].violationName").value("violation"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[1].lineNumber").value(2));
+	}
+
+	@Test
+	@WithMockUser(authorities = {CorePrivilege.SCAN_RESULTS_NAME}, username = "user")
+	public void testViolationsUnknownScan() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get("/rest/scan/result/report/1/violations"))
+				.andExpect(MockMvcResultMatchers.status().isNotFound());
+		BDDMockito.verify(mockScanResultService, BDDMockito.never())
+				.streamViolations(BDDMockito.anyLong(), BDDMockito.any());
+	}
+
 	@Test
 	@WithMockUser(authorities = {CorePrivilege.SCAN_RESULTS_NAME}, username = "user")
 	public void testResultSpecific() throws Exception {
@@ -3,6 +3,7 @@ package com.tracelink.appsec.watchtower.core.rest.scan.upload;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.Random;
+import java.util.function.Consumer;
 
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -20,12 +21,15 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.tracelink.appsec.watchtower.core.WatchtowerTestApplication;
 import com.tracelink.appsec.watchtower.core.auth.model.CorePrivilege;
 import com.tracelink.appsec.watchtower.core.exception.ScanRejectedException;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanResult;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanResultViolation;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.service.UploadScanResultService;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.service.UploadScanningService;
 
@@ -123,4 +127,40 @@ public class UploadScanRestControllerTest {
 
 		BDDMockito.verify(mockScanResultService).generateResultForTicket(ticket);
 	}
+
+	@Test
+	@WithMockUser(authorities = {CorePrivilege.SCAN_SUBMIT_NAME}, username = "user")
+	public void testGetViolationsForTicket() throws Exception {
+		String ticket = "ticket";
+		UploadScanResultViolation violation = new UploadScanResultViolation();
+		violation.setViolationName("violation");
+		violation.setFileName("file");
+
+		BDDMockito.when(mockScanResultService.findScanIdByTicket(ticket)).thenReturn(1L);
+		BDDMockito.doAnswer(invocation -> {
+			Consumer<UploadScanResultViolation> consumer = invocation.getArgument(1);
+			consumer.accept(violation);
+			return null;
+		}).when(mockScanResultService).streamViolations(BDDMockito.eq(1L), BDDMockito.any());
+
+		MvcResult mvcResult = mockMvc
+				.perform(MockMvcRequestBuilders.get("/rest/uploadscan/" + ticket + "/violations"))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+		mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].violationName").value("violation"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].fileName").value("file"));
+	}
+
+	@Test
+	@WithMockUser(authorities = {CorePrivilege.SCAN_SUBMIT_NAME}, username = "user")
+	public void testGetViolationsForUnknownTicket() throws Exception {
+		BDDMockito.when(mockScanResultService.findScanIdByTicket("ticket")).thenReturn(null);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/rest/uploadscan/ticket/violations"))
+				.andExpect(MockMvcResultMatchers.status().isNotFound());
+		BDDMockito.verify(mockScanResultService, BDDMockito.never())
+				.streamViolations(BDDMockito.anyLong(), BDDMockito.any());
+	}
 }
@@ -2,7 +2,9 @@ package com.tracelink.appsec.watchtower.core.rule;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -22,6 +24,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import com.tracelink.appsec.watchtower.core.exception.rule.RuleNotFoundException;
 import com.tracelink.appsec.watchtower.core.mock.MockRuleEntity;
 import com.tracelink.appsec.watchtower.core.module.ruleeditor.IRuleEditor;
+import com.tracelink.appsec.watchtower.core.ruleset.CompiledRulesetCache;
 import com.tracelink.appsec.watchtower.core.ruleset.ImportOption;
 
 @ExtendWith(SpringExtension.class)
@@ -40,7 +43,7 @@ public class RuleServiceTest {
 
 	@BeforeEach
 	public void setup() {
-		ruleService = new RuleService(ruleRepository);
+		ruleService = new RuleService(ruleRepository, new CompiledRulesetCache());
 		rule = new MockRuleEntity();
 	}
 
@@ -68,6 +71,27 @@ public class RuleServiceTest {
 		Assertions.assertNull(ruleService.getRule(RULE_NAME));
 	}
 
+	@Test
+	public void testGetRuleGuidance() {
+		RuleGuidance guidance =
+				new RuleGuidance(RULE_NAME, rule.getMessage(), rule.getExternalUrl());
+		BDDMockito.when(ruleRepository.findGuidanceByNameIn(BDDMockito.anyCollection()))
+				.thenReturn(Arrays.asList(guidance));
+		Map<String, RuleGuidance> found =
+				ruleService.getRuleGuidance(Arrays.asList(RULE_NAME, RULE_NAME, "other"));
+		Assertions.assertEquals(1, found.size());
+		Assertions.assertEquals(guidance, found.get(RULE_NAME));
+		BDDMockito.verify(ruleRepository)
+				.findGuidanceByNameIn(new HashSet<>(Arrays.asList(RULE_NAME, "other")));
+	}
+
+	@Test
+	public void testGetRuleGuidanceNoNames() {
+		Assertions.assertTrue(ruleService.getRuleGuidance(Collections.emptyList()).isEmpty());
+		BDDMockito.verify(ruleRepository, BDDMockito.never())
+				.findGuidanceByNameIn(BDDMockito.anyCollection());
+	}
+
 	@Test
 	public void testGetRuleId() throws Exception {
 		BDDMockito.when(ruleRepository.findById(123L)).thenReturn(Optional.of(rule));
@@ -0,0 +1,75 @@
+package com.tracelink.appsec.watchtower.core.ruleset;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.tracelink.appsec.watchtower.core.mock.MockRuleset;
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
+
+public class CompiledRulesetCacheTest {
+
+	@Test
+	public void testSamePlanForRuleset() {
+		CompiledRulesetCache cache = new CompiledRulesetCache();
+		RulesetEntity ruleset = MockRuleset.getDefaultRuleset();
+		ScanPlan plan = cache.getScanPlan(ruleset);
+		Assertions.assertEquals(ruleset.getName(), plan.getRuleset().getName());
+		Assertions.assertSame(plan, cache.getScanPlan(ruleset));
+
+		ScanPlan other = cache.getScanPlan(MockRuleset.getCompositeRuleset());
+		Assertions.assertNotSame(plan, other);
+		Assertions.assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testInvalidate() {
+		CompiledRulesetCache cache = new CompiledRulesetCache();
+		RulesetEntity ruleset = MockRuleset.getDefaultRuleset();
+		ScanPlan plan = cache.getScanPlan(ruleset);
+		cache.invalidate();
+		ScanPlan rebuilt = cache.getScanPlan(ruleset);
+		Assertions.assertNotSame(plan, rebuilt);
+		Assertions.assertSame(rebuilt, cache.getScanPlan(ruleset));
+	}
+
+	@Test
+	public void testChangeListenerInvalidates() {
+		CompiledRulesetCache cache = new CompiledRulesetCache();
+		RulesetEntity ruleset = MockRuleset.getDefaultRuleset();
+		ScanPlan plan = cache.getScanPlan(ruleset);
+		new RulesetChangeListener(cache).onChange(ruleset);
+		Assertions.assertNotSame(plan, cache.getScanPlan(ruleset));
+	}
+
+	@Test
+	public void testChangeListenerRemovesDeletedRuleset() {
+		CompiledRulesetCache cache = new CompiledRulesetCache();
+		RulesetEntity ruleset = MockRuleset.getDefaultRuleset();
+		RulesetEntity other = MockRuleset.getCompositeRuleset();
+		cache.getScanPlan(ruleset);
+		ScanPlan otherPlan = cache.getScanPlan(other);
+		new RulesetChangeListener(cache).onRemove(ruleset);
+		Assertions.assertEquals(1, cache.size());
+		// the other ruleset may have inherited rules from the deleted one
+		Assertions.assertNotSame(otherPlan, cache.getScanPlan(other));
+	}
+
+	@Test
+	public void testChangeListenerWaitsForCommit() {
+		CompiledRulesetCache cache = new CompiledRulesetCache();
+		RulesetEntity ruleset = MockRuleset.getDefaultRuleset();
+		ScanPlan plan = cache.getScanPlan(ruleset);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			new RulesetChangeListener(cache).onChange(ruleset);
+			// a plan built before the commit is still current
+			Assertions.assertSame(plan, cache.getScanPlan(ruleset));
+			TransactionSynchronizationUtils.triggerAfterCommit();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		Assertions.assertNotSame(plan, cache.getScanPlan(ruleset));
+	}
+}
@@ -40,9 +40,10 @@ public class RuleImpexTest {
 
 	@BeforeEach
 	public void setup() {
-		this.ruleService = new RuleService(mockRuleRepository);
+		this.ruleService = new RuleService(mockRuleRepository, new CompiledRulesetCache());
 		this.rulesetService =
-				new RulesetService(mockRulesetRepository, ruleService, mockRepositoryRepository);
+				new RulesetService(mockRulesetRepository, ruleService, mockRepositoryRepository,
+						new CompiledRulesetCache());
 		this.mockResponse = new MockHttpServletResponse();
 	}
 
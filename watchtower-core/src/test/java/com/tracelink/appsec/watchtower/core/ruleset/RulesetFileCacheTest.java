@@ -0,0 +1,98 @@
+package com.tracelink.appsec.watchtower.core.ruleset;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.tracelink.appsec.watchtower.core.exception.rule.RulesetException;
+import com.tracelink.appsec.watchtower.core.ruleset.RulesetFileCache.RulesetFile;
+import com.tracelink.appsec.watchtower.core.ruleset.RulesetFileCache.RulesetWriter;
+
+public class RulesetFileCacheTest {
+
+	private final AtomicInteger writes = new AtomicInteger();
+
+	private RulesetWriter writer(String content) {
+		return file -> {
+			writes.incrementAndGet();
+			Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		};
+	}
+
+	@Test
+	public void testReuseFileForFingerprint() throws Exception {
+		RulesetFileCache cache = new RulesetFileCache("test-", ".xml", 2);
+		try (RulesetFile file = cache.getFile("a", writer("rules a"));
+				RulesetFile same = cache.getFile("a", writer("rules a"));
+				RulesetFile other = cache.getFile("b", writer("rules b"))) {
+			Assertions.assertTrue(file.getPath().getFileName().toString().endsWith(".xml"));
+			Assertions.assertEquals("rules a", new String(Files.readAllBytes(file.getPath())));
+			Assertions.assertEquals(file.getPath(), same.getPath());
+			Assertions.assertNotEquals(file.getPath(), other.getPath());
+			Assertions.assertEquals(2, writes.get());
+		}
+	}
+
+	@Test
+	public void testEvictDeletesFile() throws Exception {
+		RulesetFileCache cache = new RulesetFileCache("test-", ".xml", 1);
+		Path file;
+		try (RulesetFile a = cache.getFile("a", writer("rules a"))) {
+			file = a.getPath();
+		}
+		Assertions.assertTrue(Files.exists(file));
+		try (RulesetFile b = cache.getFile("b", writer("rules b"))) {
+			Assertions.assertFalse(Files.exists(file));
+			Assertions.assertTrue(Files.exists(b.getPath()));
+			Assertions.assertEquals(1, cache.size());
+		}
+	}
+
+	@Test
+	public void testEvictKeepsFileInUse() throws Exception {
+		RulesetFileCache cache = new RulesetFileCache("test-", ".xml", 1);
+		RulesetFile a = cache.getFile("a", writer("rules a"));
+		try (RulesetFile b = cache.getFile("b", writer("rules b"))) {
+			Assertions.assertEquals(1, cache.size());
+			// the evicted file is still being read by a scan
+			Assertions.assertTrue(Files.exists(a.getPath()));
+			a.close();
+			Assertions.assertFalse(Files.exists(a.getPath()));
+			// closing twice does not release the file for another scan
+			a.close();
+			Assertions.assertTrue(Files.exists(b.getPath()));
+		}
+	}
+
+	@Test
+	public void testNoFingerprint() throws Exception {
+		RulesetFileCache cache = new RulesetFileCache("test-", ".xml", 2);
+		RulesetFile file = cache.getFile(null, writer("rules"));
+		RulesetFile other = cache.getFile(null, writer("rules"));
+		Assertions.assertNotEquals(file.getPath(), other.getPath());
+		Assertions.assertEquals(2, writes.get());
+		Assertions.assertEquals(0, cache.size());
+
+		file.close();
+		other.close();
+		Assertions.assertFalse(Files.exists(file.getPath()));
+		Assertions.assertFalse(Files.exists(other.getPath()));
+	}
+
+	@Test
+	public void testFailedWrite() {
+		RulesetFileCache cache = new RulesetFileCache("test-", ".xml", 2);
+		Assertions.assertThrows(RulesetException.class, () -> cache.getFile("a", file -> {
+			throw new RulesetException("bad rule");
+		}));
+		Assertions.assertThrows(IOException.class, () -> cache.getFile("a", file -> {
+			throw new IOException("bad file");
+		}));
+		Assertions.assertEquals(0, cache.size());
+	}
+}
@@ -26,6 +26,7 @@ import com.tracelink.appsec.watchtower.core.mock.MockRuleset;
 import com.tracelink.appsec.watchtower.core.rule.RuleEntity;
 import com.tracelink.appsec.watchtower.core.rule.RulePriority;
 import com.tracelink.appsec.watchtower.core.rule.RuleService;
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
 import com.tracelink.appsec.watchtower.core.scan.repository.RepositoryEntity;
 import com.tracelink.appsec.watchtower.core.scan.repository.RepositoryRepository;
 
@@ -40,6 +41,7 @@ public class RulesetServiceTest {
 	@Mock
 	private HttpServletResponse mockResponse;
 
+	private CompiledRulesetCache rulesetCache;
 	private RulesetService rulesetService;
 	private RulesetEntity defaultRuleset;
 	private RulesetEntity compositeRuleset;
@@ -47,7 +49,9 @@ public class RulesetServiceTest {
 
 	@BeforeEach
 	public void setup() throws Exception {
-		rulesetService = new RulesetService(rulesetRepository, ruleService, repositoryRepository);
+		rulesetCache = new CompiledRulesetCache();
+		rulesetService = new RulesetService(rulesetRepository, ruleService, repositoryRepository,
+				rulesetCache);
 		defaultRuleset = MockRuleset.getDefaultRuleset();
 		compositeRuleset = MockRuleset.getCompositeRuleset();
 		rule = new MockRuleEntity();
@@ -147,6 +151,16 @@ public class RulesetServiceTest {
 		BDDMockito.verify(rulesetRepository).delete(defaultRuleset);
 	}
 
+	@Test
+	public void testDeleteRulesetRemovesCompiledRuleset() throws Exception {
+		rulesetCache.getScanPlan(defaultRuleset);
+		Assertions.assertEquals(1, rulesetCache.size());
+		BDDMockito.when(rulesetRepository.findById(BDDMockito.anyLong()))
+				.thenReturn(Optional.of(defaultRuleset));
+		rulesetService.deleteRuleset(defaultRuleset.getId());
+		Assertions.assertEquals(0, rulesetCache.size());
+	}
+
 	@Test
 	public void testDeleteRulesetProvidedException() throws Exception {
 		Assertions.assertThrows(RulesetException.class,
@@ -474,6 +488,18 @@ public class RulesetServiceTest {
 		Assertions.assertTrue(defaultRuleset.getRules().contains(rule));
 	}
 
+	@Test
+	public void testSetRulesInvalidatesCompiledRulesets() throws Exception {
+		ScanPlan plan = rulesetCache.getScanPlan(defaultRuleset);
+		BDDMockito.when(rulesetRepository.findById(defaultRuleset.getId()))
+				.thenReturn(Optional.of(defaultRuleset));
+		BDDMockito.when(ruleService.getRule(rule.getId())).thenReturn(rule);
+		rulesetService.setRules(defaultRuleset.getId(), Collections.singletonList(rule.getId()));
+		ScanPlan rebuilt = rulesetCache.getScanPlan(defaultRuleset);
+		Assertions.assertNotSame(plan, rebuilt);
+		Assertions.assertEquals(1, rebuilt.getAllRules().size());
+	}
+
 	@Test
 	public void testSetRulesRulesetNotFound() throws Exception {
 		Assertions.assertThrows(RulesetNotFoundException.class,
@@ -0,0 +1,623 @@
+package com.tracelink.appsec.watchtower.core.scan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.tracelink.appsec.watchtower.core.WatchtowerTestApplication;
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
+import com.tracelink.appsec.watchtower.core.scan.code.CodeScanType;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.PullRequestMCRStatus;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestContainerEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestViolationEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.repository.PRContainerRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.repository.PRScanRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.repository.PRViolationRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanContainerEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadViolationEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadContainerRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadScanRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadViolationRepository;
+import com.tracelink.appsec.watchtower.core.scan.image.entity.AdvisoryEntity;
+import com.tracelink.appsec.watchtower.core.scan.image.entity.ImageScanContainerEntity;
+import com.tracelink.appsec.watchtower.core.scan.image.entity.ImageScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.image.entity.ImageViolationEntity;
+import com.tracelink.appsec.watchtower.core.scan.image.repository.AdvisoryRepository;
+import com.tracelink.appsec.watchtower.core.scan.image.repository.ImageContainerRepository;
+import com.tracelink.appsec.watchtower.core.scan.image.repository.ImageScanRepository;
+import com.tracelink.appsec.watchtower.core.scan.image.repository.ImageViolationRepository;
+import com.tracelink.appsec.watchtower.core.scan.repository.RepositoryEntity;
+import com.tracelink.appsec.watchtower.core.scan.repository.RepositoryRepository;
+
+/**
+ * Repeatable benchmark of the queries behind the scan, container and violation repositories. The
+ * database is seeded with scans of every type, then each repository method is timed and the plans
+ * of the statements Hibernate runs for it reported, first without and then with the indexes of the
+ * V033 migration.
+ * <p>
+ * The benchmark drops and recreates indexes, so it is tagged {@code benchmark} and left out of the
+ * default build. Run it with
+ * {@code mvn test -Dtest=ScanQueryBenchmarkTest -Dtest.excludedGroups=none}.
+ * <p>
+ * By default this runs against the H2 database of the tests in MySQL mode, so no database server
+ * is needed. Pointing {@code spring.datasource.url} at a MySQL database reports MySQL's plans
+ * instead. The number of containers of each type is set by
+ * {@code -Dwatchtower.benchmark.containers} and the number of runs of each method by
+ * {@code -Dwatchtower.benchmark.iterations}.
+ *
+ * @author csmith
+ */
+@Tag("benchmark")
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = WatchtowerTestApplication.class)
+@Import(ScanQueryBenchmarkTest.StatementRecorder.class)
+public class ScanQueryBenchmarkTest {
+	private static final Logger LOG = LoggerFactory.getLogger(ScanQueryBenchmarkTest.class);
+
+	private static final String INDEX_MIGRATION =
+			"db/migration/V033__Add_Scan_Query_Indexes.sql";
+	private static final Pattern CREATE_INDEX =
+			Pattern.compile("CREATE INDEX (\\w+) ON (\\w+) \\([^)]*\\)");
+	private static final Pattern PLAN_COMMENT = Pattern.compile("/\\*(.*?)\\*/");
+	private static final String MARKER = "benchmark";
+	private static final int CONTAINERS =
+			Integer.getInteger("watchtower.benchmark.containers", 100);
+	private static final int ITERATIONS =
+			Integer.getInteger("watchtower.benchmark.iterations", 5);
+	private static final int SCANS_PER_CONTAINER = 5;
+	private static final int VIOLATIONS_PER_SCAN = 4;
+	private static final long HOUR = 1000L * 60 * 60;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private StatementRecorder statementRecorder;
+
+	@Autowired
+	private PRContainerRepository prContainerRepo;
+
+	@Autowired
+	private PRScanRepository prScanRepo;
+
+	@Autowired
+	private PRViolationRepository prViolationRepo;
+
+	@Autowired
+	private UploadContainerRepository uploadContainerRepo;
+
+	@Autowired
+	private UploadScanRepository uploadScanRepo;
+
+	@Autowired
+	private UploadViolationRepository uploadViolationRepo;
+
+	@Autowired
+	private ImageContainerRepository imageContainerRepo;
+
+	@Autowired
+	private ImageScanRepository imageScanRepo;
+
+	@Autowired
+	private ImageViolationRepository imageViolationRepo;
+
+	@Autowired
+	private AdvisoryRepository advisoryRepo;
+
+	@Autowired
+	private RepositoryRepository repositoryRepo;
+
+	private final long now = System.currentTimeMillis();
+
+	@Test
+	public void testQueriesUseIndexes() throws IOException {
+		Map<String, String> indexes = readIndexes();
+		List<BenchmarkQuery> queries = createQueries();
+		seed();
+		boolean dropped = false;
+		try {
+			// Warm up the connection pool and JIT so the first pass is not penalized
+			run(queries);
+			indexes.forEach((index, statement) -> jdbcTemplate
+					.execute("ALTER TABLE " + tableOf(statement) + " DROP INDEX " + index));
+			dropped = true;
+			List<BenchmarkResult> before = run(queries);
+			indexes.values().forEach(jdbcTemplate::execute);
+			dropped = false;
+			List<BenchmarkResult> after = run(queries);
+			report(before, after);
+
+			for (BenchmarkResult result : after) {
+				String index = result.query.expectedIndex;
+				if (index != null) {
+					Assertions.assertTrue(result.plan.toLowerCase(Locale.ROOT).contains(index),
+							result.query.name + " does not use " + index + ": " + result.plan);
+				}
+			}
+		} finally {
+			if (dropped) {
+				indexes.values().forEach(jdbcTemplate::execute);
+			}
+			cleanUp();
+		}
+	}
+
+	/**
+	 * Read the indexes created by the migration, so that they can be dropped and recreated
+	 */
+	private Map<String, String> readIndexes() throws IOException {
+		String migration;
+		try (InputStream in = new ClassPathResource(INDEX_MIGRATION).getInputStream()) {
+			migration = IOUtils.toString(in, StandardCharsets.UTF_8);
+		}
+		Map<String, String> indexes = new LinkedHashMap<>();
+		Matcher matcher = CREATE_INDEX.matcher(migration);
+		while (matcher.find()) {
+			indexes.put(matcher.group(1), matcher.group());
+		}
+		Assertions.assertFalse(indexes.isEmpty());
+		return indexes;
+	}
+
+	private static String tableOf(String createIndex) {
+		Matcher matcher = CREATE_INDEX.matcher(createIndex);
+		Assertions.assertTrue(matcher.matches());
+		return matcher.group(2);
+	}
+
+	private List<BenchmarkQuery> createQueries() {
+		long start = now - 48 * HOUR;
+		long end = now - 24 * HOUR;
+		List<ScanStatus> unfinished = Arrays.asList(ScanStatus.NOT_STARTED, ScanStatus.IN_PROGRESS);
+
+		List<BenchmarkQuery> queries = new ArrayList<>();
+		// Scans of each type
+		Map<String, IScanRepository<?>> scanRepos = new LinkedHashMap<>();
+		scanRepos.put("pull_request_scans", prScanRepo);
+		scanRepos.put("upload_scans", uploadScanRepo);
+		scanRepos.put("image_scan", imageScanRepo);
+		Map<String, String> indexPrefixes = new LinkedHashMap<>();
+		indexPrefixes.put("pull_request_scans", "idx_pr_scans");
+		indexPrefixes.put("upload_scans", "idx_upload_scans");
+		indexPrefixes.put("image_scan", "idx_image_scan");
+		scanRepos.forEach((table, repo) -> {
+			String prefix = indexPrefixes.get(table);
+			queries.add(new BenchmarkQuery(table + " findAllByEndDateBetween",
+					prefix + "_end_date",
+					() -> repo.findAllByEndDateBetween(start, end, PageRequest.of(0, 10))));
+			queries.add(new BenchmarkQuery(table + " findFirstByOrderByEndDateAsc",
+					prefix + "_end_date", repo::findFirstByOrderByEndDateAsc));
+			queries.add(new BenchmarkQuery(table + " findByStatus",
+					prefix + "_status", () -> repo.findByStatus(ScanStatus.NOT_STARTED)));
+			queries.add(new BenchmarkQuery(table + " findByStatusIn",
+					prefix + "_status",
+					() -> repo.findByStatusIn(unfinished, PageRequest.of(0, 10))));
+			queries.add(new BenchmarkQuery(table + " averageDuration", null,
+					repo::averageDuration));
+		});
+
+		// Pull requests
+		queries.add(new BenchmarkQuery("pull_request_scans findLatestMcrsPerPRByMcrStatus",
+				"idx_pr_scans_container_submit",
+				() -> prScanRepo.findLatestMcrsPerPRByMcrStatus(
+						PullRequestMCRStatus.PENDING_REVIEW, PageRequest.of(0, 10))));
+		queries.add(new BenchmarkQuery("pull_request_container findByResolvedFalse",
+				"idx_pr_container_resolved",
+				() -> prContainerRepo.findByResolvedFalse(PageRequest.of(0, 10))));
+		queries.add(new BenchmarkQuery(
+				"pull_request_container findOneByApiLabelAndRepoNameAndPrId",
+				"idx_pr_container_lookup",
+				() -> prContainerRepo.findOneByApiLabelAndRepoNameAndPrId(MARKER, "repo-1",
+						"1")));
+		// H2 joins the violations on the scan's foreign key, MySQL may prefer the name index
+		queries.add(new BenchmarkQuery("pull_request_scans findHeadersWithViolations", null,
+				() -> prScanRepo.findHeadersWithViolations(Long.MAX_VALUE, Long.MAX_VALUE,
+						PageRequest.of(0, 10))));
+
+		// Violations of each type
+		Map<String, IViolationRepository<?>> violationRepos = new LinkedHashMap<>();
+		violationRepos.put("pull_request_violations", prViolationRepo);
+		violationRepos.put("upload_violations", uploadViolationRepo);
+		violationRepos.put("image_violation", imageViolationRepo);
+		// H2 scans the table for an inequality with a parameter, MySQL reads the severity index
+		violationRepos.forEach((table, repo) -> queries.add(new BenchmarkQuery(
+				table + " countBySeverityNot", null,
+				() -> repo.countBySeverityNot(RulePriority.INFORMATIONAL))));
+		queries.add(new BenchmarkQuery("upload_scans findHeadersWithViolations",
+				null, () -> uploadScanRepo.findHeadersWithViolations(Long.MAX_VALUE,
+						Long.MAX_VALUE, PageRequest.of(0, 10))));
+		queries.add(new BenchmarkQuery("image_violation findAllGroupByScan",
+				null, () -> imageViolationRepo.findAllGroupByScan(PageRequest.of(0, 10))));
+
+		// Lookups by natural keys
+		queries.add(new BenchmarkQuery("upload_container findByTicket",
+				"idx_upload_container_ticket",
+				() -> uploadContainerRepo.findByTicket(MARKER + "-1")));
+		queries.add(new BenchmarkQuery(
+				"image_container findOneByApiLabelAndRepositoryNameAndTagName",
+				"idx_image_container_lookup",
+				() -> imageContainerRepo.findOneByApiLabelAndRepositoryNameAndTagName(MARKER,
+						"repository-1", "1")));
+		queries.add(new BenchmarkQuery("advisories findByAdvisoryName",
+				"idx_advisories_name", () -> advisoryRepo.findByAdvisoryName("BENCHMARK-1")));
+		queries.add(new BenchmarkQuery("repositories findByApiLabelAndRepoName",
+				"idx_repositories_lookup",
+				() -> repositoryRepo.findByApiLabelAndRepoName(MARKER, "repo-1")));
+		return queries;
+	}
+
+	private List<BenchmarkResult> run(List<BenchmarkQuery> queries) {
+		List<BenchmarkResult> results = new ArrayList<>();
+		for (BenchmarkQuery query : queries) {
+			// Warm up, recording the statements of the method to explain them
+			List<RecordedStatement> statements = statementRecorder.record(query.method);
+			Assertions.assertFalse(statements.isEmpty(), query.name + " ran no statements");
+			String plan = statements.stream().map(this::explain)
+					.collect(Collectors.joining(" | "));
+			long start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) {
+				query.method.run();
+			}
+			double millis = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+			results.add(new BenchmarkResult(query, plan, millis));
+		}
+		return results;
+	}
+
+	/**
+	 * Explain a statement run by Hibernate, with the parameters it was run with. H2 returns the
+	 * query with the indexes it uses in comments, which are kept on their own. MySQL returns a row
+	 * for each table, which are kept as they are.
+	 */
+	private String explain(RecordedStatement statement) {
+		String plan = jdbcTemplate
+				.queryForList("EXPLAIN " + statement.sql, statement.parameters.toArray())
+				.stream()
+				.map(row -> row.values().stream().map(String::valueOf)
+						.collect(Collectors.joining(" ")))
+				.collect(Collectors.joining("; ")).replaceAll("\\s+", " ");
+		List<String> comments = new ArrayList<>();
+		Matcher matcher = PLAN_COMMENT.matcher(plan);
+		while (matcher.find()) {
+			comments.add(matcher.group(1).trim());
+		}
+		return comments.isEmpty() ? plan : String.join("; ", comments);
+	}
+
+	private void report(List<BenchmarkResult> before, List<BenchmarkResult> after) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Query benchmark of %d containers of each type, %d runs each%n",
+				CONTAINERS, ITERATIONS));
+		sb.append(String.format("%-64s %12s %12s%n", "Method", "Before (ms)", "After (ms)"));
+		for (int i = 0; i < after.size(); i++) {
+			sb.append(String.format("%-64s %12.2f %12.2f%n", after.get(i).query.name,
+					before.get(i).millis, after.get(i).millis));
+			sb.append("    before: ").append(before.get(i).plan).append(System.lineSeparator());
+			sb.append("    after:  ").append(after.get(i).plan).append(System.lineSeparator());
+		}
+		LOG.info(sb.toString());
+	}
+
+	private void seed() {
+		List<AdvisoryEntity> advisories = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			AdvisoryEntity advisory = new AdvisoryEntity();
+			advisory.setAdvisoryName("BENCHMARK-" + i);
+			advisory.setPackageName("package");
+			advisory.setScore("5.0");
+			advisory.setVector("vector");
+			advisory.setDescription("description");
+			advisory.setUri("https://example.com");
+			advisories.add(advisory);
+		}
+		advisories = advisoryRepo.saveAll(advisories);
+
+		List<PullRequestContainerEntity> prContainers = new ArrayList<>();
+		List<ImageScanContainerEntity> imageContainers = new ArrayList<>();
+		List<RepositoryEntity> repositories = new ArrayList<>();
+		for (int i = 0; i < CONTAINERS; i++) {
+			PullRequestContainerEntity pr = new PullRequestContainerEntity();
+			pr.setApiLabel(MARKER);
+			pr.setRepoName("repo-" + (i % 10));
+			pr.setPrId(String.valueOf(i));
+			pr.setAuthor(MARKER);
+			pr.setSourceBranch("feature");
+			pr.setDestinationBranch("main");
+			pr.setResolved(i % 10 != 0);
+			prContainers.add(pr);
+
+			ImageScanContainerEntity image = new ImageScanContainerEntity();
+			image.setApiLabel(MARKER);
+			image.setRepositoryName("repository-" + (i % 10));
+			image.setTagName(String.valueOf(i));
+			imageContainers.add(image);
+
+			RepositoryEntity repository = new RepositoryEntity();
+			repository.setApiLabel(MARKER);
+			repository.setRepoName("repo-" + i);
+			repository.setScanType(CodeScanType.PULL_REQUEST);
+			repository.setEnabled(true);
+			repositories.add(repository);
+		}
+		prContainers = prContainerRepo.saveAll(prContainers);
+		imageContainers = imageContainerRepo.saveAll(imageContainers);
+		repositoryRepo.saveAll(repositories);
+
+		List<PullRequestScanEntity> prScans = new ArrayList<>();
+		List<ImageScanEntity> imageScans = new ArrayList<>();
+		for (int i = 0; i < CONTAINERS; i++) {
+			for (int j = 0; j < SCANS_PER_CONTAINER; j++) {
+				int scan = i * SCANS_PER_CONTAINER + j;
+				PullRequestScanEntity prScan = new PullRequestScanEntity();
+				prScan.setContainer(prContainers.get(i));
+				prScan.setMcrStatus(j == SCANS_PER_CONTAINER - 1
+						? PullRequestMCRStatus.PENDING_REVIEW
+						: PullRequestMCRStatus.NOT_APPLICABLE);
+				prScans.add(setDates(prScan, scan));
+
+				ImageScanEntity imageScan = new ImageScanEntity();
+				imageScan.setContainer(imageContainers.get(i));
+				imageScans.add(setDates(imageScan, scan));
+			}
+		}
+		prScans = prScanRepo.saveAll(prScans);
+		imageScans = imageScanRepo.saveAll(imageScans);
+
+		// Uploads have a single scan for each container
+		List<UploadScanContainerEntity> uploadContainers = new ArrayList<>();
+		for (int i = 0; i < CONTAINERS * SCANS_PER_CONTAINER; i++) {
+			UploadScanContainerEntity upload = new UploadScanContainerEntity();
+			upload.setName(MARKER);
+			upload.setSubmitter(MARKER);
+			upload.setTicket(MARKER + "-" + i);
+			upload.setRuleSet(MARKER);
+			upload.setZipPath(Paths.get(MARKER + ".zip"));
+			uploadContainers.add(upload);
+		}
+		uploadContainers = uploadContainerRepo.saveAll(uploadContainers);
+		List<UploadScanEntity> uploadScans = new ArrayList<>();
+		for (int i = 0; i < uploadContainers.size(); i++) {
+			UploadScanEntity uploadScan = new UploadScanEntity();
+			uploadScan.setContainer(uploadContainers.get(i));
+			uploadScans.add(setDates(uploadScan, i));
+		}
+		uploadScans = uploadScanRepo.saveAll(uploadScans);
+
+		List<PullRequestViolationEntity> prViolations = new ArrayList<>();
+		List<UploadViolationEntity> uploadViolations = new ArrayList<>();
+		List<ImageViolationEntity> imageViolations = new ArrayList<>();
+		for (int i = 0; i < prScans.size(); i++) {
+			for (int j = 0; j < VIOLATIONS_PER_SCAN; j++) {
+				String name = j == 0 ? "MCR Match: " + MARKER : MARKER + "-" + j;
+				RulePriority severity = j == VIOLATIONS_PER_SCAN - 1
+						? RulePriority.INFORMATIONAL
+						: RulePriority.HIGH;
+
+				PullRequestViolationEntity prViolation = new PullRequestViolationEntity();
+				prViolation.setScan(prScans.get(i));
+				prViolation.setViolationName(name);
+				prViolation.setSeverity(severity);
+				prViolation.setFileName(MARKER + ".java");
+				prViolation.setLineNum(j);
+				prViolations.add(prViolation);
+
+				UploadViolationEntity uploadViolation = new UploadViolationEntity();
+				uploadViolation.setScan(uploadScans.get(i));
+				uploadViolation.setViolationName(name);
+				uploadViolation.setSeverity(severity);
+				uploadViolation.setFileName(MARKER + ".java");
+				uploadViolation.setLineNum(j);
+				uploadViolations.add(uploadViolation);
+
+				ImageViolationEntity imageViolation = new ImageViolationEntity();
+				imageViolation.setScan(imageScans.get(i));
+				imageViolation.setViolationName(name);
+				imageViolation.setSeverity(severity);
+				imageViolation.setAdvisory(advisories.get(j));
+				imageViolations.add(imageViolation);
+			}
+		}
+		prViolationRepo.saveAll(prViolations);
+		uploadViolationRepo.saveAll(uploadViolations);
+		imageViolationRepo.saveAll(imageViolations);
+	}
+
+	/**
+	 * Spread scans an hour apart, with every hundredth scan not yet started
+	 */
+	private <S extends AbstractScanEntity<?, ?>> S setDates(S scan, int index) {
+		long submitted = now - index * HOUR;
+		scan.setSubmitDate(submitted);
+		if (index % 100 == 0) {
+			scan.setStatus(ScanStatus.NOT_STARTED);
+		} else {
+			scan.setStartDate(submitted + 1000L);
+			scan.setEndDate(submitted + 1000L * 60);
+			scan.setStatus(ScanStatus.DONE);
+		}
+		return scan;
+	}
+
+	private void cleanUp() {
+		jdbcTemplate.update("DELETE FROM pull_request_violations WHERE scan_entity_id IN ("
+				+ "SELECT s.scan_entity_id FROM pull_request_scans s JOIN pull_request_container c"
+				+ " ON s.container_id = c.container_id WHERE c.api_label = ?)", MARKER);
+		jdbcTemplate.update("DELETE FROM pull_request_scans WHERE container_id IN ("
+				+ "SELECT container_id FROM pull_request_container WHERE api_label = ?)", MARKER);
+		jdbcTemplate.update("DELETE FROM pull_request_container WHERE api_label = ?", MARKER);
+
+		jdbcTemplate.update("DELETE FROM upload_violations WHERE scan_entity_id IN ("
+				+ "SELECT s.scan_entity_id FROM upload_scans s JOIN upload_container c"
+				+ " ON s.container_id = c.container_id WHERE c.submitter = ?)", MARKER);
+		jdbcTemplate.update("DELETE FROM upload_scans WHERE container_id IN ("
+				+ "SELECT container_id FROM upload_container WHERE submitter = ?)", MARKER);
+		jdbcTemplate.update("DELETE FROM upload_container WHERE submitter = ?", MARKER);
+
+		jdbcTemplate.update("DELETE FROM image_violation WHERE scan_entity_id IN ("
+				+ "SELECT s.scan_entity_id FROM image_scan s JOIN image_container c"
+				+ " ON s.container_id = c.container_id WHERE c.api_label = ?)", MARKER);
+		jdbcTemplate.update("DELETE FROM image_scan WHERE container_id IN ("
+				+ "SELECT container_id FROM image_container WHERE api_label = ?)", MARKER);
+		jdbcTemplate.update("DELETE FROM image_container WHERE api_label = ?", MARKER);
+		jdbcTemplate.update("DELETE FROM advisories WHERE advisory_name LIKE 'BENCHMARK-%'");
+		jdbcTemplate.update("DELETE FROM repositories WHERE api_label = ?", MARKER);
+	}
+
+	private static class BenchmarkQuery {
+		private final String name;
+		private final String expectedIndex;
+		private final Runnable method;
+
+		BenchmarkQuery(String name, String expectedIndex, Runnable method) {
+			this.name = name;
+			this.expectedIndex = expectedIndex;
+			this.method = method;
+		}
+	}
+
+	private static class BenchmarkResult {
+		private final BenchmarkQuery query;
+		private final String plan;
+		private final double millis;
+
+		BenchmarkResult(BenchmarkQuery query, String plan, double millis) {
+			this.query = query;
+			this.plan = plan;
+			this.millis = millis;
+		}
+	}
+	/**
+	 * A statement prepared by Hibernate and the parameters it was run with
+	 */
+	private static class RecordedStatement {
+		private final String sql;
+		private final List<Object> parameters;
+
+		RecordedStatement(String sql, Map<Integer, Object> parameters) {
+			this.sql = sql;
+			this.parameters = new ArrayList<>(new TreeMap<>(parameters).values());
+		}
+	}
+
+	/**
+	 * Wraps the data source of the tests to record the statements that are run, so that the plans
+	 * reported are of the SQL that Hibernate generates rather than a copy of it
+	 */
+	static class StatementRecorder implements BeanPostProcessor {
+		private final ThreadLocal<List<RecordedStatement>> recording = new ThreadLocal<>();
+
+		/**
+		 * Run the given method, recording the statements it runs on this thread
+		 *
+		 * @param method the method to run
+		 * @return the statements run by the method
+		 */
+		List<RecordedStatement> record(Runnable method) {
+			List<RecordedStatement> statements = new ArrayList<>();
+			recording.set(statements);
+			try {
+				method.run();
+			} finally {
+				recording.remove();
+			}
+			return statements;
+		}
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			if (!(bean instanceof DataSource)) {
+				return bean;
+			}
+			return proxy(DataSource.class, bean,
+					(method, args, result) -> result instanceof Connection
+							? proxy(Connection.class, result, this::recordStatement)
+							: result);
+		}
+
+		private Object recordStatement(Method method, Object[] args, Object result) {
+			List<RecordedStatement> statements = recording.get();
+			if (statements == null || !method.getName().equals("prepareStatement")) {
+				return result;
+			}
+			String sql = (String) args[0];
+			Map<Integer, Object> parameters = new HashMap<>();
+			return proxy(PreparedStatement.class, result, (statementMethod, statementArgs,
+					statementResult) -> {
+				String name = statementMethod.getName();
+				if (name.startsWith("set") && statementArgs != null && statementArgs.length > 1
+						&& statementArgs[0] instanceof Integer) {
+					parameters.put((Integer) statementArgs[0],
+							name.equals("setNull") ? null : statementArgs[1]);
+				} else if (name.startsWith("execute")) {
+					statements.add(new RecordedStatement(sql, parameters));
+				}
+				return statementResult;
+			});
+		}
+
+		private static <T> T proxy(Class<T> type, Object target, Interceptor interceptor) {
+			return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+					new Class<?>[] {type}, (proxy, method, args) -> {
+						// A wrapped data source must still equal itself, for Flyway to manage it
+						if (method.getName().equals("equals") && args.length == 1) {
+							return proxy == args[0];
+						}
+						if (method.getName().equals("hashCode") && args == null) {
+							return System.identityHashCode(proxy);
+						}
+						Object result;
+						try {
+							result = method.invoke(target, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+						return interceptor.intercept(method, args, result);
+					}));
+		}
+
+		/**
+		 * Replaces the result of a call to a wrapped JDBC object
+		 */
+		@FunctionalInterface
+		private interface Interceptor {
+			Object intercept(Method method, Object[] args, Object result);
+		}
+	}
+}
@@ -0,0 +1,334 @@
+package com.tracelink.appsec.watchtower.core.scan;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.tracelink.appsec.watchtower.core.WatchtowerTestApplication;
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestContainerEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestViolationEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.repository.PRContainerRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.repository.PRScanRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.repository.PRViolationRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRResultFilter;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRScanResult;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRScanResultViolation;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.service.PRScanResultService;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanContainerEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadViolationEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadContainerRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadScanRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadViolationRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadResultFilter;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanResult;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanResultViolation;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.service.UploadScanResultService;
+
+/**
+ * Runs the result listings of the PR and Upload result services against the database of the
+ * tests, walking each listing page by page with the cursor of the previous page.
+ *
+ * @author csmith
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = WatchtowerTestApplication.class)
+public class ScanResultListingTest {
+	private static final String MARKER = "listing";
+	private static final int CONTAINERS = 3;
+	private static final int SCANS_PER_CONTAINER = 3;
+	private static final int PAGE_SIZE = 2;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PRContainerRepository prContainerRepo;
+
+	@Autowired
+	private PRScanRepository prScanRepo;
+
+	@Autowired
+	private PRViolationRepository prViolationRepo;
+
+	@Autowired
+	private UploadContainerRepository uploadContainerRepo;
+
+	@Autowired
+	private UploadScanRepository uploadScanRepo;
+
+	@Autowired
+	private UploadViolationRepository uploadViolationRepo;
+
+	@Autowired
+	private PRScanResultService prResultService;
+
+	@Autowired
+	private UploadScanResultService uploadResultService;
+
+	private final long now = System.currentTimeMillis();
+
+	private List<PullRequestScanEntity> prScans;
+
+	private List<UploadScanEntity> uploadScans;
+
+	@BeforeEach
+	public void seed() {
+		List<PullRequestContainerEntity> prContainers = new ArrayList<>();
+		for (int i = 0; i < CONTAINERS; i++) {
+			PullRequestContainerEntity pr = new PullRequestContainerEntity();
+			pr.setApiLabel(MARKER);
+			pr.setRepoName("repo");
+			pr.setPrId(String.valueOf(i));
+			pr.setAuthor(MARKER);
+			pr.setSourceBranch("feature");
+			pr.setDestinationBranch("main");
+			pr.setResolved(i == 0);
+			prContainers.add(pr);
+		}
+		prContainers = prContainerRepo.saveAll(prContainers);
+
+		// the last two scans of each container end at the same time, so that the listings must
+		// order them by id
+		prScans = new ArrayList<>();
+		for (int i = 0; i < CONTAINERS; i++) {
+			for (int j = 0; j < SCANS_PER_CONTAINER; j++) {
+				PullRequestScanEntity scan = new PullRequestScanEntity();
+				scan.setContainer(prContainers.get(i));
+				scan.setSubmitDate(now);
+				scan.setEndDate(now + i * 100 + Math.min(j, SCANS_PER_CONTAINER - 2));
+				scan.setStatus(ScanStatus.DONE);
+				prScans.add(scan);
+			}
+		}
+		prScans = prScanRepo.saveAll(prScans);
+
+		// scan k has k violations and an MCR finding
+		List<PullRequestViolationEntity> prViolations = new ArrayList<>();
+		for (int k = 0; k < prScans.size(); k++) {
+			prViolations.add(makePrViolation(prScans.get(k), "MCR Match: " + MARKER, 0));
+			for (int v = 1; v <= k; v++) {
+				prViolations.add(makePrViolation(prScans.get(k), MARKER, v));
+			}
+		}
+		prViolationRepo.saveAll(prViolations);
+
+		// upload k has k violations, and the first has not started
+		List<UploadScanContainerEntity> uploadContainers = new ArrayList<>();
+		for (int k = 0; k < CONTAINERS * SCANS_PER_CONTAINER; k++) {
+			UploadScanContainerEntity upload = new UploadScanContainerEntity();
+			upload.setName(MARKER);
+			upload.setSubmitter(MARKER);
+			upload.setTicket(MARKER + "-" + k);
+			upload.setRuleSet(MARKER);
+			upload.setZipPath(Paths.get(MARKER + ".zip"));
+			uploadContainers.add(upload);
+		}
+		uploadContainers = uploadContainerRepo.saveAll(uploadContainers);
+		uploadScans = new ArrayList<>();
+		for (int k = 0; k < uploadContainers.size(); k++) {
+			UploadScanEntity scan = new UploadScanEntity();
+			scan.setContainer(uploadContainers.get(k));
+			scan.setSubmitDate(now);
+			if (k == 0) {
+				scan.setStatus(ScanStatus.NOT_STARTED);
+			} else {
+				scan.setEndDate(now + k);
+				scan.setStatus(ScanStatus.DONE);
+			}
+			uploadScans.add(scan);
+		}
+		uploadScans = uploadScanRepo.saveAll(uploadScans);
+
+		List<UploadViolationEntity> uploadViolations = new ArrayList<>();
+		for (int k = 0; k < uploadScans.size(); k++) {
+			for (int v = 1; v <= k; v++) {
+				UploadViolationEntity violation = new UploadViolationEntity();
+				violation.setScan(uploadScans.get(k));
+				violation.setViolationName(MARKER);
+				violation.setSeverity(RulePriority.HIGH);
+				violation.setFileName(MARKER + ".java");
+				violation.setLineNum(v);
+				uploadViolations.add(violation);
+			}
+		}
+		uploadViolationRepo.saveAll(uploadViolations);
+	}
+
+	private PullRequestViolationEntity makePrViolation(PullRequestScanEntity scan, String name,
+			int lineNum) {
+		PullRequestViolationEntity violation = new PullRequestViolationEntity();
+		violation.setScan(scan);
+		violation.setViolationName(name);
+		violation.setSeverity(RulePriority.HIGH);
+		violation.setFileName(MARKER + ".java");
+		violation.setLineNum(lineNum);
+		return violation;
+	}
+
+	@AfterEach
+	public void cleanUp() {
+		jdbcTemplate.update("DELETE FROM pull_request_violations WHERE scan_entity_id IN ("
+				+ "SELECT s.scan_entity_id FROM pull_request_scans s JOIN pull_request_container c"
+				+ " ON s.container_id = c.container_id WHERE c.api_label = ?)", MARKER);
+		jdbcTemplate.update("DELETE FROM pull_request_scans WHERE container_id IN ("
+				+ "SELECT container_id FROM pull_request_container WHERE api_label = ?)", MARKER);
+		jdbcTemplate.update("DELETE FROM pull_request_container WHERE api_label = ?", MARKER);
+
+		jdbcTemplate.update("DELETE FROM upload_violations WHERE scan_entity_id IN ("
+				+ "SELECT s.scan_entity_id FROM upload_scans s JOIN upload_container c"
+				+ " ON s.container_id = c.container_id WHERE c.submitter = ?)", MARKER);
+		jdbcTemplate.update("DELETE FROM upload_scans WHERE container_id IN ("
+				+ "SELECT container_id FROM upload_container WHERE submitter = ?)", MARKER);
+		jdbcTemplate.update("DELETE FROM upload_container WHERE submitter = ?", MARKER);
+	}
+
+	@Test
+	public void testPrListings() {
+		List<PRScanResult> all = walkPr(PRResultFilter.ALL);
+		Assertions.assertEquals(prScans.size(), all.size());
+		for (PRScanResult result : all) {
+			int k = indexOf(prScans, result.getId());
+			// MCR findings are not counted
+			Assertions.assertEquals(k, result.getViolationsFound());
+			Assertions.assertEquals("repo-" + (k / SCANS_PER_CONTAINER),
+					result.getDisplayName());
+		}
+		// newest first, ties broken by the newest id
+		List<Long> expected = prScans.stream()
+				.sorted((a, b) -> a.getEndDate().equals(b.getEndDate())
+						? Long.compare(b.getId(), a.getId())
+						: b.getEndDate().compareTo(a.getEndDate()))
+				.map(PullRequestScanEntity::getId).collect(Collectors.toList());
+		Assertions.assertEquals(expected,
+				all.stream().map(PRScanResult::getId).collect(Collectors.toList()));
+
+		// only the latest scan of each unresolved PR
+		Set<Long> unresolved = walkPr(PRResultFilter.UNRESOLVED).stream()
+				.map(PRScanResult::getId).collect(Collectors.toSet());
+		Set<Long> expectedUnresolved = new HashSet<>();
+		for (int i = 1; i < CONTAINERS; i++) {
+			expectedUnresolved.add(prScans.get((i + 1) * SCANS_PER_CONTAINER - 1).getId());
+		}
+		Assertions.assertEquals(expectedUnresolved, unresolved);
+
+		// the first scan only has an MCR finding
+		List<PRScanResult> violations = walkPr(PRResultFilter.VIOLATIONS);
+		Assertions.assertEquals(prScans.size() - 1, violations.size());
+		Assertions.assertFalse(violations.stream()
+				.anyMatch(result -> result.getId() == prScans.get(0).getId()));
+
+		// the page numbers of the web pages list the same scans
+		List<Long> numbered = new ArrayList<>();
+		for (int page = 0; page < 100; page++) {
+			List<PRScanResult> results =
+					prResultService.getScanResultsWithFilters(PRResultFilter.ALL, PAGE_SIZE, page);
+			if (results.isEmpty()) {
+				break;
+			}
+			results.stream().filter(result -> MARKER.equals(result.getApiLabel()))
+					.map(PRScanResult::getId).forEach(numbered::add);
+		}
+		Assertions.assertEquals(expected, numbered);
+	}
+
+	@Test
+	public void testPrStreamViolations() {
+		PullRequestScanEntity scan = prScans.get(prScans.size() - 1);
+		List<PRScanResultViolation> violations = new ArrayList<>();
+		prResultService.streamViolations(scan.getId(), violations::add);
+		Assertions.assertEquals(prScans.size() - 1, violations.size());
+		for (int v = 0; v < violations.size(); v++) {
+			Assertions.assertEquals(MARKER, violations.get(v).getViolationName());
+			Assertions.assertEquals(v + 1, violations.get(v).getLineNumber());
+		}
+		Assertions.assertTrue(prResultService.hasScan(scan.getId()));
+	}
+
+	@Test
+	public void testUploadListings() {
+		List<UploadScanResult> all = walkUpload(UploadResultFilter.ALL);
+		Assertions.assertEquals(uploadScans.size(), all.size());
+		for (int r = 0; r < all.size(); r++) {
+			// newest first, so the upload that has not ended is last
+			int k = uploadScans.size() - 1 - r;
+			UploadScanResult result = all.get(r);
+			Assertions.assertEquals(MARKER + "-" + k, result.getTicket());
+			Assertions.assertEquals(k, result.getViolationsFound());
+		}
+
+		Assertions.assertEquals(uploadScans.size() - 1,
+				walkUpload(UploadResultFilter.VIOLATIONS).size());
+
+		List<UploadScanResult> incomplete = walkUpload(UploadResultFilter.INCOMPLETE);
+		Assertions.assertEquals(1, incomplete.size());
+		Assertions.assertEquals(MARKER + "-0", incomplete.get(0).getTicket());
+		Assertions.assertEquals(ScanStatus.NOT_STARTED.getDisplayName(),
+				incomplete.get(0).getStatus());
+	}
+
+	@Test
+	public void testUploadStreamViolations() {
+		int k = uploadScans.size() - 1;
+		Long scanId = uploadResultService.findScanIdByTicket(MARKER + "-" + k);
+		Assertions.assertEquals(uploadScans.get(k).getId(), scanId);
+		Assertions.assertNull(uploadResultService.findScanIdByTicket(MARKER + "-unknown"));
+
+		List<UploadScanResultViolation> violations = new ArrayList<>();
+		uploadResultService.streamViolations(scanId, violations::add);
+		Assertions.assertEquals(k, violations.size());
+		Assertions.assertEquals(RulePriority.HIGH.getName(), violations.get(0).getSeverity());
+	}
+
+	private List<PRScanResult> walkPr(PRResultFilter filter) {
+		List<PRScanResult> results = new ArrayList<>();
+		ScanResultCursor cursor = ScanResultCursor.FIRST;
+		do {
+			ScanResultPage<PRScanResult> page =
+					prResultService.getScanResultsAfter(filter, PAGE_SIZE, cursor);
+			Assertions.assertTrue(page.getResults().size() <= PAGE_SIZE);
+			page.getResults().stream().filter(result -> MARKER.equals(result.getApiLabel()))
+					.forEach(results::add);
+			cursor = page.getNext();
+		} while (cursor != null);
+		return results;
+	}
+
+	private List<UploadScanResult> walkUpload(UploadResultFilter filter) {
+		List<UploadScanResult> results = new ArrayList<>();
+		ScanResultCursor cursor = ScanResultCursor.FIRST;
+		do {
+			ScanResultPage<UploadScanResult> page =
+					uploadResultService.getScanResultsAfter(filter, PAGE_SIZE, cursor);
+			Assertions.assertTrue(page.getResults().size() <= PAGE_SIZE);
+			page.getResults().stream().filter(result -> MARKER.equals(result.getSubmittedBy()))
+					.forEach(results::add);
+			cursor = page.getNext();
+		} while (cursor != null);
+		return results;
+	}
+
+	private static int indexOf(List<PullRequestScanEntity> scans, long id) {
+		for (int k = 0; k < scans.size(); k++) {
+			if (scans.get(k).getId() == id) {
+				return k;
+			}
+		}
+		throw new AssertionError("Unknown scan " + id);
+	}
+}
@@ -0,0 +1,191 @@
+package com.tracelink.appsec.watchtower.core.scan;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.tracelink.appsec.watchtower.core.WatchtowerTestApplication;
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanContainerEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadViolationEntity;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadContainerRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadScanRepository;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadViolationRepository;
+
+/**
+ * Tests the batch writer against the H2 database of the tests. The number of violations written
+ * when comparing against saving each violation through its repository is set by
+ * {@code -Dwatchtower.benchmark.violations}.
+ *
+ * @author csmith
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = WatchtowerTestApplication.class)
+public class ViolationBatchWriterTest {
+	private static final Logger LOG = LoggerFactory.getLogger(ViolationBatchWriterTest.class);
+
+	private static final int VIOLATIONS =
+			Integer.getInteger("watchtower.benchmark.violations", 2000);
+	private static final String TICKET = "batch-writer";
+	private static final String INSERT_VIOLATION = "INSERT INTO upload_violations"
+			+ " (scan_entity_id, violation_name, line_number, file_path, severity)"
+			+ " VALUES (?, ?, ?, ?, ?)";
+	private static final ParameterizedPreparedStatementSetter<UploadViolationEntity> SETTER =
+			(ps, v) -> {
+				ps.setLong(1, v.getScan().getId());
+				ps.setString(2, v.getViolationName());
+				ps.setInt(3, v.getLineNum());
+				ps.setString(4, v.getFileName());
+				ps.setString(5, v.getSeverity().getName());
+			};
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ViolationBatchWriter batchWriter;
+
+	@Autowired
+	private UploadContainerRepository containerRepo;
+
+	@Autowired
+	private UploadScanRepository scanRepo;
+
+	@Autowired
+	private UploadViolationRepository vioRepo;
+
+	private UploadScanEntity scan;
+
+	@BeforeEach
+	public void setup() {
+		UploadScanContainerEntity container = new UploadScanContainerEntity();
+		container.setName(TICKET);
+		container.setSubmitter(TICKET);
+		container.setTicket(TICKET);
+		container.setRuleSet(TICKET);
+		container.setZipPath(Paths.get(TICKET + ".zip"));
+		container = containerRepo.saveAndFlush(container);
+
+		UploadScanEntity uploadScan = new UploadScanEntity();
+		uploadScan.setContainer(container);
+		uploadScan.setStatus(ScanStatus.DONE);
+		scan = scanRepo.saveAndFlush(uploadScan);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		jdbcTemplate.update("DELETE FROM upload_violations WHERE scan_entity_id = ?",
+				scan.getId());
+		jdbcTemplate.update("DELETE FROM upload_scans WHERE scan_entity_id = ?", scan.getId());
+		jdbcTemplate.update("DELETE FROM upload_container WHERE ticket = ?", TICKET);
+	}
+
+	@Test
+	public void testWriteViolations() {
+		List<UploadViolationEntity> violations = makeViolations(VIOLATIONS);
+		long start = System.nanoTime();
+		batchWriter.write(INSERT_VIOLATION, violations, SETTER);
+		double batchSeconds = (System.nanoTime() - start) / 1e9;
+		Assertions.assertEquals(VIOLATIONS, countViolations());
+
+		List<UploadScanViolation> saved = jdbcTemplate.query(
+				"SELECT violation_name, line_number, severity FROM upload_violations"
+						+ " WHERE scan_entity_id = ? ORDER BY line_number",
+				(rs, row) -> new UploadScanViolation(rs.getString(1), rs.getInt(2),
+						rs.getString(3)),
+				scan.getId());
+		Assertions.assertEquals("violation-0", saved.get(0).name);
+		Assertions.assertEquals(0, saved.get(0).line);
+		Assertions.assertEquals(RulePriority.HIGH.getName(), saved.get(0).severity);
+
+		// Compare against saving each violation through the repository
+		jdbcTemplate.update("DELETE FROM upload_violations WHERE scan_entity_id = ?",
+				scan.getId());
+		violations = makeViolations(VIOLATIONS);
+		start = System.nanoTime();
+		violations.forEach(vioRepo::save);
+		vioRepo.flush();
+		double repoSeconds = (System.nanoTime() - start) / 1e9;
+		Assertions.assertEquals(VIOLATIONS, countViolations());
+
+		LOG.info(String.format(
+				"Wrote %d violations: batch writer %.0f rows/sec, repository %.0f rows/sec",
+				VIOLATIONS, VIOLATIONS / batchSeconds, VIOLATIONS / repoSeconds));
+	}
+
+	@Test
+	public void testWriteRollsBackOnFailure() {
+		ViolationBatchWriter smallBatches =
+				new ViolationBatchWriter(jdbcTemplate, transactionManager, 2);
+		List<UploadViolationEntity> violations = makeViolations(5);
+		// fails in the second batch, after the first has been sent
+		violations.get(3).setViolationName(null);
+
+		Assertions.assertThrows(DataIntegrityViolationException.class,
+				() -> smallBatches.write(INSERT_VIOLATION, violations, SETTER));
+		Assertions.assertEquals(0, countViolations());
+	}
+
+	@Test
+	public void testWriteNoViolations() {
+		batchWriter.write(INSERT_VIOLATION, new ArrayList<>(), SETTER);
+		Assertions.assertEquals(0, countViolations());
+	}
+
+	@Test
+	public void testBatchSizeAtLeastOne() {
+		Assertions.assertEquals(1,
+				new ViolationBatchWriter(jdbcTemplate, transactionManager, 0).getBatchSize());
+	}
+
+	private List<UploadViolationEntity> makeViolations(int count) {
+		List<UploadViolationEntity> violations = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			UploadViolationEntity violation = new UploadViolationEntity();
+			violation.setScan(scan);
+			violation.setViolationName("violation-" + i);
+			violation.setLineNum(i);
+			violation.setFileName("src/File.java");
+			violation.setSeverity(RulePriority.HIGH);
+			violations.add(violation);
+		}
+		return violations;
+	}
+
+	private long countViolations() {
+		return jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM upload_violations WHERE scan_entity_id = ?", Long.class,
+				scan.getId());
+	}
+
+	private static class UploadScanViolation {
+		private final String name;
+		private final int line;
+		private final String severity;
+
+		UploadScanViolation(String name, int line, String severity) {
+			this.name = name;
+			this.line = line;
+			this.severity = severity;
+		}
+	}
+}
@@ -3,8 +3,17 @@ package com.tracelink.appsec.watchtower.core.scan.code;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.io.FileUtils;
 import org.hamcrest.MatcherAssert;
@@ -23,6 +32,7 @@ import com.tracelink.appsec.watchtower.core.mock.MockCustomRuleDto;
 import com.tracelink.appsec.watchtower.core.module.scanner.ICodeScanner;
 import com.tracelink.appsec.watchtower.core.rule.RuleDto;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
+import com.tracelink.appsec.watchtower.core.scan.ScanStage;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 
 @ExtendWith(SpringExtension.class)
@@ -152,4 +162,164 @@ public class AbstractScanAgentTest {
 		BDDMockito.verify(report).logRuleBenchmarking();
 	}
 
+	@Test
+	public void testParallelScanners() throws Exception {
+		// each scanner waits for the other to start, so this only completes in parallel
+		CountDownLatch started = new CountDownLatch(2);
+		ICodeScanner first = BDDMockito.mock(ICodeScanner.class);
+		ICodeScanner second = BDDMockito.mock(ICodeScanner.class);
+		CodeScanReport firstReport = new CodeScanReport();
+		CodeScanReport secondReport = new CodeScanReport();
+		for (ICodeScanner scanner : Arrays.asList(first, second)) {
+			BDDMockito.doReturn(RuleDto.class).when(scanner).getSupportedRuleClass();
+			BDDMockito.when(scanner.scan(BDDMockito.any())).thenAnswer(e -> {
+				started.countDown();
+				Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+				return scanner == first ? firstReport : secondReport;
+			});
+		}
+		RuleDto rule = BDDMockito.mock(RuleDto.class);
+		BDDMockito.when(mockRuleset.getAllRules()).thenReturn(Collections.singleton(rule));
+
+		MockScanAgent scanAgent = new MockScanAgent("name")
+				.withScanners(Arrays.asList(first, second))
+				.withRuleset(mockRuleset)
+				.withBenchmarkEnabled(false).withThreads(1)
+				.withParallelScanners(true);
+		scanAgent.run();
+		MatcherAssert.assertThat(scanAgent.reports, Matchers.contains(firstReport, secondReport));
+	}
+
+	@Test
+	public void testScannerTimeout() throws Exception {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		ICodeScanner scanner = BDDMockito.mock(ICodeScanner.class);
+		BDDMockito.doReturn(RuleDto.class).when(scanner).getSupportedRuleClass();
+		BDDMockito.when(scanner.scan(BDDMockito.any())).thenAnswer(e -> {
+			try {
+				Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+			} catch (InterruptedException ie) {
+				interrupted.countDown();
+			}
+			return new CodeScanReport();
+		});
+		RuleDto rule = BDDMockito.mock(RuleDto.class);
+		BDDMockito.when(mockRuleset.getAllRules()).thenReturn(Collections.singleton(rule));
+
+		MockScanAgent scanAgent = new MockScanAgent("name")
+				.withScanners(Collections.singleton(scanner))
+				.withRuleset(mockRuleset)
+				.withBenchmarkEnabled(false).withThreads(1)
+				.withScannerTimeout(1);
+		scanAgent.run();
+		MatcherAssert.assertThat(scanAgent.reports, Matchers.hasSize(1));
+		MatcherAssert.assertThat(scanAgent.reports.get(0).getErrors(), Matchers.hasSize(1));
+		Assertions.assertTrue(scanAgent.reports.get(0).getErrors().get(0).getErrorMessage()
+				.contains("did not finish within 1 seconds"));
+		Assertions.assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testScannerTimeoutWaitsForScannerBeforeClean() throws Exception {
+		AtomicBoolean sawWorkingDirectory = new AtomicBoolean();
+		ICodeScanner scanner = BDDMockito.mock(ICodeScanner.class);
+		BDDMockito.doReturn(RuleDto.class).when(scanner).getSupportedRuleClass();
+		BDDMockito.when(scanner.scan(BDDMockito.any())).thenAnswer(e -> {
+			Path workingDirectory = e.<CodeScanConfig>getArgument(0).getWorkingDirectory();
+			try {
+				Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+			} catch (InterruptedException ie) {
+				// still reading files for a while after the interrupt
+				Thread.sleep(500);
+				sawWorkingDirectory.set(Files.exists(workingDirectory));
+			}
+			return new CodeScanReport();
+		});
+		RuleDto rule = BDDMockito.mock(RuleDto.class);
+		BDDMockito.when(mockRuleset.getAllRules()).thenReturn(Collections.singleton(rule));
+
+		MockScanAgent scanAgent = new MockScanAgent("name")
+				.withScanners(Collections.singleton(scanner))
+				.withRuleset(mockRuleset)
+				.withBenchmarkEnabled(false).withThreads(1)
+				.withScannerTimeout(1);
+		scanAgent.run();
+		Assertions.assertTrue(sawWorkingDirectory.get());
+		Assertions.assertFalse(Files.exists(scanAgent.getWorkingDirectory()));
+	}
+
+	@Test
+	public void testRunAsyncStages() throws Exception {
+		Map<ScanStage, ExecutorService> executors = new EnumMap<>(ScanStage.class);
+		for (ScanStage stage : ScanStage.values()) {
+			executors.put(stage,
+					Executors.newSingleThreadExecutor(r -> new Thread(r, stage.name())));
+		}
+		Map<String, String> threads = new ConcurrentHashMap<>();
+		ICodeScanner scanner = BDDMockito.mock(ICodeScanner.class);
+		BDDMockito.doReturn(RuleDto.class).when(scanner).getSupportedRuleClass();
+		CodeScanReport report = new CodeScanReport();
+		BDDMockito.when(scanner.scan(BDDMockito.any())).thenAnswer(e -> {
+			threads.put("scan", Thread.currentThread().getName());
+			return report;
+		});
+		RuleDto rule = BDDMockito.mock(RuleDto.class);
+		BDDMockito.when(mockRuleset.getAllRules()).thenReturn(Collections.singleton(rule));
+
+		MockScanAgent scanAgent = new MockScanAgent("name") {
+			@Override
+			protected void report(List<CodeScanReport> reports) {
+				threads.put("report", Thread.currentThread().getName());
+				super.report(reports);
+			}
+
+			@Override
+			protected void persist() {
+				threads.put("persist", Thread.currentThread().getName());
+			}
+		}.withScanners(Collections.singleton(scanner))
+				.withRuleset(mockRuleset)
+				.withBenchmarkEnabled(false).withThreads(1);
+		try {
+			scanAgent.runAsync(executors::get).get(10, TimeUnit.SECONDS);
+		} finally {
+			executors.values().forEach(ExecutorService::shutdown);
+		}
+		MatcherAssert.assertThat(scanAgent.reports, Matchers.contains(report));
+		Assertions.assertEquals(ScanStage.SCAN.name(), threads.get("scan"));
+		Assertions.assertEquals(ScanStage.REPORT.name(), threads.get("report"));
+		Assertions.assertEquals(ScanStage.PERSIST.name(), threads.get("persist"));
+		Assertions.assertFalse(Files.exists(scanAgent.wd));
+	}
+
+	@Test
+	public void testRunAsyncInitializationFailure() throws Exception {
+		MockScanAgent scanAgent = new MockScanAgent("name")
+				.withScanners(null)
+				.withRuleset(mockRuleset)
+				.withBenchmarkEnabled(false).withThreads(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			scanAgent.runAsync(stage -> executor).get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdown();
+		}
+		Assertions.assertNull(scanAgent.reports);
+		Assertions.assertFalse(Files.exists(scanAgent.wd));
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		MockScanAgent scanAgent = new MockScanAgent("name")
+				.withScanners(Collections.singleton(mockScanner))
+				.withRuleset(mockRuleset)
+				.withBenchmarkEnabled(false).withThreads(1);
+		scanAgent.cancel();
+		Assertions.assertTrue(scanAgent.isCancelled());
+		scanAgent.run();
+		Assertions.assertNull(scanAgent.reports);
+		Assertions.assertFalse(Files.exists(scanAgent.wd));
+		BDDMockito.verify(mockScanner, BDDMockito.never()).scan(BDDMockito.any());
+	}
+
 }
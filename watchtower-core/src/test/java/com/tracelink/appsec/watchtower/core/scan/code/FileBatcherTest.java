@@ -0,0 +1,66 @@
+package com.tracelink.appsec.watchtower.core.scan.code;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tracelink.appsec.watchtower.core.scan.code.processor.FileBatcher;
+
+public class FileBatcherTest {
+
+	private Path wd;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		wd = Files.createTempDirectory(null);
+		Files.write(wd.resolve("a1"), new byte[10]);
+		Files.write(wd.resolve("a2"), new byte[10]);
+		Files.write(wd.resolve("a3"), new byte[10]);
+		Path sub = Files.createDirectory(wd.resolve("sub"));
+		Files.write(sub.resolve("b1"), new byte[100]);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		FileUtils.deleteQuietly(wd.toFile());
+	}
+
+	@Test
+	public void testBatchByFiles() throws IOException {
+		List<List<Path>> batches = new FileBatcher(2, Long.MAX_VALUE).createBatches(wd);
+		MatcherAssert.assertThat(batches, Matchers.hasSize(2));
+		MatcherAssert.assertThat(batches.get(0), Matchers.hasSize(2));
+		MatcherAssert.assertThat(batches.get(1), Matchers.hasSize(2));
+	}
+
+	@Test
+	public void testBatchByBytes() throws IOException {
+		List<List<Path>> batches = new FileBatcher(10, 50L).createBatches(wd);
+		MatcherAssert.assertThat(batches, Matchers.hasSize(2));
+		MatcherAssert.assertThat(batches.get(0), Matchers.hasSize(3));
+		// a file larger than the budget is put in a batch by itself
+		MatcherAssert.assertThat(batches.get(1),
+				Matchers.contains(wd.resolve("sub").resolve("b1")));
+	}
+
+	@Test
+	public void testBatchSingleFile() throws IOException {
+		List<List<Path>> batches = new FileBatcher(10, 50L).createBatches(wd.resolve("a1"));
+		MatcherAssert.assertThat(batches, Matchers.hasSize(1));
+		MatcherAssert.assertThat(batches.get(0), Matchers.contains(wd.resolve("a1")));
+	}
+
+	@Test
+	public void testInvalidMaxFiles() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new FileBatcher(0, 1L));
+	}
+}
@@ -0,0 +1,79 @@
+package com.tracelink.appsec.watchtower.core.scan.code;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FileManifestTest {
+
+	private Path wd;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		wd = Files.createTempDirectory(null);
+		Files.write(wd.resolve("a.js"), "var a = 1;".getBytes(StandardCharsets.UTF_8));
+		Path sub = Files.createDirectory(wd.resolve("sub"));
+		Files.write(sub.resolve("b.bin"), new byte[100]);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		FileUtils.deleteQuietly(wd.toFile());
+	}
+
+	@Test
+	public void testBuild() {
+		FileManifest manifest = FileManifest.build(wd);
+		Assertions.assertEquals(wd, manifest.getRoot());
+		Assertions.assertTrue(manifest.getErrors().isEmpty());
+		MatcherAssert.assertThat(manifest.getPaths(), Matchers.containsInAnyOrder(
+				wd.resolve("a.js"), wd.resolve("sub").resolve("b.bin")));
+
+		ManifestEntry js = manifest.filter(e -> e.getExtension().equals("js")).getEntries().get(0);
+		Assertions.assertEquals(10L, js.getSize());
+		Assertions.assertFalse(js.isBinary());
+		ManifestEntry bin = manifest.filter(ManifestEntry::isBinary).getEntries().get(0);
+		Assertions.assertEquals("bin", bin.getExtension());
+		Assertions.assertEquals(100L, bin.getSize());
+	}
+
+	@Test
+	public void testBuildMissingDirectory() {
+		FileManifest manifest = FileManifest.build(wd.resolve("missing"));
+		Assertions.assertTrue(manifest.getEntries().isEmpty());
+		MatcherAssert.assertThat(manifest.getErrors(), Matchers.hasSize(1));
+	}
+
+	@Test
+	public void testIsBinary() {
+		byte[] text = "text\r\n\tmore".getBytes(StandardCharsets.UTF_8);
+		Assertions.assertFalse(FileManifest.isBinary(text, text.length));
+		Assertions.assertTrue(FileManifest.isBinary(new byte[] {0, 1, 'a'}, 3));
+		Assertions.assertFalse(FileManifest.isBinary(new byte[0], -1));
+		Assertions.assertTrue(FileManifest.isBinary(wd.resolve("missing")));
+	}
+
+	@Test
+	public void testBuilder() {
+		Path file = wd.resolve("a.js");
+		FileManifest manifest = new FileManifest.Builder(wd)
+				.add(new ManifestEntry(file, 10L, true))
+				.addError("error")
+				.build();
+		Assertions.assertEquals(file, manifest.getEntries().get(0).getPath());
+		// a known classification is not recomputed from the file
+		Assertions.assertTrue(manifest.getEntries().get(0).isBinary());
+		MatcherAssert.assertThat(manifest.getErrors(), Matchers.contains("error"));
+		Assertions.assertEquals(manifest.getErrors(),
+				manifest.filter(e -> false).getErrors());
+	}
+}
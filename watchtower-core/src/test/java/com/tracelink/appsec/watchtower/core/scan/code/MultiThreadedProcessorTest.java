@@ -4,6 +4,8 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
 
 import org.apache.commons.io.FileUtils;
 import org.hamcrest.MatcherAssert;
@@ -13,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.CallableCreator;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.MultiThreadedProcessor;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.ProcessorSetupException;
+import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 
 public class MultiThreadedProcessorTest {
@@ -47,4 +50,25 @@ public class MultiThreadedProcessorTest {
 		mtp.runScan(null, wd);
 		MatcherAssert.assertThat(mtp.getSystemExceptions(), Matchers.hasSize(2));
 	}
+
+	@Test
+	public void testRunBatchScan() throws Exception {
+		Path wd = Files.createTempDirectory(null);
+		Path test1 = new File(wd.toFile(), "test1").toPath();
+		Path test2 = new File(wd.toFile(), "test2").toPath();
+
+		CallableCreator processor = (file, ruleset) -> (() -> new CodeScanReport());
+		MultiThreadedProcessor mtp = new MultiThreadedProcessor(processor, 1);
+		mtp.runBatchScan(null, Arrays.asList(Arrays.asList(test1, test2),
+				Collections.singletonList(test1)), (files, ruleset) -> (() -> {
+					CodeScanReport report = new CodeScanReport();
+					files.forEach(f -> report.addError(new CodeScanError(f.toString())));
+					return report;
+				}));
+		FileUtils.deleteQuietly(wd.toFile());
+
+		MatcherAssert.assertThat(mtp.getReports(), Matchers.hasSize(2));
+		MatcherAssert.assertThat(mtp.getReports().stream()
+				.mapToInt(r -> r.getErrors().size()).sum(), Matchers.is(3));
+	}
 }
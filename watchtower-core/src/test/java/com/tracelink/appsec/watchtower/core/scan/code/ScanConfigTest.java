@@ -58,4 +58,19 @@ public class ScanConfigTest {
 		Assertions.assertEquals(ruleset, config.getRuleset());
 	}
 
+	@Test
+	public void testScanPlan() throws Exception {
+		CodeScanConfig config = new CodeScanConfig();
+		Assertions.assertNull(config.getScanPlan());
+
+		RulesetDto ruleset = new RulesetDto();
+		config.setRuleset(ruleset);
+		ScanPlan plan = config.getScanPlan();
+		Assertions.assertEquals(ruleset, plan.getRuleset());
+		Assertions.assertSame(plan, config.getScanPlan());
+
+		ScanPlan other = new ScanPlan(ruleset);
+		config.setScanPlan(other);
+		Assertions.assertSame(other, config.getScanPlan());
+	}
 }
@@ -0,0 +1,138 @@
+package com.tracelink.appsec.watchtower.core.scan.code;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.tracelink.appsec.watchtower.core.mock.MockCustomRuleDto;
+import com.tracelink.appsec.watchtower.core.rule.FileExtensionRule;
+import com.tracelink.appsec.watchtower.core.rule.RuleDto;
+import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
+
+public class ScanPlanTest {
+
+	private static MockCustomRuleDto mockRule(String name) {
+		MockCustomRuleDto rule = new MockCustomRuleDto();
+		rule.setName(name);
+		return rule;
+	}
+
+	private static ExtensionRule extensionRule(String name, String extension) {
+		ExtensionRule rule = new ExtensionRule(extension);
+		rule.setName(name);
+		return rule;
+	}
+
+	@Test
+	public void testFlattensInheritedRules() {
+		MockCustomRuleDto parentRule = mockRule("parent");
+		MockCustomRuleDto childRule = mockRule("child");
+		RulesetDto child = new RulesetDto();
+		child.setRules(Collections.singleton(childRule));
+		RulesetDto parent = new RulesetDto();
+		parent.setRules(Collections.singleton(parentRule));
+		parent.setRulesets(Collections.singleton(child));
+
+		ScanPlan plan = new ScanPlan(parent);
+		Assertions.assertEquals(parent, plan.getRuleset());
+		Assertions.assertEquals(new HashSet<>(Arrays.asList(parentRule, childRule)),
+				new HashSet<>(plan.getAllRules()));
+		Assertions.assertThrows(UnsupportedOperationException.class,
+				() -> plan.getAllRules().clear());
+	}
+
+	@Test
+	public void testGetRulesByType() {
+		MockCustomRuleDto mock = mockRule("mock");
+		ExtensionRule ext = extensionRule("ext", ".java");
+		RulesetDto ruleset = new RulesetDto();
+		ruleset.setRules(new HashSet<>(Arrays.asList(mock, ext)));
+
+		ScanPlan plan = new ScanPlan(ruleset);
+		Assertions.assertEquals(Collections.singletonList(ext),
+				plan.getRules(ExtensionRule.class));
+		Assertions.assertEquals(2, plan.getRules(MockCustomRuleDto.class).size());
+		Assertions.assertSame(plan.getRules(ExtensionRule.class),
+				plan.getRules(ExtensionRule.class));
+		Assertions.assertEquals(ext, plan.getRulesByName(ExtensionRule.class).get("ext"));
+		Assertions.assertNull(plan.getRulesByName(ExtensionRule.class).get("mock"));
+	}
+
+	@Test
+	public void testGetRulesForFile() {
+		ExtensionRule java = extensionRule("java", ".java");
+		ExtensionRule java2 = extensionRule("java2", ".java");
+		ExtensionRule pom = extensionRule("pom", "pom.xml");
+		ExtensionRule all = extensionRule("all", "");
+		RulesetDto ruleset = new RulesetDto();
+		ruleset.setRules(new HashSet<>(Arrays.asList(java, java2, pom, all)));
+		ScanPlan plan = new ScanPlan(ruleset);
+
+		List<ExtensionRule> javaRules = plan.getRules(ExtensionRule.class, "src/Foo.java");
+		Assertions.assertEquals(new HashSet<>(Arrays.asList(java, java2, all)),
+				new HashSet<>(javaRules));
+		Assertions.assertSame(javaRules, plan.getRules(ExtensionRule.class, "src/Bar.java"));
+		Assertions.assertEquals(new HashSet<>(Arrays.asList(pom, all)),
+				new HashSet<>(plan.getRules(ExtensionRule.class, "pom.xml")));
+		Assertions.assertEquals(Collections.singletonList(all),
+				plan.getRules(ExtensionRule.class, "other.xml"));
+
+		// rules keep the order of the flattened list
+		List<ExtensionRule> allRules = plan.getRules(ExtensionRule.class);
+		Assertions.assertTrue(allRules.indexOf(javaRules.get(0)) < allRules
+				.indexOf(javaRules.get(javaRules.size() - 1)));
+	}
+
+	@Test
+	public void testGetRulesForFileNoExtensionRules() {
+		RuleDto mock = mockRule("mock");
+		RulesetDto ruleset = new RulesetDto();
+		ruleset.setRules(Collections.singleton(mock));
+		ScanPlan plan = new ScanPlan(ruleset);
+		Assertions.assertEquals(Collections.singletonList(mock),
+				plan.getRules(MockCustomRuleDto.class, "any.txt"));
+	}
+
+	@Test
+	public void testGetFingerprint() {
+		MockCustomRuleDto first = mockRule("first");
+		MockCustomRuleDto second = mockRule("second");
+		RulesetDto ruleset = new RulesetDto();
+		ruleset.setRules(new HashSet<>(Arrays.asList(first, second)));
+		String fingerprint = new ScanPlan(ruleset).getFingerprint(MockCustomRuleDto.class);
+		Assertions.assertNotNull(fingerprint);
+
+		// same rules in another ruleset
+		RulesetDto other = new RulesetDto();
+		other.setName("other");
+		other.setRules(new HashSet<>(Arrays.asList(mockRule("second"), mockRule("first"))));
+		Assertions.assertEquals(fingerprint,
+				new ScanPlan(other).getFingerprint(MockCustomRuleDto.class));
+
+		second.setMessage("changed");
+		Assertions.assertNotEquals(fingerprint,
+				new ScanPlan(ruleset).getFingerprint(MockCustomRuleDto.class));
+	}
+
+	private static class ExtensionRule extends MockCustomRuleDto implements FileExtensionRule {
+		private final String fileExtension;
+
+		ExtensionRule(String fileExtension) {
+			this.fileExtension = fileExtension;
+		}
+
+		@Override
+		public String getFileExtension() {
+			return fileExtension;
+		}
+
+		@Override
+		public boolean isValidExtension(String fileName) {
+			return fileExtension.isEmpty() || fileName.endsWith(fileExtension);
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package com.tracelink.appsec.watchtower.core.scan.code;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tracelink.appsec.watchtower.core.benchmark.Benchmarking;
+import com.tracelink.appsec.watchtower.core.mock.MockCustomRuleDto;
+import com.tracelink.appsec.watchtower.core.rule.RulePriority;
+import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.CallableCreator;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.ScanResultCache;
+import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
+import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
+import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanViolation;
+
+public class ScanResultCacheTest {
+
+	private Path wd;
+	private AtomicInteger calls;
+	private CallableCreator creator;
+	private ScanPlan plan;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		wd = Files.createTempDirectory(null);
+		calls = new AtomicInteger();
+		creator = (file, scanPlan) -> () -> {
+			calls.incrementAndGet();
+			CodeScanReport report = new CodeScanReport();
+			CodeScanViolation violation = new CodeScanViolation();
+			violation.setViolationName("rule");
+			violation.setLineNum(1);
+			violation.setSeverity(RulePriority.HIGH);
+			violation.setFileName(file.toString());
+			violation.setMessage("message");
+			report.addViolation(violation);
+			return report;
+		};
+		plan = createPlan("message");
+	}
+
+	@AfterEach
+	public void teardown() {
+		FileUtils.deleteQuietly(wd.toFile());
+	}
+
+	private static ScanPlan createPlan(String message) {
+		MockCustomRuleDto rule = new MockCustomRuleDto();
+		rule.setName("rule");
+		rule.setMessage(message);
+		RulesetDto ruleset = new RulesetDto();
+		ruleset.setRules(Collections.singleton(rule));
+		return new ScanPlan(ruleset);
+	}
+
+	private Path writeFile(String dir, String content) throws Exception {
+		Path file = wd.resolve(dir).resolve("Foo.java");
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void testHitAtOtherPath() throws Exception {
+		ScanResultCache cache = new ScanResultCache(10, "");
+		Benchmarking<Object> benchmarking = new Benchmarking<>();
+		CallableCreator caching =
+				cache.cachingCreator("mock", MockCustomRuleDto.class, creator, benchmarking);
+		Path first = writeFile("a", "content");
+		Path second = writeFile("b", "content");
+
+		caching.createCallable(first, plan).call();
+		CodeScanReport report = caching.createCallable(second, plan).call();
+
+		Assertions.assertEquals(1, calls.get());
+		Assertions.assertEquals(1, report.getViolations().size());
+		Assertions.assertEquals(second.toString(), report.getViolations().get(0).getFileName());
+		Assertions.assertEquals(RulePriority.HIGH, report.getViolations().get(0).getSeverity());
+		Assertions.assertEquals(1L, benchmarking.getCacheHits());
+		Assertions.assertEquals(1L, benchmarking.getCacheMisses());
+	}
+
+	@Test
+	public void testMissOnChangedContentOrRules() throws Exception {
+		ScanResultCache cache = new ScanResultCache(10, "");
+		CallableCreator caching = cache.cachingCreator("mock", MockCustomRuleDto.class, creator,
+				new Benchmarking<>());
+		Path file = writeFile("a", "content");
+		caching.createCallable(file, plan).call();
+		caching.createCallable(file, createPlan("other message")).call();
+		writeFile("a", "new content");
+		caching.createCallable(file, plan).call();
+
+		Assertions.assertEquals(3, calls.get());
+		Assertions.assertEquals(3, cache.size());
+	}
+
+	@Test
+	public void testErrorsNotCached() throws Exception {
+		ScanResultCache cache = new ScanResultCache(10, "");
+		CallableCreator failing = (file, scanPlan) -> () -> {
+			calls.incrementAndGet();
+			CodeScanReport report = new CodeScanReport();
+			report.addError(new CodeScanError("error"));
+			return report;
+		};
+		CallableCreator caching =
+				cache.cachingCreator("mock", MockCustomRuleDto.class, failing, null);
+		Path file = writeFile("a", "content");
+		caching.createCallable(file, plan).call();
+		caching.createCallable(file, plan).call();
+
+		Assertions.assertEquals(2, calls.get());
+		Assertions.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testDisabled() {
+		ScanResultCache cache = new ScanResultCache(0, wd.toString());
+		Assertions.assertFalse(cache.isEnabled());
+		Assertions.assertSame(creator,
+				cache.cachingCreator("mock", MockCustomRuleDto.class, creator, null));
+	}
+
+	@Test
+	public void testEvictAndReloadFromDisk() throws Exception {
+		String dir = wd.resolve("cache").toString();
+		ScanResultCache cache = new ScanResultCache(1, dir);
+		CallableCreator caching =
+				cache.cachingCreator("mock", MockCustomRuleDto.class, creator, null);
+		Path first = writeFile("a", "first");
+		Path second = writeFile("b", "second");
+		caching.createCallable(first, plan).call();
+		caching.createCallable(second, plan).call();
+		Assertions.assertEquals(1, cache.size());
+
+		// evicted from memory but still on disk
+		caching.createCallable(first, plan).call();
+		Assertions.assertEquals(2, calls.get());
+
+		// a new cache finds the reports written by the old one
+		CallableCreator reloaded = new ScanResultCache(1, dir)
+				.cachingCreator("mock", MockCustomRuleDto.class, creator, null);
+		CodeScanReport report = reloaded.createCallable(second, plan).call();
+		Assertions.assertEquals(2, calls.get());
+		Assertions.assertEquals(second.toString(), report.getViolations().get(0).getFileName());
+	}
+
+	@Test
+	public void testKeepsFilesNotWrittenByCache() throws Exception {
+		Path dir = wd.resolve("cache");
+		Path other = dir.resolve("notes.txt");
+		Path leftover = dir.resolve(ScanResultCache.DISK_DIRECTORY).resolve("abc123.tmp");
+		Files.createDirectories(leftover.getParent());
+		Files.write(other, new byte[4]);
+		Files.write(leftover, new byte[4]);
+
+		ScanResultCache cache = new ScanResultCache(1, dir.toString());
+		cache.cachingCreator("mock", MockCustomRuleDto.class, creator, null)
+				.createCallable(writeFile("a", "first"), plan).call();
+
+		Assertions.assertTrue(Files.exists(other));
+		Assertions.assertFalse(Files.exists(leftover));
+		try (Stream<Path> files = Files.list(leftover.getParent())) {
+			Assertions.assertEquals(1L, files.count());
+		}
+	}
+}
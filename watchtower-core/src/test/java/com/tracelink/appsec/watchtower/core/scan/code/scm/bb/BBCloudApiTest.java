@@ -6,6 +6,7 @@ import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -355,6 +356,47 @@ public class BBCloudApiTest {
 		Assertions.assertTrue(logWatcher.getMessages().get(0).contains("repo timed out"));
 	}
 
+	@Test
+	public void testGetDiffFiles() throws IOException {
+		StringBuilder diff = new StringBuilder();
+		diff.append("diff --git a/aFile.java b/aFile.java\n");
+		diff.append("--- a/aFile.java\n");
+		diff.append("+++ b/aFile.java\n");
+		diff.append("@@ -1,2 +1,2 @@\n");
+		diff.append("+ some file\n");
+		diff.append("- lines\n");
+		diff.append("  withmultiple\n");
+
+		WireMock.stubFor(WireMock.get(WireMock.urlMatching(buildRequestUrl(prBase, "diff.*")))
+				.willReturn(WireMock.aResponse().withStatus(429).withHeader("Retry-After", "20"))
+				.inScenario("getDiffFilesRateLimit").whenScenarioStateIs(Scenario.STARTED)
+				.willSetStateTo("ok"));
+		WireMock.stubFor(WireMock.get(WireMock.urlMatching(buildRequestUrl(prBase, "diff.*")))
+				.willReturn(WireMock.aResponse().withStatus(200).withBody(diff.toString()))
+				.inScenario("getDiffFilesRateLimit").whenScenarioStateIs("ok"));
+		BDDMockito.when(entity.makeApiPRUrl(BDDMockito.anyString(), BDDMockito.anyString()))
+				.thenReturn(apiBase + prBase);
+
+		BBCloudApi api = new BBCloudApi(entity);
+		Map<String, DiffFile> diffFiles = api.getGitDiffFiles(mockPr);
+		Assertions.assertEquals(1, diffFiles.size());
+		Assertions.assertTrue(diffFiles.get("aFile.java").isLineChanged(1));
+		Assertions.assertTrue(diffFiles.get("aFile.java").isLineExisting(2));
+	}
+
+	@Test
+	public void testGetDiffFilesBad() {
+		WireMock.stubFor(WireMock.get(WireMock.urlMatching(buildRequestUrl(prBase, "diff.*")))
+				.willReturn(WireMock.aResponse().withStatus(555)));
+		BDDMockito.when(entity.makeApiPRUrl(BDDMockito.anyString(), BDDMockito.anyString()))
+				.thenReturn(apiBase + prBase);
+
+		BBCloudApi api = new BBCloudApi(entity);
+		IOException e = Assertions.assertThrows(IOException.class,
+				() -> api.getGitDiffFiles(mockPr));
+		MatcherAssert.assertThat(e.getMessage(), Matchers.containsString("555"));
+	}
+
 	/////
 	// BB get data test
 	/////
@@ -0,0 +1,188 @@
+package com.tracelink.appsec.watchtower.core.scan.code.scm.bb;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.BDDMockito;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.tracelink.appsec.watchtower.core.WireMockExtension;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.api.bb.BBCloudClient;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.api.bb.BBCloudIntegrationEntity;
+
+import kong.unirest.HttpResponse;
+import kong.unirest.UnirestException;
+
+public class BBCloudClientTest {
+
+	@RegisterExtension
+	public WireMockExtension wireMockExtension =
+			new WireMockExtension(WireMockConfiguration.wireMockConfig().dynamicPort());
+
+	private BBCloudClient client;
+	private String url;
+
+	@BeforeEach
+	public void setup() {
+		wireMockExtension.resetMappings();
+		BBCloudIntegrationEntity entity = BDDMockito.mock(BBCloudIntegrationEntity.class);
+		BDDMockito.when(entity.getApiLabel()).thenReturn(UUID.randomUUID().toString());
+		client = BBCloudClient.forEntity(entity);
+		url = wireMockExtension.baseUrl() + "/resource";
+	}
+
+	@Test
+	public void testSameClientForEntity() {
+		BBCloudIntegrationEntity entity = BDDMockito.mock(BBCloudIntegrationEntity.class);
+		BDDMockito.when(entity.getApiLabel()).thenReturn("label");
+		BDDMockito.when(entity.getUser()).thenReturn("user");
+		BDDMockito.when(entity.getAuth()).thenReturn("auth");
+		BBCloudClient first = BBCloudClient.forEntity(entity);
+		Assertions.assertSame(first, BBCloudClient.forEntity(entity));
+
+		BDDMockito.when(entity.getAuth()).thenReturn("newAuth");
+		Assertions.assertNotSame(first, BBCloudClient.forEntity(entity));
+	}
+
+	@Test
+	public void testCoalesceIdenticalGets() throws Exception {
+		WireMock.stubFor(WireMock.get("/resource").willReturn(
+				WireMock.aResponse().withStatus(200).withBody("body").withFixedDelay(500)));
+
+		CompletableFuture<HttpResponse<String>> other =
+				CompletableFuture.supplyAsync(() -> client.getString(url, null));
+		Thread.sleep(100);
+		HttpResponse<String> response = client.getString(url, null);
+
+		Assertions.assertEquals("body", response.getBody());
+		Assertions.assertEquals("body", other.get().getBody());
+		WireMock.verify(1, WireMock.getRequestedFor(WireMock.urlEqualTo("/resource")));
+		Assertions.assertEquals(1L, client.getCoalescedCount());
+	}
+
+	@Test
+	public void testRetryFailedGet() {
+		WireMock.stubFor(WireMock.get("/resource")
+				.willReturn(WireMock.aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER))
+				.inScenario("retry").whenScenarioStateIs(Scenario.STARTED)
+				.willSetStateTo("ok"));
+		WireMock.stubFor(WireMock.get("/resource")
+				.willReturn(WireMock.aResponse().withStatus(200))
+				.inScenario("retry").whenScenarioStateIs("ok"));
+
+		Assertions.assertEquals(200, client.getString(url, null).getStatus());
+		WireMock.verify(2, WireMock.getRequestedFor(WireMock.urlEqualTo("/resource")));
+	}
+
+	@Test
+	public void testRetryServerErrorGet() {
+		WireMock.stubFor(WireMock.get("/resource")
+				.willReturn(WireMock.aResponse().withStatus(503))
+				.inScenario("retry").whenScenarioStateIs(Scenario.STARTED)
+				.willSetStateTo("ok"));
+		WireMock.stubFor(WireMock.get("/resource")
+				.willReturn(WireMock.aResponse().withStatus(200))
+				.inScenario("retry").whenScenarioStateIs("ok"));
+
+		Assertions.assertEquals(200, client.getString(url, null).getStatus());
+		WireMock.verify(2, WireMock.getRequestedFor(WireMock.urlEqualTo("/resource")));
+	}
+
+	@Test
+	public void testServerErrorStreamRetriesExhausted() {
+		WireMock.stubFor(WireMock.get("/resource")
+				.willReturn(WireMock.aResponse().withStatus(500)));
+
+		AtomicInteger consumed = new AtomicInteger();
+		AtomicInteger status = new AtomicInteger();
+		client.getStream(url, null, r -> {
+			consumed.incrementAndGet();
+			status.set(r.getStatus());
+		});
+		Assertions.assertEquals(1, consumed.get());
+		Assertions.assertEquals(500, status.get());
+		// the first attempt and all 5 retries
+		WireMock.verify(6, WireMock.getRequestedFor(WireMock.urlEqualTo("/resource")));
+	}
+
+	@Test
+	public void testPostNotRetriedOnServerError() {
+		WireMock.stubFor(WireMock.post("/resource")
+				.willReturn(WireMock.aResponse().withStatus(500)));
+
+		Assertions.assertEquals(500, client.post(url, null, null).getStatus());
+		WireMock.verify(1, WireMock.postRequestedFor(WireMock.urlEqualTo("/resource")));
+	}
+
+	@Test
+	public void testReplacedClientFinishesRequestsInFlight() throws Exception {
+		WireMock.stubFor(WireMock.get("/resource").willReturn(
+				WireMock.aResponse().withStatus(200).withBody("body").withFixedDelay(500)));
+		BBCloudIntegrationEntity entity = BDDMockito.mock(BBCloudIntegrationEntity.class);
+		BDDMockito.when(entity.getApiLabel()).thenReturn(UUID.randomUUID().toString());
+		BBCloudClient first = BBCloudClient.forEntity(entity);
+
+		CompletableFuture<HttpResponse<String>> inFlight =
+				CompletableFuture.supplyAsync(() -> first.getString(url, null));
+		Thread.sleep(100);
+		BDDMockito.when(entity.getAuth()).thenReturn("newAuth");
+		Assertions.assertNotSame(first, BBCloudClient.forEntity(entity));
+
+		Assertions.assertEquals("body", inFlight.get().getBody());
+	}
+
+	@Test
+	public void testLatencyAndClients() {
+		WireMock.stubFor(WireMock.get("/resource")
+				.willReturn(WireMock.aResponse().withStatus(200).withFixedDelay(200)));
+
+		Assertions.assertEquals(200, client.getString(url, null).getStatus());
+		Assertions.assertTrue(client.getAverageLatencyMillis() >= 190.0);
+		MatcherAssert.assertThat(BBCloudClient.getClients().values(), Matchers.hasItem(client));
+	}
+
+	@Test
+	public void testEvict() {
+		BBCloudIntegrationEntity entity = BDDMockito.mock(BBCloudIntegrationEntity.class);
+		BDDMockito.when(entity.getApiLabel()).thenReturn(UUID.randomUUID().toString());
+		BBCloudClient first = BBCloudClient.forEntity(entity);
+
+		BBCloudClient.evict(entity.getApiLabel());
+		Assertions.assertNotSame(first, BBCloudClient.forEntity(entity));
+	}
+
+	@Test
+	public void testRateLimited() {
+		WireMock.stubFor(WireMock.get("/resource")
+				.willReturn(WireMock.aResponse().withStatus(429).withHeader("Retry-After", "200"))
+				.inScenario("rateLimit").whenScenarioStateIs(Scenario.STARTED)
+				.willSetStateTo("ok"));
+		WireMock.stubFor(WireMock.get("/resource")
+				.willReturn(WireMock.aResponse().withStatus(200))
+				.inScenario("rateLimit").whenScenarioStateIs("ok"));
+
+		Assertions.assertEquals(200, client.getBytes(url, null).getStatus());
+		Assertions.assertEquals(1L, client.getRateLimitedCount());
+		// the retry waited for the Retry-After period in the rate limiter
+		Assertions.assertTrue(client.getAverageQueueWaitMillis() * 2 >= 190.0);
+	}
+
+	@Test
+	public void testPostNotRetriedOnFailure() {
+		WireMock.stubFor(WireMock.post("/resource")
+				.willReturn(WireMock.aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER)));
+
+		Assertions.assertThrows(UnirestException.class, () -> client.post(url, null, null));
+		WireMock.verify(1, WireMock.postRequestedFor(WireMock.urlEqualTo("/resource")));
+	}
+}
@@ -154,7 +154,110 @@ public class PRScanAgentTest {
 	}
 
 	@Test
-	public void testReport() {
+	public void testCollectChangedFiles() throws ScanInitializationException, IOException {
+		PRScanAgent scanAgent = new PRScanAgent(mockPR)
+				.withScanners(Collections.singleton(mockScanner))
+				.withApi(mockApi).withRuleset(mockRuleset)
+				.withBenchmarkEnabled(false).withThreads(1)
+				.withScanResultService(resultsService)
+				.withIncrementalScan(10);
+		BDDMockito.when(mockApi.testConnectionForPullRequest(mockPR)).thenReturn(true);
+		BDDMockito.when(mockApi.getChangedFilesForPullRequest(mockPR))
+				.thenReturn(Arrays.asList("src/main/Foo.java", "test/FooTest.java", "logo.png"));
+		BDDMockito.when(mockApi.downloadFileForPullRequest(BDDMockito.eq(mockPR),
+				BDDMockito.anyString(), BDDMockito.any())).thenAnswer(i -> {
+					String file = i.getArgument(1);
+					if (file.equals("src/main/Foo.java") || file.equals("pom.xml")) {
+						Path target = ((Path) i.getArgument(2)).resolve(file);
+						Files.createDirectories(target.getParent());
+						Files.write(target, new byte[4]);
+						return true;
+					}
+					return false;
+				});
+
+		scanAgent.initialize();
+		Path wd = scanAgent.getWorkingDirectory();
+		Assertions.assertTrue(Files.exists(wd.resolve("src/main/Foo.java")));
+		Assertions.assertTrue(Files.exists(wd.resolve("pom.xml")));
+		BDDMockito.verify(mockApi).downloadFileForPullRequest(mockPR, "src/main/pom.xml", wd);
+		BDDMockito.verify(mockApi).downloadFileForPullRequest(mockPR, "src/package.json", wd);
+		BDDMockito.verify(mockApi, BDDMockito.never())
+				.downloadFileForPullRequest(mockPR, "test/FooTest.java", wd);
+		BDDMockito.verify(mockApi, BDDMockito.never())
+				.downloadFileForPullRequest(mockPR, "logo.png", wd);
+		BDDMockito.verify(mockApi, BDDMockito.never()).downloadSourceForPullRequest(mockPR, wd);
+	}
+
+	@Test
+	public void testCollectChangedFilesTooMany() throws ScanInitializationException, IOException {
+		PRScanAgent scanAgent = new PRScanAgent(mockPR)
+				.withScanners(Collections.singleton(mockScanner))
+				.withApi(mockApi).withRuleset(mockRuleset)
+				.withBenchmarkEnabled(false).withThreads(1)
+				.withScanResultService(resultsService)
+				.withIncrementalScan(1);
+		BDDMockito.when(mockApi.testConnectionForPullRequest(mockPR)).thenReturn(true);
+		BDDMockito.when(mockApi.getChangedFilesForPullRequest(mockPR))
+				.thenReturn(Arrays.asList("Foo.java", "Bar.java"));
+
+		scanAgent.initialize();
+		BDDMockito.verify(mockApi).downloadSourceForPullRequest(mockPR,
+				scanAgent.getWorkingDirectory());
+		BDDMockito.verify(mockApi, BDDMockito.never()).downloadFileForPullRequest(BDDMockito.any(),
+				BDDMockito.any(), BDDMockito.any());
+	}
+
+	@Test
+	public void testCollectChangedFilesException()
+			throws ScanInitializationException, IOException {
+		PRScanAgent scanAgent = new PRScanAgent(mockPR)
+				.withScanners(Collections.singleton(mockScanner))
+				.withApi(mockApi).withRuleset(mockRuleset)
+				.withBenchmarkEnabled(false).withThreads(1)
+				.withScanResultService(resultsService)
+				.withIncrementalScan(10);
+		BDDMockito.when(mockApi.testConnectionForPullRequest(mockPR)).thenReturn(true);
+		BDDMockito.when(mockApi.getChangedFilesForPullRequest(mockPR))
+				.thenThrow(IOException.class);
+
+		scanAgent.initialize();
+		BDDMockito.verify(mockApi).downloadSourceForPullRequest(mockPR,
+				scanAgent.getWorkingDirectory());
+	}
+
+	@Test
+	public void testCollectChangedFilesPartialFailure()
+			throws ScanInitializationException, IOException {
+		PRScanAgent scanAgent = new PRScanAgent(mockPR)
+				.withScanners(Collections.singleton(mockScanner))
+				.withApi(mockApi).withRuleset(mockRuleset)
+				.withBenchmarkEnabled(false).withThreads(1)
+				.withScanResultService(resultsService)
+				.withIncrementalScan(10);
+		BDDMockito.when(mockApi.testConnectionForPullRequest(mockPR)).thenReturn(true);
+		BDDMockito.when(mockApi.getChangedFilesForPullRequest(mockPR))
+				.thenReturn(Arrays.asList("src/Foo.java", "src/Bar.java"));
+		BDDMockito.when(mockApi.downloadFileForPullRequest(BDDMockito.eq(mockPR),
+				BDDMockito.anyString(), BDDMockito.any())).thenAnswer(i -> {
+					String file = i.getArgument(1);
+					if (file.equals("src/Foo.java")) {
+						Path target = ((Path) i.getArgument(2)).resolve(file);
+						Files.createDirectories(target.getParent());
+						Files.write(target, new byte[4]);
+						return true;
+					}
+					throw new IOException();
+				});
+
+		scanAgent.initialize();
+		Path wd = scanAgent.getWorkingDirectory();
+		Assertions.assertFalse(Files.exists(wd.resolve("src/Foo.java")));
+		BDDMockito.verify(mockApi).downloadSourceForPullRequest(mockPR, wd);
+	}
+
+	@Test
+	public void testReport() throws IOException {
 		PRScanAgent scanAgent = new PRScanAgent(mockPR)
 				.withScanners(Collections.singleton(mockScanner))
 				.withApi(mockApi).withRuleset(mockRuleset)
@@ -185,8 +288,8 @@ public class PRScanAgentTest {
 		BDDMockito.when(mockRuleset.getBlockingLevel()).thenReturn(severity);
 
 		DiffFile diff = BDDMockito.mock(DiffFile.class);
-		BDDMockito.when(mockApi.getGitDiffFile(BDDMockito.any(), BDDMockito.any()))
-				.thenReturn(diff);
+		BDDMockito.when(mockApi.getGitDiffFiles(mockPR))
+				.thenReturn(Collections.singletonMap(fileName, diff));
 		BDDMockito.when(diff.hasDiffs()).thenReturn(true);
 
 		List<CodeScanReport> reports = Arrays.asList(report);
@@ -204,7 +307,7 @@ public class PRScanAgentTest {
 	}
 
 	@Test
-	public void testReportBlockingAndErrors() {
+	public void testReportBlockingAndErrors() throws IOException {
 		PRScanAgent scanAgent = new PRScanAgent(mockPR)
 				.withScanners(Collections.singleton(mockScanner))
 				.withApi(mockApi).withRuleset(mockRuleset)
@@ -232,6 +335,7 @@ public class PRScanAgentTest {
 		BDDMockito.when(mockRuleset.getBlockingLevel()).thenReturn(severity);
 
 		DiffFile diff = BDDMockito.mock(DiffFile.class);
+		BDDMockito.when(mockApi.getGitDiffFiles(mockPR)).thenThrow(IOException.class);
 		BDDMockito.when(mockApi.getGitDiffFile(BDDMockito.any(), BDDMockito.any()))
 				.thenReturn(diff);
 		BDDMockito.when(diff.hasDiffs()).thenReturn(true);
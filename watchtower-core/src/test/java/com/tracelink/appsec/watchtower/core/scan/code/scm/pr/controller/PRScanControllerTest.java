@@ -26,6 +26,8 @@ import com.tracelink.appsec.watchtower.core.exception.ScanRejectedException;
 import com.tracelink.appsec.watchtower.core.mvc.WatchtowerModelAndView;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiType;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.api.IScmApi;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.api.bb.BBCloudClient;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.api.bb.BBCloudIntegrationEntity;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.PullRequest;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.entity.PullRequestScanEntity;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.service.PRScanResultService;
@@ -52,6 +54,7 @@ public class PRScanControllerTest {
 	public void testScanGet() throws Exception {
 		long inQueue = 1L;
 		long active = 2L;
+		int waiting = 3;
 		boolean paused = false;
 		boolean quiesced = false;
 		List<PullRequestScanEntity> sri = new ArrayList<>();
@@ -59,6 +62,7 @@ public class PRScanControllerTest {
 		BDDMockito.when(mockScanService.getTaskNumInQueue())
 				.thenReturn(inQueue);
 		BDDMockito.when(mockScanService.getTaskNumActive()).thenReturn(active);
+		BDDMockito.when(mockScanService.getWaitingScanCount()).thenReturn(waiting);
 		BDDMockito.when(mockScanService.isPaused()).thenReturn(paused);
 		BDDMockito.when(mockScanService.isQuiesced()).thenReturn(quiesced);
 		BDDMockito.when(mockScanResultService.getLastScans(BDDMockito.anyInt())).thenReturn(sri);
@@ -69,6 +73,10 @@ public class PRScanControllerTest {
 						Matchers.is(inQueue)))
 				.andExpect(MockMvcResultMatchers.model().attribute("numScansInProgress",
 						Matchers.is(active)))
+				.andExpect(MockMvcResultMatchers.model().attribute("numScansWaiting",
+						Matchers.is(waiting)))
+				.andExpect(MockMvcResultMatchers.model().attribute("bitbucketClients",
+						Matchers.is(BBCloudClient.getClients())))
 				.andExpect(MockMvcResultMatchers.model().attribute("scanStatePaused",
 						Matchers.is(paused)))
 				.andExpect(MockMvcResultMatchers.model().attribute("scanStateQuiesced",
@@ -77,6 +85,22 @@ public class PRScanControllerTest {
 						MockMvcResultMatchers.model().attribute("lastScans", Matchers.is(sri)));
 	}
 
+	@Test
+	@WithMockUser(authorities = {CorePrivilege.SCAN_SUBMIT_NAME})
+	public void testScanGetShowsBitbucketClients() throws Exception {
+		BBCloudIntegrationEntity entity = BDDMockito.mock(BBCloudIntegrationEntity.class);
+		BDDMockito.when(entity.getApiLabel()).thenReturn("bbLabel");
+		BBCloudClient.forEntity(entity);
+		try {
+			mockMvc.perform(MockMvcRequestBuilders.get("/scan"))
+					.andExpect(MockMvcResultMatchers.status().is2xxSuccessful())
+					.andExpect(MockMvcResultMatchers.content().string(Matchers.containsString(
+							"bbLabel: 0.0 ms latency, 0.0 ms queued, 0 rate limited, 0 shared")));
+		} finally {
+			BBCloudClient.evict("bbLabel");
+		}
+	}
+
 	///////////////////
 	// Post scan
 	///////////////////
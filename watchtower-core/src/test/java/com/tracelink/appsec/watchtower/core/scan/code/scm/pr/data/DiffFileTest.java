@@ -2,6 +2,7 @@ package com.tracelink.appsec.watchtower.core.scan.code.scm.pr.data;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Assertions;
@@ -32,4 +33,59 @@ public class DiffFileTest {
         Assertions.assertEquals(true, diff.isLineChanged(1));
         Assertions.assertEquals(false, diff.isLineChanged(2));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDiffHunks() throws IOException {
+        StringBuilder file = new StringBuilder();
+        file.append("@@ -1,2 +1,2 @@\n");
+        file.append(" first\n");
+        file.append("+second\n");
+        file.append("@@ -10,2 +20,3 @@ context\n");
+        file.append(" twenty\n");
+        file.append("-removed\n");
+        file.append("+twentyone\n");
+        file.append("\\ No newline at end of file\n");
+        DiffFile diff = new DiffFile("", "");
+        diff.parseDiff(IOUtils.toInputStream(file.toString(), Charset.defaultCharset()));
+        Assertions.assertTrue(diff.isLineExisting(1));
+        Assertions.assertTrue(diff.isLineChanged(2));
+        Assertions.assertTrue(diff.isLineExisting(20));
+        Assertions.assertTrue(diff.isLineChanged(21));
+        Assertions.assertFalse(diff.isLineChanged(22));
+        Assertions.assertFalse(diff.isLineExisting(3));
+        Assertions.assertFalse(diff.isLineChanged(-4));
+    }
+
+    @Test
+    public void testParseDiffs() throws IOException {
+        StringBuilder pr = new StringBuilder();
+        pr.append("diff --git a/src/A.java b/src/A.java\n");
+        pr.append("index 1234567..89abcde 100644\n");
+        pr.append("--- a/src/A.java\n");
+        pr.append("+++ b/src/A.java\n");
+        pr.append("@@ -1,2 +1,2 @@\n");
+        pr.append(" keep\n");
+        pr.append("+++ added line that looks like a header\n");
+        pr.append("diff --git a/Gone.java b/Gone.java\n");
+        pr.append("deleted file mode 100644\n");
+        pr.append("--- a/Gone.java\n");
+        pr.append("+++ /dev/null\n");
+        pr.append("@@ -1 +0,0 @@\n");
+        pr.append("-gone\n");
+        pr.append("diff --git a/New.java b/New.java\n");
+        pr.append("new file mode 100644\n");
+        pr.append("--- /dev/null\n");
+        pr.append("+++ b/New.java\n");
+        pr.append("@@ -0,0 +1 @@\n");
+        pr.append("+new\n");
+        Map<String, DiffFile> diffs = DiffFile.parseDiffs(
+                IOUtils.toInputStream(pr.toString(), Charset.defaultCharset()), "3");
+        Assertions.assertEquals(2, diffs.size());
+        DiffFile a = diffs.get("src/A.java");
+        Assertions.assertEquals("3", a.getDiffId());
+        Assertions.assertTrue(a.isLineExisting(1));
+        Assertions.assertTrue(a.isLineChanged(2));
+        Assertions.assertTrue(diffs.get("New.java").isLineChanged(1));
+        Assertions.assertFalse(diffs.containsKey("Gone.java"));
+    }
+}
@@ -5,6 +5,8 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,16 +19,25 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.mockito.BDDMockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import com.tracelink.appsec.watchtower.core.logging.CoreLogWatchExtension;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupService;
+import com.tracelink.appsec.watchtower.core.rule.RuleGuidance;
 import com.tracelink.appsec.watchtower.core.rule.RulePriority;
 import com.tracelink.appsec.watchtower.core.rule.RuleService;
+import com.tracelink.appsec.watchtower.core.scan.ScanResultCursor;
+import com.tracelink.appsec.watchtower.core.scan.ScanResultPage;
 import com.tracelink.appsec.watchtower.core.scan.ScanStatus;
+import com.tracelink.appsec.watchtower.core.scan.ViolationBatchWriter;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiIntegrationService;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiType;
+import com.tracelink.appsec.watchtower.core.scan.code.CodeScanType;
+import com.tracelink.appsec.watchtower.core.scan.code.CodeViolationRow;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.PullRequest;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.PullRequestState;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.PullRequestTest;
@@ -38,6 +49,7 @@ import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.repository.PRScanRe
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.repository.PRViolationRepository;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRResultFilter;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRScanResult;
+import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRScanResultHeader;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.result.PRScanResultViolation;
 import com.tracelink.appsec.watchtower.core.scan.repository.RepositoryRepository;
 
@@ -64,6 +76,15 @@ public class PRScanResultServiceTest {
 	@MockBean
 	private ApiIntegrationService mockApiService;
 
+	@MockBean
+	private MetricsRollupService mockRollupService;
+
+	@MockBean
+	private ViolationBatchWriter mockBatchWriter;
+
+	@MockBean
+	private PlatformTransactionManager mockTransactionManager;
+
 	@RegisterExtension
 	public CoreLogWatchExtension logWatcher =
 			CoreLogWatchExtension.forClass(PRScanResultService.class);
@@ -72,7 +93,8 @@ public class PRScanResultServiceTest {
 	public void setup() {
 		this.scanResultService =
 				new PRScanResultService(mockPrRepo, mockRepoRepo, mockScanRepo, mockVioRepo,
-						mockRuleService, mockApiService);
+						mockRuleService, mockApiService, mockRollupService, mockBatchWriter,
+						mockTransactionManager);
 	}
 
 	@Test
@@ -116,7 +138,39 @@ public class PRScanResultServiceTest {
 
 		BDDMockito.verify(mockPrRepo, BDDMockito.times(2))
 				.saveAndFlush(BDDMockito.any(PullRequestContainerEntity.class));
-		BDDMockito.verify(mockVioRepo).save(BDDMockito.any());
+		BDDMockito.verify(mockBatchWriter).write(BDDMockito.anyString(),
+				BDDMockito.eq(violations), BDDMockito.any());
+		BDDMockito.verify(mockTransactionManager).commit(BDDMockito.any());
+		BDDMockito.verify(mockVioRepo, BDDMockito.never()).save(BDDMockito.any());
+		BDDMockito.verify(mockRollupService).recordScan(CodeScanType.PULL_REQUEST, mockScanEntity,
+				violations);
+	}
+
+	@Test
+	public void testSaveViolationsFail() {
+		List<PullRequestViolationEntity> violations = new ArrayList<>();
+		violations.add(makeMockVioEntity("violation", false, "foo/bar.java", 1,
+				RulePriority.HIGH, true));
+
+		PullRequest mockPR = BDDMockito.mock(PullRequest.class);
+		BDDMockito.when(mockPR.getApiLabel()).thenReturn("label");
+		BDDMockito.when(mockPR.getState()).thenReturn(PullRequestState.ACTIVE);
+
+		BDDMockito.when(mockPrRepo.saveAndFlush(BDDMockito.any(PullRequestContainerEntity.class)))
+				.thenAnswer(e -> e.getArgument(0));
+		BDDMockito.when(mockScanRepo.saveAndFlush(BDDMockito.any(PullRequestScanEntity.class)))
+				.thenAnswer(e -> e.getArgument(0));
+		BDDMockito.doThrow(new DataIntegrityViolationException("violation"))
+				.when(mockBatchWriter).write(BDDMockito.anyString(), BDDMockito.any(),
+						BDDMockito.any());
+
+		Assertions.assertThrows(DataIntegrityViolationException.class,
+				() -> scanResultService.savePullRequestScan(mockPR, 0, violations,
+						new ArrayList<>()));
+		BDDMockito.verify(mockTransactionManager).rollback(BDDMockito.any());
+		BDDMockito.verify(mockTransactionManager, BDDMockito.never()).commit(BDDMockito.any());
+		BDDMockito.verify(mockRollupService, BDDMockito.never()).recordScan(BDDMockito.any(),
+				BDDMockito.any(), BDDMockito.any());
 	}
 
 	@Test
@@ -226,38 +280,58 @@ public class PRScanResultServiceTest {
 	}
 
 	@Test
-	public void testGetScanWithFilters() throws Exception {
+	public void testGetScanResultForScanIdRuleGuidance() throws Exception {
 		String vioName = "violation";
-		boolean blocking = false;
-		String fileName = "foo/bar.java";
-		int lineNum = 1;
+		String ruleMessage = "ruleMessage";
 		RulePriority severity = RulePriority.HIGH;
-		boolean isNewViolation = true;
 
-		PullRequestViolationEntity ve = makeMockVioEntity(vioName, blocking, fileName, lineNum,
-				severity, isNewViolation);
+		PullRequestViolationEntity ve1 =
+				makeMockVioEntity(vioName, false, "foo/bar.java", 1, severity, true);
+		PullRequestViolationEntity ve2 =
+				makeMockVioEntity(vioName, false, "foo/baz.java", 2, severity, true);
+
+		PullRequestScanEntity se =
+				makeMockScanEntity(1L, 1L, 100L, 1000L, ScanStatus.DONE, "", ve1, ve2);
+		makeMockContainerEntity("123", "repo", "author", 1000L,
+				ApiType.BITBUCKET_CLOUD.getTypeName(), se);
+		BDDMockito.when(mockScanRepo.findById(BDDMockito.any())).thenReturn(Optional.of(se));
+		BDDMockito.when(mockRuleService.getRuleGuidance(BDDMockito.anyCollection()))
+				.thenReturn(Collections.singletonMap(vioName,
+						new RuleGuidance(vioName, ruleMessage, "")));
 
+		PRScanResult result = this.scanResultService.getScanResultForScanId("1");
+
+		Assertions.assertEquals(2, result.getViolations().size());
+		for (PRScanResultViolation violation : result.getViolations()) {
+			Assertions.assertEquals(ruleMessage, violation.getMessage());
+		}
+		// guidance for all violations is loaded at once
+		BDDMockito.verify(mockRuleService, BDDMockito.times(1))
+				.getRuleGuidance(Collections.singleton(vioName));
+		BDDMockito.verify(mockRuleService, BDDMockito.never()).getRule(BDDMockito.anyString());
+	}
+
+	@Test
+	public void testGetScanWithFilters() throws Exception {
 		long id = 1L;
 		String prId = "123";
 		String author = "author";
-		long submitDate = 1L;
-		long startDate = 100L;
 		long endDate = 1000L;
 		String apiType = ApiType.BITBUCKET_CLOUD.getTypeName();
 		String repoName = "repo";
 
-		PullRequestScanEntity se =
-				makeMockScanEntity(id, submitDate, startDate, endDate, ScanStatus.DONE, "", ve);
-
-		PullRequestContainerEntity ce =
-				makeMockContainerEntity(prId, repoName, author, endDate, apiType, se);
-
-		BDDMockito.when(mockScanRepo.findAll(BDDMockito.any(PageRequest.class)))
-				.thenReturn(new PageImpl<>(Arrays.asList(se)));
-		BDDMockito.when(mockPrRepo.findByResolvedFalse(BDDMockito.any(PageRequest.class)))
-				.thenReturn(new PageImpl<>(Arrays.asList(ce)));
-		BDDMockito.when(mockVioRepo.findAllNonMCRGroupByScan(BDDMockito.any(PageRequest.class)))
-				.thenReturn(new PageImpl<>(Arrays.asList(se)));
+		PRScanResultHeader header =
+				new PRScanResultHeader(id, endDate, apiType, repoName, prId, author, 3L);
+
+		BDDMockito.when(mockScanRepo.findHeaders(BDDMockito.eq(Long.MAX_VALUE),
+				BDDMockito.eq(Long.MAX_VALUE), BDDMockito.any(PageRequest.class)))
+				.thenReturn(Arrays.asList(header));
+		BDDMockito.when(mockScanRepo.findLatestUnresolvedHeaders(BDDMockito.eq(Long.MAX_VALUE),
+				BDDMockito.eq(Long.MAX_VALUE), BDDMockito.any(PageRequest.class)))
+				.thenReturn(Arrays.asList(header));
+		BDDMockito.when(mockScanRepo.findHeadersWithViolations(BDDMockito.eq(Long.MAX_VALUE),
+				BDDMockito.eq(Long.MAX_VALUE), BDDMockito.any(PageRequest.class)))
+				.thenReturn(Arrays.asList(header));
 		List<PRScanResult> allResult =
 				this.scanResultService.getScanResultsWithFilters(PRResultFilter.ALL, 10, 0);
 		List<PRScanResult> unresResult =
@@ -276,15 +350,88 @@ public class PRScanResultServiceTest {
 			Assertions.assertEquals(author, result.getAuthor());
 			Assertions.assertEquals(apiType, result.getApiLabel());
 			Assertions.assertEquals(repoName, result.getRepoName());
-			Assertions.assertEquals(1, result.getViolations().size());
-			PRScanResultViolation violation = result.getViolations().get(0);
-			Assertions.assertEquals(vioName, violation.getViolationName());
-			Assertions.assertEquals(lineNum, violation.getLineNumber());
-			Assertions.assertEquals(severity.getName(), violation.getSeverity());
-			Assertions.assertEquals(fileName, violation.getFileName());
-			Assertions.assertEquals("Rule guidance not found", violation.getMessage());
+			Assertions.assertEquals(3L, result.getViolationsFound());
+			Assertions.assertNull(result.getViolations());
 		}
+		// the integration is looked up once per page
+		BDDMockito.verify(mockApiService, BDDMockito.times(3)).findByLabel(apiType);
+	}
 
+	@Test
+	public void testGetScanResultsAfter() throws Exception {
+		PRScanResultHeader first =
+				new PRScanResultHeader(5L, 2000L, "label", "repo", "1", "author", 0L);
+		PRScanResultHeader second =
+				new PRScanResultHeader(4L, 1000L, "label", "repo", "2", "author", 1L);
+		BDDMockito.when(mockScanRepo.findHeaders(BDDMockito.eq(3000L), BDDMockito.eq(6L),
+				BDDMockito.any(PageRequest.class))).thenReturn(Arrays.asList(first, second));
+		BDDMockito.when(mockScanRepo.findHeaders(BDDMockito.eq(1000L), BDDMockito.eq(4L),
+				BDDMockito.any(PageRequest.class))).thenReturn(Collections.emptyList());
+
+		ScanResultPage<PRScanResult> page = scanResultService
+				.getScanResultsAfter(PRResultFilter.ALL, 2, new ScanResultCursor(3000L, 6L));
+		Assertions.assertEquals(2, page.getResults().size());
+		Assertions.assertEquals(5L, page.getResults().get(0).getId());
+		Assertions.assertEquals(4L, page.getResults().get(1).getId());
+		Assertions.assertEquals("1000-4", page.getNext().toString());
+
+		ScanResultPage<PRScanResult> last =
+				scanResultService.getScanResultsAfter(PRResultFilter.ALL, 2, page.getNext());
+		Assertions.assertTrue(last.getResults().isEmpty());
+		Assertions.assertNull(last.getNext());
+	}
+
+	@Test
+	public void testGetScanResultsAfterPartialPage() throws Exception {
+		PRScanResultHeader header =
+				new PRScanResultHeader(5L, 2000L, "label", "repo", "1", "author", 0L);
+		BDDMockito.when(mockScanRepo.findHeadersWithViolations(BDDMockito.anyLong(),
+				BDDMockito.anyLong(), BDDMockito.any(PageRequest.class)))
+				.thenReturn(Arrays.asList(header));
+
+		ScanResultPage<PRScanResult> page = scanResultService
+				.getScanResultsAfter(PRResultFilter.VIOLATIONS, 2, ScanResultCursor.FIRST);
+		Assertions.assertEquals(1, page.getResults().size());
+		Assertions.assertNull(page.getNext());
+	}
+
+	@Test
+	public void testStreamViolations() throws Exception {
+		long scanId = 1L;
+		int total = PRScanResultService.VIOLATION_CHUNK_SIZE + 1;
+		List<CodeViolationRow> rows = new ArrayList<>();
+		for (int i = 1; i <= total; i++) {
+			rows.add(new CodeViolationRow(i, "violation" + (i % 2), i, "file", RulePriority.HIGH));
+		}
+		BDDMockito.when(mockVioRepo.findRowsByScan(BDDMockito.eq(scanId), BDDMockito.eq(0L),
+				BDDMockito.any(PageRequest.class)))
+				.thenReturn(rows.subList(0, PRScanResultService.VIOLATION_CHUNK_SIZE));
+		BDDMockito.when(mockVioRepo.findRowsByScan(BDDMockito.eq(scanId),
+				BDDMockito.eq((long) PRScanResultService.VIOLATION_CHUNK_SIZE),
+				BDDMockito.any(PageRequest.class)))
+				.thenReturn(rows.subList(PRScanResultService.VIOLATION_CHUNK_SIZE, total));
+		BDDMockito.when(mockRuleService.getRuleGuidance(BDDMockito.anyCollection()))
+				.thenReturn(Collections.singletonMap("violation1",
+						new RuleGuidance("violation1", "message", "url")));
+
+		List<PRScanResultViolation> violations = new ArrayList<>();
+		scanResultService.streamViolations(scanId, violations::add);
+
+		Assertions.assertEquals(total, violations.size());
+		Assertions.assertEquals("message", violations.get(0).getMessage());
+		Assertions.assertEquals("Rule guidance not found", violations.get(1).getMessage());
+		Assertions.assertEquals(total, violations.get(total - 1).getLineNumber());
+		// guidance is looked up once for the names of the first chunk, and not again
+		BDDMockito.verify(mockRuleService).getRuleGuidance(
+				new HashSet<>(Arrays.asList("violation0", "violation1")));
+		BDDMockito.verify(mockRuleService).getRuleGuidance(Collections.emptySet());
+	}
+
+	@Test
+	public void testHasScan() throws Exception {
+		BDDMockito.when(mockScanRepo.existsById(1L)).thenReturn(true);
+		Assertions.assertTrue(scanResultService.hasScan(1L));
+		Assertions.assertFalse(scanResultService.hasScan(2L));
 	}
 
 	private PullRequestContainerEntity makeMockContainerEntity(String prId, String repo,
@@ -1,8 +1,12 @@
 package com.tracelink.appsec.watchtower.core.scan.code.scm.pr.service;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -25,13 +29,16 @@ import com.tracelink.appsec.watchtower.core.logging.LogsService;
 import com.tracelink.appsec.watchtower.core.mock.MockRuleEntity;
 import com.tracelink.appsec.watchtower.core.module.scanner.ICodeScanner;
 import com.tracelink.appsec.watchtower.core.rule.RuleDto;
+import com.tracelink.appsec.watchtower.core.ruleset.CompiledRulesetCache;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetEntity;
 import com.tracelink.appsec.watchtower.core.scan.ScanRegistrationService;
+import com.tracelink.appsec.watchtower.core.scan.ScanStage;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiIntegrationEntity;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiIntegrationException;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiIntegrationService;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanConfig;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanType;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.ScanResultCache;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.api.IScmApi;
 import com.tracelink.appsec.watchtower.core.scan.code.scm.pr.PullRequest;
@@ -73,8 +80,9 @@ public class PRScanningServiceTest {
 		BDDMockito.when(mockLogsService.getLogsLevel()).thenReturn(Level.INFO);
 		this.scanningService =
 				new PRScanningService(mockLogsService, mockRepoService,
-						mockScanResultService, mockScanRegistrationService, mockApiService, 2,
-						false);
+						mockScanResultService, mockScanRegistrationService, mockApiService,
+						new ScanResultCache(0, ""), new CompiledRulesetCache(), 2, false, false,
+						0L, 0, 1, 1, 1, 3);
 	}
 
 	@Test
@@ -148,6 +156,155 @@ public class PRScanningServiceTest {
 	}
 
 
+	@Test
+	public void testDuplicateScans() throws Exception {
+		setupDefaultMocks();
+		IScmApi mockApi = BDDMockito.mock(IScmApi.class);
+		BDDMockito.when(mockApi.updatePRData(BDDMockito.any())).thenAnswer(e -> e.getArgument(0));
+		BDDMockito.when(mockScanRegistrationService.hasCodeScanners()).thenReturn(true);
+		BDDMockito.when(mockScanRegistrationService.getCodeScanners())
+				.thenReturn(Collections.singleton(new MockScanner()));
+		ApiIntegrationEntity mockEntity = BDDMockito.mock(ApiIntegrationEntity.class);
+		BDDMockito.when(mockEntity.createApi()).thenReturn(mockApi);
+		BDDMockito.when(mockApiService.findByLabel(BDDMockito.any())).thenReturn(mockEntity);
+
+		PullRequest pr = new PullRequest("label");
+		pr.setRepoName("repo");
+		pr.setPrId("1");
+		pr.setCommitHash("a");
+		pr.setUpdateTime(1L);
+		PullRequest newer = new PullRequest("label");
+		newer.setRepoName("repo");
+		newer.setPrId("1");
+		newer.setCommitHash("b");
+		newer.setUpdateTime(2L);
+
+		scanningService.pauseExecution();
+		scanningService.doPullRequestScan(pr);
+		scanningService.doPullRequestScan(pr);
+		scanningService.doPullRequestScan(newer);
+		scanningService.resumeExecution();
+
+		BDDMockito.verify(mockApi, BDDMockito.timeout(5000)).testConnectionForPullRequest(newer);
+		long deadline = System.currentTimeMillis() + 5000;
+		while ((scanningService.getTaskNumActive() > 0 || scanningService.getTaskNumInQueue() > 0)
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		BDDMockito.verify(mockApi, BDDMockito.never()).testConnectionForPullRequest(pr);
+		MatcherAssert.assertThat(logWatcher.getMessages(), Matchers.hasItems(
+				"PR: repo-1 skipped as a scan of commit a is already queued or running.",
+				"PR: repo-1 scan of commit a cancelled for newer commit b"));
+	}
+
+	@Test
+	public void testOutOfOrderScanSkipped() throws Exception {
+		setupDefaultMocks();
+		IScmApi mockApi = BDDMockito.mock(IScmApi.class);
+		BDDMockito.when(mockApi.updatePRData(BDDMockito.any())).thenAnswer(e -> e.getArgument(0));
+		BDDMockito.when(mockScanRegistrationService.hasCodeScanners()).thenReturn(true);
+		BDDMockito.when(mockScanRegistrationService.getCodeScanners())
+				.thenReturn(Collections.singleton(new MockScanner()));
+		ApiIntegrationEntity mockEntity = BDDMockito.mock(ApiIntegrationEntity.class);
+		BDDMockito.when(mockEntity.createApi()).thenReturn(mockApi);
+		BDDMockito.when(mockApiService.findByLabel(BDDMockito.any())).thenReturn(mockEntity);
+
+		PullRequest newer = new PullRequest("label");
+		newer.setRepoName("repo");
+		newer.setPrId("1");
+		newer.setCommitHash("b");
+		newer.setUpdateTime(2L);
+		PullRequest older = new PullRequest("label");
+		older.setRepoName("repo");
+		older.setPrId("1");
+		older.setCommitHash("a");
+		older.setUpdateTime(1L);
+
+		scanningService.pauseExecution();
+		scanningService.doPullRequestScan(newer);
+		scanningService.doPullRequestScan(older);
+		scanningService.resumeExecution();
+
+		BDDMockito.verify(mockApi, BDDMockito.timeout(5000)).testConnectionForPullRequest(newer);
+		BDDMockito.verify(mockApi, BDDMockito.never()).testConnectionForPullRequest(older);
+		MatcherAssert.assertThat(logWatcher.getMessages(), Matchers.hasItem(
+				"PR: repo-1 skipped as commit a is not newer than commit b"
+						+ " of the scan already queued or running."));
+	}
+
+	@Test
+	public void testMaxScansLimitFetchedScans() throws Exception {
+		setupDefaultMocks();
+		IScmApi mockApi = BDDMockito.mock(IScmApi.class);
+		BDDMockito.when(mockApi.updatePRData(BDDMockito.any())).thenAnswer(e -> e.getArgument(0));
+		BDDMockito.when(mockApi.testConnectionForPullRequest(BDDMockito.any())).thenReturn(true);
+		BDDMockito.when(mockScanRegistrationService.hasCodeScanners()).thenReturn(true);
+		BDDMockito.when(mockScanRegistrationService.getCodeScanners())
+				.thenReturn(Collections.singleton(new MockScanner()));
+		ApiIntegrationEntity mockEntity = BDDMockito.mock(ApiIntegrationEntity.class);
+		BDDMockito.when(mockEntity.createApi()).thenReturn(mockApi);
+		BDDMockito.when(mockApiService.findByLabel(BDDMockito.any())).thenReturn(mockEntity);
+
+		// count the working directories holding fetched source each time a source is fetched
+		List<Path> fetched = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger maxFetched = new AtomicInteger();
+		BDDMockito.doAnswer(e -> {
+			Path workingDirectory = e.getArgument(1);
+			Files.write(workingDirectory.resolve("source.txt"), new byte[4]);
+			fetched.add(workingDirectory);
+			synchronized (fetched) {
+				maxFetched.accumulateAndGet((int) fetched.stream()
+						.filter(dir -> Files.exists(dir.resolve("source.txt"))).count(),
+						Math::max);
+			}
+			return null;
+		}).when(mockApi).downloadSourceForPullRequest(BDDMockito.any(), BDDMockito.any());
+		// hold each scan in the persist stage
+		BDDMockito.doAnswer(e -> {
+			Thread.sleep(100);
+			return null;
+		}).when(mockScanResultService).savePullRequestScan(BDDMockito.any(), BDDMockito.anyLong(),
+				BDDMockito.any(), BDDMockito.any());
+
+		int scans = 6;
+		for (int i = 0; i < scans; i++) {
+			PullRequest pr = new PullRequest("label");
+			pr.setRepoName("repo");
+			pr.setPrId(String.valueOf(i));
+			pr.setCommitHash("a");
+			scanningService.doPullRequestScan(pr);
+		}
+		// scans over the limit wait without taking a fetch thread
+		Assertions.assertEquals(3, scanningService.getScansInFlight());
+		Assertions.assertEquals(scans - 3, scanningService.getWaitingScanCount());
+
+		BDDMockito.verify(mockScanResultService, BDDMockito.timeout(10000).times(scans))
+				.savePullRequestScan(BDDMockito.any(), BDDMockito.anyLong(), BDDMockito.any(),
+						BDDMockito.any());
+		Assertions.assertEquals(scans, fetched.size());
+		// the service was created with 2 fetch threads and at most 3 scans in flight
+		MatcherAssert.assertThat(maxFetched.get(), Matchers.lessThanOrEqualTo(3));
+		MatcherAssert.assertThat(maxFetched.get(), Matchers.greaterThan(2));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (scanningService.getScansInFlight() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assertions.assertEquals(0, scanningService.getScansInFlight());
+		Assertions.assertEquals(0, scanningService.getWaitingScanCount());
+	}
+
+	@Test
+	public void testStageExecutors() {
+		Assertions.assertSame(scanningService.getExecutor(),
+				scanningService.getStageExecutor(ScanStage.FETCH));
+		Assertions.assertNotSame(scanningService.getExecutor(),
+				scanningService.getStageExecutor(ScanStage.SCAN));
+		MatcherAssert.assertThat(scanningService.getStageTaskNumInQueue().keySet(),
+				Matchers.contains(ScanStage.values()));
+		Assertions.assertEquals(0L,
+				scanningService.getStageTaskNumActive().get(ScanStage.PERSIST).longValue());
+	}
+
 	@Test
 	public void testShutdown() throws Exception {
 		setupDefaultMocks();
@@ -0,0 +1,86 @@
+package com.tracelink.appsec.watchtower.core.scan.code.threadpool;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.tracelink.appsec.watchtower.core.scan.code.threadpool.ScanWorkerPool.ScanLane;
+
+public class ScanWorkerPoolTest {
+
+	private static Runnable await(CountDownLatch latch) {
+		return () -> {
+			try {
+				latch.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+	}
+
+	@Test
+	public void testLanesAreServedInTurn() throws Exception {
+		ScanWorkerPool pool = new ScanWorkerPool(1);
+		CountDownLatch gate = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(4);
+		List<String> order = new CopyOnWriteArrayList<>();
+
+		ScanLane big = pool.openLane(1);
+		ScanLane small = pool.openLane(1);
+		big.execute(await(gate));
+		for (int i = 0; i < 3; i++) {
+			big.execute(() -> {
+				order.add("big");
+				done.countDown();
+			});
+		}
+		small.execute(() -> {
+			order.add("small");
+			done.countDown();
+		});
+		Assertions.assertEquals(4L, pool.getTaskNumInQueue());
+		Assertions.assertEquals(1L, pool.getTaskNumActive());
+		Assertions.assertEquals(2, pool.getScanNum());
+
+		gate.countDown();
+		Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+		// the small scan does not wait for the rest of the big scan
+		Assertions.assertEquals("small", order.get(0));
+		big.close();
+		small.close();
+		Assertions.assertEquals(0, pool.getScanNum());
+	}
+
+	@Test
+	public void testLaneConcurrencyLimit() throws Exception {
+		ScanWorkerPool pool = new ScanWorkerPool(4);
+		CountDownLatch gate = new CountDownLatch(1);
+		ScanLane lane = pool.openLane(2);
+		for (int i = 0; i < 3; i++) {
+			lane.execute(await(gate));
+		}
+		Assertions.assertEquals(2L, pool.getTaskNumActive());
+		Assertions.assertEquals(1L, pool.getTaskNumInQueue());
+		gate.countDown();
+		lane.close();
+	}
+
+	@Test
+	public void testCloseDropsQueuedTasks() throws Exception {
+		ScanWorkerPool pool = new ScanWorkerPool(1);
+		CountDownLatch gate = new CountDownLatch(1);
+		ScanLane lane = pool.openLane(1);
+		lane.execute(await(gate));
+		lane.execute(() -> Assertions.fail("Queued task should not run"));
+		lane.close();
+		Assertions.assertEquals(0L, pool.getTaskNumInQueue());
+		Assertions.assertThrows(RejectedExecutionException.class, () -> lane.execute(() -> {
+		}));
+		gate.countDown();
+	}
+}
@@ -3,12 +3,15 @@ package com.tracelink.appsec.watchtower.core.scan.code.upload;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
@@ -25,6 +28,7 @@ import com.tracelink.appsec.watchtower.core.exception.ScanInitializationExceptio
 import com.tracelink.appsec.watchtower.core.module.scanner.ICodeScanner;
 import com.tracelink.appsec.watchtower.core.rule.RulePriority;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
+import com.tracelink.appsec.watchtower.core.scan.code.FileManifest;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanViolation;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanContainerEntity;
@@ -140,6 +144,43 @@ public class UploadScanAgentTest {
 		}
 	}
 
+	@Test
+	public void testInitializeParallelUnzip() throws IOException, ScanInitializationException {
+		Path zip = Files.createTempFile(null, ".zip");
+		try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zip))) {
+			for (int i = 0; i < 20; i++) {
+				zos.putNextEntry(new ZipEntry("dir" + (i % 3) + "/file" + i + ".txt"));
+				zos.write(("text " + i).getBytes(StandardCharsets.UTF_8));
+				zos.closeEntry();
+			}
+			zos.putNextEntry(new ZipEntry("binary.bin"));
+			zos.write(new byte[2000]);
+			zos.closeEntry();
+			zos.putNextEntry(new ZipEntry("empty.txt"));
+			zos.closeEntry();
+		}
+
+		UploadScanAgent agent =
+				new UploadScanAgent(makeContainer("name", "ticket", zip))
+						.withScanners(Collections.singleton(mockScanner))
+						.withRuleset(mockRuleset)
+						.withThreads(4)
+						.withScanResultService(mockScanResultService);
+		try {
+			agent.initialize();
+			Path wd = agent.getWorkingDirectory();
+			Assertions.assertFalse(Files.exists(wd.resolve("binary.bin")));
+			Assertions.assertEquals("text 7",
+					new String(Files.readAllBytes(wd.resolve("dir1").resolve("file7.txt")),
+							StandardCharsets.UTF_8));
+
+			Assertions.assertEquals(21,
+					FileManifest.build(wd).filter(entry -> !entry.isBinary()).getEntries().size());
+		} finally {
+			agent.clean();
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test
 	public void testReport() {
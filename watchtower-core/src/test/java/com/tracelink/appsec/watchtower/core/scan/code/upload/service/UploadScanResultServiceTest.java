@@ -2,9 +2,14 @@ package com.tracelink.appsec.watchtower.core.scan.code.upload.service;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.jupiter.api.Assertions;
@@ -14,14 +19,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import com.tracelink.appsec.watchtower.core.rule.RuleEntity;
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupService;
+import com.tracelink.appsec.watchtower.core.rule.RuleGuidance;
 import com.tracelink.appsec.watchtower.core.rule.RulePriority;
 import com.tracelink.appsec.watchtower.core.rule.RuleService;
+import com.tracelink.appsec.watchtower.core.scan.ScanResultCursor;
+import com.tracelink.appsec.watchtower.core.scan.ScanResultPage;
 import com.tracelink.appsec.watchtower.core.scan.ScanStatus;
+import com.tracelink.appsec.watchtower.core.scan.ViolationBatchWriter;
+import com.tracelink.appsec.watchtower.core.scan.code.CodeScanType;
+import com.tracelink.appsec.watchtower.core.scan.code.CodeViolationRow;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.UploadScan;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanContainerEntity;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanEntity;
@@ -31,6 +43,7 @@ import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadSc
 import com.tracelink.appsec.watchtower.core.scan.code.upload.repository.UploadViolationRepository;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadResultFilter;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanResult;
+import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanResultHeader;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.result.UploadScanResultViolation;
 
 
@@ -49,13 +62,22 @@ public class UploadScanResultServiceTest {
 	@MockBean
 	private RuleService mockRuleService;
 
+	@MockBean
+	private MetricsRollupService mockRollupService;
+
+	@MockBean
+	private ViolationBatchWriter mockBatchWriter;
+
+	@MockBean
+	private PlatformTransactionManager mockTransactionManager;
+
 	private UploadScanResultService scanResultService;
 
 	@BeforeEach
 	public void setup() {
 		this.scanResultService =
 				new UploadScanResultService(mockUploadRepo, mockScanRepo, mockVioRepo,
-						mockRuleService);
+						mockRuleService, mockRollupService, mockBatchWriter, mockTransactionManager);
 	}
 
 	@Test
@@ -150,6 +172,33 @@ public class UploadScanResultServiceTest {
 
 		Assertions.assertEquals(ScanStatus.DONE, scan.getStatus());
 		Assertions.assertEquals(scan, violation.getScan());
+		BDDMockito.verify(mockBatchWriter).write(BDDMockito.anyString(),
+				BDDMockito.eq(violations), BDDMockito.any());
+		BDDMockito.verify(mockTransactionManager).commit(BDDMockito.any());
+		BDDMockito.verify(mockRollupService).recordScan(CodeScanType.UPLOAD, scan, violations);
+	}
+
+	@Test
+	public void testSaveFinalUploadScanViolationsFail() {
+		UploadScanContainerEntity container = BDDMockito.mock(UploadScanContainerEntity.class);
+		BDDMockito.when(container.getLatestUploadScan()).thenReturn(new UploadScanEntity());
+
+		BDDMockito.when(mockUploadRepo.findByTicket(BDDMockito.anyString())).thenReturn(container);
+		BDDMockito.when(mockUploadRepo.saveAndFlush(BDDMockito.any()))
+				.thenAnswer(invoke -> invoke.getArgument(0));
+		BDDMockito.when(mockScanRepo.saveAndFlush(BDDMockito.any()))
+				.thenAnswer(invoke -> invoke.getArgument(0));
+		BDDMockito.doThrow(new DataIntegrityViolationException("violation"))
+				.when(mockBatchWriter).write(BDDMockito.anyString(), BDDMockito.any(),
+						BDDMockito.any());
+
+		Assertions.assertThrows(DataIntegrityViolationException.class,
+				() -> scanResultService.saveFinalUploadScan("ticket",
+						Arrays.asList(new UploadViolationEntity())));
+		BDDMockito.verify(mockTransactionManager).rollback(BDDMockito.any());
+		BDDMockito.verify(mockTransactionManager, BDDMockito.never()).commit(BDDMockito.any());
+		BDDMockito.verify(mockRollupService, BDDMockito.never()).recordScan(BDDMockito.any(),
+				BDDMockito.any(), BDDMockito.any());
 	}
 
 	@Test
@@ -183,22 +232,25 @@ public class UploadScanResultServiceTest {
 		String error = "error";
 
 		String vioName = "vioName";
+		String otherVioName = "otherVioName";
 		int lineNum = 1;
 		RulePriority severity = RulePriority.HIGH;
 		String fileName = "fileName";
 
 		String ruleMessage = "ruleMessage";
+		String ruleUrl = "https://example.com";
 
-		RuleEntity rule = BDDMockito.mock(RuleEntity.class);
-		BDDMockito.when(rule.getMessage()).thenReturn(ruleMessage);
-		// first null, then the rule
-		BDDMockito.when(mockRuleService.getRule(BDDMockito.anyString())).thenReturn(null)
-				.thenReturn(rule);
+		// only the second violation has a rule
+		BDDMockito.when(mockRuleService.getRuleGuidance(BDDMockito.anyCollection()))
+				.thenReturn(Collections.singletonMap(otherVioName,
+						new RuleGuidance(otherVioName, ruleMessage, ruleUrl)));
 
 		UploadViolationEntity vio =
 				makeViolationEntity(vioName, lineNum, severity, fileName);
+		UploadViolationEntity otherVio =
+				makeViolationEntity(otherVioName, lineNum, severity, fileName);
 
-		UploadScanEntity scan = makeScanEntity(submitDate, endDate, status, error, vio, vio);
+		UploadScanEntity scan = makeScanEntity(submitDate, endDate, status, error, vio, otherVio);
 
 		UploadScanContainerEntity container = makeScanContainer(name, user, ticket, ruleset, scan);
 
@@ -225,11 +277,17 @@ public class UploadScanResultServiceTest {
 		Assertions.assertEquals("Rule guidance not found", vio1.getMessage());
 
 		UploadScanResultViolation vio2 = result.getViolations().get(1);
-		Assertions.assertEquals(vioName, vio2.getViolationName());
+		Assertions.assertEquals(otherVioName, vio2.getViolationName());
 		Assertions.assertEquals(lineNum, vio2.getLineNumber());
 		Assertions.assertEquals(severity.getName(), vio2.getSeverity());
 		Assertions.assertEquals(fileName, vio2.getFileName());
 		Assertions.assertEquals(ruleMessage, vio2.getMessage());
+		Assertions.assertEquals(ruleUrl, vio2.getExternalUrl());
+
+		// guidance for all violations is loaded at once
+		BDDMockito.verify(mockRuleService, BDDMockito.times(1))
+				.getRuleGuidance(new HashSet<>(Arrays.asList(vioName, otherVioName)));
+		BDDMockito.verify(mockRuleService, BDDMockito.never()).getRule(BDDMockito.anyString());
 	}
 
 
@@ -319,31 +377,24 @@ public class UploadScanResultServiceTest {
 		String ticket = "ticket";
 		String ruleset = "ruleset";
 
-		LocalDateTime submitDate = LocalDateTime.now().minus(1, ChronoUnit.HOURS);
-		LocalDateTime endDate = LocalDateTime.now();
+		long endMillis = System.currentTimeMillis();
+		long submitMillis = endMillis - 3600000L;
 		ScanStatus status = ScanStatus.DONE;
 		String error = "error";
 
-		String vioName = "vioName";
-		int lineNum = 1;
-		RulePriority severity = RulePriority.HIGH;
-		String fileName = "fileName";
+		UploadScanResultHeader header = new UploadScanResultHeader(1L, submitMillis, endMillis,
+				status, error, name, user, ticket, ruleset, 2L);
 
-		UploadViolationEntity vio =
-				makeViolationEntity(vioName, lineNum, severity, fileName);
-		UploadScanEntity scan = makeScanEntity(submitDate, endDate, status, error, vio, vio);
-		UploadScanContainerEntity container = makeScanContainer(name, user, ticket, ruleset, scan);
-
-		BDDMockito.when(scan.getContainer()).thenReturn(container);
-
-		BDDMockito.when(mockScanRepo.findAll(BDDMockito.any(PageRequest.class)))
-				.thenReturn(new PageImpl<>(Arrays.asList(scan)));
-		BDDMockito.when(mockVioRepo.findAllGroupByScan(BDDMockito.any(PageRequest.class)))
-				.thenReturn(new PageImpl<>(Arrays.asList(scan)));
-		BDDMockito
-				.when(mockScanRepo.findByStatusIn(BDDMockito.any(),
-						BDDMockito.any(PageRequest.class)))
-				.thenReturn(new PageImpl<>(Arrays.asList(scan)));
+		BDDMockito.when(mockScanRepo.findHeaders(BDDMockito.eq(Long.MAX_VALUE),
+				BDDMockito.eq(Long.MAX_VALUE), BDDMockito.any(PageRequest.class)))
+				.thenReturn(Arrays.asList(header));
+		BDDMockito.when(mockScanRepo.findHeadersWithViolations(BDDMockito.eq(Long.MAX_VALUE),
+				BDDMockito.eq(Long.MAX_VALUE), BDDMockito.any(PageRequest.class)))
+				.thenReturn(Arrays.asList(header));
+		BDDMockito.when(mockScanRepo.findHeadersByStatusIn(BDDMockito.any(),
+				BDDMockito.eq(Long.MAX_VALUE), BDDMockito.eq(Long.MAX_VALUE),
+				BDDMockito.any(PageRequest.class)))
+				.thenReturn(Arrays.asList(header));
 
 		for (UploadResultFilter filter : Arrays.asList(UploadResultFilter.ALL,
 				UploadResultFilter.VIOLATIONS, UploadResultFilter.INCOMPLETE)) {
@@ -358,16 +409,67 @@ public class UploadScanResultServiceTest {
 			Assertions.assertEquals(error, result.getErrorMessage());
 			Assertions.assertEquals(ticket, result.getTicket());
 			Assertions.assertEquals(ruleset, result.getRuleset());
-			Assertions.assertEquals(submitDate, result.getSubmitDate());
-			Assertions.assertEquals(endDate, result.getEndDate());
+			Assertions.assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli(submitMillis),
+					ZoneId.systemDefault()), result.getSubmitDate());
+			Assertions.assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli(endMillis),
+					ZoneId.systemDefault()), result.getEndDate());
 			Assertions.assertEquals(2, result.getViolationsFound());
-			UploadScanResultViolation violation = result.getViolations().get(0);
-			Assertions.assertEquals(vioName, violation.getViolationName());
-			Assertions.assertEquals(lineNum, violation.getLineNumber());
-			Assertions.assertEquals(severity.getName(), violation.getSeverity());
-			Assertions.assertEquals(fileName, violation.getFileName());
-			Assertions.assertEquals("Rule guidance not found", violation.getMessage());
+			Assertions.assertNull(result.getViolations());
+		}
+		BDDMockito.verify(mockScanRepo).findHeadersByStatusIn(
+				BDDMockito.eq(Arrays.asList(ScanStatus.FAILED, ScanStatus.IN_PROGRESS,
+						ScanStatus.NOT_STARTED)),
+				BDDMockito.anyLong(), BDDMockito.anyLong(), BDDMockito.any(PageRequest.class));
+	}
+
+	@Test
+	public void testGetScanResultsAfterNotDone() {
+		UploadScanResultHeader header = new UploadScanResultHeader(3L, 1000L, 0L,
+				ScanStatus.IN_PROGRESS, null, "name", "user", "ticket", "ruleset", 0L);
+		BDDMockito.when(mockScanRepo.findHeadersByStatusIn(BDDMockito.any(),
+				BDDMockito.eq(5000L), BDDMockito.eq(7L), BDDMockito.any(PageRequest.class)))
+				.thenReturn(Arrays.asList(header));
+
+		ScanResultPage<UploadScanResult> page = scanResultService.getScanResultsAfter(
+				UploadResultFilter.INCOMPLETE, 1, new ScanResultCursor(5000L, 7L));
+		Assertions.assertEquals(1, page.getResults().size());
+		UploadScanResult result = page.getResults().get(0);
+		Assertions.assertEquals(ScanStatus.IN_PROGRESS.getDisplayName(), result.getStatus());
+		Assertions.assertNull(result.getEndDate());
+		Assertions.assertEquals(0, result.getViolationsFound());
+		Assertions.assertEquals("0-3", page.getNext().toString());
+	}
+
+	@Test
+	public void testStreamViolations() {
+		long scanId = 1L;
+		int total = UploadScanResultService.VIOLATION_CHUNK_SIZE;
+		List<CodeViolationRow> rows = new ArrayList<>();
+		for (int i = 1; i <= total; i++) {
+			rows.add(new CodeViolationRow(i, "vioName", i, "fileName", RulePriority.LOW));
 		}
+		BDDMockito.when(mockVioRepo.findRowsByScan(BDDMockito.eq(scanId), BDDMockito.eq(0L),
+				BDDMockito.any(PageRequest.class))).thenReturn(rows);
+		BDDMockito.when(mockVioRepo.findRowsByScan(BDDMockito.eq(scanId),
+				BDDMockito.eq((long) total), BDDMockito.any(PageRequest.class)))
+				.thenReturn(Collections.emptyList());
+
+		List<UploadScanResultViolation> violations = new ArrayList<>();
+		scanResultService.streamViolations(scanId, violations::add);
+
+		Assertions.assertEquals(total, violations.size());
+		Assertions.assertEquals(RulePriority.LOW.getName(), violations.get(0).getSeverity());
+		// a full chunk means there may be more, so the next chunk is read until one is short
+		BDDMockito.verify(mockVioRepo, BDDMockito.times(2)).findRowsByScan(BDDMockito.eq(scanId),
+				BDDMockito.anyLong(), BDDMockito.any(PageRequest.class));
+	}
+
+	@Test
+	public void testFindScanIdByTicket() {
+		BDDMockito.when(mockScanRepo.findIdByTicket("ticket")).thenReturn(4L);
+		BDDMockito.when(mockScanRepo.findIdByTicket("other")).thenReturn(null);
+		Assertions.assertEquals(4L, scanResultService.findScanIdByTicket("ticket"));
+		Assertions.assertNull(scanResultService.findScanIdByTicket("other"));
 	}
 
 	private UploadViolationEntity makeViolationEntity(String vioName, int lineNum,
@@ -401,4 +503,23 @@ public class UploadScanResultServiceTest {
 		BDDMockito.when(scan.getViolations()).thenReturn(Arrays.asList(violations));
 		return scan;
 	}
+
+	@Test
+	public void testCountViolations() {
+		BDDMockito.when(mockVioRepo.countBySeverityNot(RulePriority.INFORMATIONAL))
+				.thenReturn(3L);
+		Assertions.assertEquals(3L, scanResultService.countViolations());
+	}
+
+	@Test
+	public void testGetAverageTime() {
+		BDDMockito.when(mockScanRepo.averageDuration()).thenReturn(1500.0);
+		Assertions.assertEquals(1500.0, scanResultService.getAverageTime(), 0.0);
+	}
+
+	@Test
+	public void testGetAverageTimeNoScans() {
+		BDDMockito.when(mockScanRepo.averageDuration()).thenReturn(null);
+		Assertions.assertEquals(0.0, scanResultService.getAverageTime(), 0.0);
+	}
 }
@@ -4,10 +4,14 @@ import ch.qos.logback.classic.Level;
 import com.tracelink.appsec.watchtower.core.exception.ScanRejectedException;
 import com.tracelink.appsec.watchtower.core.exception.rule.RulesetNotFoundException;
 import com.tracelink.appsec.watchtower.core.logging.LogsService;
+import com.tracelink.appsec.watchtower.core.ruleset.CompiledRulesetCache;
+import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetEntity;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetService;
 import com.tracelink.appsec.watchtower.core.scan.ScanRegistrationService;
 import com.tracelink.appsec.watchtower.core.scan.ScanStatus;
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.ScanResultCache;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.UploadScan;
 import com.tracelink.appsec.watchtower.core.scan.code.upload.entity.UploadScanContainerEntity;
 import java.io.ByteArrayInputStream;
@@ -43,12 +47,18 @@ public class UploadScanningServiceTest {
 	@MockBean
 	private UploadScanResultService mockUploadScanResultService;
 
+	@MockBean
+	private CompiledRulesetCache mockRulesetCache;
+
 	private UploadScanningService scanningService;
 
 	@BeforeEach
 	public void setup() {
 		this.scanningService = new UploadScanningService(mockLogService, mockRulesetService,
-				mockScanRegistrationService, mockUploadScanResultService, 2, false);
+				mockScanRegistrationService, mockUploadScanResultService,
+				new ScanResultCache(0, ""), mockRulesetCache, 2, false, false, 0L);
+		BDDMockito.when(mockRulesetCache.getScanPlan(BDDMockito.any()))
+				.thenReturn(new ScanPlan(new RulesetDto()));
 	}
 
 	@Test
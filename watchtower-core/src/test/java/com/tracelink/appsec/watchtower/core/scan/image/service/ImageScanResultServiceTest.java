@@ -1,5 +1,6 @@
 package com.tracelink.appsec.watchtower.core.scan.image.service;
 
+import java.sql.PreparedStatement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -10,12 +11,18 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import com.tracelink.appsec.watchtower.core.metrics.rollup.MetricsRollupService;
+import com.tracelink.appsec.watchtower.core.scan.ViolationBatchWriter;
 import com.tracelink.appsec.watchtower.core.scan.apiintegration.ApiIntegrationService;
 import com.tracelink.appsec.watchtower.core.scan.image.ImageScan;
 import com.tracelink.appsec.watchtower.core.scan.image.ImageScanReportTests;
@@ -52,12 +59,22 @@ public class ImageScanResultServiceTest {
 	@MockBean
 	private ApiIntegrationService apiService;
 
+	@MockBean
+	private MetricsRollupService rollupService;
+
+	@MockBean
+	private ViolationBatchWriter batchWriter;
+
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
 	private ImageScanResultService imageScanResultService;
 
 	@BeforeEach
 	public void setup() {
 		imageScanResultService =
-				new ImageScanResultService(containerRepo, imageRepo, scanRepo, vioRepo, apiService);
+				new ImageScanResultService(containerRepo, imageRepo, scanRepo, vioRepo, apiService,
+						rollupService, batchWriter, transactionManager);
 	}
 
 	@Test
@@ -81,10 +98,12 @@ public class ImageScanResultServiceTest {
 		Assertions.assertEquals(entity, imageScanResultService.findById(1L));
 	}
 
+	@SuppressWarnings("unchecked")
 	@Test
-	public void testSaveImageReport() {
+	public void testSaveImageReport() throws Exception {
 		ImageScan scan = EcrImageScanTest.buildStandardEcrImageScan();
 		ImageViolationEntity violation = ImageScanEntityTests.buildStandardViolation();
+		violation.getAdvisory().setId(42L);
 		BDDMockito.when(containerRepo.saveAndFlush(BDDMockito.any()))
 				.thenAnswer(e -> e.getArgument(0));
 		BDDMockito.when(scanRepo.saveAndFlush(BDDMockito.any()))
@@ -92,13 +111,42 @@ public class ImageScanResultServiceTest {
 		ImageScanError error = ImageScanReportTests.buildStandardError();
 		imageScanResultService.saveImageReport(scan, 0L, Arrays.asList(violation),
 				Arrays.asList(error));
-		BDDMockito.verify(vioRepo).save(BDDMockito.any());
+		ArgumentCaptor<ParameterizedPreparedStatementSetter<ImageViolationEntity>> setter =
+				ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+		BDDMockito.verify(batchWriter).write(BDDMockito.anyString(),
+				BDDMockito.eq(Arrays.asList(violation)), setter.capture());
+		BDDMockito.verify(transactionManager).commit(BDDMockito.any());
+
+		PreparedStatement ps = BDDMockito.mock(PreparedStatement.class);
+		setter.getValue().setValues(ps, violation);
+		BDDMockito.verify(ps).setLong(4, 42L);
+	}
+
+	@Test
+	public void testSaveImageReportViolationsFail() {
+		ImageScan scan = EcrImageScanTest.buildStandardEcrImageScan();
+		ImageViolationEntity violation = ImageScanEntityTests.buildStandardViolation();
+		BDDMockito.when(containerRepo.saveAndFlush(BDDMockito.any()))
+				.thenAnswer(e -> e.getArgument(0));
+		BDDMockito.when(scanRepo.saveAndFlush(BDDMockito.any()))
+				.thenAnswer(e -> e.getArgument(0));
+		BDDMockito.doThrow(new DataIntegrityViolationException("violation"))
+				.when(batchWriter).write(BDDMockito.anyString(), BDDMockito.any(),
+						BDDMockito.any());
+		Assertions.assertThrows(DataIntegrityViolationException.class,
+				() -> imageScanResultService.saveImageReport(scan, 0L,
+						Arrays.asList(violation), new ArrayList<>()));
+		BDDMockito.verify(transactionManager).rollback(BDDMockito.any());
+		BDDMockito.verify(transactionManager, BDDMockito.never()).commit(BDDMockito.any());
+		BDDMockito.verify(rollupService, BDDMockito.never()).recordScan(BDDMockito.any(),
+				BDDMockito.any(), BDDMockito.any());
 	}
 
 	@Test
 	public void testSaveImageReportNullViolations() {
 		imageScanResultService.saveImageReport(null, 0L, null, null);
-		BDDMockito.verify(vioRepo, BDDMockito.never()).save(BDDMockito.any());
+		BDDMockito.verify(batchWriter, BDDMockito.never()).write(BDDMockito.anyString(),
+				BDDMockito.any(), BDDMockito.any());
 		BDDMockito.verify(containerRepo, BDDMockito.never()).saveAndFlush(BDDMockito.any());
 	}
 
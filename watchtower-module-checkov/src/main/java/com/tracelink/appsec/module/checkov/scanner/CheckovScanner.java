@@ -19,6 +19,7 @@ import com.tracelink.appsec.watchtower.core.module.scanner.ICodeScanner;
 import com.tracelink.appsec.watchtower.core.rule.RuleDto;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanConfig;
+import com.tracelink.appsec.watchtower.core.scan.code.FileManifest;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanViolation;
@@ -49,6 +50,15 @@ public class CheckovScanner implements ICodeScanner {
 
 			List<CheckovProvidedRuleDto> checkovRules = getCheckovRules(config.getRuleset());
 
+			// Checkov is given the whole working directory rather than the files of the manifest,
+			// as it resolves Terraform modules, variables and other cross-file references from the
+			// directory. The manifest only decides whether there is anything to scan at all.
+			FileManifest manifest = config.getFileManifest();
+			if (manifest != null && manifest.getEntries().isEmpty()) {
+				report.setRuleBenchmarking(benchmarking);
+				return report;
+			}
+
 			JsonObject result;
 			try (Benchmarker scanTime =
 					benchmarking.newBenchmarker(TimerType.DefaultTimerType.SCAN)) {
@@ -1,13 +1,19 @@
 package com.tracelink.appsec.module.checkov.scanner;
 
+import java.nio.file.Path;
+
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.tracelink.appsec.module.checkov.engine.CheckovEngine;
+import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanConfig;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 
@@ -25,4 +31,17 @@ public class CheckovScannerTest {
 		MatcherAssert.assertThat(report.getErrors().get(0).getErrorMessage(),
 				Matchers.containsString("Error while scanning"));
 	}
+
+	@Test
+	public void testScanEmptyManifest(@TempDir Path workingDirectory) {
+		CheckovScanner scanner = new CheckovScanner(engine);
+		CodeScanConfig config = new CodeScanConfig();
+		config.setWorkingDirectory(workingDirectory);
+		config.setRuleset(new RulesetDto());
+		CodeScanReport report = scanner.scan(config);
+		MatcherAssert.assertThat(report.getErrors(), Matchers.empty());
+		MatcherAssert.assertThat(report.getViolations(), Matchers.empty());
+		Mockito.verify(engine, Mockito.never()).runCheckovDirectoryScan(
+				ArgumentMatchers.any(), ArgumentMatchers.any());
+	}
 }
@@ -0,0 +1,114 @@
+const Linter = require("eslint").Linter;
+const readline = require("readline");
+
+/*
+ * Long-lived Linter worker. Requests and responses are single-line JSON objects framed by a
+ * newline on stdin/stdout. Any output written by rules to the console is redirected to stderr so
+ * that it cannot corrupt the protocol.
+ *
+ * Requests:  { id, type: "ping" | "load" | "scan" | "scanBatch", rulesetPath, code, directory,
+ *              file, files }
+ * Responses: { id, results, errors }
+ */
+const out = process.stdout;
+console.log = console.error;
+console.info = console.error;
+console.warn = console.error;
+console.debug = console.error;
+
+let ruleset = null;
+let config = null;
+const linters = {};
+
+/**
+ * Requires the ruleset at the given path and creates the rules configuration. Both are kept for
+ * all following scan requests.
+ */
+function loadRuleset(rulesetPath) {
+	ruleset = require(rulesetPath).ruleset;
+	config = {};
+	Object.keys(ruleset.priorities).forEach((key) => {
+		config[key] = 1;
+	});
+	return "loaded";
+}
+
+/**
+ * Gets the Linter for the given directory, creating it and defining the ruleset's rules in it the
+ * first time the directory is seen.
+ */
+function getLinter(directory) {
+	const cwd = directory || "";
+	if (!linters[cwd]) {
+		const linter = new Linter({ cwd: cwd });
+		linter.defineRules(ruleset.customRules);
+		linters[cwd] = linter;
+	}
+	return linters[cwd];
+}
+
+/**
+ * Scans the given code with the loaded ruleset. Returns a list of Linter messages containing
+ * errors that occurred or rule violations.
+ */
+function scanCode(code, directory, file) {
+	if (ruleset === null) {
+		throw new Error("No ruleset loaded in ESLint worker");
+	}
+	const results = getLinter(directory).verify(code,
+			{ parserOptions: { ecmaVersion: 2020 }, rules: config }, { filename: file });
+	return JSON.stringify(results);
+}
+
+/**
+ * Scans each of the given files with the loaded ruleset. Returns the Linter messages for each file
+ * keyed by the file's id. A file that fails to scan is reported in the errors map and does not
+ * stop the rest of the batch.
+ */
+function scanBatch(files) {
+	const batch = { messages: {}, errors: {} };
+	files.forEach((f) => {
+		try {
+			batch.messages[f.id] = JSON.parse(scanCode(f.code, f.directory, f.file));
+		} catch (e) {
+			batch.errors[f.id] = String(e && e.stack ? e.stack : e);
+		}
+	});
+	return JSON.stringify(batch);
+}
+
+function handle(request) {
+	switch (request.type) {
+		case "ping":
+			return "pong";
+		case "load":
+			return loadRuleset(request.rulesetPath);
+		case "scan":
+			return scanCode(request.code, request.directory, request.file);
+		case "scanBatch":
+			return scanBatch(request.files);
+		default:
+			throw new Error("Unknown request type: " + request.type);
+	}
+}
+
+function respond(id, results, errors) {
+	out.write(JSON.stringify({ id: id, results: results, errors: errors }) + "\n");
+}
+
+readline.createInterface({ input: process.stdin, terminal: false }).on("line", (line) => {
+	let request;
+	try {
+		request = JSON.parse(line);
+	} catch (e) {
+		respond(-1, null, "Malformed request: " + e.message);
+		return;
+	}
+	try {
+		respond(request.id, handle(request), null);
+	} catch (e) {
+		respond(request.id, null, String(e && e.stack ? e.stack : e));
+	}
+}).on("close", () => {
+	process.exit(0);
+});
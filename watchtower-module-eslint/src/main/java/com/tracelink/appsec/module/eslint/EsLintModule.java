@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import com.tracelink.appsec.module.eslint.designer.EsLintRuleDesigner;
 import com.tracelink.appsec.module.eslint.editor.EsLintRuleEditor;
@@ -31,10 +32,16 @@ public class EsLintModule extends AbstractCodeScanModule {
 
 	private LinterEngine engine;
 	private EsLintRuleDesigner designer;
+	private int batchSize;
+	private long batchByteLimit;
 
-	public EsLintModule(@Autowired LinterEngine engine, @Autowired EsLintRuleDesigner designer) {
+	public EsLintModule(@Autowired LinterEngine engine, @Autowired EsLintRuleDesigner designer,
+			@Value("${watchtower.eslint.batch.size:50}") int batchSize,
+			@Value("${watchtower.eslint.batch.bytes:1048576}") long batchByteLimit) {
 		this.engine = engine;
 		this.designer = designer;
+		this.batchSize = batchSize;
+		this.batchByteLimit = batchByteLimit;
 	}
 
 	/**
@@ -66,7 +73,7 @@ public class EsLintModule extends AbstractCodeScanModule {
 	 */
 	@Override
 	public ICodeScanner getScanner() {
-		return new EsLintScanner(engine);
+		return new EsLintScanner(engine, batchSize, batchByteLimit);
 	}
 
 	/**
@@ -51,8 +51,9 @@ public final class LinterEngine {
 			new TypeToken<List<LinterMessage>>() {
 			};
 
-	private static final String LINTER_SCAN = "linter_scan.js";
+	private static final String LINTER_WORKER = "linter_worker.js";
 	private static final String LINTER_PARSE = "linter_parse.js";
+	private static final String LINTER_WORKER_LOG = "linter_worker.log";
 
 	private static final int NODE_VERSION_MAJOR = 12;
 	private static final String ESLINT_VERSION = "7.24.0";
@@ -165,17 +166,17 @@ public final class LinterEngine {
 	}
 
 	/**
-	 * Scans the given lines of code with the ESLint Linter, using the ruleset at the given path.
+	 * Starts a pool of long-lived Linter workers that have each loaded the ruleset at the given
+	 * path. The caller of this method is responsible for closing the pool.
 	 *
-	 * @param lines     lines of code to scan
-	 * @param directory name of directory for source code file
-	 * @param file      name of source code file
-	 * @param ruleset   path to the ruleset to use for scanning
-	 * @return {@link ProcessResult} containing messages from the Linter and/or errors
+	 * @param rulesetPath path to the exported ruleset to load into each worker
+	 * @param size        number of workers to start; values less than 1 start a single worker
+	 * @return a {@link LinterWorkerPool} ready to scan code
+	 * @throws IOException if the workers cannot be started or cannot load the ruleset
 	 */
-	public ProcessResult scanCode(String lines, String directory, String file, String ruleset) {
-		return executeJsFunction(LINTER_SCAN, "scanCode", escapeCommandLineArgument(lines),
-				directory, file, ruleset);
+	public LinterWorkerPool createWorkerPool(String rulesetPath, int size) throws IOException {
+		return new LinterWorkerPool(eslintDirectory, LINTER_WORKER,
+				eslintDirectory.resolve(LINTER_WORKER_LOG), rulesetPath, size);
 	}
 
 	/**
@@ -197,7 +198,7 @@ public final class LinterEngine {
 	 */
 	private void copyJsResources(Path targetDir) throws IOException {
 		// Copy JS resources to ESLint directory, overwriting any existing files
-		String[] resources = {LINTER_SCAN, LINTER_PARSE};
+		String[] resources = {LINTER_WORKER, LINTER_PARSE};
 		for (String resource : resources) {
 			Path dest = targetDir.resolve(resource);
 			try (InputStream is = getClass().getClassLoader()
@@ -207,9 +208,9 @@ public final class LinterEngine {
 		}
 
 		// Make sure the JS files exist
-		if (!eslintDirectory.resolve(LINTER_SCAN).toFile().exists()) {
-			throw new IOException("ESLint Linter scanning code does not exist "
-					+ eslintDirectory.resolve(LINTER_SCAN).toAbsolutePath().toString());
+		if (!eslintDirectory.resolve(LINTER_WORKER).toFile().exists()) {
+			throw new IOException("ESLint Linter worker code does not exist "
+					+ eslintDirectory.resolve(LINTER_WORKER).toAbsolutePath().toString());
 		}
 		if (!eslintDirectory.resolve(LINTER_PARSE).toFile().exists()) {
 			throw new IOException("ESLint Linter parsing code does not exist "
@@ -304,7 +305,7 @@ public final class LinterEngine {
 	/**
 	 * Executes the given JS function in the given file with the given arguments.
 	 *
-	 * @param file      name of JS file; should be either 'linter_scan.js' or 'linter_parse.js'
+	 * @param file      name of JS file; should be 'linter_parse.js'
 	 * @param function  name of JS function within file
 	 * @param arguments arguments for the JS function, if any
 	 * @return {@link ProcessResult} containing results and errors from the JS execution
@@ -0,0 +1,167 @@
+package com.tracelink.appsec.module.eslint.engine;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.tracelink.appsec.module.eslint.engine.json.WorkerRequest;
+import com.tracelink.appsec.module.eslint.engine.json.WorkerResponse;
+
+/**
+ * A single long-lived Node.js process running the Linter worker script. Requests are written to
+ * the process as newline-framed JSON on stdin and responses are read back from stdout. A worker
+ * handles one request at a time and must be borrowed exclusively from its
+ * {@link LinterWorkerPool}.
+ *
+ * @author mcool
+ */
+public class LinterWorker implements Closeable {
+	private static final Logger LOG = LoggerFactory.getLogger(LinterWorker.class);
+	private static final Gson GSON = new Gson();
+	/**
+	 * Sentinel put on the response queue when the worker's stdout closes
+	 */
+	private static final String EOF = "";
+
+	private final Process process;
+	private final BufferedWriter stdin;
+	private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+	private long requestId = 0L;
+	private volatile boolean closed = false;
+
+	/**
+	 * Start a new worker process in the given ESLint directory.
+	 *
+	 * @param eslintDirectory the directory containing the worker script and ESLint installation
+	 * @param workerScript    name of the worker script in the ESLint directory
+	 * @param logFile         file to append the worker's stderr to
+	 * @throws IOException if the process cannot be started
+	 */
+	LinterWorker(Path eslintDirectory, String workerScript, Path logFile) throws IOException {
+		ProcessBuilder pb = new ProcessBuilder(Arrays.asList("node", workerScript));
+		pb.directory(eslintDirectory.toFile());
+		pb.redirectError(Redirect.appendTo(logFile.toFile()));
+		process = pb.start();
+		stdin = new BufferedWriter(
+				new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+
+		Thread reader = new Thread(this::readResponses, "LinterWorker " + process.hashCode());
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	private void readResponses() {
+		try (BufferedReader stdout = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = stdout.readLine()) != null) {
+				if (!line.isEmpty()) {
+					responses.add(line);
+				}
+			}
+		} catch (IOException e) {
+			LOG.debug("ESLint worker output closed", e);
+		} finally {
+			responses.add(EOF);
+		}
+	}
+
+	/**
+	 * Determines whether the underlying process is still running.
+	 *
+	 * @return true if the process is alive, false otherwise
+	 */
+	public boolean isAlive() {
+		return !closed && process.isAlive();
+	}
+
+	/**
+	 * Checks that the worker is alive and responding to requests.
+	 *
+	 * @param timeoutMillis time to wait for a response
+	 * @return true if the worker answered the ping, false otherwise
+	 */
+	public boolean ping(long timeoutMillis) {
+		try {
+			WorkerRequest request = new WorkerRequest();
+			request.setType(WorkerRequest.TYPE_PING);
+			return !send(request, timeoutMillis).hasErrors();
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Sends the given request to the worker and waits for its response.
+	 *
+	 * @param request       the request to send
+	 * @param timeoutMillis time to wait for a response
+	 * @return {@link ProcessResult} containing the results and errors from the worker
+	 * @throws IOException if the worker has died, does not answer in time, or answers with a
+	 *                     malformed response. The worker cannot be reused after this exception.
+	 */
+	public ProcessResult send(WorkerRequest request, long timeoutMillis) throws IOException {
+		request.setId(++requestId);
+		stdin.write(GSON.toJson(request));
+		stdin.newLine();
+		stdin.flush();
+
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		while (true) {
+			String line;
+			try {
+				line = responses.poll(Math.max(0L, deadline - System.currentTimeMillis()),
+						TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for ESLint worker");
+			}
+			if (line == null) {
+				throw new IOException("ESLint worker did not respond within " + timeoutMillis
+						+ "ms");
+			}
+			if (EOF.equals(line)) {
+				throw new IOException("ESLint worker exited unexpectedly");
+			}
+			WorkerResponse response;
+			try {
+				response = GSON.fromJson(line, WorkerResponse.class);
+			} catch (JsonParseException e) {
+				throw new IOException("Malformed response from ESLint worker", e);
+			}
+			// Skip any stale responses from requests that previously timed out
+			if (response != null && response.getId() == request.getId()) {
+				return new ProcessResult(response.getResults(), response.getErrors());
+			}
+		}
+	}
+
+	/**
+	 * Stops the worker process.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			stdin.close();
+		} catch (IOException e) {
+			// process already gone
+		}
+		process.destroy();
+	}
+}
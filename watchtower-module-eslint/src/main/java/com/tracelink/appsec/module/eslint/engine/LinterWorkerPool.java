@@ -0,0 +1,249 @@
+package com.tracelink.appsec.module.eslint.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.tracelink.appsec.module.eslint.engine.json.BatchFile;
+import com.tracelink.appsec.module.eslint.engine.json.BatchResult;
+import com.tracelink.appsec.module.eslint.engine.json.WorkerRequest;
+
+/**
+ * A fixed-size pool of {@link LinterWorker}s that have all loaded the same exported ruleset. The
+ * pool is created for a single scan so that each worker requires and defines the ruleset once and
+ * keeps its Linter warm for every file in the scan. Each worker is pinged as it is checked out, so
+ * workers that crashed or stopped responding while idle are replaced before they are given a
+ * file. A worker that hangs while scanning is only replaced once the scan times out.
+ *
+ * @author mcool
+ */
+public class LinterWorkerPool implements Closeable {
+	private static final Logger LOG = LoggerFactory.getLogger(LinterWorkerPool.class);
+	/**
+	 * Time to wait for a worker to start and load the ruleset
+	 */
+	private static final long LOAD_TIMEOUT_MILLIS = 30_000L;
+	/**
+	 * Time to wait for a worker to scan a single file before it is considered hung
+	 */
+	private static final long SCAN_TIMEOUT_MILLIS = 60_000L;
+	/**
+	 * Most time to wait for a worker to scan a batch of files, however many files it holds
+	 */
+	private static final long BATCH_TIMEOUT_MILLIS = 300_000L;
+	/**
+	 * Time to wait for a worker to answer the ping made when it is checked out
+	 */
+	private static final long PING_TIMEOUT_MILLIS = 5_000L;
+
+	private final Path eslintDirectory;
+	private final String workerScript;
+	private final Path logFile;
+	private final String rulesetPath;
+	private final BlockingQueue<LinterWorker> idleWorkers;
+	private final List<LinterWorker> allWorkers = new ArrayList<>();
+	private volatile boolean closed = false;
+
+	/**
+	 * Start a pool of workers that have all loaded the given ruleset.
+	 *
+	 * @param eslintDirectory the directory containing the worker script and ESLint installation
+	 * @param workerScript    name of the worker script in the ESLint directory
+	 * @param logFile         file to append the workers' stderr to
+	 * @param rulesetPath     path to the exported ESLint ruleset file
+	 * @param size            number of workers in the pool, at least 1
+	 * @throws IOException if any worker cannot be started or cannot load the ruleset
+	 */
+	LinterWorkerPool(Path eslintDirectory, String workerScript, Path logFile,
+			String rulesetPath, int size) throws IOException {
+		this.eslintDirectory = eslintDirectory;
+		this.workerScript = workerScript;
+		this.logFile = logFile;
+		this.rulesetPath = rulesetPath;
+		int poolSize = Math.max(1, size);
+		this.idleWorkers = new ArrayBlockingQueue<>(poolSize);
+		try {
+			for (int i = 0; i < poolSize; i++) {
+				idleWorkers.add(startWorker());
+			}
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Starts a new worker and loads the ruleset into it.
+	 *
+	 * @return a ready-to-use worker
+	 * @throws IOException if the worker cannot be started or fails to load the ruleset
+	 */
+	private LinterWorker startWorker() throws IOException {
+		LinterWorker worker = new LinterWorker(eslintDirectory, workerScript, logFile);
+		WorkerRequest load = new WorkerRequest();
+		load.setType(WorkerRequest.TYPE_LOAD);
+		load.setRulesetPath(rulesetPath);
+		try {
+			ProcessResult result = worker.send(load, LOAD_TIMEOUT_MILLIS);
+			if (result.hasErrors()) {
+				throw new IOException(
+						"ESLint worker could not load ruleset: " + result.getErrors());
+			}
+		} catch (IOException e) {
+			worker.close();
+			throw e;
+		}
+		// Only track workers that started, and never one started after the pool was closed
+		synchronized (allWorkers) {
+			if (closed) {
+				worker.close();
+				throw new IOException("ESLint worker pool is closed");
+			}
+			allWorkers.add(worker);
+		}
+		return worker;
+	}
+
+	/**
+	 * Determines whether the given worker is running and answers a ping.
+	 *
+	 * @param worker the worker to check
+	 * @return true if the worker is healthy, false otherwise
+	 */
+	private static boolean isHealthy(LinterWorker worker) {
+		return worker.isAlive() && worker.ping(PING_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * Stops the given worker and starts a replacement for it.
+	 *
+	 * @param worker the worker to replace
+	 * @return the replacement worker
+	 * @throws IOException if the replacement cannot be started
+	 */
+	private LinterWorker restartWorker(LinterWorker worker) throws IOException {
+		worker.close();
+		synchronized (allWorkers) {
+			allWorkers.remove(worker);
+		}
+		return startWorker();
+	}
+
+	/**
+	 * Scans the given code with the ESLint Linter, using the ruleset loaded into this pool. Blocks
+	 * until a worker is available. If the worker dies while scanning, it is restarted and the scan
+	 * is retried once.
+	 *
+	 * @param code      the code to scan
+	 * @param directory directory of the source code file, relative to the working directory of
+	 *                  the scan, used as the Linter's cwd
+	 * @param file      name of the source code file
+	 * @return {@link ProcessResult} containing messages from the Linter and/or errors
+	 */
+	public ProcessResult scanCode(String code, String directory, String file) {
+		WorkerRequest request = new WorkerRequest();
+		request.setType(WorkerRequest.TYPE_SCAN);
+		request.setCode(code);
+		request.setDirectory(directory);
+		request.setFile(file);
+		return sendToWorker(request, file, SCAN_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * Scans all of the given files in a single call to a worker, using the ruleset loaded into this
+	 * pool. The results are a JSON {@link BatchResult} holding the Linter messages of each file
+	 * keyed by the file's id. The batch may take as long as its files would separately, up to a
+	 * fixed ceiling. Blocks until a worker is available. If the worker dies while scanning, it is
+	 * restarted and the batch is retried once.
+	 *
+	 * @param files the files to scan
+	 * @return {@link ProcessResult} containing the batch result and/or errors
+	 */
+	public ProcessResult scanBatch(List<BatchFile> files) {
+		WorkerRequest request = new WorkerRequest();
+		request.setType(WorkerRequest.TYPE_SCAN_BATCH);
+		request.setFiles(files);
+		return sendToWorker(request, "batch of " + files.size() + " files",
+				Math.min(SCAN_TIMEOUT_MILLIS * Math.max(1, files.size()), BATCH_TIMEOUT_MILLIS));
+	}
+
+	private ProcessResult sendToWorker(WorkerRequest request, String description,
+			long timeoutMillis) {
+		if (closed) {
+			return new ProcessResult(null, "ESLint worker pool is closed");
+		}
+
+		LinterWorker worker;
+		try {
+			worker = idleWorkers.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new ProcessResult(null, "Interrupted while waiting for ESLint worker");
+		}
+
+		ProcessResult result = null;
+		try {
+			for (int attempt = 0; result == null; attempt++) {
+				try {
+					if (!isHealthy(worker)) {
+						worker = restartWorker(worker);
+					}
+					result = worker.send(request, timeoutMillis);
+				} catch (IOException e) {
+					LOG.warn("ESLint worker failed while scanning " + description + ": "
+							+ e.getMessage());
+					worker.close();
+					if (attempt > 0) {
+						result = new ProcessResult(null, "ESLint worker failed while scanning "
+								+ description + ": " + e.getMessage());
+					}
+				}
+			}
+		} finally {
+			idleWorkers.add(worker);
+		}
+		return result;
+	}
+
+	/**
+	 * Checks the health of all idle workers, replacing any that do not answer a ping.
+	 *
+	 * @return the number of workers that had to be replaced
+	 */
+	public int checkHealth() {
+		int replaced = 0;
+		List<LinterWorker> checked = new ArrayList<>();
+		idleWorkers.drainTo(checked);
+		for (LinterWorker worker : checked) {
+			if (!isHealthy(worker)) {
+				try {
+					worker = restartWorker(worker);
+					replaced++;
+				} catch (IOException e) {
+					LOG.error("Could not restart ESLint worker", e);
+				}
+			}
+			idleWorkers.add(worker);
+		}
+		return replaced;
+	}
+
+	/**
+	 * Stops all workers in this pool.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		synchronized (allWorkers) {
+			allWorkers.forEach(LinterWorker::close);
+			allWorkers.clear();
+		}
+	}
+}
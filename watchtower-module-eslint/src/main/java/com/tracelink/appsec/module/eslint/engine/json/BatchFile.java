@@ -0,0 +1,60 @@
+package com.tracelink.appsec.module.eslint.engine.json;
+
+/**
+ * JSON model for a single file in a batch scan request sent to an ESLint Linter worker.
+ *
+ * @author mcool
+ */
+public class BatchFile {
+
+	private String id;
+	private String directory;
+	private String file;
+	private String code;
+
+	public BatchFile() {
+	}
+
+	public BatchFile(String id, String file, String code) {
+		this(id, null, file, code);
+	}
+
+	public BatchFile(String id, String directory, String file, String code) {
+		this.id = id;
+		this.directory = directory;
+		this.file = file;
+		this.code = code;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+	public String getFile() {
+		return file;
+	}
+
+	public void setFile(String file) {
+		this.file = file;
+	}
+
+	public String getCode() {
+		return code;
+	}
+
+	public void setCode(String code) {
+		this.code = code;
+	}
+}
@@ -0,0 +1,33 @@
+package com.tracelink.appsec.module.eslint.engine.json;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON model for the result of a batch scan by an ESLint Linter worker. Linter messages and errors
+ * are keyed by the id of the {@link BatchFile} they belong to.
+ *
+ * @author mcool
+ */
+public class BatchResult {
+
+	private Map<String, List<LinterMessage>> messages = new HashMap<>();
+	private Map<String, String> errors = new HashMap<>();
+
+	public Map<String, List<LinterMessage>> getMessages() {
+		return messages;
+	}
+
+	public void setMessages(Map<String, List<LinterMessage>> messages) {
+		this.messages = messages;
+	}
+
+	public Map<String, String> getErrors() {
+		return errors;
+	}
+
+	public void setErrors(Map<String, String> errors) {
+		this.errors = errors;
+	}
+}
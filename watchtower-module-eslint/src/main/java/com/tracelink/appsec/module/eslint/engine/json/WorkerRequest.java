@@ -0,0 +1,80 @@
+package com.tracelink.appsec.module.eslint.engine.json;
+
+import java.util.List;
+
+/**
+ * JSON model for a request sent to a long-lived ESLint Linter worker.
+ *
+ * @author mcool
+ */
+public class WorkerRequest {
+
+	public static final String TYPE_PING = "ping";
+	public static final String TYPE_LOAD = "load";
+	public static final String TYPE_SCAN = "scan";
+	public static final String TYPE_SCAN_BATCH = "scanBatch";
+
+	private long id;
+	private String type;
+	private String rulesetPath;
+	private String code;
+	private String directory;
+	private String file;
+	private List<BatchFile> files;
+
+	public long getId() {
+		return id;
+	}
+
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	public String getRulesetPath() {
+		return rulesetPath;
+	}
+
+	public void setRulesetPath(String rulesetPath) {
+		this.rulesetPath = rulesetPath;
+	}
+
+	public String getCode() {
+		return code;
+	}
+
+	public void setCode(String code) {
+		this.code = code;
+	}
+
+	public String getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+	public String getFile() {
+		return file;
+	}
+
+	public void setFile(String file) {
+		this.file = file;
+	}
+
+	public List<BatchFile> getFiles() {
+		return files;
+	}
+
+	public void setFiles(List<BatchFile> files) {
+		this.files = files;
+	}
+}
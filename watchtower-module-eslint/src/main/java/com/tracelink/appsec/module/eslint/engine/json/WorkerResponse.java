@@ -0,0 +1,37 @@
+package com.tracelink.appsec.module.eslint.engine.json;
+
+/**
+ * JSON model for a response returned by a long-lived ESLint Linter worker.
+ *
+ * @author mcool
+ */
+public class WorkerResponse {
+
+	private long id;
+	private String results;
+	private String errors;
+
+	public long getId() {
+		return id;
+	}
+
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	public String getResults() {
+		return results;
+	}
+
+	public void setResults(String results) {
+		this.results = results;
+	}
+
+	public String getErrors() {
+		return errors;
+	}
+
+	public void setErrors(String errors) {
+		this.errors = errors;
+	}
+}
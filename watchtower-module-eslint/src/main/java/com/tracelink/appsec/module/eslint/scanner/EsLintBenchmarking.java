@@ -0,0 +1,35 @@
+package com.tracelink.appsec.module.eslint.scanner;
+
+import com.tracelink.appsec.module.eslint.model.EsLintCustomRuleDto;
+import com.tracelink.appsec.watchtower.core.benchmark.Benchmarking;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.FileBatcher;
+
+/**
+ * Benchmarker implementation for ESLint scans. Adds the batch configuration to the timers so that
+ * batch sizes can be tuned against the time spent in the Linter.
+ *
+ * @author mcool
+ */
+public class EsLintBenchmarking extends Benchmarking<EsLintCustomRuleDto> {
+	private final FileBatcher batcher;
+
+	/**
+	 * Create benchmarking for a scan with the given batch configuration
+	 *
+	 * @param batcher the batcher used by the scan, or null if files are not batched
+	 */
+	public EsLintBenchmarking(FileBatcher batcher) {
+		this.batcher = batcher;
+	}
+
+	@Override
+	protected void outputTimers(StringBuilder sb, String linesep) {
+		if (batcher == null) {
+			sb.append("Batch Size: 1 file").append(linesep);
+		} else {
+			sb.append("Batch Size: ").append(batcher.getMaxFiles()).append(" files / ")
+					.append(batcher.getMaxBytes()).append(" bytes").append(linesep);
+		}
+		super.outputTimers(sb, linesep);
+	}
+}
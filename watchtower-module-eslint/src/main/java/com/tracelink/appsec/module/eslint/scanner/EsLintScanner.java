@@ -7,29 +7,38 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
-import org.apache.commons.io.FileUtils;
-
 import com.google.gson.Gson;
 import com.tracelink.appsec.module.eslint.engine.LinterEngine;
+import com.tracelink.appsec.module.eslint.engine.LinterWorkerPool;
 import com.tracelink.appsec.module.eslint.engine.ProcessResult;
+import com.tracelink.appsec.module.eslint.engine.json.BatchFile;
+import com.tracelink.appsec.module.eslint.engine.json.BatchResult;
 import com.tracelink.appsec.module.eslint.engine.json.LinterMessage;
 import com.tracelink.appsec.module.eslint.interpreter.EsLintRulesetExporter;
 import com.tracelink.appsec.module.eslint.model.EsLintCustomRuleDto;
 import com.tracelink.appsec.module.eslint.model.EsLintRuleDto;
 import com.tracelink.appsec.watchtower.core.benchmark.Benchmarker;
-import com.tracelink.appsec.watchtower.core.benchmark.Benchmarking;
 import com.tracelink.appsec.watchtower.core.benchmark.TimerType;
 import com.tracelink.appsec.watchtower.core.exception.rule.RulesetException;
 import com.tracelink.appsec.watchtower.core.module.scanner.ICodeScanner;
 import com.tracelink.appsec.watchtower.core.rule.RuleDto;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
+import com.tracelink.appsec.watchtower.core.ruleset.RulesetFileCache;
+import com.tracelink.appsec.watchtower.core.ruleset.RulesetFileCache.RulesetFile;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanConfig;
+import com.tracelink.appsec.watchtower.core.scan.code.FileManifest;
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.AbstractProcessor;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.BatchCallableCreator;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.CallableCreator;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.FileBatcher;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.MultiThreadedProcessor;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.SingleThreadedProcessor;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
@@ -45,10 +54,36 @@ import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanViolation;
 public class EsLintScanner implements ICodeScanner {
 
 	private static final Gson GSON = new Gson();
+	/**
+	 * Number of ruleset JS files kept for reuse by later scans
+	 */
+	private static final int MAX_RULESET_FILES = 16;
+	private final EsLintRulesetExporter exporter = new EsLintRulesetExporter();
+	private final RulesetFileCache rulesetFiles =
+			new RulesetFileCache("ruleset-", ".js", MAX_RULESET_FILES);
 	private final LinterEngine engine;
+	private final FileBatcher batcher;
 
+	/**
+	 * Create a scanner that sends each file to the Linter separately
+	 *
+	 * @param engine the engine used to run the Linter
+	 */
 	public EsLintScanner(LinterEngine engine) {
+		this(engine, 1, 0L);
+	}
+
+	/**
+	 * Create a scanner that groups files into batches and sends each batch to the Linter in a
+	 * single call. A batch size of 1 or less sends each file separately.
+	 *
+	 * @param engine         the engine used to run the Linter
+	 * @param batchSize      the maximum number of files in a batch
+	 * @param batchByteLimit the maximum number of bytes in a batch
+	 */
+	public EsLintScanner(LinterEngine engine, int batchSize, long batchByteLimit) {
 		this.engine = engine;
+		this.batcher = batchSize > 1 ? new FileBatcher(batchSize, batchByteLimit) : null;
 	}
 
 	/**
@@ -57,15 +92,18 @@ public class EsLintScanner implements ICodeScanner {
 	@Override
 	public CodeScanReport scan(CodeScanConfig config) {
 		CodeScanReport report = new CodeScanReport();
-		Benchmarking<EsLintCustomRuleDto> benchmarking = new Benchmarking<>();
+		EsLintBenchmarking benchmarking = new EsLintBenchmarking(batcher);
 		benchmarking.enable(config.isBenchmarkEnabled());
 
 		try (Benchmarker totalTime = benchmarking
 				.newBenchmarker(TimerType.DefaultTimerType.WALL_CLOCK)) {
-			// Write ESLint ruleset to JS file
-			Path rulesetPath;
+			// Get the ESLint ruleset as a JS file, shared by scans with the same rules
+			RulesetFile rulesetFile;
 			try {
-				rulesetPath = writeRulesetToFile(config.getRuleset());
+				ScanPlan plan = config.getScanPlan();
+				rulesetFile = rulesetFiles.getFile(
+						plan == null ? null : plan.getFingerprint(EsLintRuleDto.class),
+						file -> writeRulesetToFile(config.getRuleset(), file));
 			} catch (IOException | RulesetException e) {
 				report.addError(
 						new CodeScanError(
@@ -73,11 +111,36 @@ public class EsLintScanner implements ICodeScanner {
 				return report;
 			}
 
+			// Start Linter workers, each loading the ruleset once for the whole scan. Workers that
+			// are restarted load it again, so the ruleset file is held until the workers stop
+			LinterWorkerPool workerPool;
+			try {
+				workerPool = engine.createWorkerPool(rulesetFile.getPath().toString(),
+						config.getThreads());
+			} catch (IOException e) {
+				rulesetFile.close();
+				report.addError(
+						new CodeScanError("Exception starting ESLint workers: " + e.getMessage()));
+				return report;
+			}
+
 			// Run processor
-			AbstractProcessor processor = getProcessor(config, rulesetPath);
+			AbstractProcessor processor = getProcessor(config, workerPool, benchmarking);
 
 			try (Benchmarker b = benchmarking.newBenchmarker(TimerType.DefaultTimerType.SCAN)) {
-				processor.runScan(config.getRuleset(), config.getWorkingDirectory());
+				if (batcher == null) {
+					processor.runScan(config.getScanPlan(), config.getFileManifest());
+				} else {
+					FileManifest manifest = config.getFileManifest();
+					manifest.getErrors().forEach(
+							error -> report.addError(new CodeScanError("Exception: " + error)));
+					processor.runBatchScan(config.getScanPlan(), batcher.createBatches(manifest),
+							getBatchCreator(config.getWorkingDirectory(), workerPool,
+									benchmarking));
+				}
+			} finally {
+				workerPool.close();
+				rulesetFile.close();
 			}
 
 			try (Benchmarker reportTime =
@@ -86,8 +149,6 @@ public class EsLintScanner implements ICodeScanner {
 				processor.getSystemExceptions()
 						.forEach(exception -> report.addError(new CodeScanError(exception)));
 			}
-			// Delete ruleset file
-			FileUtils.deleteQuietly(rulesetPath.toFile());
 		}
 
 		report.setRuleBenchmarking(benchmarking);
@@ -103,47 +164,45 @@ public class EsLintScanner implements ICodeScanner {
 	}
 
 	/**
-	 * Writes the custom ESLint rule definitions to a temporary JavaScript file. The caller of this
-	 * method is responsible for deleting the file.
+	 * Writes the custom ESLint rule definitions to a JavaScript file.
 	 *
-	 * @param ruleset ruleset containing ESLint rules
-	 * @return path to the ruleset definition file
-	 * @throws IOException if an I/O exception is thrown while creating or writing to the file
+	 * @param ruleset     ruleset containing ESLint rules
+	 * @param rulesetPath path to the ruleset definition file
+	 * @throws IOException if an I/O exception is thrown while writing to the file
 	 */
-	private Path writeRulesetToFile(RulesetDto ruleset)
+	private void writeRulesetToFile(RulesetDto ruleset, Path rulesetPath)
 			throws IOException, RulesetException {
-		String uri = "ruleset-" + ruleset.getId();
-		Path rulesetPath = Files.createTempFile(uri, ".js").toFile().getCanonicalFile()
-				.getAbsoluteFile().toPath();
-		try (InputStream is = new EsLintRulesetExporter().exportRuleset(ruleset)) {
+		try (InputStream is = exporter.exportRuleset(ruleset)) {
 			Files.copy(is, rulesetPath, StandardCopyOption.REPLACE_EXISTING);
 		}
-		return rulesetPath;
 	}
 
-	private AbstractProcessor getProcessor(CodeScanConfig config, Path rulesetPath) {
+	private AbstractProcessor getProcessor(CodeScanConfig config, LinterWorkerPool workerPool,
+			EsLintBenchmarking benchmarking) {
 		int threads = config.getThreads();
 		if (threads > 0) {
-			return new MultiThreadedProcessor(getCreator(config.getWorkingDirectory(), rulesetPath),
-					threads);
+			return new MultiThreadedProcessor(
+					getCreator(config.getWorkingDirectory(), workerPool, benchmarking), threads);
 		} else {
 			return new SingleThreadedProcessor(
-					getCreator(config.getWorkingDirectory(), rulesetPath));
+					getCreator(config.getWorkingDirectory(), workerPool, benchmarking));
 		}
 	}
 
-	private CallableCreator getCreator(Path workingDirectory, Path rulesetPath) {
-		return (path, ruleset) -> () -> {
+	private CallableCreator getCreator(Path workingDirectory, LinterWorkerPool workerPool,
+			EsLintBenchmarking benchmarking) {
+		return (path, plan) -> () -> {
 			// Create ESLint report
 			CodeScanReport report = new CodeScanReport();
 			try (BufferedReader br = new BufferedReader(new FileReader(path.toFile()))) {
 				Path filePath = path.getFileName();
 				Path directoryPath = workingDirectory.relativize(path.getParent());
 				// Run Linter on all lines of the file
-				ProcessResult scanResult =
-						engine.scanCode(br.lines().collect(Collectors.joining("\n")),
-								directoryPath.toString(), filePath.toString(),
-								rulesetPath.toString());
+				ProcessResult scanResult;
+				try (Benchmarker b = benchmarking.newBenchmarker(EsLintTimerType.LINT_FILE)) {
+					scanResult = workerPool.scanCode(br.lines().collect(Collectors.joining("\n")),
+							directoryPath.toString(), filePath.toString());
+				}
 				// Check for errors
 				if (scanResult.hasErrors()) {
 					report.addError(new CodeScanError(scanResult.getErrors()));
@@ -153,7 +212,8 @@ public class EsLintScanner implements ICodeScanner {
 					List<LinterMessage> messages = GSON.fromJson(scanResult.getResults(),
 							LinterEngine.MESSAGES_TYPE_TOKEN.getType());
 					// Process ESLint messages and add scan violations or errors
-					processMessages(messages, report, ruleset, path);
+					processMessages(messages, report,
+							plan.getRulesByName(EsLintRuleDto.class), path);
 				}
 			} catch (IOException e) {
 				report.addError(new CodeScanError("Could not read: " + path.getFileName()));
@@ -162,19 +222,68 @@ public class EsLintScanner implements ICodeScanner {
 		};
 	}
 
+	private BatchCallableCreator getBatchCreator(Path workingDirectory,
+			LinterWorkerPool workerPool, EsLintBenchmarking benchmarking) {
+		return (paths, plan) -> () -> {
+			// Create ESLint report for the whole batch
+			CodeScanReport report = new CodeScanReport();
+			Map<String, Path> filesById = new HashMap<>();
+			List<BatchFile> batch = new ArrayList<>();
+			for (Path path : paths) {
+				try (BufferedReader br = new BufferedReader(new FileReader(path.toFile()))) {
+					String id = String.valueOf(batch.size());
+					batch.add(new BatchFile(id,
+							workingDirectory.relativize(path.getParent()).toString(),
+							path.getFileName().toString(),
+							br.lines().collect(Collectors.joining("\n"))));
+					filesById.put(id, path);
+				} catch (IOException e) {
+					report.addError(new CodeScanError("Could not read: " + path.getFileName()));
+				}
+			}
+			if (batch.isEmpty()) {
+				return report;
+			}
+			// Run Linter on all files of the batch at once
+			ProcessResult scanResult;
+			try (Benchmarker b = benchmarking.newBenchmarker(EsLintTimerType.LINT_BATCH)) {
+				scanResult = workerPool.scanBatch(batch);
+			}
+			// Check for errors with the batch as a whole
+			if (scanResult.hasErrors()) {
+				report.addError(new CodeScanError(scanResult.getErrors()));
+			}
+			// Process results of each file in the batch
+			if (scanResult.hasResults()) {
+				BatchResult batchResult = GSON.fromJson(scanResult.getResults(), BatchResult.class);
+				batchResult.getErrors().forEach((id, error) -> {
+					Path path = filesById.get(id);
+					report.addError(new CodeScanError("Exception scanning "
+							+ (path == null ? id : path.getFileName().toString()) + ": "
+							+ error));
+				});
+				for (Entry<String, List<LinterMessage>> entry : batchResult.getMessages()
+						.entrySet()) {
+					processMessages(entry.getValue(), report,
+							plan.getRulesByName(EsLintRuleDto.class),
+							filesById.get(entry.getKey()));
+				}
+			}
+			return report;
+		};
+	}
+
 	/**
 	 * Processes the given messages to add scan violations and scan errors to the given report. The
-	 * given ruleset is used to assign some values of the scan violations.
+	 * given rules are used to assign some values of the scan violations.
 	 *
-	 * @param messages the messages to process
-	 * @param report   the ESLint report to add errors and violations to
-	 * @param ruleset  the ruleset used to produce the given messages
-	 * @param fileName the name of the file scanned for these messages
+	 * @param messages    the messages to process
+	 * @param report      the ESLint report to add errors and violations to
+	 * @param esLintRules the ESLint rules used to produce the given messages, keyed by name
+	 * @param fileName    the name of the file scanned for these messages
 	 */
 	private static void processMessages(List<LinterMessage> messages, CodeScanReport report,
-			RulesetDto ruleset, Path fileName) {
-		Set<RuleDto> esLintRules = ruleset.getAllRules().stream()
-				.filter(r -> r instanceof EsLintRuleDto).collect(Collectors.toSet());
+			Map<String, EsLintRuleDto> esLintRules, Path fileName) {
 		for (LinterMessage message : messages) {
 			// Message is an error
 			if (message.isFatal() || message.getNodeType() == null || message.getSeverity() != 1
@@ -184,9 +293,7 @@ public class EsLintScanner implements ICodeScanner {
 			}
 			// Message is a violation
 			else {
-				RuleDto rule = esLintRules.stream()
-						.filter(r -> r.getName().equals(message.getRuleId()))
-						.findFirst().orElse(null);
+				RuleDto rule = (RuleDto) esLintRules.get(message.getRuleId());
 				// There is no corresponding ESLint rule for this violation
 				if (rule == null) {
 					continue;
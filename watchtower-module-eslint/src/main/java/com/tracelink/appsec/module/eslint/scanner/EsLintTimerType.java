@@ -0,0 +1,29 @@
+package com.tracelink.appsec.module.eslint.scanner;
+
+import com.tracelink.appsec.watchtower.core.benchmark.TimerType;
+
+/**
+ * Additional benchmarking timers for ESLint Scans
+ *
+ * @author mcool
+ */
+public enum EsLintTimerType implements TimerType {
+	/**
+	 * time spent in the Linter for a single file
+	 */
+	LINT_FILE("Lint File"),
+	/**
+	 * time spent in the Linter for a batch of files
+	 */
+	LINT_BATCH("Lint Batch");
+
+	private final String extName;
+
+	EsLintTimerType(String externalName) {
+		this.extName = externalName;
+	}
+
+	public String getExternalName() {
+		return this.extName;
+	}
+}
@@ -38,7 +38,7 @@ public class EsLintModuleTest extends CodeScannerModuleTest {
 
 	@Override
 	protected AbstractCodeScanModule buildScannerModule() {
-		return new EsLintModule(engine, designer);
+		return new EsLintModule(engine, designer, 50, 1048576L);
 	}
 
 	@Override
@@ -0,0 +1,146 @@
+package com.tracelink.appsec.module.eslint.engine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.tracelink.appsec.module.eslint.engine.json.BatchFile;
+import com.tracelink.appsec.module.eslint.engine.json.BatchResult;
+import com.tracelink.appsec.module.eslint.engine.json.LinterMessage;
+
+public class LinterWorkerPoolTest {
+
+	private static final Gson GSON = new Gson();
+	private static final String RULESET = "module.exports = { ruleset: {\n"
+			+ "  customRules: {\n"
+			+ "    \"crash\": {\n"
+			+ "      meta: { schema: [] },\n"
+			+ "      create(context) {\n"
+			+ "        if (context.getSourceCode().text.includes(\"CRASH\")) { process.exit(1); }\n"
+			+ "        return {};\n"
+			+ "      }\n"
+			+ "    },\n"
+			+ "    \"hang\": {\n"
+			+ "      meta: { schema: [] },\n"
+			+ "      create(context) {\n"
+			+ "        if (context.getSourceCode().text.includes(\"HANG\")) {\n"
+			+ "          process.nextTick(() => { while (true) {} });\n"
+			+ "        }\n"
+			+ "        return {};\n"
+			+ "      }\n"
+			+ "    }\n"
+			+ "  },\n"
+			+ "  priorities: { \"crash\": 1, \"hang\": 1, \"no-eval\": 1 }\n"
+			+ "} };";
+
+	private static LinterEngine engine;
+	private Path rulesetPath;
+
+	@BeforeAll
+	public static void init() {
+		engine = new LinterEngine();
+	}
+
+	@BeforeEach
+	public void setup() throws Exception {
+		rulesetPath = Files.createTempFile("ruleset", ".js");
+		Files.write(rulesetPath, RULESET.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		FileUtils.deleteQuietly(rulesetPath.toFile());
+	}
+
+	@Test
+	public void testScanCode() throws Exception {
+		try (LinterWorkerPool pool = engine.createWorkerPool(rulesetPath.toString(), 2)) {
+			for (int i = 0; i < 5; i++) {
+				ProcessResult result = pool.scanCode("var a = 1;\neval(a);", "", "file.js");
+				Assertions.assertFalse(result.hasErrors());
+				List<LinterMessage> messages = GSON.fromJson(result.getResults(),
+						LinterEngine.MESSAGES_TYPE_TOKEN.getType());
+				Assertions.assertEquals(1, messages.size());
+				Assertions.assertEquals("no-eval", messages.get(0).getRuleId());
+				Assertions.assertEquals(2, messages.get(0).getLine());
+			}
+		}
+	}
+
+	@Test
+	public void testScanBatch() throws Exception {
+		try (LinterWorkerPool pool = engine.createWorkerPool(rulesetPath.toString(), 1)) {
+			ProcessResult result = pool.scanBatch(Arrays.asList(
+					new BatchFile("0", "a.js", "eval(1);"),
+					new BatchFile("1", "b.js", "var b = 1;\n\neval(b);")));
+			Assertions.assertFalse(result.hasErrors());
+			BatchResult batch = GSON.fromJson(result.getResults(), BatchResult.class);
+			Assertions.assertTrue(batch.getErrors().isEmpty());
+			Assertions.assertEquals(2, batch.getMessages().size());
+			Assertions.assertEquals(1, batch.getMessages().get("0").get(0).getLine());
+			Assertions.assertEquals(3, batch.getMessages().get("1").get(0).getLine());
+		}
+	}
+
+	@Test
+	public void testScanCodeRestartsCrashedWorker() throws Exception {
+		try (LinterWorkerPool pool = engine.createWorkerPool(rulesetPath.toString(), 1)) {
+			ProcessResult crash = pool.scanCode("var CRASH = 1;", "", "crash.js");
+			Assertions.assertTrue(crash.hasErrors());
+			Assertions.assertTrue(crash.getErrors().contains("crash.js"));
+
+			ProcessResult result = pool.scanCode("eval(1);", "", "file.js");
+			Assertions.assertFalse(result.hasErrors());
+			Assertions.assertTrue(result.getResults().contains("no-eval"));
+		}
+	}
+
+	@Test
+	public void testScanCodeReplacesHungIdleWorker() throws Exception {
+		try (LinterWorkerPool pool = engine.createWorkerPool(rulesetPath.toString(), 1)) {
+			// the worker answers, then blocks before it reads its next request
+			ProcessResult hang = pool.scanCode("var HANG = 1;", "", "hang.js");
+			Assertions.assertFalse(hang.hasErrors());
+
+			// the ping on checkout replaces the idle worker before it is given the scan
+			long start = System.currentTimeMillis();
+			ProcessResult result = pool.scanCode("eval(1);", "", "file.js");
+			Assertions.assertFalse(result.hasErrors());
+			Assertions.assertTrue(result.getResults().contains("no-eval"));
+			Assertions.assertTrue(System.currentTimeMillis() - start < 30_000L);
+		}
+	}
+
+	@Test
+	public void testCreateWorkerPoolBadRuleset() {
+		Assertions.assertThrows(IOException.class,
+				() -> engine.createWorkerPool(rulesetPath.resolveSibling("missing.js").toString(),
+						1));
+	}
+
+	@Test
+	public void testCheckHealth() throws Exception {
+		try (LinterWorkerPool pool = engine.createWorkerPool(rulesetPath.toString(), 2)) {
+			Assertions.assertEquals(0, pool.checkHealth());
+		}
+	}
+
+	@Test
+	public void testScanCodeClosed() throws Exception {
+		LinterWorkerPool pool = engine.createWorkerPool(rulesetPath.toString(), 1);
+		pool.close();
+		ProcessResult result = pool.scanCode("eval(1);", "", "file.js");
+		Assertions.assertTrue(result.hasErrors());
+	}
+}
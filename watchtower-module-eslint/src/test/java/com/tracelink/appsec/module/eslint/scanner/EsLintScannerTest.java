@@ -79,6 +79,27 @@ public class EsLintScannerTest {
 						.equals("eval can be harmful.") && v.getLineNum() == 3));
 	}
 
+	@Test
+	public void testScanBatch() throws Exception {
+		scanner = new EsLintScanner(engine, 10, 1024 * 1024L);
+		CodeScanConfig config = new CodeScanConfig();
+		config.setBenchmarkEnabled(true);
+		config.setWorkingDirectory(
+				Paths.get(getClass().getClassLoader().getResource("scan").toURI()));
+		config.setRuleset(rulesetDto);
+		CodeScanReport report = scanner.scan(config);
+		Assertions.assertEquals(1, report.getErrors().size());
+		Assertions.assertEquals("Parsing error: Unterminated string constant",
+				report.getErrors().get(0).getErrorMessage());
+		Assertions.assertEquals(2, report.getViolations().size());
+		Assertions.assertTrue(report.getViolations().stream()
+				.allMatch(v -> v.getFileName().endsWith("simple.js")));
+		Assertions.assertTrue(report.getViolations().stream()
+				.anyMatch(v -> v.getViolationName().equals("no-console") && v.getLineNum() == 2));
+		Assertions.assertTrue(report.getViolations().stream()
+				.anyMatch(v -> v.getViolationName().equals("no-eval") && v.getLineNum() == 3));
+	}
+
 	@Test
 	public void testScanCannotExportRuleset() {
 		rulesetDto.setName(null);
@@ -136,6 +157,38 @@ public class EsLintScannerTest {
 						"TypeError: context.report() called with a messageId, but no messages were present in the rule metadata."));
 	}
 
+	@Test
+	public void testScanBatchErrorNamesFile() throws Exception {
+		scanner = new EsLintScanner(engine, 10, 1024 * 1024L);
+		CodeScanConfig config = new CodeScanConfig();
+		config.setWorkingDirectory(
+				Paths.get(getClass().getClassLoader().getResource("scan/simple.js").toURI()));
+
+		EsLintCustomRuleDto rule = new EsLintCustomRuleDto();
+		rule.setName("rule");
+		rule.setMessage("message");
+		rule.setExternalUrl("url");
+		rule.setPriority(RulePriority.LOW);
+		rule.setCreateFunction("create(context) {\n"
+				+ "    return {\n"
+				+ "        VariableDeclaration(node) {\n"
+				+ "            context.report({ node, messageId: \"unexpected\" });\n"
+				+ "        }\n"
+				+ "    };\n"
+				+ "}");
+		RulesetDto ruleset = new RulesetDto();
+		ruleset.setName("ruleset");
+		ruleset.setDescription("description");
+		ruleset.setRules(Collections.singleton(rule));
+
+		config.setRuleset(ruleset);
+		CodeScanReport report = scanner.scan(config);
+		Assertions.assertEquals(1, report.getErrors().size());
+		String error = report.getErrors().get(0).getErrorMessage();
+		Assertions.assertTrue(error.startsWith("Exception scanning simple.js: "), error);
+		Assertions.assertTrue(error.contains("TypeError: context.report() called with a messageId"));
+	}
+
 	@Test
 	public void testGetSupportedRuleClass() {
 		Assertions.assertEquals(EsLintCustomRuleDto.class, scanner.getSupportedRuleClass());
@@ -21,7 +21,6 @@ import com.tracelink.appsec.module.json.scanner.JsonCallable;
 import com.tracelink.appsec.watchtower.core.module.designer.IRuleDesigner;
 import com.tracelink.appsec.watchtower.core.module.designer.RuleDesignerModelAndView;
 import com.tracelink.appsec.watchtower.core.rule.RulePriority;
-import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 
 /**
@@ -111,10 +110,7 @@ public class JsonRuleDesigner implements IRuleDesigner {
 		rule.setPriority(RulePriority.LOW);
 		rule.setQuery(query);
 		rule.setFileExtension("");
-		RulesetDto ruleset = new RulesetDto();
-		ruleset.setRules(Collections.singleton(rule));
-
-		JsonCallable json = new JsonCallable(temp, ruleset);
+		JsonCallable json = new JsonCallable(temp, Collections.singletonList(rule));
 		CodeScanReport report = json.call();
 		FileUtils.deleteQuietly(temp.toFile());
 		return report;
@@ -6,6 +6,7 @@ import javax.validation.constraints.NotNull;
 import com.jayway.jsonpath.JsonPath;
 import com.tracelink.appsec.module.json.JsonModule;
 import com.tracelink.appsec.watchtower.core.rule.CustomRuleDto;
+import com.tracelink.appsec.watchtower.core.rule.FileExtensionRule;
 import com.tracelink.appsec.watchtower.core.rule.RuleDto;
 
 /**
@@ -14,7 +15,7 @@ import com.tracelink.appsec.watchtower.core.rule.RuleDto;
  *
  * @author csmith
  */
-public class JsonRuleDto extends CustomRuleDto {
+public class JsonRuleDto extends CustomRuleDto implements FileExtensionRule {
 
 	@NotNull(message = "File extension" + CANNOT_BE_NULL)
 	private String fileExtension;
@@ -23,8 +24,9 @@ public class JsonRuleDto extends CustomRuleDto {
 	@NotEmpty(message = "Query" + CANNOT_BE_EMPTY)
 	private String query;
 
-	private JsonPath compiledQuery;
+	private volatile JsonPath compiledQuery;
 
+	@Override
 	public String getFileExtension() {
 		return fileExtension;
 	}
@@ -65,6 +67,7 @@ public class JsonRuleDto extends CustomRuleDto {
 		return entity;
 	}
 
+	@Override
 	public boolean isValidExtension(String fileName) {
 		return fileExtension.isEmpty() || fileName.endsWith(fileExtension);
 	}
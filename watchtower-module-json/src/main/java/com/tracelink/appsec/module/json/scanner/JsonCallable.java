@@ -1,6 +1,7 @@
 package com.tracelink.appsec.module.json.scanner;
 
 import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
@@ -8,19 +9,11 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonLocation;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
-import com.jayway.jsonpath.Option;
-import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
-import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 import com.tracelink.appsec.module.json.model.JsonRuleDto;
-import com.tracelink.appsec.module.json.scanner.provider.CustomJsonNodeFactory;
-import com.tracelink.appsec.module.json.scanner.provider.CustomParserFactory;
-import com.tracelink.appsec.watchtower.core.rule.RuleDto;
-import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
+import com.tracelink.appsec.module.json.scanner.provider.JsonDocumentParser;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanViolation;
@@ -34,78 +27,76 @@ import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanViolation;
 public class JsonCallable implements Callable<CodeScanReport> {
 	private static Logger LOG = LoggerFactory.getLogger(JsonCallable.class);
 
+	/**
+	 * Parsers are expensive to create, so each scanning thread reuses its own
+	 */
+	private static final ThreadLocal<JsonDocumentParser> PARSERS =
+			ThreadLocal.withInitial(JsonDocumentParser::new);
+
 	private final Path currentFile;
-	private final RulesetDto ruleset;
-	private final Configuration config;
-	private final CustomJsonNodeFactory factory;
+	private final List<JsonRuleDto> rules;
 
 	/**
 	 * The source processor for Json scans.
 	 *
-	 * @param file    the file this code comes from
-	 * @param ruleset the ruleset to use in this scan
+	 * @param file  the file this code comes from
+	 * @param rules the rules that apply to this file
 	 */
-	public JsonCallable(Path file, RulesetDto ruleset) {
+	public JsonCallable(Path file, List<JsonRuleDto> rules) {
 		this.currentFile = file;
-		this.ruleset = ruleset;
-		CustomParserFactory customParserFactory = new CustomParserFactory();
-		ObjectMapper om = new ObjectMapper(customParserFactory);
-		factory = new CustomJsonNodeFactory(om.getDeserializationConfig().getNodeFactory(),
-				customParserFactory);
-		om.setConfig(om.getDeserializationConfig().with(factory));
-		config = Configuration.builder()
-				.mappingProvider(new JacksonMappingProvider(om))
-				.jsonProvider(new JacksonJsonNodeJsonProvider(om))
-				.options(Option.ALWAYS_RETURN_LIST)
-				.build();
+		this.rules = rules;
 	}
 
 	@Override
 	public CodeScanReport call() {
+		JsonDocumentParser parser = PARSERS.get();
+		try {
+			return scan(parser);
+		} finally {
+			// don't hold on to the document until this thread parses the next one
+			parser.clear();
+		}
+	}
+
+	private CodeScanReport scan(JsonDocumentParser parser) {
 		CodeScanReport report = new CodeScanReport();
 
 		DocumentContext parsedDocument = null;
 
-		for (RuleDto rule : ruleset.getAllRules()) {
-			if (rule instanceof JsonRuleDto) {
-				JsonRuleDto jsonRule = (JsonRuleDto) rule;
-
-				if (jsonRule.isValidExtension(currentFile.toString())) {
-					JsonPath jsonPath = jsonRule.getCompiledQuery();
+		for (JsonRuleDto rule : rules) {
+			JsonPath jsonPath = rule.getCompiledQuery();
 
-					/*
-					 * If any rule wants the file, parse it and set lazily so that subsequent
-					 * JsonPath reads and faster
-					 */
-					if (parsedDocument == null) {
-						try {
-							parsedDocument = JsonPath.parse(this.currentFile.toFile(), config);
-						} catch (Exception e) {
-							String errorMsg = "Could not parse the file "
-									+ this.currentFile.getFileName() + " as JSON";
-							report.addError(new CodeScanError(errorMsg));
-							LOG.error(errorMsg, e);
-							return report;
-						}
-					}
-					ArrayNode findings = parsedDocument.read(jsonPath);
-					for (JsonNode finding : findings) {
-						JsonLocation location = this.factory.getLocationForNode(finding);
-						int lineNum = 0;
-						if (location != null) {
-							lineNum = location.getLineNr();
-						} else {
-							LOG.error("Could not find location for line");
-						}
-						CodeScanViolation sv = new CodeScanViolation();
-						sv.setViolationName(rule.getName());
-						sv.setFileName(currentFile.toString());
-						sv.setLineNum(lineNum);
-						sv.setSeverity(rule.getPriority());
-						sv.setMessage(rule.getMessage());
-						report.addViolation(sv);
-					}
+			/*
+			 * If any rule wants the file, parse it and set lazily so that subsequent JsonPath reads
+			 * and faster
+			 */
+			if (parsedDocument == null) {
+				try {
+					parsedDocument = parser.parse(this.currentFile.toFile());
+				} catch (Exception e) {
+					String errorMsg = "Could not parse the file "
+							+ this.currentFile.getFileName() + " as JSON";
+					report.addError(new CodeScanError(errorMsg));
+					LOG.error(errorMsg, e);
+					return report;
+				}
+			}
+			ArrayNode findings = parsedDocument.read(jsonPath);
+			for (JsonNode finding : findings) {
+				JsonLocation location = parser.getLocationForNode(finding);
+				int lineNum = 0;
+				if (location != null) {
+					lineNum = location.getLineNr();
+				} else {
+					LOG.error("Could not find location for line");
 				}
+				CodeScanViolation sv = new CodeScanViolation();
+				sv.setViolationName(rule.getName());
+				sv.setFileName(currentFile.toString());
+				sv.setLineNum(lineNum);
+				sv.setSeverity(rule.getPriority());
+				sv.setMessage(rule.getMessage());
+				report.addViolation(sv);
 			}
 		}
 		return report;
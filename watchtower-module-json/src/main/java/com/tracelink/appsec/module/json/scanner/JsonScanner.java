@@ -7,9 +7,12 @@ import com.tracelink.appsec.watchtower.core.benchmark.TimerType;
 import com.tracelink.appsec.watchtower.core.module.scanner.ICodeScanner;
 import com.tracelink.appsec.watchtower.core.rule.RuleDto;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanConfig;
+import com.tracelink.appsec.watchtower.core.scan.code.FileManifest;
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.AbstractProcessor;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.CallableCreator;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.MultiThreadedProcessor;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.ScanResultCache;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.SingleThreadedProcessor;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
@@ -32,10 +35,14 @@ public class JsonScanner implements ICodeScanner {
 				benchmarking.newBenchmarker(TimerType.DefaultTimerType.WALL_CLOCK)) {
 
 			AbstractProcessor processor =
-					getProcessor(config.getThreads());
+					getProcessor(config.getThreads(), config.getResultCache(), benchmarking);
 
+			// Only create tasks for files that at least one rule applies to
+			ScanPlan plan = config.getScanPlan();
+			FileManifest manifest = config.getFileManifest().filter(entry -> !plan
+					.getRules(JsonRuleDto.class, entry.getPath().toString()).isEmpty());
 			try (Benchmarker scan = benchmarking.newBenchmarker(TimerType.DefaultTimerType.SCAN)) {
-				processor.runScan(config.getRuleset(), config.getWorkingDirectory());
+				processor.runScan(plan, manifest);
 			}
 
 			try (Benchmarker reportTime =
@@ -54,14 +61,20 @@ public class JsonScanner implements ICodeScanner {
 		return JsonRuleDto.class;
 	}
 
-	private AbstractProcessor getProcessor(int threads) {
+	private AbstractProcessor getProcessor(int threads, ScanResultCache resultCache,
+			Benchmarking<JsonRuleDto> benchmarking) {
+		CallableCreator creator = getCreator();
+		if (resultCache != null) {
+			creator = resultCache.cachingCreator("json", JsonRuleDto.class, creator, benchmarking);
+		}
 		if (threads > 0) {
-			return new MultiThreadedProcessor(getCreator(), threads);
+			return new MultiThreadedProcessor(creator, threads);
 		}
-		return new SingleThreadedProcessor(getCreator());
+		return new SingleThreadedProcessor(creator);
 	}
 
 	private CallableCreator getCreator() {
-		return (file, ruleset) -> new JsonCallable(file, ruleset);
+		return (file, plan) -> new JsonCallable(file,
+				plan.getRules(JsonRuleDto.class, file.toString()));
 	}
 }
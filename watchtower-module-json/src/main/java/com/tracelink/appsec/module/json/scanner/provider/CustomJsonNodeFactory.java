@@ -2,12 +2,12 @@ package com.tracelink.appsec.module.json.scanner.provider;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.AbstractMap.SimpleEntry;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map.Entry;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.BinaryNode;
@@ -35,20 +35,22 @@ public class CustomJsonNodeFactory extends JsonNodeFactory {
 	private final CustomParserFactory parserFactory;
 
 	/*
-	 * "Why isn't this a map?" you might be wondering. Well, when the nodes are created, they're all
-	 * empty and a node's hashCode is based on its children. So if you use a map and put the node
-	 * in, then the node's hashCode is based on no children, then when you lookup your node, it is
-	 * *with* children, so the hashcodes are different. Instead of all of this, you have to iterate
-	 * through a listing and find their matches once the objects have been populated, which is only
-	 * after the document has been completely parsed
+	 * Nodes are indexed by identity. A node's hashCode and equals are based on its children, which
+	 * are still empty when the node is created, and equal-valued nodes in different places of the
+	 * document must keep their own locations.
+	 *
+	 * JsonPath unwraps values such as strings and wraps them again in new nodes when they are
+	 * results, so value nodes are also indexed by value, keeping the first location of each value.
 	 */
-	private List<Entry<JsonNode, JsonLocation>> locationMapping;
+	private Map<JsonNode, JsonLocation> locationIndex;
+	private Map<JsonNode, JsonLocation> valueIndex;
 
 	public CustomJsonNodeFactory(JsonNodeFactory nodeFactory,
 			CustomParserFactory parserFactory) {
 		delegate = nodeFactory;
 		this.parserFactory = parserFactory;
-		locationMapping = new ArrayList<>();
+		locationIndex = new IdentityHashMap<>();
+		valueIndex = new HashMap<>();
 	}
 
 	/**
@@ -58,20 +60,38 @@ public class CustomJsonNodeFactory extends JsonNodeFactory {
 	 * @return the location of the node or null if not found
 	 */
 	public JsonLocation getLocationForNode(JsonNode jsonNode) {
-		return this.locationMapping.stream().filter(e -> e.getKey().equals(jsonNode))
-				.map(e -> e.getValue()).findAny().orElse(null);
+		JsonLocation location = this.locationIndex.get(jsonNode);
+		if (location == null && jsonNode != null && jsonNode.isValueNode()) {
+			location = this.valueIndex.get(jsonNode);
+		}
+		return location;
 	}
 
 	/**
-	 * Simple interceptor to mark the node in the lookup list and return it back
+	 * Forget the locations of all nodes, so that this factory can be used for another document
+	 */
+	public void clear() {
+		locationIndex = new IdentityHashMap<>();
+		valueIndex = new HashMap<>();
+	}
+
+	/**
+	 * Simple interceptor to mark the node in the lookup index and return it back
 	 * 
 	 * @param <T>  the type of the JsonNode
 	 * @param node the node itself
 	 * @return the node itself, having marked its location
 	 */
 	private <T extends JsonNode> T markNode(T node) {
-		JsonLocation loc = parserFactory.getParser().getCurrentLocation();
-		locationMapping.add(new SimpleEntry<>(node, loc));
+		JsonParser parser = parserFactory.getParser();
+		// shared nodes such as true or small numbers keep their first location
+		if (parser != null && !parser.isClosed()) {
+			JsonLocation location = parser.getCurrentLocation();
+			locationIndex.putIfAbsent(node, location);
+			if (node.isValueNode()) {
+				valueIndex.putIfAbsent(node, location);
+			}
+		}
 		return node;
 	}
 
@@ -0,0 +1,71 @@
+package com.tracelink.appsec.module.json.scanner.provider;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+
+/**
+ * Parses documents for JsonPath queries while tracking the location of each node. Creating the
+ * {@link ObjectMapper} and JsonPath {@link Configuration} is expensive, so a parser is meant to be
+ * reused for many documents. The locations of the last parsed document are kept until the next
+ * document is parsed or the parser is cleared.
+ * <p>
+ * NOTE: THIS IS NOT THREAD SAFE. USE ONLY INSIDE A SINGLE THREAD.
+ *
+ * @author csmith
+ */
+public class JsonDocumentParser {
+	private final CustomJsonNodeFactory factory;
+	private final Configuration config;
+
+	public JsonDocumentParser() {
+		CustomParserFactory customParserFactory = new CustomParserFactory();
+		ObjectMapper om = new ObjectMapper(customParserFactory);
+		factory = new CustomJsonNodeFactory(om.getDeserializationConfig().getNodeFactory(),
+				customParserFactory);
+		om.setConfig(om.getDeserializationConfig().with(factory));
+		config = Configuration.builder()
+				.mappingProvider(new JacksonMappingProvider(om))
+				.jsonProvider(new JacksonJsonNodeJsonProvider(om))
+				.options(Option.ALWAYS_RETURN_LIST)
+				.build();
+	}
+
+	/**
+	 * Parse a file, replacing the locations of the previous document
+	 *
+	 * @param file the file to parse
+	 * @return the parsed document
+	 * @throws IOException if the file cannot be read
+	 */
+	public DocumentContext parse(File file) throws IOException {
+		factory.clear();
+		return JsonPath.parse(file, config);
+	}
+
+	/**
+	 * Given a node of the last parsed document, find its location, or null if it wasn't found
+	 *
+	 * @param jsonNode the node to search for
+	 * @return the location of the node or null if not found
+	 */
+	public JsonLocation getLocationForNode(JsonNode jsonNode) {
+		return factory.getLocationForNode(jsonNode);
+	}
+
+	/**
+	 * Release the locations of the last parsed document
+	 */
+	public void clear() {
+		factory.clear();
+	}
+}
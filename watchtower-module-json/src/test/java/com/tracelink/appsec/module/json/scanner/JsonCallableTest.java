@@ -11,7 +11,6 @@ import org.junit.jupiter.api.Test;
 
 import com.tracelink.appsec.module.json.model.JsonRuleDto;
 import com.tracelink.appsec.watchtower.core.rule.RulePriority;
-import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 
 public class JsonCallableTest {
@@ -43,17 +42,58 @@ public class JsonCallableTest {
 		rule.setQuery(query);
 		rule.setPriority(RulePriority.HIGH);
 		rule.setFileExtension("");
-		RulesetDto ruleset = new RulesetDto();
-		ruleset.setRules(Collections.singleton(rule));
 		Path temp = Files.createTempFile(null, null);
 		Files.write(temp, code.getBytes());
 
-		JsonCallable call = new JsonCallable(temp, ruleset);
+		JsonCallable call = new JsonCallable(temp, Collections.singletonList(rule));
 		CodeScanReport report = call.call();
 		MatcherAssert.assertThat(report.getViolations(), Matchers.hasSize(1));
 		MatcherAssert.assertThat(report.getViolations().get(0).getLineNum(), Matchers.is(8));
 	}
 
+	@Test
+	public void testParserReusedForNextFile() throws Exception {
+		JsonRuleDto rule = new JsonRuleDto();
+		rule.setName("test");
+		rule.setQuery(query);
+		rule.setPriority(RulePriority.HIGH);
+		rule.setFileExtension("");
+		Path first = Files.createTempFile(null, null);
+		Files.write(first, code.getBytes());
+		// same finding, moved down by two lines
+		Path second = Files.createTempFile(null, null);
+		Files.write(second, ("\n\n" + code).getBytes());
+
+		CodeScanReport firstReport =
+				new JsonCallable(first, Collections.singletonList(rule)).call();
+		CodeScanReport secondReport =
+				new JsonCallable(second, Collections.singletonList(rule)).call();
+		MatcherAssert.assertThat(firstReport.getViolations().get(0).getLineNum(),
+				Matchers.is(8));
+		MatcherAssert.assertThat(secondReport.getViolations(), Matchers.hasSize(1));
+		MatcherAssert.assertThat(secondReport.getViolations().get(0).getLineNum(),
+				Matchers.is(10));
+	}
+
+	@Test
+	public void testEqualNodesKeepOwnLocation() throws Exception {
+		JsonRuleDto rule = new JsonRuleDto();
+		rule.setName("test");
+		rule.setQuery("$..[?(@.age == 23)]");
+		rule.setPriority(RulePriority.HIGH);
+		rule.setFileExtension("");
+		Path temp = Files.createTempFile(null, null);
+		Files.write(temp, ("[\n" +
+				"  {\"name\": \"Fred\", \"age\": 23},\n" +
+				"  {\"name\": \"Fred\", \"age\": 23}\n" +
+				"]").getBytes());
+
+		CodeScanReport report = new JsonCallable(temp, Collections.singletonList(rule)).call();
+		MatcherAssert.assertThat(report.getViolations(), Matchers.hasSize(2));
+		MatcherAssert.assertThat(report.getViolations().get(0).getLineNum(), Matchers.is(2));
+		MatcherAssert.assertThat(report.getViolations().get(1).getLineNum(), Matchers.is(3));
+	}
+
 	@Test
 	public void testUnparseableFile() throws IOException {
 		JsonRuleDto rule = new JsonRuleDto();
@@ -61,12 +101,10 @@ public class JsonCallableTest {
 		rule.setQuery(query);
 		rule.setPriority(RulePriority.HIGH);
 		rule.setFileExtension("");
-		RulesetDto ruleset = new RulesetDto();
-		ruleset.setRules(Collections.singleton(rule));
 		Path temp = Files.createTempFile(null, null);
 		Files.write(temp, "}{".getBytes());
 
-		JsonCallable call = new JsonCallable(temp, ruleset);
+		JsonCallable call = new JsonCallable(temp, Collections.singletonList(rule));
 		CodeScanReport report = call.call();
 		MatcherAssert.assertThat(report.getErrors(), Matchers.hasSize(1));
 		MatcherAssert.assertThat(report.getErrors().get(0).getErrorMessage(),
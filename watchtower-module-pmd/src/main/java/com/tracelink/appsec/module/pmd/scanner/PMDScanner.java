@@ -1,15 +1,17 @@
 package com.tracelink.appsec.module.pmd.scanner;
 
-import java.io.FileOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,19 +25,25 @@ import com.tracelink.appsec.watchtower.core.rule.RuleDto;
 import com.tracelink.appsec.watchtower.core.rule.RuleException;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanConfig;
+import com.tracelink.appsec.watchtower.core.scan.code.FileManifest;
+import com.tracelink.appsec.watchtower.core.scan.code.ManifestEntry;
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
+import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
 
 import net.sourceforge.pmd.PMD;
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.Rule;
 import net.sourceforge.pmd.RulePriority;
 import net.sourceforge.pmd.RuleSet;
-import net.sourceforge.pmd.RuleSetWriter;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimingReport;
 import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageFilenameFilter;
 import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.renderers.Renderer;
+import net.sourceforge.pmd.util.datasource.DataSource;
+import net.sourceforge.pmd.util.datasource.FileDataSource;
 
 /**
  * {@link ICodeScanner} for PMD. Manages the PMD lifecycle and reporting
@@ -46,6 +54,21 @@ public class PMDScanner implements ICodeScanner {
 	public static final Logger LOG = LoggerFactory.getLogger(PMDScanner.class);
 	public static final String DEFAULT_PMD_RULES =
 			"rules/security/sec-deserialization.xml,rules/security/sec-xxe.xml";
+	/**
+	 * Number of compiled rulesets kept for reuse by later scans
+	 */
+	private static final int MAX_RULESETS = 16;
+	private final Map<String, RuleSet> ruleSets =
+			new LinkedHashMap<String, RuleSet>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, RuleSet> eldest) {
+					return size() > MAX_RULESETS;
+				}
+			};
+	private final Map<Integer, WatchtowerPMDConfiguration> configurations =
+			new ConcurrentHashMap<>();
 	private PMDRuleService ruleService;
 
 	public PMDScanner(PMDRuleService ruleService) {
@@ -57,46 +80,100 @@ public class PMDScanner implements ICodeScanner {
 	 */
 	@Override
 	public PMDReport scan(CodeScanConfig config) {
-		// Write PMD rules to an XML file
-		Path rulesetPath = null;
+		// Get the PMD rules, shared by scans with the same rules
+		RuleSet ruleSet;
 		try {
-			rulesetPath = writeRulesetToFile(config.getRuleset());
+			ScanPlan plan = config.getScanPlan();
+			ruleSet = getRuleSet(plan == null ? null : plan.getFingerprint(PMDRuleDto.class),
+					config.getRuleset());
 		} catch (Exception e) {
-			LOG.error("Exception writing ruleset to resources", e);
-			if (rulesetPath != null) {
-				FileUtils.deleteQuietly(rulesetPath.toFile());
-			}
+			LOG.error("Exception creating ruleset", e);
 			return null;
 		}
-		// Create configuration
-		WatchtowerPMDConfiguration pmdConfig =
-				new WatchtowerPMDConfiguration(config.getWorkingDirectory().toString(),
-						rulesetPath.toString(), config.getThreads());
+		// Configuration holds no state of a scan, so it is shared by scans with the same threads
+		WatchtowerPMDConfiguration pmdConfig = configurations.computeIfAbsent(
+				config.getThreads(), threads -> new WatchtowerPMDConfiguration(null, null, threads));
 		PMDRenderer renderer = new PMDRenderer();
-		pmdConfig.setRenderer(renderer);
+		renderer.setWriter(new NoopWriter());
 		// Perform scan
 		TimingReport timing;
+		CodeScanError error = null;
 		if (config.isBenchmarkEnabled()) {
 			TimeTracker.startGlobalTracking();
 		}
 
-		PMD.runPmd(pmdConfig);
+		try {
+			// Start the renderer first so that a report can be created if collecting files fails
+			renderer.start();
+			Set<Language> languages = new HashSet<>();
+			ruleSet.getRules().forEach(rule -> languages.add(rule.getLanguage()));
+			List<DataSource> files = collectFiles(config.getFileManifest(),
+					new LanguageFilenameFilter(languages));
+			// PMD may remove rules that fail to start, so each scan gets its own copy of the rules
+			PMD.processFiles(pmdConfig, Collections.singletonList(RuleSet.copy(ruleSet)), files,
+					Collections.singletonList(renderer));
+			renderer.end();
+		} catch (Exception e) {
+			LOG.error("Exception running PMD", e);
+			error = new CodeScanError("Exception running PMD: " + e.getMessage());
+		}
 
 		if (config.isBenchmarkEnabled()) {
 			timing = TimeTracker.stopGlobalTracking();
 			renderer.addTimingReport(timing);
 		}
-		// Delete ruleset XML file
-		FileUtils.deleteQuietly(rulesetPath.toFile());
-		return renderer.createReport();
+		PMDReport report = renderer.createReport();
+		if (error != null) {
+			report.addError(error);
+		}
+		return report;
 	}
 
-	private Path writeRulesetToFile(RulesetDto dto)
-			throws IOException, RulesetException {
-		String uri = "pmd-" + dto.getId() + "-";
-		Path rulesetPath = Files.createTempFile(uri, ".xml").toFile().getCanonicalFile()
-				.getAbsoluteFile().toPath();
+	/**
+	 * Get the files of the manifest that PMD can scan with the given filter
+	 *
+	 * @param manifest the files of the scan, or null if there are none
+	 * @param filter   the filter of files in the languages of the rules
+	 * @return the sources of the files to scan
+	 */
+	private static List<DataSource> collectFiles(FileManifest manifest,
+			LanguageFilenameFilter filter) {
+		List<DataSource> files = new ArrayList<>();
+		if (manifest != null) {
+			for (ManifestEntry entry : manifest.getEntries()) {
+				File file = entry.getPath().toFile();
+				if (filter.accept(file.getParentFile(), file.getName())) {
+					files.add(new FileDataSource(file));
+				}
+			}
+		}
+		return files;
+	}
 
+	/**
+	 * Get the compiled PMD rules for a ruleset, creating them if they have not been created for
+	 * the fingerprint of the rules. Rules without a fingerprint are always created.
+	 *
+	 * @param fingerprint the fingerprint of the PMD rules in the ruleset, or null
+	 * @param dto         the ruleset
+	 * @return the PMD rules of the ruleset
+	 * @throws RulesetException if a rule could not be created
+	 */
+	RuleSet getRuleSet(String fingerprint, RulesetDto dto) throws RulesetException {
+		if (fingerprint == null) {
+			return createRuleSet(dto);
+		}
+		synchronized (ruleSets) {
+			RuleSet ruleSet = ruleSets.get(fingerprint);
+			if (ruleSet == null) {
+				ruleSet = createRuleSet(dto);
+				ruleSets.put(fingerprint, ruleSet);
+			}
+			return ruleSet;
+		}
+	}
+
+	private RuleSet createRuleSet(RulesetDto dto) throws RulesetException {
 		List<Rule> rules = new ArrayList<Rule>();
 		try {
 			for (RuleDto ruleDto : dto.getAllRules()) {
@@ -108,16 +185,8 @@ public class PMDScanner implements ICodeScanner {
 			throw new RulesetException("Error while creating ruleset: " + e.getMessage());
 		}
 
-		RuleSet ruleset = RuleSet.create(dto.getName(), dto.getDescription(),
-				rulesetPath.getFileName().toString(),
+		return RuleSet.create(dto.getName(), dto.getDescription(), null,
 				new ArrayList<>(), new ArrayList<>(), rules);
-
-		try (OutputStream os = new FileOutputStream(rulesetPath.toFile())) {
-			RuleSetWriter writer = new RuleSetWriter(os);
-			writer.write(ruleset);
-		}
-
-		return rulesetPath;
 	}
 
 	/**
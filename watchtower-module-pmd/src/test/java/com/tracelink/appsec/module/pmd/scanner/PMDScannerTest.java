@@ -1,6 +1,7 @@
 package com.tracelink.appsec.module.pmd.scanner;
 
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
@@ -11,12 +12,16 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.tracelink.appsec.module.pmd.controller.PMDRuleEditControllerTest;
+import com.tracelink.appsec.module.pmd.model.PMDRuleDto;
 import com.tracelink.appsec.module.pmd.service.PMDRuleService;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanConfig;
+import com.tracelink.appsec.watchtower.core.scan.code.FileManifest;
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
 import com.tracelink.appsec.watchtower.test.logging.LogWatchExtension;
 
 import net.sourceforge.pmd.renderers.EmptyRenderer;
@@ -53,6 +58,78 @@ public class PMDScannerTest {
 		Assertions.assertTrue(messages.get(0).contains("Wall Clock Time"));
 	}
 
+	@Test
+	public void testScanReusesRuleSet() throws Exception {
+		Path workingDirectory = Files.createTempDirectory(null);
+		Files.write(workingDirectory.resolve("Main.java"),
+				("public class Main {\n\tpublic void run() {\n"
+						+ "\t\tSystem.out.println(\"hi\");\n\t}\n}\n")
+								.getBytes(StandardCharsets.UTF_8));
+		RulesetDto ruleset = new RulesetDto();
+		ruleset.setName("Default");
+		ruleset.setDescription("Set of default rules");
+		ruleset.setRules(Collections.singleton(PMDRuleEditControllerTest.getPMDRuleDto()));
+		CodeScanConfig config = new CodeScanConfig();
+		config.setRuleset(ruleset);
+		config.setWorkingDirectory(workingDirectory);
+		config.setScanPlan(new ScanPlan(ruleset));
+		PMDScanner scanner = new PMDScanner(ruleService);
+
+		for (int i = 0; i < 2; i++) {
+			PMDReport report = scanner.scan(config);
+			Assertions.assertTrue(report.getErrors().isEmpty());
+			Assertions.assertEquals(1, report.getViolations().size());
+			Assertions.assertEquals(3, report.getViolations().get(0).getLineNum());
+		}
+		String fingerprint = config.getScanPlan().getFingerprint(PMDRuleDto.class);
+		Assertions.assertSame(scanner.getRuleSet(fingerprint, ruleset),
+				scanner.getRuleSet(fingerprint, ruleset));
+		Assertions.assertNotSame(scanner.getRuleSet(null, ruleset),
+				scanner.getRuleSet(null, ruleset));
+	}
+
+	@Test
+	public void testScanOnlyManifestFiles() throws Exception {
+		Path workingDirectory = Files.createTempDirectory(null);
+		byte[] code = ("public class Main {\n\tpublic void run() {\n"
+				+ "\t\tSystem.out.println(\"hi\");\n\t}\n}\n").getBytes(StandardCharsets.UTF_8);
+		Path scanned = Files.write(workingDirectory.resolve("Main.java"), code);
+		Files.write(workingDirectory.resolve("Other.java"), code);
+		Files.write(workingDirectory.resolve("readme.txt"), code);
+		RulesetDto ruleset = new RulesetDto();
+		ruleset.setName("Default");
+		ruleset.setDescription("Set of default rules");
+		ruleset.setRules(Collections.singleton(PMDRuleEditControllerTest.getPMDRuleDto()));
+		CodeScanConfig config = new CodeScanConfig();
+		config.setRuleset(ruleset);
+		config.setWorkingDirectory(workingDirectory);
+		config.setFileManifest(new FileManifest.Builder(workingDirectory)
+				.add(scanned, code.length)
+				.add(workingDirectory.resolve("readme.txt"), code.length).build());
+
+		PMDReport report = new PMDScanner(ruleService).scan(config);
+		Assertions.assertTrue(report.getErrors().isEmpty());
+		Assertions.assertEquals(1, report.getViolations().size());
+		Assertions.assertTrue(report.getViolations().get(0).getFileName().endsWith("Main.java"));
+	}
+
+	@Test
+	public void testScanException() throws Exception {
+		RulesetDto ruleset = new RulesetDto();
+		ruleset.setName("Default");
+		ruleset.setDescription("Set of default rules");
+		ruleset.setRules(Collections.singleton(PMDRuleEditControllerTest.getPMDRuleDto()));
+		CodeScanConfig config = Mockito.spy(new CodeScanConfig());
+		config.setRuleset(ruleset);
+		Mockito.doThrow(new IllegalStateException("manifest")).when(config).getFileManifest();
+
+		PMDReport report = new PMDScanner(ruleService).scan(config);
+		Assertions.assertEquals(1, report.getErrors().size());
+		Assertions.assertEquals("Exception running PMD: manifest",
+				report.getErrors().get(0).getErrorMessage());
+		Assertions.assertTrue(report.getViolations().isEmpty());
+	}
+
 	@Test
 	public void testPMDRenderer() {
 		PMDScanner.WatchtowerPMDConfiguration pmdConfig =
@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import com.tracelink.appsec.module.regex.designer.RegexRuleDesigner;
 import com.tracelink.appsec.module.regex.ruleeditor.RegexRuleEditor;
@@ -29,11 +30,17 @@ public class RegexModule extends AbstractCodeScanModule {
 	public static final String REGEX_RULE_DESIGNER_PRIVILEGE_NAME = "Regex Rule Designer";
 	private RegexRuleDesigner regexRuleDesigner;
 	private RegexRuleService ruleService;
+	private long maxFileSize;
+	private int maxLineLength;
 
 	public RegexModule(@Autowired RegexRuleDesigner regexRuleDesigner,
-			@Autowired RegexRuleService ruleService) {
+			@Autowired RegexRuleService ruleService,
+			@Value("${watchtower.regex.maxFileSize:10485760}") long maxFileSize,
+			@Value("${watchtower.regex.maxLineLength:1000000}") int maxLineLength) {
 		this.regexRuleDesigner = regexRuleDesigner;
 		this.ruleService = ruleService;
+		this.maxFileSize = maxFileSize;
+		this.maxLineLength = maxLineLength;
 	}
 
 	/**
@@ -65,7 +72,7 @@ public class RegexModule extends AbstractCodeScanModule {
 	 */
 	@Override
 	public ICodeScanner getScanner() {
-		return new RegexScanner();
+		return new RegexScanner(maxFileSize, maxLineLength);
 	}
 
 	/**
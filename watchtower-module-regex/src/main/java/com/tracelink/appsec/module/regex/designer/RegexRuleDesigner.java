@@ -19,10 +19,10 @@ import com.tracelink.appsec.module.regex.RegexModule;
 import com.tracelink.appsec.module.regex.model.RegexCustomRuleDto;
 import com.tracelink.appsec.module.regex.scanner.RegexBenchmarking;
 import com.tracelink.appsec.module.regex.scanner.RegexCallable;
+import com.tracelink.appsec.module.regex.scanner.RegexRuleMatcher;
 import com.tracelink.appsec.watchtower.core.module.designer.IRuleDesigner;
 import com.tracelink.appsec.watchtower.core.module.designer.RuleDesignerModelAndView;
 import com.tracelink.appsec.watchtower.core.rule.RulePriority;
-import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 
 /**
@@ -92,11 +92,8 @@ public class RegexRuleDesigner implements IRuleDesigner {
 		rule.setPriority(RulePriority.LOW);
 		rule.setRegexPattern(query);
 		rule.setFileExtension("");
-		RulesetDto ruleset = new RulesetDto();
-		ruleset.setRules(Collections.singleton(rule));
-
 		RegexCallable regex =
-				new RegexCallable(temp, ruleset,
+				new RegexCallable(temp, new RegexRuleMatcher(Collections.singletonList(rule)),
 						new RegexBenchmarking());
 		CodeScanReport report = regex.call();
 
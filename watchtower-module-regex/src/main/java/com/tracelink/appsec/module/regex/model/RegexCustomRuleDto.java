@@ -9,6 +9,7 @@ import javax.validation.constraints.Size;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.tracelink.appsec.module.regex.RegexModule;
 import com.tracelink.appsec.watchtower.core.rule.CustomRuleDto;
+import com.tracelink.appsec.watchtower.core.rule.FileExtensionRule;
 import com.tracelink.appsec.watchtower.core.rule.RuleDto;
 
 /**
@@ -17,7 +18,7 @@ import com.tracelink.appsec.watchtower.core.rule.RuleDto;
  *
  * @author mcool
  */
-public class RegexCustomRuleDto extends CustomRuleDto {
+public class RegexCustomRuleDto extends CustomRuleDto implements FileExtensionRule {
 
 	@NotNull(message = "File extension" + CANNOT_BE_NULL)
 	@Size(max = 255, message = "File extension cannot have a length of more than 256 characters.")
@@ -27,13 +28,14 @@ public class RegexCustomRuleDto extends CustomRuleDto {
 	@NotEmpty(message = "Regex pattern" + CANNOT_BE_EMPTY)
 	private String regexPattern;
 
-	private Pattern compiledPattern = null;
+	private volatile Pattern compiledPattern = null;
 
 	@Override
 	public String getModule() {
 		return RegexModule.REGEX_MODULE_NAME;
 	}
 
+	@Override
 	public String getFileExtension() {
 		return fileExtension;
 	}
@@ -81,6 +83,7 @@ public class RegexCustomRuleDto extends CustomRuleDto {
 	 * @param fileName the name of the file (with extension)
 	 * @return true if the extension is null or matches the input string
 	 */
+	@Override
 	public boolean isValidExtension(String fileName) {
 		return fileExtension.isEmpty() || fileName.endsWith(fileExtension);
 	}
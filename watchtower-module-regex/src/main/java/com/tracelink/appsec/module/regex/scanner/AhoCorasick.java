@@ -0,0 +1,130 @@
+package com.tracelink.appsec.module.regex.scanner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton that finds every occurrence of a set of keywords in a single pass over
+ * the text. Transitions for ASCII characters are precomputed into a table so that the common case
+ * is a single array lookup per character; other characters follow the trie and failure links.
+ * Instances are immutable and may be shared between threads.
+ *
+ * @author csmith
+ */
+final class AhoCorasick {
+	private static final int ASCII = 128;
+	private static final int ROOT = 0;
+
+	private final List<Map<Character, Integer>> edges = new ArrayList<>();
+	private final int[] failure;
+	private final int[][] asciiTransitions;
+	private final int[][] outputs;
+
+	/**
+	 * Builds the automaton for the given keywords.
+	 *
+	 * @param keywords the keywords to search for. The index of each keyword in this list is
+	 *                 reported when it is found
+	 */
+	AhoCorasick(List<String> keywords) {
+		List<List<Integer>> out = new ArrayList<>();
+		edges.add(new HashMap<>());
+		out.add(new ArrayList<>());
+		for (int k = 0; k < keywords.size(); k++) {
+			int state = ROOT;
+			for (char c : keywords.get(k).toCharArray()) {
+				Integer next = edges.get(state).get(c);
+				if (next == null) {
+					next = edges.size();
+					edges.add(new HashMap<>());
+					out.add(new ArrayList<>());
+					edges.get(state).put(c, next);
+				}
+				state = next;
+			}
+			out.get(state).add(k);
+		}
+
+		int states = edges.size();
+		failure = new int[states];
+		asciiTransitions = new int[states][];
+		outputs = new int[states][];
+
+		// breadth first so that failure states are always complete before they are used
+		Queue<Integer> queue = new ArrayDeque<>();
+		queue.add(ROOT);
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			for (Map.Entry<Character, Integer> edge : edges.get(state).entrySet()) {
+				int child = edge.getValue();
+				if (state != ROOT) {
+					int fail = failure[state];
+					while (fail != ROOT && !edges.get(fail).containsKey(edge.getKey())) {
+						fail = failure[fail];
+					}
+					Integer target = edges.get(fail).get(edge.getKey());
+					failure[child] = target == null ? ROOT : target;
+				}
+				queue.add(child);
+			}
+			if (state != ROOT) {
+				out.get(state).addAll(out.get(failure[state]));
+			}
+			outputs[state] = out.get(state).stream().mapToInt(Integer::intValue).toArray();
+
+			int[] transitions = new int[ASCII];
+			for (char c = 0; c < ASCII; c++) {
+				Integer next = edges.get(state).get(c);
+				if (next != null) {
+					transitions[c] = next;
+				} else {
+					transitions[c] = state == ROOT ? ROOT : asciiTransitions[failure[state]][c];
+				}
+			}
+			asciiTransitions[state] = transitions;
+		}
+	}
+
+	/**
+	 * @return the state to start searching from
+	 */
+	int start() {
+		return ROOT;
+	}
+
+	/**
+	 * Advances the automaton by one character.
+	 *
+	 * @param state the current state
+	 * @param c     the next character of the text
+	 * @return the new state
+	 */
+	int next(int state, char c) {
+		if (c < ASCII) {
+			return asciiTransitions[state][c];
+		}
+		int current = state;
+		while (true) {
+			Integer next = edges.get(current).get(c);
+			if (next != null) {
+				return next;
+			}
+			if (current == ROOT) {
+				return ROOT;
+			}
+			current = failure[current];
+		}
+	}
+
+	/**
+	 * @param state a state of the automaton
+	 * @return the indexes of all keywords that end at the given state
+	 */
+	int[] outputs(int state) {
+		return outputs[state];
+	}
+}
@@ -1,84 +1,105 @@
 package com.tracelink.appsec.module.regex.scanner;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.concurrent.Callable;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.tracelink.appsec.module.regex.model.RegexCustomRuleDto;
-import com.tracelink.appsec.watchtower.core.benchmark.Benchmarker;
-import com.tracelink.appsec.watchtower.core.rule.RuleDto;
-import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanViolation;
 
 /**
- * handles scanning a single file for regex matches based on rules
+ * handles scanning a single file for regex matches based on rules. Files larger than the maximum
+ * file size, and lines longer than the maximum line length, are skipped and reported as errors.
  *
  * @author csmith
  */
 public class RegexCallable implements Callable<CodeScanReport> {
 
 	private final Path currentFile;
-	private final RulesetDto ruleset;
+	private final RegexRuleMatcher ruleMatcher;
 	private final RegexBenchmarking benchmarking;
+	private final SourceFileReader.Pool readers;
+	private final int maxLineLength;
 
 	/**
-	 * The source processor for Regex scans.
+	 * The source processor for Regex scans, using the default file size and line length limits.
 	 *
 	 * @param currentFile  the file this code comes from
-	 * @param ruleset      the ruleset to use in this scan
+	 * @param ruleMatcher  the compiled rules that apply to this file
 	 * @param benchmarking if applicable, the benchmarking tool
 	 */
-	public RegexCallable(Path currentFile, RulesetDto ruleset,
+	public RegexCallable(Path currentFile, RegexRuleMatcher ruleMatcher,
 			RegexBenchmarking benchmarking) {
+		this(currentFile, ruleMatcher, benchmarking,
+				new SourceFileReader.Pool(RegexScanner.DEFAULT_MAX_FILE_SIZE),
+				RegexScanner.DEFAULT_MAX_LINE_LENGTH);
+	}
+
+	/**
+	 * The source processor for Regex scans.
+	 *
+	 * @param currentFile   the file this code comes from
+	 * @param ruleMatcher   the compiled rules that apply to this file
+	 * @param benchmarking  if applicable, the benchmarking tool
+	 * @param readers       the readers shared by the callables of this scan
+	 * @param maxLineLength the length in chars of the longest line to scan
+	 */
+	public RegexCallable(Path currentFile, RegexRuleMatcher ruleMatcher,
+			RegexBenchmarking benchmarking, SourceFileReader.Pool readers, int maxLineLength) {
 		this.currentFile = currentFile;
-		this.ruleset = ruleset;
+		this.ruleMatcher = ruleMatcher;
 		this.benchmarking = benchmarking;
+		this.readers = readers;
+		this.maxLineLength = maxLineLength;
 	}
 
 	@Override
 	public CodeScanReport call() {
 		CodeScanReport report = new CodeScanReport();
-
-		try (BufferedReader br = new BufferedReader(new FileReader(currentFile.toFile()))) {
-			String lineData;
-			int lineNum = 0;
-			while ((lineData = br.readLine()) != null) {
-				lineNum++;
-				for (RuleDto rule : ruleset.getAllRules()) {
-					if (rule instanceof RegexCustomRuleDto) {
-						RegexCustomRuleDto regexRule = (RegexCustomRuleDto) rule;
-						if (regexRule.isValidExtension(currentFile.toString())) {
-							if (findViolations(lineData, regexRule)) {
-								CodeScanViolation sv = new CodeScanViolation();
-								sv.setViolationName(regexRule.getName());
-								sv.setFileName(currentFile.toString());
-								sv.setLineNum(lineNum);
-								sv.setSeverity(regexRule.getPriority());
-								sv.setMessage(regexRule.getMessage());
-								report.addViolation(sv);
-							}
-						}
-					}
-				}
+		SourceFileReader reader = readers.borrow();
+		try {
+			if (!reader.read(currentFile)) {
+				report.addError(new CodeScanError(
+						"Skipped file larger than the maximum file size: "
+								+ currentFile.getFileName()));
+				return report;
 			}
+			scanLines(reader, report);
 		} catch (IOException e) {
 			report.addError(new CodeScanError("Could not read: " + currentFile.getFileName()));
+		} finally {
+			readers.release(reader);
 		}
-
 		return report;
 	}
 
-	private boolean findViolations(String lineData, RegexCustomRuleDto regexRule) {
-		try (Benchmarker b = benchmarking.newRuleBenchmarker(regexRule)) {
-			Pattern regexPattern = regexRule.getCompiledPattern();
-			Matcher matcher = regexPattern.matcher(lineData);
-			return matcher.find();
+	private void scanLines(SourceFileReader reader, CodeScanReport report) {
+		RegexRuleMatcher.FileMatcher matcher =
+				ruleMatcher.newFileMatcher(reader.getContent(), benchmarking);
+		int skippedLines = 0;
+		for (int line = 0; line < reader.getLineCount(); line++) {
+			int start = reader.getLineStart(line);
+			int end = reader.getLineEnd(line);
+			if (end - start > maxLineLength) {
+				skippedLines++;
+				continue;
+			}
+			for (RegexCustomRuleDto regexRule : matcher.match(start, end)) {
+				CodeScanViolation sv = new CodeScanViolation();
+				sv.setViolationName(regexRule.getName());
+				sv.setFileName(currentFile.toString());
+				sv.setLineNum(line + 1);
+				sv.setSeverity(regexRule.getPriority());
+				sv.setMessage(regexRule.getMessage());
+				report.addViolation(sv);
+			}
+		}
+		if (skippedLines > 0) {
+			report.addError(new CodeScanError("Skipped " + skippedLines
+					+ " line(s) longer than the maximum line length in: "
+					+ currentFile.getFileName()));
 		}
 	}
 
@@ -0,0 +1,368 @@
+package com.tracelink.appsec.module.regex.scanner;
+
+import java.util.regex.Pattern;
+
+/**
+ * Extracts a literal string that must appear in every match of a regex. The extraction is
+ * conservative: it only looks at top-level literal characters outside of groups, classes and
+ * quantifiers, and gives up on anything it does not fully understand. A pattern without a required
+ * literal must be run against every line.
+ *
+ * @author csmith
+ */
+final class RegexLiterals {
+	/**
+	 * Flags that change how literal characters match
+	 */
+	private static final int UNSUPPORTED_FLAGS =
+			Pattern.CASE_INSENSITIVE | Pattern.COMMENTS | Pattern.CANON_EQ;
+	/**
+	 * Inline flag groups that turn on case-insensitive or comments mode, e.g. (?i) or (?x:...)
+	 */
+	private static final Pattern UNSUPPORTED_INLINE_FLAGS =
+			Pattern.compile("\\(\\?[idmsuxU-]*[ix]");
+
+	private RegexLiterals() {
+		// utility class
+	}
+
+	/**
+	 * Finds the longest literal that any match of the given pattern must contain.
+	 *
+	 * @param pattern the compiled pattern
+	 * @return the required literal, or null if none could be determined
+	 */
+	static String requiredLiteral(Pattern pattern) {
+		if (pattern == null || (pattern.flags() & UNSUPPORTED_FLAGS) != 0) {
+			return null;
+		}
+		String regex = pattern.pattern();
+		if ((pattern.flags() & Pattern.LITERAL) != 0) {
+			return regex.isEmpty() ? null : regex;
+		}
+		if (UNSUPPORTED_INLINE_FLAGS.matcher(regex).find()) {
+			return null;
+		}
+		try {
+			return new Parser(regex).parse();
+		} catch (IndexOutOfBoundsException e) {
+			// malformed or unexpected syntax, run the pattern everywhere
+			return null;
+		}
+	}
+
+	/**
+	 * Single-use parser that walks the top level of a regex, tracking runs of required literal
+	 * characters.
+	 */
+	private static final class Parser {
+		private final String regex;
+		private final StringBuilder run = new StringBuilder();
+		private String best = null;
+		private int pos = 0;
+
+		Parser(String regex) {
+			this.regex = regex;
+		}
+
+		String parse() {
+			while (pos < regex.length()) {
+				char c = regex.charAt(pos);
+				switch (c) {
+					case '|':
+						// top-level alternation, no single literal is required
+						return null;
+					case '(':
+						pos = skipGroup(pos);
+						nonLiteral();
+						break;
+					case '[':
+						pos = skipClass(pos);
+						nonLiteral();
+						break;
+					case '.':
+					case '^':
+					case '$':
+						pos++;
+						nonLiteral();
+						break;
+					case '*':
+					case '+':
+					case '?':
+					case '{':
+						// stray quantifier, skipped along with any that follow it
+						nonLiteral();
+						break;
+					case '\\':
+						if (!parseEscape()) {
+							return null;
+						}
+						break;
+					default:
+						pos++;
+						if (Character.isSurrogate(c)) {
+							nonLiteral();
+						} else {
+							literal(c);
+						}
+						break;
+				}
+			}
+			endRun();
+			return best;
+		}
+
+		/**
+		 * Handles an escape sequence starting at the current position.
+		 *
+		 * @return false if the escape is not understood and the pattern must be run everywhere
+		 */
+		private boolean parseEscape() {
+			char e = regex.charAt(pos + 1);
+			pos += 2;
+			if (!Character.isLetterOrDigit(e)) {
+				if (Character.isSurrogate(e)) {
+					nonLiteral();
+				} else {
+					literal(e);
+				}
+				return true;
+			}
+			switch (e) {
+				case 't':
+					literal('\t');
+					return true;
+				case 'n':
+					literal('\n');
+					return true;
+				case 'r':
+					literal('\r');
+					return true;
+				case 'f':
+					literal('\f');
+					return true;
+				case 'a':
+					literal('\u0007');
+					return true;
+				case 'e':
+					literal('\u001B');
+					return true;
+				case 'Q':
+					int end = regex.indexOf("\\E", pos);
+					String quoted = regex.substring(pos, end < 0 ? regex.length() : end);
+					pos = end < 0 ? regex.length() : end + 2;
+					if (quoted.chars().anyMatch(ch -> Character.isSurrogate((char) ch))) {
+						nonLiteral();
+					} else if (!quoted.isEmpty()) {
+						run.append(quoted, 0, quoted.length() - 1);
+						literal(quoted.charAt(quoted.length() - 1));
+					}
+					return true;
+				case 'x':
+					pos = regex.charAt(pos) == '{' ? regex.indexOf('}', pos) + 1 : pos + 2;
+					break;
+				case 'u':
+					pos += 4;
+					break;
+				case '0':
+					for (int i = 0; i < 3 && pos < regex.length()
+							&& regex.charAt(pos) >= '0' && regex.charAt(pos) <= '7'; i++) {
+						pos++;
+					}
+					break;
+				case 'c':
+					pos++;
+					break;
+				case 'p':
+				case 'P':
+				case 'N':
+				case 'b':
+					if (pos < regex.length() && regex.charAt(pos) == '{') {
+						pos = regex.indexOf('}', pos) + 1;
+					} else if (e != 'b') {
+						pos++;
+					}
+					break;
+				case 'k':
+					pos = regex.indexOf('>', pos) + 1;
+					break;
+				case 'd':
+				case 'D':
+				case 's':
+				case 'S':
+				case 'w':
+				case 'W':
+				case 'B':
+				case 'A':
+				case 'G':
+				case 'Z':
+				case 'z':
+				case 'h':
+				case 'H':
+				case 'v':
+				case 'V':
+				case 'R':
+				case 'X':
+					break;
+				default:
+					if (e >= '1' && e <= '9') {
+						// back reference
+						while (pos < regex.length() && Character.isDigit(regex.charAt(pos))) {
+							pos++;
+						}
+						break;
+					}
+					return false;
+			}
+			if (pos <= 0) {
+				return false;
+			}
+			nonLiteral();
+			return true;
+		}
+
+		/**
+		 * Adds a literal character to the current run, taking any quantifier after it into
+		 * account.
+		 */
+		private void literal(char c) {
+			boolean quantified = false;
+			boolean required = true;
+			while (atQuantifier()) {
+				quantified = true;
+				required &= minimumRepeats() > 0;
+				skipQuantifier();
+			}
+			if (required) {
+				run.append(c);
+			}
+			if (quantified) {
+				endRun();
+			}
+		}
+
+		/**
+		 * Ends the current run after an atom that is not a literal, skipping its quantifiers.
+		 */
+		private void nonLiteral() {
+			endRun();
+			while (atQuantifier()) {
+				skipQuantifier();
+			}
+		}
+
+		private void endRun() {
+			if (best == null || run.length() > best.length()) {
+				best = run.length() == 0 ? best : run.toString();
+			}
+			run.setLength(0);
+		}
+
+		/**
+		 * Determines whether a quantifier starts at the current position. Empty quotes are
+		 * ignored since a quantifier after them applies to the atom before them.
+		 */
+		private boolean atQuantifier() {
+			while (regex.startsWith("\\Q\\E", pos)) {
+				pos += 4;
+			}
+			if (pos >= regex.length()) {
+				return false;
+			}
+			char c = regex.charAt(pos);
+			return c == '?' || c == '*' || c == '+' || c == '{';
+		}
+
+		/**
+		 * @return the minimum number of repeats allowed by the quantifier at the current position
+		 */
+		private int minimumRepeats() {
+			char c = regex.charAt(pos);
+			if (c != '{') {
+				return c == '+' ? 1 : 0;
+			}
+			int i = pos + 1;
+			int min = 0;
+			while (Character.isDigit(regex.charAt(i))) {
+				min = Math.min(min * 10 + (regex.charAt(i) - '0'), 1_000_000);
+				i++;
+			}
+			return min;
+		}
+
+		private void skipQuantifier() {
+			if (regex.charAt(pos) == '{') {
+				pos = regex.indexOf('}', pos) + 1;
+				if (pos <= 0) {
+					throw new IndexOutOfBoundsException("Unclosed quantifier");
+				}
+			} else {
+				pos++;
+			}
+			// lazy or possessive modifier
+			if (pos < regex.length() && (regex.charAt(pos) == '?' || regex.charAt(pos) == '+')) {
+				pos++;
+			}
+		}
+
+		/**
+		 * @return the index just past the group opening at the given index
+		 */
+		private int skipGroup(int start) {
+			int depth = 0;
+			int i = start;
+			while (true) {
+				char c = regex.charAt(i);
+				if (c == '\\') {
+					i = skipEscape(i);
+				} else if (c == '[') {
+					i = skipClass(i);
+				} else {
+					if (c == '(') {
+						depth++;
+					} else if (c == ')' && --depth == 0) {
+						return i + 1;
+					}
+					i++;
+				}
+			}
+		}
+
+		/**
+		 * @return the index just past the character class opening at the given index
+		 */
+		private int skipClass(int start) {
+			int i = start + 1;
+			if (regex.charAt(i) == '^') {
+				i++;
+			}
+			if (regex.charAt(i) == ']') {
+				i++;
+			}
+			while (true) {
+				char c = regex.charAt(i);
+				if (c == '\\') {
+					i = skipEscape(i);
+				} else if (c == '[') {
+					i = skipClass(i);
+				} else if (c == ']') {
+					return i + 1;
+				} else {
+					i++;
+				}
+			}
+		}
+
+		/**
+		 * @return the index just past the escape starting at the given index, treating quoted
+		 *         sections as a single escape
+		 */
+		private int skipEscape(int start) {
+			if (regex.charAt(start + 1) == 'Q') {
+				int end = regex.indexOf("\\E", start + 2);
+				return end < 0 ? regex.length() : end + 2;
+			}
+			return start + 2;
+		}
+	}
+}
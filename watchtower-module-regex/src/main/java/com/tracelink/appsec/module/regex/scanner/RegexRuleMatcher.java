@@ -0,0 +1,176 @@
+package com.tracelink.appsec.module.regex.scanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.tracelink.appsec.module.regex.model.RegexCustomRuleDto;
+import com.tracelink.appsec.watchtower.core.benchmark.Benchmarker;
+
+/**
+ * Compiled form of a list of regex rules, built once per scan for each set of rules that apply to
+ * the same files. Each rule's pattern is analyzed for a literal that every match must contain, and
+ * all of those literals are searched for together in a single pass over each line. Only rules
+ * whose literal was found, or that have no usable literal, go on to run their full
+ * {@link Pattern}. The rules that match a line are the same as if every pattern had been run
+ * against it.
+ * <p>
+ * This object is immutable and may be shared between threads. Scanning state is kept in the
+ * {@link FileMatcher} created for each file.
+ *
+ * @author csmith
+ */
+public class RegexRuleMatcher {
+	/**
+	 * Shorter literals are found on nearly every line and are not worth searching for
+	 */
+	private static final int MIN_LITERAL_LENGTH = 2;
+
+	private final List<RegexCustomRuleDto> rules;
+	private final Pattern[] patterns;
+	private final int[] unfilteredRules;
+	private final AhoCorasick literals;
+	private final int[][] literalRules;
+
+	/**
+	 * Compiles the given regex rules. All rules are run against every line given to this matcher,
+	 * so they should already be filtered to those valid for the files being scanned.
+	 *
+	 * @param regexRules the rules to scan with
+	 */
+	public RegexRuleMatcher(List<RegexCustomRuleDto> regexRules) {
+		this.rules = Collections.unmodifiableList(new ArrayList<>(regexRules));
+		this.patterns = new Pattern[regexRules.size()];
+
+		Map<String, List<Integer>> rulesByLiteral = new LinkedHashMap<>();
+		List<Integer> unfiltered = new ArrayList<>();
+		for (int i = 0; i < regexRules.size(); i++) {
+			patterns[i] = regexRules.get(i).getCompiledPattern();
+			String literal = RegexLiterals.requiredLiteral(patterns[i]);
+			if (literal == null || literal.length() < MIN_LITERAL_LENGTH) {
+				unfiltered.add(i);
+			} else {
+				rulesByLiteral.computeIfAbsent(literal, k -> new ArrayList<>()).add(i);
+			}
+		}
+		this.unfilteredRules = unfiltered.stream().mapToInt(Integer::intValue).toArray();
+		this.literals = rulesByLiteral.isEmpty() ? null
+				: new AhoCorasick(new ArrayList<>(rulesByLiteral.keySet()));
+		this.literalRules = rulesByLiteral.values().stream()
+				.map(indexes -> indexes.stream().mapToInt(Integer::intValue).toArray())
+				.toArray(int[][]::new);
+	}
+
+	/**
+	 * @return the regex rules compiled into this matcher, in the order they are reported
+	 */
+	public List<RegexCustomRuleDto> getRules() {
+		return rules;
+	}
+
+	/**
+	 * @return the number of rules that must be run on every line because they have no usable
+	 *         literal
+	 */
+	public int getUnfilteredRuleCount() {
+		return unfilteredRules.length;
+	}
+
+	/**
+	 * Creates a matcher for the lines of a single file. The returned object is not thread safe.
+	 *
+	 * @param content      the content of the file, which lines are given as offsets into
+	 * @param benchmarking the benchmarking tool to time each rule with
+	 * @return a matcher for the lines of the file
+	 */
+	public FileMatcher newFileMatcher(CharSequence content, RegexBenchmarking benchmarking) {
+		return new FileMatcher(content, benchmarking);
+	}
+
+	/**
+	 * Matches the lines of a single file against the rules of a {@link RegexRuleMatcher}. Each
+	 * rule's {@link Matcher} is created once for the file and limited to the region of each line,
+	 * so patterns see the same input as if they were run against the line on its own.
+	 */
+	public final class FileMatcher {
+		private final CharSequence content;
+		private final RegexBenchmarking benchmarking;
+		private final Matcher[] matchers;
+		private final int[] seen;
+		private final int[] candidates;
+		private int stamp = 0;
+
+		private FileMatcher(CharSequence content, RegexBenchmarking benchmarking) {
+			this.content = content;
+			this.benchmarking = benchmarking;
+			this.matchers = new Matcher[rules.size()];
+			this.seen = new int[rules.size()];
+			this.candidates = new int[rules.size()];
+		}
+
+		/**
+		 * Finds all rules with a pattern that matches somewhere in the given line.
+		 *
+		 * @param start the offset of the first char of the line in the file content
+		 * @param end   the offset after the last char of the line, excluding the line terminator
+		 * @return the matching rules, in the same order as {@link RegexRuleMatcher#getRules()}
+		 */
+		public List<RegexCustomRuleDto> match(int start, int end) {
+			if (++stamp == 0) {
+				Arrays.fill(seen, 0);
+				stamp = 1;
+			}
+			int count = 0;
+			if (literals != null) {
+				int state = literals.start();
+				for (int i = start; i < end; i++) {
+					state = literals.next(state, content.charAt(i));
+					for (int literal : literals.outputs(state)) {
+						for (int rule : literalRules[literal]) {
+							if (seen[rule] != stamp) {
+								seen[rule] = stamp;
+								candidates[count++] = rule;
+							}
+						}
+					}
+				}
+			}
+			for (int rule : unfilteredRules) {
+				candidates[count++] = rule;
+			}
+			if (count == 0) {
+				return Collections.emptyList();
+			}
+			Arrays.sort(candidates, 0, count);
+
+			List<RegexCustomRuleDto> matches = null;
+			for (int c = 0; c < count; c++) {
+				int rule = candidates[c];
+				if (find(rule, start, end)) {
+					if (matches == null) {
+						matches = new ArrayList<>();
+					}
+					matches.add(rules.get(rule));
+				}
+			}
+			return matches == null ? Collections.emptyList() : matches;
+		}
+
+		private boolean find(int rule, int start, int end) {
+			try (Benchmarker b = benchmarking.newRuleBenchmarker(rules.get(rule))) {
+				Matcher matcher = matchers[rule];
+				if (matcher == null) {
+					matcher = patterns[rule].matcher(content);
+					matchers[rule] = matcher;
+				}
+				// anchoring and opaque bounds make the region behave like a separate string
+				return matcher.region(start, end).find();
+			}
+		}
+	}
+}
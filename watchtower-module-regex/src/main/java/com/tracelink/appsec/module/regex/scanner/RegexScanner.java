@@ -1,14 +1,22 @@
 package com.tracelink.appsec.module.regex.scanner;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import com.tracelink.appsec.module.regex.model.RegexCustomRuleDto;
 import com.tracelink.appsec.watchtower.core.benchmark.Benchmarker;
 import com.tracelink.appsec.watchtower.core.benchmark.TimerType;
 import com.tracelink.appsec.watchtower.core.module.scanner.ICodeScanner;
 import com.tracelink.appsec.watchtower.core.rule.RuleDto;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanConfig;
+import com.tracelink.appsec.watchtower.core.scan.code.FileManifest;
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.AbstractProcessor;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.CallableCreator;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.MultiThreadedProcessor;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.ScanResultCache;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.SingleThreadedProcessor;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
@@ -18,10 +26,39 @@ import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanError;
  * that define patterns to find. If a pattern matches, a violation is logged.
  * <p>
  * Note: regexes are run line by line, so patterns that may match across lines will not match.
+ * <p>
+ * The rules that apply to each file are compiled into a {@link RegexRuleMatcher} once per scan,
+ * which finds the candidate rules for each line in one pass before running their full patterns.
+ * Files are read as UTF-8 through a {@link SourceFileReader} shared by the threads of the scan.
+ * Files whose report is in the {@link ScanResultCache} of the scan are not read again.
  *
  * @author csmith, mcool
  */
 public class RegexScanner implements ICodeScanner {
+	public static final long DEFAULT_MAX_FILE_SIZE = 10L * 1024 * 1024;
+	public static final int DEFAULT_MAX_LINE_LENGTH = 1_000_000;
+
+	private final long maxFileSize;
+	private final int maxLineLength;
+
+	/**
+	 * Creates a scanner with the default file size and line length limits.
+	 */
+	public RegexScanner() {
+		this(DEFAULT_MAX_FILE_SIZE, DEFAULT_MAX_LINE_LENGTH);
+	}
+
+	/**
+	 * Creates a scanner that skips files and lines over the given limits, so that a single large
+	 * generated or minified file cannot hold up a scan thread.
+	 *
+	 * @param maxFileSize   the size in bytes of the largest file to scan
+	 * @param maxLineLength the length in chars of the longest line to scan
+	 */
+	public RegexScanner(long maxFileSize, int maxLineLength) {
+		this.maxFileSize = maxFileSize;
+		this.maxLineLength = maxLineLength;
+	}
 
 	/**
 	 * {@inheritDoc}
@@ -35,17 +72,21 @@ public class RegexScanner implements ICodeScanner {
 		try (Benchmarker totalTime =
 				benchmarking.newBenchmarker(TimerType.DefaultTimerType.WALL_CLOCK)) {
 			AbstractProcessor processor =
-					getProcessor(config.getThreads(), benchmarking);
+					getProcessor(config.getThreads(), benchmarking, config.getResultCache());
 
+			// Only create tasks for files that at least one rule applies to
+			ScanPlan plan = config.getScanPlan();
+			FileManifest manifest = config.getFileManifest().filter(entry -> !plan
+					.getRules(RegexCustomRuleDto.class, entry.getPath().toString()).isEmpty());
 			try (Benchmarker b = benchmarking.newBenchmarker(TimerType.DefaultTimerType.SCAN)) {
-				processor.runScan(config.getRuleset(), config.getWorkingDirectory());
+				processor.runScan(plan, manifest);
 			}
 
 			try (Benchmarker reportTime =
 					benchmarking.newBenchmarker(TimerType.DefaultTimerType.REPORT_GENERATE)) {
 				processor.getReports().stream().forEach(report::join);
 				processor.getSystemExceptions().stream()
-						.forEach(exception -> new CodeScanError(exception));
+						.forEach(exception -> report.addError(new CodeScanError(exception)));
 			}
 		}
 		report.setRuleBenchmarking(benchmarking);
@@ -53,16 +94,40 @@ public class RegexScanner implements ICodeScanner {
 	}
 
 	protected AbstractProcessor getProcessor(int threads, RegexBenchmarking benchmarking) {
+		return getProcessor(threads, benchmarking, null);
+	}
+
+	protected AbstractProcessor getProcessor(int threads, RegexBenchmarking benchmarking,
+			ScanResultCache resultCache) {
+		CallableCreator creator = getCreator(benchmarking);
+		if (resultCache != null) {
+			creator = resultCache.cachingCreator("regex", RegexCustomRuleDto.class, creator,
+					benchmarking);
+		}
 		if (threads > 0) {
-			return new MultiThreadedProcessor(getCreator(benchmarking), threads);
+			return new MultiThreadedProcessor(creator, threads);
 		} else {
-			return new SingleThreadedProcessor(getCreator(benchmarking));
+			return new SingleThreadedProcessor(creator);
 		}
 	}
 
 	protected CallableCreator getCreator(RegexBenchmarking benchmarking) {
-		return (file, ruleset) -> new RegexCallable(file, ruleset,
-				benchmarking);
+		// The plan returns the same list for files with the same rules, so compile each list once
+		Map<List<RegexCustomRuleDto>, RegexRuleMatcher> matchers =
+				Collections.synchronizedMap(new IdentityHashMap<>());
+		SourceFileReader.Pool readers = new SourceFileReader.Pool(maxFileSize);
+		return (file, plan) -> {
+			List<RegexCustomRuleDto> rules =
+					plan.getRules(RegexCustomRuleDto.class, file.toString());
+			RegexRuleMatcher ruleMatcher = matchers.computeIfAbsent(rules, r -> {
+				try (Benchmarker b =
+						benchmarking.newBenchmarker(RegexTimerType.RULES_GENERATE)) {
+					return new RegexRuleMatcher(r);
+				}
+			});
+			return new RegexCallable(file, ruleMatcher, benchmarking, readers,
+					maxLineLength);
+		};
 	}
 
 	@Override
@@ -0,0 +1,219 @@
+package com.tracelink.appsec.module.regex.scanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Reads a file as UTF-8 into a reusable {@link CharBuffer} and indexes the start and end of each
+ * line, so that rules can be matched against the decoded content without allocating a
+ * {@link String} per line. Bytes are streamed through a small direct buffer instead of being read
+ * all at once, and malformed input is replaced rather than failing the file. Lines are split the
+ * same way as {@link java.io.BufferedReader#readLine()}.
+ * <p>
+ * A reader holds on to its buffers between files, up to {@link #RETAINED_CHARS}, so it is not
+ * thread safe. Use a {@link Pool} to share readers between the callables of a scan. The content
+ * and line index are only valid until the next call to {@link #read(Path)}.
+ *
+ * @author csmith
+ */
+public class SourceFileReader {
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+	/**
+	 * Larger char buffers are only kept for the file that needed them
+	 */
+	static final int RETAINED_CHARS = 1024 * 1024;
+
+	private final long maxFileSize;
+	private final ByteBuffer bytes = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private CharBuffer chars = CharBuffer.allocate(0);
+	private int[] lineStarts = new int[256];
+	private int[] lineEnds = new int[256];
+	private int lineCount;
+
+	/**
+	 * Creates a reader for files up to the given size.
+	 *
+	 * @param maxFileSize the size in bytes of the largest file to read
+	 */
+	public SourceFileReader(long maxFileSize) {
+		this.maxFileSize = maxFileSize;
+	}
+
+	/**
+	 * Reads and indexes the given file, replacing the content of the previous file.
+	 *
+	 * @param file the file to read
+	 * @return true if the file was read, or false if it is larger than the maximum file size
+	 * @throws IOException if the file could not be read
+	 */
+	public boolean read(Path file) throws IOException {
+		lineCount = 0;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > maxFileSize || size > Integer.MAX_VALUE) {
+				return false;
+			}
+			decode(channel, (int) size);
+		}
+		indexLines();
+		return true;
+	}
+
+	private void decode(FileChannel channel, int size) throws IOException {
+		// UTF-8 never decodes to more chars than bytes, including replacements
+		if (chars.capacity() < size || chars.capacity() > RETAINED_CHARS) {
+			chars = CharBuffer.allocate(Math.max(size, 1024));
+		}
+		chars.clear();
+		bytes.clear();
+		decoder.reset();
+		long remaining = size;
+		boolean endOfInput = false;
+		while (!endOfInput) {
+			if (remaining > 0 && bytes.hasRemaining()) {
+				if (bytes.remaining() > remaining) {
+					bytes.limit(bytes.position() + (int) remaining);
+				}
+				int read = channel.read(bytes);
+				if (read < 0) {
+					remaining = 0;
+				} else {
+					remaining -= read;
+				}
+				bytes.limit(bytes.capacity());
+			}
+			endOfInput = remaining == 0;
+			bytes.flip();
+			decodeChunk(endOfInput);
+			bytes.compact();
+		}
+		while (decoder.flush(chars).isOverflow()) {
+			growChars();
+		}
+		chars.flip();
+	}
+
+	private void decodeChunk(boolean endOfInput) {
+		CoderResult result = decoder.decode(bytes, chars, endOfInput);
+		while (result.isOverflow()) {
+			growChars();
+			result = decoder.decode(bytes, chars, endOfInput);
+		}
+	}
+
+	private void growChars() {
+		CharBuffer larger = CharBuffer.allocate(chars.capacity() * 2);
+		chars.flip();
+		larger.put(chars);
+		chars = larger;
+	}
+
+	private void indexLines() {
+		int length = chars.limit();
+		int start = 0;
+		for (int i = 0; i < length; i++) {
+			char c = chars.get(i);
+			if (c == '\n' || c == '\r') {
+				addLine(start, i);
+				if (c == '\r' && i + 1 < length && chars.get(i + 1) == '\n') {
+					i++;
+				}
+				start = i + 1;
+			}
+		}
+		if (start < length) {
+			addLine(start, length);
+		}
+	}
+
+	private void addLine(int start, int end) {
+		if (lineCount == lineStarts.length) {
+			lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+			lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+		}
+		lineStarts[lineCount] = start;
+		lineEnds[lineCount] = end;
+		lineCount++;
+	}
+
+	/**
+	 * @return the decoded content of the last file read. Line offsets are indexes into this
+	 *         buffer
+	 */
+	public CharSequence getContent() {
+		return chars;
+	}
+
+	/**
+	 * @return the number of lines in the last file read
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * @param line the zero-based line index
+	 * @return the offset of the first char of the line
+	 */
+	public int getLineStart(int line) {
+		return lineStarts[line];
+	}
+
+	/**
+	 * @param line the zero-based line index
+	 * @return the offset after the last char of the line, excluding the line terminator
+	 */
+	public int getLineEnd(int line) {
+		return lineEnds[line];
+	}
+
+	/**
+	 * Readers shared between the callables of a scan. Each reader is used by one thread at a time
+	 * and returned to the pool when the file is done, so the buffers of a scan are only allocated
+	 * once per thread.
+	 */
+	public static class Pool {
+		private final long maxFileSize;
+		private final Queue<SourceFileReader> readers = new ConcurrentLinkedQueue<>();
+
+		/**
+		 * Creates a pool of readers for files up to the given size.
+		 *
+		 * @param maxFileSize the size in bytes of the largest file to read
+		 */
+		public Pool(long maxFileSize) {
+			this.maxFileSize = maxFileSize;
+		}
+
+		/**
+		 * @return a reader that is not in use, creating one if needed
+		 */
+		public SourceFileReader borrow() {
+			SourceFileReader reader = readers.poll();
+			return reader == null ? new SourceFileReader(maxFileSize) : reader;
+		}
+
+		/**
+		 * Returns a reader to the pool. The reader must not be used after it is returned.
+		 *
+		 * @param reader the reader to return
+		 */
+		public void release(SourceFileReader reader) {
+			readers.offer(reader);
+		}
+	}
+}
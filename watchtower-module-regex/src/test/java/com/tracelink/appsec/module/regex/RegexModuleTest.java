@@ -2,6 +2,7 @@ package com.tracelink.appsec.module.regex;
 
 import com.tracelink.appsec.module.regex.designer.RegexRuleDesigner;
 import com.tracelink.appsec.module.regex.model.RegexCustomRuleDto;
+import com.tracelink.appsec.module.regex.scanner.RegexScanner;
 import com.tracelink.appsec.module.regex.service.RegexRuleService;
 import com.tracelink.appsec.watchtower.core.module.AbstractCodeScanModule;
 import com.tracelink.appsec.watchtower.core.rule.RulePriority;
@@ -13,7 +14,8 @@ public class RegexModuleTest extends CodeScannerModuleTest {
 
 	@Override
 	protected AbstractCodeScanModule buildScannerModule() {
-		return new RegexModule(new RegexRuleDesigner(), new RegexRuleService(null));
+		return new RegexModule(new RegexRuleDesigner(), new RegexRuleService(null),
+				RegexScanner.DEFAULT_MAX_FILE_SIZE, RegexScanner.DEFAULT_MAX_LINE_LENGTH);
 	}
 
 	@Override
@@ -15,6 +15,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import com.tracelink.appsec.module.regex.model.RegexCustomRuleDto;
 import com.tracelink.appsec.watchtower.core.rule.RulePriority;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,6 +24,11 @@ public class RegexCallableTest {
 	@Mock
 	RulesetDto ruleset;
 
+	private RegexRuleMatcher getMatcher(Path target) {
+		return new RegexRuleMatcher(
+				new ScanPlan(ruleset).getRules(RegexCustomRuleDto.class, target.toString()));
+	}
+
 	@Test
 	public void testFindVio() throws Exception {
 		// setup file
@@ -37,7 +43,8 @@ public class RegexCallableTest {
 		BDDMockito.given(rule.getCompiledPattern()).willReturn(Pattern.compile(".*"));
 
 		// do the test
-		RegexCallable callable = new RegexCallable(target, ruleset, new RegexBenchmarking());
+		RegexCallable callable =
+				new RegexCallable(target, getMatcher(target), new RegexBenchmarking());
 		CodeScanReport report = callable.call();
 		Assertions.assertEquals(1, report.getViolations().size());
 		Assertions.assertEquals(1, report.getViolations().get(0).getLineNum());
@@ -57,7 +64,8 @@ public class RegexCallableTest {
 		BDDMockito.given(rule.getCompiledPattern()).willReturn(Pattern.compile("$^"));
 
 		// do the test
-		RegexCallable callable = new RegexCallable(target, ruleset, new RegexBenchmarking());
+		RegexCallable callable =
+				new RegexCallable(target, getMatcher(target), new RegexBenchmarking());
 		CodeScanReport report = callable.call();
 		Assertions.assertEquals(0, report.getViolations().size());
 	}
@@ -75,7 +83,8 @@ public class RegexCallableTest {
 		BDDMockito.given(ruleset.getAllRules()).willReturn(Collections.singleton(rule));
 
 		// do the test
-		RegexCallable callable = new RegexCallable(target, ruleset, new RegexBenchmarking());
+		RegexCallable callable =
+				new RegexCallable(target, getMatcher(target), new RegexBenchmarking());
 		CodeScanReport report = callable.call();
 		Assertions.assertEquals(0, report.getViolations().size());
 	}
@@ -85,10 +94,46 @@ public class RegexCallableTest {
 		// setup a file
 		Path target = Files.createTempDirectory(null).resolve("foo.txt");
 		// do the test
-		RegexCallable callable = new RegexCallable(target, ruleset, new RegexBenchmarking());
+		RegexCallable callable =
+				new RegexCallable(target, getMatcher(target), new RegexBenchmarking());
+		CodeScanReport report = callable.call();
+		Assertions.assertEquals(0, report.getViolations().size());
+		Assertions.assertEquals(1, report.getErrors().size());
+	}
+
+	@Test
+	public void testSkipsLargeFile() throws Exception {
+		Path target = Files.createTempFile(null, ".txt");
+		Files.write(target, "Test String to search".getBytes());
+		RegexCustomRuleDto rule = BDDMockito.mock(RegexCustomRuleDto.class);
+		BDDMockito.given(rule.isValidExtension(BDDMockito.anyString())).willReturn(true);
+		BDDMockito.given(ruleset.getAllRules()).willReturn(Collections.singleton(rule));
+		BDDMockito.given(rule.getCompiledPattern()).willReturn(Pattern.compile(".*"));
+
+		RegexCallable callable = new RegexCallable(target, getMatcher(target),
+				new RegexBenchmarking(), new SourceFileReader.Pool(10), 100);
 		CodeScanReport report = callable.call();
 		Assertions.assertEquals(0, report.getViolations().size());
 		Assertions.assertEquals(1, report.getErrors().size());
 	}
 
+	@Test
+	public void testSkipsLongLines() throws Exception {
+		Path target = Files.createTempFile(null, ".txt");
+		Files.write(target, "short\nthis line is too long\nshort".getBytes());
+		RegexCustomRuleDto rule = BDDMockito.mock(RegexCustomRuleDto.class);
+		BDDMockito.given(rule.isValidExtension(BDDMockito.anyString())).willReturn(true);
+		BDDMockito.given(rule.getPriority()).willReturn(RulePriority.HIGH);
+		BDDMockito.given(ruleset.getAllRules()).willReturn(Collections.singleton(rule));
+		BDDMockito.given(rule.getCompiledPattern()).willReturn(Pattern.compile(".*"));
+
+		RegexCallable callable = new RegexCallable(target, getMatcher(target),
+				new RegexBenchmarking(), new SourceFileReader.Pool(1024), 10);
+		CodeScanReport report = callable.call();
+		Assertions.assertEquals(2, report.getViolations().size());
+		Assertions.assertEquals(1, report.getViolations().get(0).getLineNum());
+		Assertions.assertEquals(3, report.getViolations().get(1).getLineNum());
+		Assertions.assertEquals(1, report.getErrors().size());
+	}
+
 }
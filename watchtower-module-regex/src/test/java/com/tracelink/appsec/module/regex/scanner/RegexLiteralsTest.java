@@ -0,0 +1,67 @@
+package com.tracelink.appsec.module.regex.scanner;
+
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RegexLiteralsTest {
+
+	private static String literal(String regex) {
+		return RegexLiterals.requiredLiteral(Pattern.compile(regex));
+	}
+
+	@Test
+	public void testPlainLiteral() {
+		Assertions.assertEquals("password", literal("password"));
+	}
+
+	@Test
+	public void testLongestRun() {
+		Assertions.assertEquals("AKIA", literal("AKIA[0-9A-Z]{16}"));
+		Assertions.assertEquals("secret_key", literal("(?:aws)?secret_key\\s*=\\s*\\w+"));
+		Assertions.assertEquals("ab", literal("ab.cd?"));
+	}
+
+	@Test
+	public void testEscapes() {
+		Assertions.assertEquals("a.b(c)", literal("a\\.b\\(c\\)"));
+		Assertions.assertEquals("x*y+z", literal("\\Qx*y+z\\E"));
+		Assertions.assertEquals("token", literal("\\btoken\\d+"));
+		Assertions.assertEquals("foo", literal("\\x41?foo\\u0042"));
+		Assertions.assertEquals("bar", literal("\\p{Alpha}bar\\p{L}"));
+	}
+
+	@Test
+	public void testQuantifiers() {
+		Assertions.assertEquals("ab", literal("abc?"));
+		Assertions.assertEquals("abc", literal("abc+d"));
+		Assertions.assertEquals("ab", literal("abc{0,2}"));
+		Assertions.assertEquals("abc", literal("abc{2}"));
+		Assertions.assertEquals("xyz", literal("a*?xyz"));
+	}
+
+	@Test
+	public void testGroupsAndClasses() {
+		Assertions.assertEquals("end", literal("(a|b[)])+end"));
+		Assertions.assertEquals("key", literal("[\\]x]key[^]]"));
+	}
+
+	@Test
+	public void testNoLiteral() {
+		Assertions.assertNull(literal("foo|bar"));
+		Assertions.assertNull(literal("(?i)password"));
+		Assertions.assertNull(literal("pass(?i:word)"));
+		Assertions.assertNull(literal("\\d+\\s*"));
+		Assertions.assertNull(literal(".*"));
+		Assertions.assertNull(RegexLiterals.requiredLiteral(
+				Pattern.compile("password", Pattern.CASE_INSENSITIVE)));
+		Assertions.assertNull(RegexLiterals.requiredLiteral(null));
+	}
+
+	@Test
+	public void testLiteralFlag() {
+		Assertions.assertEquals("a.b|c", RegexLiterals.requiredLiteral(
+				Pattern.compile("a.b|c", Pattern.LITERAL)));
+	}
+}
@@ -0,0 +1,134 @@
+package com.tracelink.appsec.module.regex.scanner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.tracelink.appsec.module.regex.model.RegexCustomRuleDto;
+import com.tracelink.appsec.watchtower.core.benchmark.Benchmarker;
+import com.tracelink.appsec.watchtower.core.rule.RuleDto;
+import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
+
+/**
+ * JMH benchmark comparing the {@link RegexRuleMatcher} against running every rule's pattern on
+ * every line, which is how {@link RegexCallable} used to scan. Not run as part of the unit tests;
+ * run it from the IDE or with the main method on the test classpath.
+ *
+ * @author csmith
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegexRuleMatcherBenchmark {
+	private static final String FILE_NAME = "Example.java";
+
+	@Param({"50", "400"})
+	private int ruleCount;
+
+	private RulesetDto ruleset;
+	private List<String> lines;
+	private String content;
+	private RegexRuleMatcher ruleMatcher;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		Set<RuleDto> rules = new HashSet<>();
+		for (int i = 0; i < ruleCount; i++) {
+			RegexCustomRuleDto rule = new RegexCustomRuleDto();
+			rule.setName("rule" + i);
+			rule.setFileExtension(i % 10 == 0 ? ".py" : "");
+			if (i % 20 == 0) {
+				// no usable literal, always runs
+				rule.setRegexPattern("[A-Fa-f0-9]{" + (32 + i % 8) + "}\\b");
+			} else {
+				rule.setRegexPattern("(?:\"|')?secret_token_" + i + "\\s*[:=]\\s*['\"]\\w{16,}");
+			}
+			rules.add(rule);
+		}
+
+		lines = new ArrayList<>();
+		String[] code = {
+				"public class Example {",
+				"	private static final String NAME = \"watchtower\";",
+				"	public int count(List<String> values) {",
+				"		return values.stream().filter(v -> v.length() > 3).count();",
+				"	}",
+				"	// TODO remove this",
+				"}"
+		};
+		for (int i = 0; i < 5000; i++) {
+			if (random.nextInt(500) == 0) {
+				lines.add("	String secret_token_" + (1 + random.nextInt(ruleCount - 1))
+						+ " = \"abcdefghijklmnopqrstu\";");
+			} else {
+				lines.add(code[random.nextInt(code.length)]);
+			}
+		}
+		content = String.join("\n", lines);
+		ruleset = new RulesetDto();
+		ruleset.setRules(rules);
+		ruleMatcher = new RegexRuleMatcher(
+				new ScanPlan(ruleset).getRules(RegexCustomRuleDto.class, FILE_NAME));
+	}
+
+	/**
+	 * The scan loop from before the {@link RegexRuleMatcher}: every rule of the ruleset is
+	 * collected, checked and run on every line.
+	 */
+	@Benchmark
+	public void everyRuleEveryLine(Blackhole blackhole) {
+		RegexBenchmarking benchmarking = new RegexBenchmarking();
+		for (String line : lines) {
+			for (RuleDto rule : ruleset.getAllRules()) {
+				if (rule instanceof RegexCustomRuleDto) {
+					RegexCustomRuleDto regexRule = (RegexCustomRuleDto) rule;
+					if (regexRule.isValidExtension(FILE_NAME)) {
+						try (Benchmarker b = benchmarking.newRuleBenchmarker(regexRule)) {
+							blackhole.consume(regexRule.getCompiledPattern().matcher(line).find());
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void ruleMatcher(Blackhole blackhole) {
+		RegexRuleMatcher.FileMatcher matcher =
+				ruleMatcher.newFileMatcher(content, new RegexBenchmarking());
+		int start = 0;
+		for (String line : lines) {
+			blackhole.consume(matcher.match(start, start + line.length()));
+			start += line.length() + 1;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(RegexRuleMatcherBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -1,7 +1,10 @@
 package com.tracelink.appsec.module.regex.scanner;
 
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.concurrent.Callable;
 
 import org.junit.jupiter.api.Assertions;
@@ -13,6 +16,8 @@ import com.tracelink.appsec.module.regex.controller.RegexRuleEditControllerTest;
 import com.tracelink.appsec.module.regex.model.RegexCustomRuleDto;
 import com.tracelink.appsec.watchtower.core.ruleset.RulesetDto;
 import com.tracelink.appsec.watchtower.core.scan.code.CodeScanConfig;
+import com.tracelink.appsec.watchtower.core.scan.code.ScanPlan;
+import com.tracelink.appsec.watchtower.core.scan.code.processor.CallableCreator;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.MultiThreadedProcessor;
 import com.tracelink.appsec.watchtower.core.scan.code.processor.SingleThreadedProcessor;
 import com.tracelink.appsec.watchtower.core.scan.code.report.CodeScanReport;
@@ -44,10 +49,68 @@ public class RegexScannerTest {
 		Assertions.assertEquals(0, report.getViolations().size());
 	}
 
+	@Test
+	public void testScanUsesRulesForFileExtension() throws Exception {
+		RegexCustomRuleDto javaRule = new RegexCustomRuleDto();
+		javaRule.setName("java");
+		javaRule.setRegexPattern("password");
+		javaRule.setFileExtension(".java");
+		RegexCustomRuleDto anyRule = new RegexCustomRuleDto();
+		anyRule.setName("any");
+		anyRule.setRegexPattern("pass");
+		anyRule.setFileExtension("");
+		RulesetDto ruleset = new RulesetDto();
+		ruleset.setRules(new HashSet<>(Arrays.asList(javaRule, anyRule)));
+
+		Path workingDirectory = Files.createTempDirectory(null);
+		Files.write(workingDirectory.resolve("Foo.java"), "password".getBytes());
+		Files.write(workingDirectory.resolve("foo.txt"), "password".getBytes());
+		CodeScanConfig config = new CodeScanConfig();
+		config.setRuleset(ruleset);
+		config.setThreads(0);
+		config.setWorkingDirectory(workingDirectory);
+
+		CodeScanReport report = new RegexScanner().scan(config);
+		Assertions.assertEquals(3, report.getViolations().size());
+		Assertions.assertEquals(1, report.getViolations().stream()
+				.filter(v -> v.getViolationName().equals("java")).count());
+		Assertions.assertTrue(report.getViolations().stream()
+				.filter(v -> v.getViolationName().equals("java"))
+				.allMatch(v -> v.getFileName().endsWith("Foo.java")));
+	}
+
+	@Test
+	public void testScanReportsSystemExceptions() throws Exception {
+		RegexCustomRuleDto rule = new RegexCustomRuleDto();
+		rule.setName("any");
+		rule.setRegexPattern("pass");
+		rule.setFileExtension("");
+		RulesetDto ruleset = new RulesetDto();
+		ruleset.setRules(Collections.singleton(rule));
+
+		Path workingDirectory = Files.createTempDirectory(null);
+		Files.write(workingDirectory.resolve("foo.txt"), "password".getBytes());
+		CodeScanConfig config = new CodeScanConfig();
+		config.setRuleset(ruleset);
+		config.setThreads(0);
+		config.setWorkingDirectory(workingDirectory);
+
+		CodeScanReport report = new RegexScanner() {
+			@Override
+			protected CallableCreator getCreator(RegexBenchmarking benchmarking) {
+				return (file, plan) -> () -> {
+					throw new IllegalStateException("bad file");
+				};
+			}
+		}.scan(config);
+		Assertions.assertEquals(1, report.getErrors().size());
+		Assertions.assertTrue(report.getErrors().get(0).getErrorMessage().contains("bad file"));
+	}
+
 	@Test
 	public void testGetCreator() throws Exception {
-		Callable<CodeScanReport> c = new RegexScanner().getCreator(null)
-				.createCallable(Files.createTempFile(null, null), null);
+		Callable<CodeScanReport> c = new RegexScanner().getCreator(new RegexBenchmarking())
+				.createCallable(Files.createTempFile(null, null), new ScanPlan(new RulesetDto()));
 		Assertions.assertEquals(RegexCallable.class.getName(), c.getClass().getName());
 	}
 
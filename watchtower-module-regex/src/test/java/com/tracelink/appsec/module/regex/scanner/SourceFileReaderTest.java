@@ -0,0 +1,97 @@
+package com.tracelink.appsec.module.regex.scanner;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SourceFileReaderTest {
+
+	private static Path write(byte[] data) throws Exception {
+		Path file = Files.createTempFile(null, ".txt");
+		file.toFile().deleteOnExit();
+		Files.write(file, data);
+		return file;
+	}
+
+	private static List<String> lines(SourceFileReader reader) {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < reader.getLineCount(); i++) {
+			lines.add(reader.getContent()
+					.subSequence(reader.getLineStart(i), reader.getLineEnd(i)).toString());
+		}
+		return lines;
+	}
+
+	@Test
+	public void testSplitsLinesLikeBufferedReader() throws Exception {
+		SourceFileReader reader = new SourceFileReader(1024);
+		for (String data : new String[] {"", "one", "one\n", "\n", "one\r\ntwo\rthree\n\nfour",
+				"\r\r\n\n", "trailing\r"}) {
+			Assertions.assertTrue(reader.read(write(data.getBytes(StandardCharsets.UTF_8))));
+			List<String> expected =
+					new BufferedReader(new StringReader(data)).lines().collect(Collectors.toList());
+			Assertions.assertEquals(expected, lines(reader), data);
+		}
+	}
+
+	@Test
+	public void testDecodesUtf8AcrossReads() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		while (sb.length() < 200_000) {
+			sb.append("café € 😀\n");
+		}
+		String data = sb.toString();
+		SourceFileReader reader = new SourceFileReader(Long.MAX_VALUE);
+		Assertions.assertTrue(reader.read(write(data.getBytes(StandardCharsets.UTF_8))));
+		Assertions.assertEquals(data, reader.getContent().toString());
+		Assertions.assertEquals(data.split("\n").length, reader.getLineCount());
+	}
+
+	@Test
+	public void testReplacesMalformedInput() throws Exception {
+		byte[] data = {'a', (byte) 0xff, 'b', '\n', 'c', (byte) 0xc3};
+		SourceFileReader reader = new SourceFileReader(1024);
+		Assertions.assertTrue(reader.read(write(data)));
+		Assertions.assertEquals("a�b\nc�", reader.getContent().toString());
+		Assertions.assertEquals(2, reader.getLineCount());
+	}
+
+	@Test
+	public void testSkipsLargeFile() throws Exception {
+		SourceFileReader reader = new SourceFileReader(4);
+		Assertions.assertTrue(reader.read(write("1234".getBytes(StandardCharsets.UTF_8))));
+		Assertions.assertEquals(1, reader.getLineCount());
+		Assertions.assertFalse(reader.read(write("12345".getBytes(StandardCharsets.UTF_8))));
+		Assertions.assertEquals(0, reader.getLineCount());
+	}
+
+	@Test
+	public void testReuseAfterLargeFile() throws Exception {
+		SourceFileReader reader = new SourceFileReader(Long.MAX_VALUE);
+		byte[] large = new byte[SourceFileReader.RETAINED_CHARS + 1];
+		Arrays.fill(large, (byte) 'a');
+		Assertions.assertTrue(reader.read(write(large)));
+		Assertions.assertEquals(large.length, reader.getContent().length());
+		Assertions.assertTrue(reader.read(write("small".getBytes(StandardCharsets.UTF_8))));
+		Assertions.assertEquals("small", reader.getContent().toString());
+	}
+
+	@Test
+	public void testPoolReusesReaders() {
+		SourceFileReader.Pool pool = new SourceFileReader.Pool(1024);
+		SourceFileReader first = pool.borrow();
+		SourceFileReader second = pool.borrow();
+		Assertions.assertNotSame(first, second);
+		pool.release(first);
+		Assertions.assertSame(first, pool.borrow());
+	}
+}